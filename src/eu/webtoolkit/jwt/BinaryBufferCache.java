@@ -0,0 +1,238 @@
+/*
+ * Copyright (C) 2009 Emweb bv, Herent, Belgium.
+ *
+ * See the LICENSE file for terms of use.
+ */
+package eu.webtoolkit.jwt;
+
+import java.io.StringWriter;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/*
+ * Content addressed store for the binary buffers of a WClientGLWidget.
+ *
+ * Every buffer is identified by a hash of its contents. The browser keeps the
+ * buffers it has downloaded in a map by hash (wtBuffers on the WGLWidget
+ * object), and the GL calls refer to a buffer through that map, so that a
+ * buffer that is uploaded again with the same contents is not downloaded
+ * again.
+ *
+ * When a new buffer has the same size as the buffer that was uploaded at the
+ * same position in the previous generation (see clear()), and only a part of
+ * it changed, only the changed bytes are sent, and the browser patches a copy
+ * of the previous buffer. This is typically the case when a few values of a
+ * grid change.
+ *
+ * Buffers that were not used during the last two generations are evicted,
+ * except for the buffers used by initializeGL(), which is run again when the
+ * WebGL context is restored.
+ */
+final class BinaryBufferCache {
+	private static final Logger logger = LoggerFactory.getLogger(BinaryBufferCache.class);
+
+	private static final String MIME_TYPE = "application/octet";
+
+	private static final class Buffer {
+		final String hash;
+		final WMemoryResource resource;
+		int generation;
+		boolean initial;
+
+		// the bytes that differ from base, starting at patchOffset
+		Buffer base;
+		WMemoryResource patch;
+		int patchOffset;
+
+		Buffer(String hash, byte[] data) {
+			this.hash = hash;
+			this.resource = new WMemoryResource(MIME_TYPE);
+			this.resource.setData(data);
+		}
+	}
+
+	private final Map<String, Buffer> buffers = new HashMap<String, Buffer>();
+	private List<Buffer> uploads = new ArrayList<Buffer>();
+	private List<Buffer> previousUploads = new ArrayList<Buffer>();
+	private final Map<String, Buffer> pending = new LinkedHashMap<String, Buffer>();
+	private final Set<String> evicted = new LinkedHashSet<String>();
+	private int generation = 0;
+	private boolean initializing = false;
+
+	/*
+	 * Adds the first size bytes of data, and returns the JavaScript
+	 * expression for the corresponding ArrayBuffer in the browser.
+	 */
+	String add(byte[] data, int size) {
+		String hash = hash(data, size);
+		Buffer buffer = buffers.get(hash);
+		if (buffer == null) {
+			buffer = new Buffer(hash, Arrays.copyOf(data, size));
+			if (uploads.size() < previousUploads.size())
+				setPatch(buffer, previousUploads.get(uploads.size()));
+			buffers.put(hash, buffer);
+
+			// the browser still has it if the eviction was not rendered yet
+			evicted.remove(hash);
+		}
+
+		buffer.generation = generation;
+		if (initializing)
+			buffer.initial = true;
+		uploads.add(buffer);
+		pending.put(hash, buffer);
+
+		return "obj.wtBuffers['" + hash + "']";
+	}
+
+	/*
+	 * Marks the buffers that are added until setInitializing(false) as used
+	 * by initializeGL().
+	 */
+	void setInitializing(boolean initializing) {
+		if (initializing) {
+			for (Buffer buffer : buffers.values())
+				buffer.initial = false;
+		}
+		this.initializing = initializing;
+	}
+
+	/*
+	 * Starts a new generation, evicting the buffers that were not used in
+	 * this generation nor in the previous one.
+	 */
+	void clear() {
+		++generation;
+		for (Iterator<Buffer> i = buffers.values().iterator(); i.hasNext();) {
+			Buffer buffer = i.next();
+			if (!buffer.initial && generation - buffer.generation > 1) {
+				i.remove();
+				evicted.add(buffer.hash);
+			}
+		}
+
+		for (Buffer buffer : buffers.values()) {
+			if (buffer.base != null && !buffers.containsKey(buffer.base.hash)) {
+				buffer.base = null;
+				buffer.patch = null;
+			}
+		}
+
+		previousUploads = uploads;
+		uploads = new ArrayList<Buffer>();
+	}
+
+	boolean isPreloadNeeded() {
+		return !pending.isEmpty() || !evicted.isEmpty();
+	}
+
+	/*
+	 * Renders the JavaScript that loads the buffers used by the GL calls since
+	 * the last call, in the browser's WGLWidget object o.
+	 *
+	 * A buffer is only downloaded when the browser does not have it (e.g. when
+	 * the widget was rendered again). When it has the base of a patched
+	 * buffer, only the patch is downloaded. Evicted buffers are removed after
+	 * the pending updates, which may still use them, were run.
+	 */
+	void renderPreload(StringWriter out, String jsClass) {
+		out.append("if(o.ctx)(function(o){\n")
+			.append("const c=o.wtBuffers||(o.wtBuffers={}),e=o.wtEvicted||(o.wtEvicted={});\n");
+
+		if (!evicted.isEmpty()) {
+			out.append("const d=[");
+			appendHashes(out, evicted);
+			out.append("];\nfor(const h of d)e[h]=true;\n")
+				.append("o.updates.push(function(){for(const h of d)if(e[h]){delete e[h];delete c[h];}});\n");
+			evicted.clear();
+		}
+
+		out.append("const b=[");
+		boolean first = true;
+		for (Buffer buffer : pending.values()) {
+			if (!first)
+				out.append(',');
+			first = false;
+			out.append("['").append(buffer.hash).append("','").append(buffer.resource.getUrl()).append('\'');
+			if (buffer.patch != null)
+				out.append(",'").append(buffer.base.hash).append("','").append(buffer.patch.getUrl()).append("',")
+					.append(String.valueOf(buffer.patchOffset));
+			out.append(']');
+		}
+		pending.clear();
+
+		out.append("],f=[];\n")
+			.append("for(const x of b)if(!c[x[0]]||e[x[0]])")
+			.append("f.push(x.length>2&&c[x[2]]&&!e[x[2]]?[x[0],x[3],x[2],x[4]]:[x[0],x[1]]);\n")
+			.append("o.preloadingBuffers++;\n")
+			.append("new ").append(jsClass).append("._p_.ArrayBufferPreloader(f.map(x=>x[1]),function(r){\n")
+			.append("for(let i=0;i<f.length;++i){\nconst x=f[i];\nif(r[i]==null)continue;\n")
+			.append("if(x.length>2){const a=new Uint8Array(c[x[2]].byteLength);")
+			.append("a.set(new Uint8Array(c[x[2]]));a.set(new Uint8Array(r[i]),x[3]);c[x[0]]=a.buffer;}")
+			.append("else c[x[0]]=r[i];\ndelete e[x[0]];\n}\n")
+			.append("o.preloadingBuffers--;o.handlePreload();\n});\n})(o);\n");
+	}
+
+	private static void appendHashes(StringWriter out, Set<String> hashes) {
+		boolean first = true;
+		for (String hash : hashes) {
+			if (!first)
+				out.append(',');
+			first = false;
+			out.append('\'').append(hash).append('\'');
+		}
+	}
+
+	/*
+	 * Sends buffer as a patch of base, if only a small part of it differs.
+	 */
+	private static void setPatch(Buffer buffer, Buffer base) {
+		byte[] data = buffer.resource.getData();
+		byte[] baseData = base.resource.getData();
+		if (data.length != baseData.length)
+			return;
+
+		int begin = 0;
+		while (begin < data.length && data[begin] == baseData[begin])
+			++begin;
+		int end = data.length;
+		while (end > begin && data[end - 1] == baseData[end - 1])
+			--end;
+
+		if (end - begin > data.length / 2)
+			return;
+
+		buffer.base = base;
+		buffer.patch = new WMemoryResource(MIME_TYPE);
+		buffer.patch.setData(Arrays.copyOfRange(data, begin, end));
+		buffer.patchOffset = begin;
+	}
+
+	private static String hash(byte[] data, int size) {
+		try {
+			MessageDigest d = MessageDigest.getInstance("SHA-256");
+			d.update(data, 0, size);
+			byte[] digest = d.digest();
+			StringBuilder result = new StringBuilder(32);
+			for (int i = 0; i < 16; ++i)
+				result.append(String.format("%02x", digest[i]));
+			return result.toString();
+		} catch (NoSuchAlgorithmException e) {
+			logger.error("NoSuchAlgorithmException", e);
+			return Integer.toHexString(Arrays.hashCode(Arrays.copyOf(data, size))) + "-"
+					+ Integer.toHexString(size);
+		}
+	}
+}
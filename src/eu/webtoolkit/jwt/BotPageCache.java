@@ -0,0 +1,358 @@
+/*
+ * Copyright (C) 2009 Emweb bv, Herent, Belgium.
+ *
+ * See the LICENSE file for terms of use.
+ */
+package eu.webtoolkit.jwt;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import eu.webtoolkit.jwt.servlet.WebRequest;
+import eu.webtoolkit.jwt.servlet.WebResponse;
+
+/*
+ * Cache of the pages that were rendered for bots.
+ *
+ * A bot gets a new (plain HTML) session for every request, which is killed
+ * after its page has been rendered. Since bots get clean URLs without a
+ * session id, the page may be served again to a later bot that requests
+ * the same URL, without creating a session and an application.
+ *
+ * The response of the first request is captured while it is being written,
+ * and stored when the session has been killed after rendering it. Pages are
+ * evicted in least-recently-used order when the cache is full, and expire
+ * after the configured timeout.
+ */
+class BotPageCache {
+	private static final Logger logger = LoggerFactory.getLogger(BotPageCache.class);
+
+	static final class Key {
+		final String internalPath;
+		final String variant;
+
+		Key(String internalPath, String variant) {
+			this.internalPath = internalPath;
+			this.variant = variant;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof Key))
+				return false;
+
+			Key other = (Key) o;
+			return internalPath.equals(other.internalPath) && variant.equals(other.variant);
+		}
+
+		@Override
+		public int hashCode() {
+			return internalPath.hashCode() * 31 + variant.hashCode();
+		}
+	}
+
+	static final class Page {
+		private final int status;
+		private final String contentType;
+		private final List<String[]> headers;
+		private final byte[] body;
+		private final long created;
+
+		Page(int status, String contentType, List<String[]> headers, byte[] body) {
+			this.status = status;
+			this.contentType = contentType;
+			this.headers = headers;
+			this.body = body;
+			this.created = System.currentTimeMillis();
+		}
+	}
+
+	/*
+	 * Wraps the servlet response, recording the status, headers and output.
+	 * A response that sets cookies, redirects or uses a writer is not cached.
+	 */
+	static final class Capture extends HttpServletResponseWrapper {
+		private final Key key;
+		private int status = 200;
+		private String contentType;
+		private List<String[]> headers = new ArrayList<String[]>();
+		private ByteArrayOutputStream body = new ByteArrayOutputStream();
+		private ServletOutputStream outputStream;
+		private boolean cacheable = true;
+
+		Capture(HttpServletResponse response, Key key) {
+			super(response);
+			this.key = key;
+		}
+
+		Key getKey() {
+			return key;
+		}
+
+		Page getPage() {
+			if (!cacheable || status != 200 || contentType == null || !contentType.startsWith("text/html"))
+				return null;
+
+			return new Page(status, contentType, headers, body.toByteArray());
+		}
+
+		@Override
+		public void setStatus(int sc) {
+			status = sc;
+			super.setStatus(sc);
+		}
+
+		@Override
+		public void sendError(int sc) throws IOException {
+			cacheable = false;
+			super.sendError(sc);
+		}
+
+		@Override
+		public void sendError(int sc, String msg) throws IOException {
+			cacheable = false;
+			super.sendError(sc, msg);
+		}
+
+		@Override
+		public void sendRedirect(String location) throws IOException {
+			cacheable = false;
+			super.sendRedirect(location);
+		}
+
+		@Override
+		public void setContentType(String type) {
+			contentType = type;
+			super.setContentType(type);
+		}
+
+		@Override
+		public void addCookie(Cookie cookie) {
+			cacheable = false;
+			super.addCookie(cookie);
+		}
+
+		@Override
+		public void setHeader(String name, String value) {
+			record(name, value, false);
+			super.setHeader(name, value);
+		}
+
+		@Override
+		public void addHeader(String name, String value) {
+			record(name, value, true);
+			super.addHeader(name, value);
+		}
+
+		@Override
+		public void setIntHeader(String name, int value) {
+			record(name, String.valueOf(value), false);
+			super.setIntHeader(name, value);
+		}
+
+		@Override
+		public void addIntHeader(String name, int value) {
+			record(name, String.valueOf(value), true);
+			super.addIntHeader(name, value);
+		}
+
+		@Override
+		public void setDateHeader(String name, long date) {
+			cacheable = false;
+			super.setDateHeader(name, date);
+		}
+
+		@Override
+		public void addDateHeader(String name, long date) {
+			cacheable = false;
+			super.addDateHeader(name, date);
+		}
+
+		@Override
+		public PrintWriter getWriter() throws IOException {
+			cacheable = false;
+			return super.getWriter();
+		}
+
+		@Override
+		public ServletOutputStream getOutputStream() throws IOException {
+			if (outputStream == null) {
+				final ServletOutputStream out = super.getOutputStream();
+				outputStream = new ServletOutputStream() {
+					@Override
+					public void write(int b) throws IOException {
+						body.write(b);
+						out.write(b);
+					}
+
+					@Override
+					public void write(byte[] b, int off, int len) throws IOException {
+						body.write(b, off, len);
+						out.write(b, off, len);
+					}
+
+					@Override
+					public void flush() throws IOException {
+						out.flush();
+					}
+
+					@Override
+					public boolean isReady() {
+						return out.isReady();
+					}
+
+					@Override
+					public void setWriteListener(WriteListener listener) {
+						out.setWriteListener(listener);
+					}
+				};
+			}
+
+			return outputStream;
+		}
+
+		private void record(String name, String value, boolean add) {
+			if (name.equalsIgnoreCase("Set-Cookie"))
+				cacheable = false;
+
+			if (!add) {
+				Iterator<String[]> i = headers.iterator();
+				while (i.hasNext())
+					if (i.next()[0].equalsIgnoreCase(name))
+						i.remove();
+			}
+
+			headers.add(new String[] { name, value });
+		}
+	}
+
+	private final LinkedHashMap<Key, Page> pages = new LinkedHashMap<Key, Page>(16, 0.75f, true);
+
+	/*
+	 * Returns the key of the page requested by a bot in a new session, or
+	 * null if the request may not be served from the cache.
+	 */
+	Key getKey(WebRequest request, Configuration configuration) {
+		if (configuration.getBotPageCacheSize() <= 0
+				|| !"GET".equals(request.getMethod())
+				|| request.getRequestedSessionId() != null
+				|| (request.getCookies() != null && request.getCookies().length > 0)
+				|| request.getParameter("wtd") != null
+				|| request.getParameter("request") != null
+				|| request.getParameter("resource") != null
+				|| !configuration.agentIsBot(request.getUserAgent()))
+			return null;
+
+		String internalPath = request.getPathInfo();
+		String hashE = request.getParameter("_");
+		if (internalPath.length() == 0 && hashE != null)
+			internalPath = hashE;
+
+		StringBuilder variant = new StringBuilder();
+		variant.append(request.getQueryString()).append('\n')
+			.append(request.getHostName(configuration)).append('\n')
+			.append(request.getUrlScheme(configuration)).append('\n')
+			.append(request.getLocale()).append('\n')
+			.append(WebResponse.acceptsGzip(request.getHeader("Accept-Encoding")));
+
+		return new Key(normalize(internalPath), variant.toString());
+	}
+
+	/*
+	 * Serves a cached page, if it is available and has not expired.
+	 */
+	boolean serve(Key key, WebResponse response, Configuration configuration) {
+		Page page;
+		synchronized (this) {
+			page = pages.get(key);
+			if (page != null
+					&& System.currentTimeMillis() - page.created > configuration.getBotPageCacheTimeout() * 1000L) {
+				pages.remove(key);
+				page = null;
+			}
+		}
+
+		if (page == null)
+			return false;
+
+		logger.debug("serving cached page for bot: {}", key.internalPath);
+
+		response.setStatus(page.status);
+		response.setContentType(page.contentType);
+		for (String[] header : page.headers)
+			response.addHeader(header[0], header[1]);
+		response.setContentLength(page.body.length);
+
+		try {
+			response.getOutputStream().write(page.body);
+		} catch (IOException e) {
+			logger.info("IOException serving cached page", e);
+		}
+		response.flush();
+
+		return true;
+	}
+
+	/*
+	 * Stores the page captured for a request, if it is cacheable.
+	 */
+	void store(Capture capture, Configuration configuration) {
+		Page page = capture.getPage();
+		if (page == null)
+			return;
+
+		int size = configuration.getBotPageCacheSize();
+		synchronized (this) {
+			pages.put(capture.getKey(), page);
+			Iterator<Page> i = pages.values().iterator();
+			while (pages.size() > size && i.hasNext()) {
+				i.next();
+				i.remove();
+			}
+		}
+	}
+
+	synchronized int size() {
+		return pages.size();
+	}
+
+	synchronized void invalidate() {
+		pages.clear();
+	}
+
+	/*
+	 * Removes the pages for an internal path, and the paths below it.
+	 */
+	synchronized void invalidate(String internalPath) {
+		String path = normalize(internalPath);
+		String prefix = path.endsWith("/") ? path : path + "/";
+
+		Iterator<Key> i = pages.keySet().iterator();
+		while (i.hasNext()) {
+			Key key = i.next();
+			if (key.internalPath.equals(path) || key.internalPath.startsWith(prefix))
+				i.remove();
+		}
+	}
+
+	private static String normalize(String internalPath) {
+		if (internalPath.length() == 0)
+			return "/";
+		else
+			return StringUtils.prepend(internalPath, '/');
+	}
+}
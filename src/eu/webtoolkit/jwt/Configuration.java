@@ -12,6 +12,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.concurrent.Executor;
 import java.net.InetAddress;
 import java.net.UnknownHostException;
 import java.net.Inet4Address;
@@ -188,6 +189,15 @@ public class Configuration {
 	private List<Network> trustedProxies = Collections.emptyList();
 	private boolean webSocketsEnabled = false;
 	private long asyncContextTimeout = 90000;
+	private int resourcesMaxAge = 0;
+	private int webSocketMaxQueuedMessages = 16;
+	private Executor broadcastExecutor = null;
+	private int broadcastBatchSize = 256;
+	private boolean virtualThreads = false;
+	private boolean responseCompression = false;
+	private boolean xssFilterCache = true;
+	private int botPageCacheSize = 0;
+	private int botPageCacheTimeout = 300;
 
 	private Collection<String> allowedOrigins_ = Collections.<String>emptySet();
 
@@ -266,6 +276,42 @@ public class Configuration {
 						setRedirectMessage(node.getTextContent().trim());
 					} else if (node.getNodeName().equalsIgnoreCase("inline-css")) {
 						setInlineCss(parseBoolean(errorMessage, node));
+					} else if (node.getNodeName().equalsIgnoreCase("virtual-threads")) {
+						setVirtualThreadsEnabled(parseBoolean(errorMessage, node));
+					} else if (node.getNodeName().equalsIgnoreCase("response-compression")) {
+						setResponseCompressionEnabled(parseBoolean(errorMessage, node));
+					} else if (node.getNodeName().equalsIgnoreCase("xss-filter-cache")) {
+						setXssFilterCacheEnabled(parseBoolean(errorMessage, node));
+					} else if (node.getNodeName().equalsIgnoreCase("bot-page-cache-size")) {
+						try {
+							setBotPageCacheSize(Integer.parseInt(node.getTextContent().trim()));
+						} catch (NumberFormatException e) {
+							throw new RuntimeException(errorMessage + "Cannot parse integer value from element " + node.getNodeName());
+						}
+					} else if (node.getNodeName().equalsIgnoreCase("bot-page-cache-timeout")) {
+						try {
+							setBotPageCacheTimeout(Integer.parseInt(node.getTextContent().trim()));
+						} catch (NumberFormatException e) {
+							throw new RuntimeException(errorMessage + "Cannot parse integer value from element " + node.getNodeName());
+						}
+					} else if (node.getNodeName().equalsIgnoreCase("resources-max-age")) {
+						try {
+							setResourcesMaxAge(Integer.parseInt(node.getTextContent().trim()));
+						} catch (NumberFormatException e) {
+							throw new RuntimeException(errorMessage + "Cannot parse integer value from element " + node.getNodeName());
+						}
+					} else if (node.getNodeName().equalsIgnoreCase("websocket-max-queued-messages")) {
+						try {
+							setWebSocketMaxQueuedMessages(Integer.parseInt(node.getTextContent().trim()));
+						} catch (NumberFormatException e) {
+							throw new RuntimeException(errorMessage + "Cannot parse integer value from element " + node.getNodeName());
+						}
+					} else if (node.getNodeName().equalsIgnoreCase("broadcast-batch-size")) {
+						try {
+							setBroadcastBatchSize(Integer.parseInt(node.getTextContent().trim()));
+						} catch (NumberFormatException e) {
+							throw new RuntimeException(errorMessage + "Cannot parse integer value from element " + node.getNodeName());
+						}
 					} else if (node.getNodeName().equalsIgnoreCase("favicon")) {
 						setFavicon(node.getTextContent().trim());
 					} else if (node.getNodeName().equalsIgnoreCase("user-agents")) {
@@ -652,6 +698,35 @@ public class Configuration {
 		this.favicon = favicon;
 	}
 
+	/**
+	 * Configures how long browsers may cache the bundled resources (in seconds).
+	 * <p>
+	 * Files served from the resources URL (see {@link WApplication#getResourcesUrl()}) carry
+	 * an ETag and Last-Modified header, and are revalidated cheaply using a conditional request.
+	 * This sets the <code>max-age</code> during which a browser may reuse its copy without
+	 * revalidating it at all. This applies to every request that is not for the current version
+	 * of the resource.
+	 * <p>
+	 * The URLs of the style sheets that JWt links from the resources URL include the version of
+	 * their contents in a <code>wtv</code> parameter. Only a request whose <code>wtv</code>
+	 * parameter matches the current version is cached for a year and marked as immutable; a
+	 * request with any other query string gets this <code>max-age</code>.
+	 * <p>
+	 * The default value is 0 (always revalidate).
+	 */
+	public void setResourcesMaxAge(int seconds) {
+		this.resourcesMaxAge = seconds;
+	}
+
+	/**
+	 * Returns how long browsers may cache the bundled resources (in seconds).
+	 *
+	 * @see #setResourcesMaxAge(int)
+	 */
+	public int getResourcesMaxAge() {
+		return resourcesMaxAge;
+	}
+
 	/**
 	 * Returns the path for the favicon
 	 * 
@@ -887,6 +962,198 @@ public class Configuration {
 		return webSocketsEnabled;
 	}
 
+	/**
+	 * Sets the maximum number of messages queued for sending on a web socket.
+	 * <p>
+	 * Messages are sent asynchronously, one at a time. When a client does not
+	 * keep up and the queue reaches this size, the web socket is closed, and the
+	 * client falls back to reconnecting.
+	 * <p>
+	 * The default value is 16.
+	 */
+	public void setWebSocketMaxQueuedMessages(int maxQueuedMessages) {
+		this.webSocketMaxQueuedMessages = maxQueuedMessages;
+	}
+
+	/**
+	 * Returns the maximum number of messages queued for sending on a web socket.
+	 *
+	 * @see #setWebSocketMaxQueuedMessages(int)
+	 */
+	public int getWebSocketMaxQueuedMessages() {
+		return webSocketMaxQueuedMessages;
+	}
+
+	/**
+	 * Configures whether requests are handled on virtual threads.
+	 * <p>
+	 * When enabled, and the servlet container supports asynchronous requests, each request is handled
+	 * on a new virtual thread instead of on a container thread. A session that waits, such as in a
+	 * recursive event loop ({@link WDialog#exec()}) or while waiting for server push updates, then
+	 * no longer occupies a platform thread, so that many more concurrent sessions can be served.
+	 * Broadcasts without an explicit executor (see {@link #setBroadcastExecutor(Executor)}) also use
+	 * virtual threads.
+	 * <p>
+	 * This requires Java 21 or later; on older Java versions a warning is logged and requests are
+	 * handled as usual.
+	 * <p>
+	 * The default value is <code>false</code>.
+	 */
+	public void setVirtualThreadsEnabled(boolean enabled) {
+		this.virtualThreads = enabled;
+	}
+
+	/**
+	 * Returns whether requests are handled on virtual threads.
+	 *
+	 * @see #setVirtualThreadsEnabled(boolean)
+	 */
+	public boolean isVirtualThreadsEnabled() {
+		return virtualThreads;
+	}
+
+	/**
+	 * Configures whether JavaScript responses are compressed.
+	 * <p>
+	 * When enabled, the JavaScript updates and the main script are gzip-compressed while they are
+	 * being rendered, for clients that accept it. Enable this when the servlet container or a proxy
+	 * in front of it does not already compress responses.
+	 * <p>
+	 * The default value is <code>false</code>.
+	 */
+	public void setResponseCompressionEnabled(boolean enabled) {
+		this.responseCompression = enabled;
+	}
+
+	/**
+	 * Returns whether JavaScript responses are compressed.
+	 *
+	 * @see #setResponseCompressionEnabled(boolean)
+	 */
+	public boolean isResponseCompressionEnabled() {
+		return responseCompression;
+	}
+
+	/**
+	 * Configures whether the outcome of XSS filtering is cached.
+	 * <p>
+	 * XHTML text (e.g. of a {@link WText} or {@link WTemplate}) is filtered to remove any scripting
+	 * before it is rendered. When enabled, the filtered result of short fragments is remembered in a
+	 * bounded cache that is shared by all sessions, so that fragments that are displayed repeatedly
+	 * are parsed only once.
+	 * <p>
+	 * The default value is <code>true</code>.
+	 */
+	public void setXssFilterCacheEnabled(boolean enabled) {
+		this.xssFilterCache = enabled;
+	}
+
+	/**
+	 * Returns whether the outcome of XSS filtering is cached.
+	 *
+	 * @see #setXssFilterCacheEnabled(boolean)
+	 */
+	public boolean isXssFilterCacheEnabled() {
+		return xssFilterCache;
+	}
+
+	/**
+	 * Configures the number of pages rendered for bots that are cached.
+	 * <p>
+	 * A bot (see {@link #setBotList(ArrayList)}) gets a new session for every page that it
+	 * requests, which is rendered as plain HTML and discarded. When enabled, the rendered
+	 * page is kept in a cache that is shared by all sessions, and a later request by a
+	 * bot for the same URL (and with the same host and locale) is served from the cache,
+	 * without creating an application. Only complete <code>200 OK</code> HTML responses to
+	 * requests without cookies are cached.
+	 * <p>
+	 * Since the page is served as it was rendered for the first bot, the application should
+	 * not render anything else that is specific to that request. Use
+	 * {@link WtServlet#invalidateBotPageCache(String)} when the content behind an internal path
+	 * changes.
+	 * <p>
+	 * The default value is 0 (disabled).
+	 *
+	 * @see #setBotPageCacheTimeout(int)
+	 */
+	public void setBotPageCacheSize(int pages) {
+		this.botPageCacheSize = pages;
+	}
+
+	/**
+	 * Returns the number of pages rendered for bots that are cached.
+	 *
+	 * @see #setBotPageCacheSize(int)
+	 */
+	public int getBotPageCacheSize() {
+		return botPageCacheSize;
+	}
+
+	/**
+	 * Configures how long a page rendered for bots is cached (in seconds).
+	 * <p>
+	 * The default value is 300.
+	 *
+	 * @see #setBotPageCacheSize(int)
+	 */
+	public void setBotPageCacheTimeout(int seconds) {
+		this.botPageCacheTimeout = seconds;
+	}
+
+	/**
+	 * Returns how long a page rendered for bots is cached (in seconds).
+	 *
+	 * @see #setBotPageCacheTimeout(int)
+	 */
+	public int getBotPageCacheTimeout() {
+		return botPageCacheTimeout;
+	}
+
+	/**
+	 * Sets the executor used to post broadcasts to sessions.
+	 * <p>
+	 * {@link WtServlet#postAll(Runnable, java.util.function.Predicate)} divides the sessions in batches
+	 * which are posted to in parallel using this executor. On Java 21 or later, a virtual thread
+	 * executor (<code>Executors.newVirtualThreadPerTaskExecutor()</code>) is a good fit.
+	 * <p>
+	 * The default value is <code>null</code>, in which case the servlet uses the executor that it
+	 * creates when it is initialized: a virtual thread executor when virtual threads are enabled (see
+	 * {@link #setVirtualThreadsEnabled(boolean)}), or a fixed pool with one thread per available
+	 * processor.
+	 */
+	public void setBroadcastExecutor(Executor executor) {
+		this.broadcastExecutor = executor;
+	}
+
+	/**
+	 * Returns the executor used to post broadcasts to sessions.
+	 *
+	 * @see #setBroadcastExecutor(Executor)
+	 */
+	public Executor getBroadcastExecutor() {
+		return broadcastExecutor;
+	}
+
+	/**
+	 * Sets the number of sessions posted to by a single broadcast task.
+	 * <p>
+	 * The default value is 256.
+	 *
+	 * @see #setBroadcastExecutor(Executor)
+	 */
+	public void setBroadcastBatchSize(int batchSize) {
+		this.broadcastBatchSize = batchSize;
+	}
+
+	/**
+	 * Returns the number of sessions posted to by a single broadcast task.
+	 *
+	 * @see #setBroadcastBatchSize(int)
+	 */
+	public int getBroadcastBatchSize() {
+		return broadcastBatchSize;
+	}
+
 	/*
 	 * The following are not yet enabled for JWt
 	 */
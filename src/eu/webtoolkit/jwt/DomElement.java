@@ -69,19 +69,19 @@ public class DomElement {
     this.numManipulations_ = 0;
     this.timeOut_ = -1;
     this.timeOutJSRepeat_ = -1;
-    this.javaScript_ = new EscapeOStream();
+    this.javaScript_ = null;
     this.javaScriptEvenWhenDeleted_ = "";
     this.var_ = "";
     this.globalUnfocused_ = false;
-    this.attributes_ = new HashMap<String, String>();
-    this.removedAttributes_ = new HashSet<String>();
-    this.properties_ = new TreeMap<Property, String>();
-    this.eventHandlers_ = new HashMap<String, DomElement.EventHandler>();
-    this.childrenToAdd_ = new ArrayList<DomElement.ChildInsertion>();
-    this.childrenToSave_ = new ArrayList<String>();
-    this.updatedChildren_ = new ArrayList<DomElement>();
-    this.childrenHtml_ = new EscapeOStream();
-    this.timeouts_ = new ArrayList<DomElement.TimeoutEvent>();
+    this.attributes_ = Collections.emptyMap();
+    this.removedAttributes_ = Collections.emptySet();
+    this.properties_ = Collections.emptyMap();
+    this.eventHandlers_ = Collections.emptyMap();
+    this.childrenToAdd_ = Collections.emptyList();
+    this.childrenToSave_ = Collections.emptyList();
+    this.updatedChildren_ = Collections.emptyList();
+    this.childrenHtml_ = null;
+    this.timeouts_ = Collections.emptyList();
     this.elementTagName_ = "";
   }
   /** set dom element custom tag name */
@@ -189,13 +189,13 @@ public class DomElement {
     if (child.getMode() == DomElement.Mode.Create) {
       this.numManipulations_ += 2;
       if (this.wasEmpty_ && this.canWriteInnerHTML(WApplication.getInstance())) {
-        child.asHTML(this.childrenHtml_, this.javaScript_, this.timeouts_);
+        child.asHTML(this.childrenHtml(), this.javaScript(), this.timeouts());
 
       } else {
-        this.childrenToAdd_.add(new DomElement.ChildInsertion(-1, child));
+        this.childrenToAdd().add(new DomElement.ChildInsertion(-1, child));
       }
     } else {
-      this.updatedChildren_.add(child);
+      this.updatedChildren().add(child);
     }
   }
   /**
@@ -206,7 +206,7 @@ public class DomElement {
    */
   public void insertChildAt(DomElement child, int pos) {
     ++this.numManipulations_;
-    this.childrenToAdd_.add(new DomElement.ChildInsertion(pos, child));
+    this.childrenToAdd().add(new DomElement.ChildInsertion(pos, child));
   }
   /**
    * Saves an existing child.
@@ -216,13 +216,15 @@ public class DomElement {
    * the saved child.
    */
   public void saveChild(final String id) {
-    this.childrenToSave_.add(id);
+    this.childrenToSave().add(id);
   }
   /** Sets an attribute value. */
   public void setAttribute(final String attribute, final String value) {
     ++this.numManipulations_;
-    this.attributes_.put(attribute, value);
-    this.removedAttributes_.remove(attribute);
+    this.attributes().put(attribute, value);
+    if (!this.removedAttributes_.isEmpty()) {
+      this.removedAttributes_.remove(attribute);
+    }
   }
   /**
    * Returns an attribute value set.
@@ -242,13 +244,15 @@ public class DomElement {
   /** Removes an attribute. */
   public void removeAttribute(final String attribute) {
     ++this.numManipulations_;
-    this.attributes_.remove(attribute);
-    this.removedAttributes_.add(attribute);
+    if (!this.attributes_.isEmpty()) {
+      this.attributes_.remove(attribute);
+    }
+    this.removedAttributes().add(attribute);
   }
   /** Sets a property. */
   public void setProperty(Property property, final String value) {
     ++this.numManipulations_;
-    this.properties_.put(property, value);
+    this.properties().put(property, value);
     if (property.getValue() >= Property.StyleMinWidth.getValue()
         && property.getValue() <= Property.StyleMaxHeight.getValue()) {
       this.minMaxSizeProperties_ = true;
@@ -287,7 +291,9 @@ public class DomElement {
   }
   /** Removes a property. */
   public void removeProperty(Property property) {
-    this.properties_.remove(property);
+    if (!this.properties_.isEmpty()) {
+      this.properties_.remove(property);
+    }
   }
   /** Sets a whole map of properties. */
   public void setProperties(final SortedMap<Property, String> properties) {
@@ -297,14 +303,18 @@ public class DomElement {
       this.setProperty(i.getKey(), i.getValue());
     }
   }
-  /** Returns all properties currently set. */
+  /**
+   * Returns all properties currently set.
+   *
+   * <p>The result is a live view on the properties of this element.
+   */
   public SortedMap<Property, String> getProperties() {
-    return this.properties_;
+    return new PropertiesView();
   }
   /** Clears all properties. */
   public void clearProperties() {
     this.numManipulations_ -= this.properties_.size();
-    this.properties_.clear();
+    this.properties_ = Collections.emptyMap();
   }
   /** Sets an event handler based on a signal&apos;s connections. */
   public void setEventSignal(String eventName, final AbstractEventSignal signal) {
@@ -341,7 +351,7 @@ public class DomElement {
       }
     }
     ++this.numManipulations_;
-    this.eventHandlers_.put(eventName, new DomElement.EventHandler(js.toString(), signalName));
+    this.eventHandlers().put(eventName, new DomElement.EventHandler(js.toString(), signalName));
   }
   /**
    * Sets an event handler.
@@ -358,7 +368,7 @@ public class DomElement {
    * <p>This sets a JavaScript event handler.
    */
   public void setEvent(String eventName, final String jsCode) {
-    this.eventHandlers_.put(eventName, new DomElement.EventHandler(jsCode, ""));
+    this.eventHandlers().put(eventName, new DomElement.EventHandler(jsCode, ""));
   }
   /** This adds more JavaScript to an event handler. */
   public void addEvent(String eventName, final String jsCode) {
@@ -434,17 +444,17 @@ public class DomElement {
   public void callMethod(final String method) {
     ++this.numManipulations_;
     if (this.var_.length() == 0) {
-      this.javaScript_.append("Wt4_10_1").append(".$('").append(this.id_).append("').");
+      this.javaScript().append("Wt4_10_1").append(".$('").append(this.id_).append("').");
     } else {
-      this.javaScript_.append(this.var_).append('.');
+      this.javaScript().append(this.var_).append('.');
     }
-    this.javaScript_.append(method).append(";\n");
+    this.javaScript().append(method).append(";\n");
   }
   /** Calls JavaScript (related to the DOM element). */
   public void callJavaScript(final String jsCode, boolean evenWhenDeleted) {
     ++this.numManipulations_;
     if (!evenWhenDeleted) {
-      this.javaScript_.append(jsCode).append('\n');
+      this.javaScript().append(jsCode).append('\n');
     } else {
       this.javaScriptEvenWhenDeleted_ += jsCode;
     }
@@ -625,7 +635,7 @@ public class DomElement {
                 }
               }
             } else {
-              if (!this.javaScript_.isEmpty()) {
+              if (!isEmpty(this.javaScript_)) {
                 out.append(this.javaScript_);
                 return this.var_;
               }
@@ -813,7 +823,7 @@ public class DomElement {
         String l = this.properties_.get(Property.Class);
         if (l != null) {
           out.append(l);
-          final SortedMap<Property, String> map = this.properties_;
+          final Map<Property, String> map = this.properties_;
           map.remove(Property.Class);
         }
         out.append('"');
@@ -1014,12 +1024,14 @@ public class DomElement {
           this.childrenToAdd_.get(i).child.asHTML(out, javaScript, timeouts);
         }
         out.append(innerHTML);
-        out.append(this.childrenHtml_.toString());
+        if (this.childrenHtml_ != null) {
+          out.append(this.childrenHtml_.toString());
+        }
         if (renderedType == DomElementType.DIV
             && app.getEnvironment().getAgent() == UserAgent.IE6
             && innerHTML.length() == 0
             && this.childrenToAdd_.isEmpty()
-            && this.childrenHtml_.isEmpty()) {
+            && isEmpty(this.childrenHtml_)) {
           out.append("&nbsp;");
         }
         if (renderedType == DomElementType.OTHER) {
@@ -1038,7 +1050,10 @@ public class DomElement {
         }
       }
     }
-    javaScript.append(this.javaScriptEvenWhenDeleted_).append(this.javaScript_);
+    javaScript.append(this.javaScriptEvenWhenDeleted_);
+    if (this.javaScript_ != null) {
+      javaScript.append(this.javaScript_);
+    }
     if (this.timeOut_ != -1) {
       timeouts.add(new DomElement.TimeoutEvent(this.timeOut_, this.id_, this.timeOutJSRepeat_));
     }
@@ -1233,16 +1248,16 @@ public class DomElement {
   }
   /** Returns all custom JavaScript collected in this element. */
   public String getJavaScript() {
-    return this.javaScript_.toString();
+    return this.javaScript_ != null ? this.javaScript_.toString() : "";
   }
   /** Something to do with broken IE Mobile 5 browsers... */
   public void updateInnerHtmlOnly() {
     this.mode_ = DomElement.Mode.Update;
     assert this.replaced_ == null;
     assert this.insertBefore_ == null;
-    this.attributes_.clear();
-    this.removedAttributes_.clear();
-    this.eventHandlers_.clear();
+    this.attributes_ = Collections.emptyMap();
+    this.removedAttributes_ = Collections.emptySet();
+    this.eventHandlers_ = Collections.emptyMap();
     for (Iterator<Map.Entry<Property, String>> i_it = this.properties_.entrySet().iterator();
         i_it.hasNext(); ) {
       Map.Entry<Property, String> i = i_it.next();
@@ -1296,7 +1311,7 @@ public class DomElement {
   }
 
   private boolean willRenderInnerHtmlJS(WApplication app) {
-    return !this.childrenHtml_.isEmpty() || this.wasEmpty_ && this.canWriteInnerHTML(app);
+    return !isEmpty(this.childrenHtml_) || this.wasEmpty_ && this.canWriteInnerHTML(app);
   }
 
   private boolean canWriteInnerHTML(WApplication app) {
@@ -1645,7 +1660,7 @@ public class DomElement {
       }
       if (this.type_ == DomElementType.DIV && app.getEnvironment().getAgent() == UserAgent.IE6
           || !this.childrenToAdd_.isEmpty()
-          || !this.childrenHtml_.isEmpty()
+          || !isEmpty(this.childrenHtml_)
           || innerHTML.length() != 0) {
         this.declare(out);
         out.append("Wt4_10_1.setHtml(").append(this.var_).append(",'");
@@ -1656,12 +1671,14 @@ public class DomElement {
           this.childrenToAdd_.get(i).child.asHTML(out, js, timeouts);
         }
         out.append(innerHTML);
-        out.append(this.childrenHtml_.toString());
+        if (this.childrenHtml_ != null) {
+          out.append(this.childrenHtml_.toString());
+        }
         if (this.type_ == DomElementType.DIV
             && app.getEnvironment().getAgent() == UserAgent.IE6
             && this.childrenToAdd_.isEmpty()
             && innerHTML.length() == 0
-            && this.childrenHtml_.isEmpty()) {
+            && isEmpty(this.childrenHtml_)) {
           out.append("&nbsp;");
         }
         out.popEscape();
@@ -1698,8 +1715,82 @@ public class DomElement {
     }
   }
 
+  private Map<String, String> attributes() {
+    if (this.attributes_.isEmpty() && !(this.attributes_ instanceof HashMap)) {
+      this.attributes_ = new HashMap<String, String>();
+    }
+    return this.attributes_;
+  }
+
+  private Set<String> removedAttributes() {
+    if (this.removedAttributes_.isEmpty() && !(this.removedAttributes_ instanceof HashSet)) {
+      this.removedAttributes_ = new HashSet<String>();
+    }
+    return this.removedAttributes_;
+  }
+
+  private Map<Property, String> properties() {
+    if (this.properties_.isEmpty() && !(this.properties_ instanceof EnumMap)) {
+      this.properties_ = new EnumMap<Property, String>(Property.class);
+    }
+    return this.properties_;
+  }
+
+  private Map<String, DomElement.EventHandler> eventHandlers() {
+    if (this.eventHandlers_.isEmpty() && !(this.eventHandlers_ instanceof HashMap)) {
+      this.eventHandlers_ = new HashMap<String, DomElement.EventHandler>();
+    }
+    return this.eventHandlers_;
+  }
+
+  private List<DomElement.ChildInsertion> childrenToAdd() {
+    if (this.childrenToAdd_.isEmpty() && !(this.childrenToAdd_ instanceof ArrayList)) {
+      this.childrenToAdd_ = new ArrayList<DomElement.ChildInsertion>();
+    }
+    return this.childrenToAdd_;
+  }
+
+  private List<String> childrenToSave() {
+    if (this.childrenToSave_.isEmpty() && !(this.childrenToSave_ instanceof ArrayList)) {
+      this.childrenToSave_ = new ArrayList<String>();
+    }
+    return this.childrenToSave_;
+  }
+
+  private List<DomElement> updatedChildren() {
+    if (this.updatedChildren_.isEmpty() && !(this.updatedChildren_ instanceof ArrayList)) {
+      this.updatedChildren_ = new ArrayList<DomElement>();
+    }
+    return this.updatedChildren_;
+  }
+
+  private List<DomElement.TimeoutEvent> timeouts() {
+    if (this.timeouts_.isEmpty() && !(this.timeouts_ instanceof ArrayList)) {
+      this.timeouts_ = new ArrayList<DomElement.TimeoutEvent>();
+    }
+    return this.timeouts_;
+  }
+
+  private EscapeOStream javaScript() {
+    if (this.javaScript_ == null) {
+      this.javaScript_ = new EscapeOStream();
+    }
+    return this.javaScript_;
+  }
+
+  private EscapeOStream childrenHtml() {
+    if (this.childrenHtml_ == null) {
+      this.childrenHtml_ = new EscapeOStream();
+    }
+    return this.childrenHtml_;
+  }
+
+  private static boolean isEmpty(EscapeOStream s) {
+    return s == null || s.isEmpty();
+  }
+
   private void renderDeferredJavaScript(final EscapeOStream out) {
-    if (!this.javaScript_.isEmpty()) {
+    if (!isEmpty(this.javaScript_)) {
       this.declare(out);
       out.append(this.javaScript_).append('\n');
     }
@@ -1726,9 +1817,74 @@ public class DomElement {
   private boolean globalUnfocused_;
   private Map<String, String> attributes_;
   private Set<String> removedAttributes_;
-  private SortedMap<Property, String> properties_;
+  private Map<Property, String> properties_;
   private Map<String, DomElement.EventHandler> eventHandlers_;
 
+  /**
+   * A sorted view on the properties, which are kept in an {@link EnumMap} (iterated in the natural
+   * order of {@link Property}) once one is set. The maps returned for a range of keys are copies.
+   */
+  private class PropertiesView extends AbstractMap<Property, String>
+      implements SortedMap<Property, String> {
+    public Set<Map.Entry<Property, String>> entrySet() {
+      return DomElement.this.properties_.entrySet();
+    }
+
+    public int size() {
+      return DomElement.this.properties_.size();
+    }
+
+    public boolean containsKey(Object key) {
+      return DomElement.this.properties_.containsKey(key);
+    }
+
+    public String get(Object key) {
+      return DomElement.this.properties_.get(key);
+    }
+
+    public String put(Property key, String value) {
+      String result = DomElement.this.properties_.get(key);
+      DomElement.this.setProperty(key, value);
+      return result;
+    }
+
+    public String remove(Object key) {
+      return DomElement.this.properties_.isEmpty() ? null : DomElement.this.properties_.remove(key);
+    }
+
+    public void clear() {
+      DomElement.this.clearProperties();
+    }
+
+    public Comparator<? super Property> comparator() {
+      return null;
+    }
+
+    public Property firstKey() {
+      return this.sorted().firstKey();
+    }
+
+    public Property lastKey() {
+      return this.sorted().lastKey();
+    }
+
+    public SortedMap<Property, String> subMap(Property fromKey, Property toKey) {
+      return this.sorted().subMap(fromKey, toKey);
+    }
+
+    public SortedMap<Property, String> headMap(Property toKey) {
+      return this.sorted().headMap(toKey);
+    }
+
+    public SortedMap<Property, String> tailMap(Property fromKey) {
+      return this.sorted().tailMap(fromKey);
+    }
+
+    private SortedMap<Property, String> sorted() {
+      return new TreeMap<Property, String>(DomElement.this.properties_);
+    }
+  }
+
   static class ChildInsertion {
     private static Logger logger = LoggerFactory.getLogger(ChildInsertion.class);
 
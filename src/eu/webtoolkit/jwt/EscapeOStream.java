@@ -7,6 +7,7 @@ package eu.webtoolkit.jwt;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -24,47 +25,48 @@ public class EscapeOStream {
 
 	public EscapeOStream(Appendable sink) {
 		sink_ = sink;
-		mixed_ = null;
-		special_ = "";
-		ruleSets_ = new ArrayList<RuleSet>();
+		ruleSets_ = 0;
+		table_ = null;
 	}
 
-	@SuppressWarnings("unchecked")
 	public EscapeOStream push() {
 		EscapeOStream result = new EscapeOStream(sink_);
 
-		result.ruleSets_ = (ArrayList<RuleSet>) ruleSets_.clone();
+		result.ruleSets_ = ruleSets_;
+		result.table_ = table_;
 
 		return result;
 	}
 
 	public void pushEscape(RuleSet rules) {
-		ruleSets_.add(rules);
-		mixRules();
+		if ((ruleSets_ >>> (64 - RULE_SET_BITS)) != 0)
+			throw new IllegalStateException("EscapeOStream: too many nested escapes");
+
+		ruleSets_ = (ruleSets_ << RULE_SET_BITS) | (rules.ordinal() + 1);
+		table_ = getTable(ruleSets_);
 	}
 
 	public void popEscape() {
-		ruleSets_.remove(ruleSets_.size() - 1);
-		mixRules();
+		ruleSets_ >>>= RULE_SET_BITS;
+		table_ = getTable(ruleSets_);
 	}
 
 
 	public EscapeOStream append(EscapeOStream stream) {
-		return append(stream.toString());
+		if (stream.sink_ instanceof CharSequence && stream.sink_ != sink_)
+			return append((CharSequence) stream.sink_, this);
+		else
+			return append(stream.toString());
 	}
 
 	public EscapeOStream append(char c) {
 		try {
-			if (special_ == "")
-				sink_.append(c);
-			else {
-				int i = special_.indexOf(c);
+			String r = table_ != null && c < TABLE_SIZE ? table_[c] : null;
 
-				if (i != -1)
-					sink_.append(mixed_.get(i).s);
-				else
-					sink_.append(c);
-			}
+			if (r != null)
+				sink_.append(r);
+			else
+				sink_.append(c);
 		} catch (IOException e) {
 			logger.info("append({})", c, e);
 		}
@@ -78,18 +80,20 @@ public class EscapeOStream {
 	}
 
 	public EscapeOStream append(String s, EscapeOStream rules) {
+		return append((CharSequence) s, rules);
+	}
+
+	private EscapeOStream append(CharSequence s, EscapeOStream rules) {
 		try {
-			if (rules.special_ == null) {
+			if (rules.table_ == null)
 				sink_.append(s);
-				return this;
-			} else
-				put(s, rules);
+			else
+				put(s, rules.table_);
 		} catch (IOException e) {
 			logger.info("append({})", s, e);
 		}
 
 		return this;
-
 	}
 
 	public EscapeOStream append(int i) {
@@ -113,7 +117,10 @@ public class EscapeOStream {
 
 
 	public boolean isEmpty() {
-		return sink_.toString().length() == 0;
+		if (sink_ instanceof CharSequence)
+			return ((CharSequence) sink_).length() == 0;
+		else
+			return sink_.toString().length() == 0;
 	}
 
 	public void flush() {
@@ -121,6 +128,21 @@ public class EscapeOStream {
 
 	private Appendable sink_ = null;
 
+	/*
+	 * The stack of rule sets, as (ordinal + 1) in RULE_SET_BITS bits per
+	 * level, with the innermost rule set in the lowest bits.
+	 */
+	private long ruleSets_;
+
+	/*
+	 * The replacement for each character (indexed by character), or null if
+	 * no escaping is needed.
+	 */
+	private String[] table_;
+
+	private static final int RULE_SET_BITS = 3;
+	private static final int TABLE_SIZE = 128;
+
 	private static class Entry {
 		public Entry(char c_, String s_) {
 			c = c_;
@@ -135,64 +157,69 @@ public class EscapeOStream {
 		public String s = "";
 	}
 
-	private ArrayList<Entry> mixed_;
-	private String special_;
+	private static final ConcurrentHashMap<Long, String[]> tables_ = new ConcurrentHashMap<Long, String[]>();
 
-	private void mixRules() {
-		int ruleSetsSize = ruleSets_.size();
+	private static String[] getTable(long ruleSets) {
+		if (ruleSets == 0)
+			return null;
 
-		if (ruleSetsSize == 0) {
-			mixed_ = null;
-			special_ = "";
-		} else if (ruleSetsSize == 1) {
-			mixed_ = standardSets_.get(ruleSets_.get(0).ordinal());
-			special_ = standardSetsSpecial_.get(ruleSets_.get(0).ordinal());
-		} else {
-			mixed_ = new ArrayList<Entry>();
-			for (int i = ruleSetsSize - 1; i >= 0; --i) {
-				ArrayList<Entry> toMix = standardSets_.get(ruleSets_.get(i).ordinal());
-
-				for (int j = 0; j < mixed_.size(); ++j)
-					for (int k = 0; k < toMix.size(); ++k)
-						mixed_.get(j).s = mixed_.get(j).s.replace(toMix.get(k).c + "", toMix.get(k).s);
-
-				for (int j = 0; j < toMix.size(); ++j) {
-					mixed_.add((Entry) toMix.get(j).clone());
-					special_ += toMix.get(j).c;
-				}
-			}
+		String[] result = tables_.get(ruleSets);
+		if (result == null) {
+			result = mixRules(ruleSets);
+			tables_.putIfAbsent(ruleSets, result);
 		}
+
+		return result;
 	}
 
-	private void put(String s, EscapeOStream rules) {
-		try {
-			char [] sA = s.toCharArray();
-			char [] specialA = rules.special_.toCharArray();
+	/*
+	 * Combines the rule sets into a single lookup table: a character is
+	 * escaped by the innermost rule set that handles it, and the result is
+	 * then escaped by each of the enclosing rule sets.
+	 */
+	private static String[] mixRules(long ruleSets) {
+		ArrayList<Entry> mixed = new ArrayList<Entry>();
+
+		for (long r = ruleSets; r != 0; r >>>= RULE_SET_BITS) {
+			ArrayList<Entry> toMix = standardSets_.get((int) (r & ((1 << RULE_SET_BITS) - 1)) - 1);
 
-			for (int pos = 0; pos != -1;) {
-				int lastPos = pos;
-				pos = StringUtils.strpbrk(sA, pos, specialA);
-				if (pos != -1) {
-					char f = sA[pos];
+			for (int j = 0; j < mixed.size(); ++j)
+				for (int k = 0; k < toMix.size(); ++k)
+					mixed.get(j).s = mixed.get(j).s.replace(toMix.get(k).c + "", toMix.get(k).s);
 
-					sink_.append(s.substring(lastPos, pos));
+			for (int j = 0; j < toMix.size(); ++j)
+				mixed.add(toMix.get(j).clone());
+		}
 
-					for (int i = 0; i < rules.mixed_.size(); ++i) {
-						if (rules.mixed_.get(i).c == f) {
-							sink_.append(rules.mixed_.get(i).s);
-							break;
-						}
-					}
+		String[] result = new String[TABLE_SIZE];
+		for (Entry e : mixed)
+			if (result[e.c] == null)
+				result[e.c] = e.s;
 
-					pos = pos + 1;
+		return result;
+	}
 
-				} else {
-					sink_.append(s.substring(lastPos));
+	private void put(CharSequence s, String[] table) throws IOException {
+		int length = s.length();
+		int lastPos = 0;
+
+		for (int pos = 0; pos < length; ++pos) {
+			char c = s.charAt(pos);
+			if (c < TABLE_SIZE) {
+				String r = table[c];
+				if (r != null) {
+					if (pos > lastPos)
+						sink_.append(s, lastPos, pos);
+					sink_.append(r);
+					lastPos = pos + 1;
 				}
 			}
-		} catch (IOException e) {
-			logger.info("put({})", s, e);
 		}
+
+		if (lastPos == 0)
+			sink_.append(s);
+		else if (lastPos < length)
+			sink_.append(s, lastPos, length);
 	}
 	
 	public void clear() {
@@ -203,9 +230,6 @@ public class EscapeOStream {
 		return sink_.toString();
 	}
 
-	private ArrayList<RuleSet> ruleSets_ = new ArrayList<RuleSet>();
-
-	private static ArrayList<String> standardSetsSpecial_ = new ArrayList<String>();
 	private static ArrayList<Entry> htmlAttributeEntries_ = new ArrayList<Entry>();
 	private static ArrayList<Entry> jsStringLiteralSQuoteEntries_ = new ArrayList<Entry>();
 	private static ArrayList<Entry> jsStringLiteralDQuoteEntries_ = new ArrayList<Entry>();
@@ -214,12 +238,6 @@ public class EscapeOStream {
 	private static ArrayList<Entry> plainTextEntriesNewLines_ = new ArrayList<Entry>(); 
 	
 	static {
-		standardSetsSpecial_.add("&\"<");
-		standardSetsSpecial_.add("\\\n\r\t'");
-		standardSetsSpecial_.add("\\\n\r\t\"");
-		standardSetsSpecial_.add("&><");
-		standardSetsSpecial_.add("&><\n");
-
 		htmlAttributeEntries_.add(new Entry('&', "&amp;"));
 		htmlAttributeEntries_.add(new Entry('\"', "&#34;"));
 		htmlAttributeEntries_.add(new Entry('<', "&lt;"));
@@ -60,6 +60,13 @@ public class FileUtils {
 	}
 
 	public static InputStream getResourceAsStream(String path) throws IOException {
+		return getResource(path).openStream();
+	}
+
+	/*
+	 * Resolves a path in the same way as getResourceAsStream().
+	 */
+	static URL getResource(String path) throws IOException {
 		URL url = FileUtils.class.getResource(path);
 		
 		if (url == null) {
@@ -82,7 +89,7 @@ public class FileUtils {
 			}
 		}
 
-		return url.openStream();
+		return url;
 	}
 
 	/*
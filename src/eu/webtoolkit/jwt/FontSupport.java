@@ -71,11 +71,8 @@ class FontSupport {
   public FontSupport(WPaintDevice device, FontSupport.EnabledFontFormats anon2) {
     this.device_ = device;
     this.fontCollections_ = new ArrayList<FontSupport.FontCollection>();
-    this.cache_ = new LinkedList<FontSupport.Matched>();
+    this.collectionsKey_ = "";
     this.font_ = null;
-    for (int i = 0; i < 5; ++i) {
-      this.cache_.addLast(new FontSupport.Matched());
-    }
   }
 
   public FontSupport(WPaintDevice device) {
@@ -87,15 +84,22 @@ class FontSupport {
   }
 
   public FontMatch matchFont(final WFont font) {
-    for (Iterator<FontSupport.Matched> i_it = this.cache_.iterator(); i_it.hasNext(); ) {
-      FontSupport.Matched i = i_it.next();
-      if (i.font.getGenericFamily() == font.getGenericFamily()
-          && (i.font.getSpecificFamilies().toString().equals(font.getSpecificFamilies().toString()))
-          && i.font.getWeight() == font.getWeight()
-          && i.font.getStyle() == font.getStyle()) {
-        CollectionUtils.splice(this.cache_, this.cache_.iterator(), this.cache_, i);
-        return this.cache_.getFirst().match;
-      }
+    for (int i = 0; i < this.fontCollections_.size(); ++i) {
+      getFontFiles(this.fontCollections_.get(i).directory, this.fontCollections_.get(i).recursive);
+    }
+    String key =
+        this.collectionsKey_
+            + '|'
+            + font.getGenericFamily()
+            + '|'
+            + font.getSpecificFamilies().toString()
+            + '|'
+            + font.getWeight()
+            + '|'
+            + font.getStyle();
+    FontMatch cached = matchCache_.get(key);
+    if (cached != null) {
+      return new FontMatch(cached.getFileName(), cached.getQuality());
     }
     FontMatch match = new FontMatch();
     for (int i = 0; i < this.fontCollections_.size(); ++i) {
@@ -106,10 +110,7 @@ class FontSupport {
         Utils.assignFontMatch(match, m);
       }
     }
-    this.cache_.removeLast();
-    this.cache_.addFirst(new FontSupport.Matched());
-    this.cache_.getFirst().font = font;
-    Utils.assignFontMatch(this.cache_.getFirst().match, match);
+    matchCache_.put(key, new FontMatch(match.getFileName(), match.getQuality()));
     return match;
   }
 
@@ -152,6 +153,7 @@ class FontSupport {
     c.directory = directory;
     c.recursive = recursive;
     this.fontCollections_.add(c);
+    this.collectionsKey_ += directory + (recursive ? "/**" : "/*") + ';';
   }
 
   public final void addFontCollection(final String directory) {
@@ -168,20 +170,7 @@ class FontSupport {
   }
 
   private List<FontSupport.FontCollection> fontCollections_;
-
-  static class Matched {
-    private static Logger logger = LoggerFactory.getLogger(Matched.class);
-
-    public WFont font;
-    public FontMatch match;
-
-    public Matched() {
-      this.font = new WFont();
-      this.match = new FontMatch();
-    }
-  }
-
-  private LinkedList<FontSupport.Matched> cache_;
+  private String collectionsKey_;
   private WFont font_;
 
   private FontMatch matchFont(final WFont font, final String directory, boolean recursive) {
@@ -227,31 +216,88 @@ class FontSupport {
       default:;
     }
     FontMatch match = new FontMatch();
-    this.matchFont(font, fontNames, directory, recursive, match);
+    List<String> files = getFontFiles(directory, recursive);
+    for (int i = 0; i < files.size(); ++i) {
+      this.matchFont(font, fontNames, files.get(i), match);
+      if (match.getQuality() == 1.0) {
+        break;
+      }
+    }
     return match;
   }
 
-  private void matchFont(
-      final WFont font,
-      final List<String> fontNames,
-      final String path,
-      boolean recursive,
-      final FontMatch match) {
-    List<String> files = new ArrayList<String>();
-    FileUtils.listFiles(path, files);
-    for (int i = 0; i < files.size(); ++i) {
-      String f = files.get(i);
-      if (FileUtils.isDirectory(f)) {
-        if (recursive) {
-          this.matchFont(font, fontNames, f, recursive, match);
-          if (match.getQuality() == 1.0) {
-            return;
-          }
-        }
+  /**
+   * Returns the font files in a font collection, in the order in which they are matched.
+   *
+   * <p>The result is shared by all instances. A collection is scanned again when one of its
+   * directories was modified, which is checked at most every {@link
+   * FontSupport#FONT_FILES_CHECK_INTERVAL}ms. The cached font matches are then discarded.
+   */
+  private static List<String> getFontFiles(final String directory, boolean recursive) {
+    String key = directory + (recursive ? "/**" : "/*");
+    FontSupport.FontFiles result = fontFiles_.get(key);
+    if (result == null || result.isModified()) {
+      if (result != null) {
+        matchCache_.clear();
+      }
+      result = new FontSupport.FontFiles(directory, recursive);
+      fontFiles_.put(key, result);
+    }
+    return result.files;
+  }
+
+  static class FontFiles {
+    private static Logger logger = LoggerFactory.getLogger(FontFiles.class);
+
+    public FontFiles(final String directory, boolean recursive) {
+      this.directories_ = new ArrayList<String>();
+      this.lastModified_ = new ArrayList<Long>();
+      this.lastChecked_ = System.currentTimeMillis();
+      List<String> files = new ArrayList<String>();
+      if (FileUtils.isDirectory(directory)) {
+        this.listFontFiles(directory, recursive, files);
       } else {
-        this.matchFont(font, fontNames, f, match);
-        if (match.getQuality() == 1.0) {
-          return;
+        this.directories_.add(directory);
+        this.lastModified_.add(0L);
+      }
+      this.files = Collections.unmodifiableList(files);
+    }
+
+    public List<String> files;
+
+    public boolean isModified() {
+      long now = System.currentTimeMillis();
+      if (now - this.lastChecked_ < FONT_FILES_CHECK_INTERVAL) {
+        return false;
+      }
+      this.lastChecked_ = now;
+      for (int i = 0; i < this.directories_.size(); ++i) {
+        if (new File(this.directories_.get(i)).lastModified() != this.lastModified_.get(i)) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    private List<String> directories_;
+    private List<Long> lastModified_;
+    private long lastChecked_;
+
+    private void listFontFiles(final String path, boolean recursive, final List<String> result) {
+      this.directories_.add(path);
+      this.lastModified_.add(new File(path).lastModified());
+      List<String> files = new ArrayList<String>();
+      FileUtils.listFiles(path, files);
+      for (int i = 0; i < files.size(); ++i) {
+        String f = files.get(i);
+        if (FileUtils.isDirectory(f)) {
+          if (recursive) {
+            this.listFontFiles(f, recursive, result);
+          }
+        } else {
+          if (f.endsWith(".ttf") || f.endsWith(".ttc")) {
+            result.add(f);
+          }
         }
       }
     }
@@ -303,4 +349,10 @@ class FontSupport {
   }
 
   private static Map<String, String> fontRegistry_ = new HashMap<String, String>();
+  private static Map<String, FontSupport.FontFiles> fontFiles_ =
+      new java.util.concurrent.ConcurrentHashMap<String, FontSupport.FontFiles>();
+  static final long FONT_FILES_CHECK_INTERVAL = 2000;
+  private static final int MATCH_CACHE_SIZE = 1000;
+  private static LruCache<String, FontMatch> matchCache_ =
+      new LruCache<String, FontMatch>(MATCH_CACHE_SIZE);
 }
@@ -0,0 +1,102 @@
+/*
+ * Copyright (C) 2009 Emweb bv, Herent, Belgium.
+ *
+ * See the LICENSE file for terms of use.
+ */
+package eu.webtoolkit.jwt;
+
+import java.util.Arrays;
+
+/*
+ * A growable list of ints, backed by an int[].
+ *
+ * Used for row mappings of proxy models, which would otherwise box every row
+ * number, and which need to insert and remove ranges of rows at once.
+ */
+final class IntList {
+	private int[] data;
+	private int size;
+
+	IntList() {
+		this.data = new int[10];
+		this.size = 0;
+	}
+
+	int size() {
+		return size;
+	}
+
+	int get(int index) {
+		if (index >= size)
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+		return data[index];
+	}
+
+	void set(int index, int value) {
+		if (index >= size)
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+		data[index] = value;
+	}
+
+	void add(int value) {
+		ensureCapacity(size + 1);
+		data[size++] = value;
+	}
+
+	/*
+	 * Inserts count copies of value at index.
+	 */
+	void insert(int index, int count, int value) {
+		makeRoom(index, count);
+		Arrays.fill(data, index, index + count, value);
+	}
+
+	/*
+	 * Inserts count values, starting at values[from], at index.
+	 */
+	void insert(int index, int[] values, int from, int count) {
+		makeRoom(index, count);
+		System.arraycopy(values, from, data, index, count);
+	}
+
+	void remove(int index, int count) {
+		if (index < 0 || count < 0 || index + count > size)
+			throw new IndexOutOfBoundsException("Index: " + index + ", Count: " + count + ", Size: " + size);
+		System.arraycopy(data, index + count, data, index, size - index - count);
+		size -= count;
+	}
+
+	/*
+	 * Resizes the list, filling new entries with value.
+	 */
+	void resize(int newSize, int value) {
+		ensureCapacity(newSize);
+		if (newSize > size)
+			Arrays.fill(data, size, newSize, value);
+		size = newSize;
+	}
+
+	void clear() {
+		size = 0;
+	}
+
+	/*
+	 * Returns the values, in a new array.
+	 */
+	int[] toArray() {
+		return Arrays.copyOf(data, size);
+	}
+
+	private void makeRoom(int index, int count) {
+		if (index < 0 || index > size || count < 0)
+			throw new IndexOutOfBoundsException("Index: " + index + ", Count: " + count + ", Size: " + size);
+		ensureCapacity(size + count);
+		System.arraycopy(data, index, data, index + count, size - index);
+		size += count;
+	}
+
+	private void ensureCapacity(int capacity) {
+		if (capacity > data.length)
+			data = Arrays.copyOf(data, Math.max(capacity, data.length + (data.length >> 1)));
+	}
+}
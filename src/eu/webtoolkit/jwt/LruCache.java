@@ -0,0 +1,64 @@
+/*
+ * Copyright (C) 2009 Emweb bv, Herent, Belgium.
+ *
+ * See the LICENSE file for terms of use.
+ */
+package eu.webtoolkit.jwt;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/*
+ * A thread-safe cache with a fixed number of entries, which evicts the least
+ * recently used entry when it is full.
+ *
+ * Values are computed outside of the lock: when two threads miss the same
+ * key at the same time, both compute it and the last one is kept. Callers
+ * therefore only cache values that are cheap to compute twice and do not
+ * depend on identity.
+ */
+final class LruCache<K, V> {
+	private final LinkedHashMap<K, V> entries;
+
+	LruCache(final int capacity) {
+		entries = new LinkedHashMap<K, V>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+				return size() > capacity;
+			}
+		};
+	}
+
+	synchronized V get(K key) {
+		return entries.get(key);
+	}
+
+	synchronized void put(K key, V value) {
+		entries.put(key, value);
+	}
+
+	/*
+	 * Returns the cached value for a key, computing and caching it if it is
+	 * not in the cache. A null value is returned but not cached.
+	 */
+	V get(K key, Function<? super K, ? extends V> compute) {
+		V result = get(key);
+		if (result == null) {
+			result = compute.apply(key);
+			if (result != null)
+				put(key, result);
+		}
+		return result;
+	}
+
+	synchronized void clear() {
+		entries.clear();
+	}
+
+	synchronized int size() {
+		return entries.size();
+	}
+}
@@ -1,9 +1,38 @@
 package eu.webtoolkit.jwt;
 
+import java.util.Arrays;
+import java.util.List;
+
 import org.antlr.v4.runtime.*;
 
+/*
+ * A compiled plural expression.
+ *
+ * An expression is parsed once into a tree of nodes, which is evaluated for
+ * each amount. Compiled expressions are cached by their text, and the
+ * results for small amounts are memoized.
+ */
 final class PluralExpression {
-    private PluralExpression() {
+    private static final int CACHE_SIZE = 256;
+    private static final int MEMOIZED_AMOUNTS = 128;
+
+    private static final LruCache<String, PluralExpression> cache = new LruCache<>(CACHE_SIZE);
+
+    private interface Node {
+        long eval(long n);
+    }
+
+    private final String expression;
+    private final Node root;
+    private final String error;
+    private final int[] memoized;
+
+    private PluralExpression(String expression, Node root, String error) {
+        this.expression = expression;
+        this.root = root;
+        this.error = error;
+        this.memoized = new int[MEMOIZED_AMOUNTS];
+        Arrays.fill(this.memoized, -1);
     }
 
     private static final class ErrorListener extends ConsoleErrorListener {
@@ -24,131 +53,152 @@ final class PluralExpression {
         }
     }
 
-    private static final class Visitor extends PluralExpressionBaseVisitor<Long> {
-        Visitor(long n) {
-            this.n = n;
-        }
-        
+    private static final class Compiler extends PluralExpressionBaseVisitor<Node> {
         @Override
-        public Long visitStatement(PluralExpressionParser.StatementContext ctx) {
-        	return visit(ctx.expression());
+        public Node visitStatement(PluralExpressionParser.StatementContext ctx) {
+            return visit(ctx.expression());
         }
 
         @Override
-        public Long visitExpression(PluralExpressionParser.ExpressionContext ctx) {
-            long res = visit(ctx.orExpression());
+        public Node visitExpression(PluralExpressionParser.ExpressionContext ctx) {
+            final Node condition = visit(ctx.orExpression());
             if (ctx.expression().isEmpty()) {
-                return res;
+                return condition;
             } else {
-                if (res != 0L) {
-                    return visit(ctx.expression(0));
-                } else {
-                    return visit(ctx.expression(1));
-                }
+                final Node then = visit(ctx.expression(0));
+                final Node otherwise = visit(ctx.expression(1));
+                return n -> condition.eval(n) != 0L ? then.eval(n) : otherwise.eval(n);
             }
         }
 
         @Override
-        public Long visitOrExpression(PluralExpressionParser.OrExpressionContext ctx) {
-        	if (ctx.andExpression().size() == 1) {
-        		return visit(ctx.andExpression(0));
-        	} else {
-        		return ctx.andExpression().stream()
-                    .map(this::visit)
-                    .reduce(0L, (l, r) -> l != 0L || r != 0L ? 1L : 0L);
-        	}
+        public Node visitOrExpression(PluralExpressionParser.OrExpressionContext ctx) {
+            if (ctx.andExpression().size() == 1) {
+                return visit(ctx.andExpression(0));
+            } else {
+                final Node[] operands = visitAll(ctx.andExpression());
+                return n -> {
+                    long res = 0L;
+                    for (Node operand : operands) {
+                        res = operand.eval(n) != 0L || res != 0L ? 1L : 0L;
+                    }
+                    return res;
+                };
+            }
         }
 
         @Override
-        public Long visitAndExpression(PluralExpressionParser.AndExpressionContext ctx) {
-        	if (ctx.eqExpression().size() == 1) {
-        		return visit(ctx.eqExpression(0));
-        	} else {
-        		return ctx.eqExpression().stream()
-                    .map(this::visit)
-                    .reduce(1L, (l, r) -> l != 0L && r != 0L ? 1L : 0L);
-        	}
+        public Node visitAndExpression(PluralExpressionParser.AndExpressionContext ctx) {
+            if (ctx.eqExpression().size() == 1) {
+                return visit(ctx.eqExpression(0));
+            } else {
+                final Node[] operands = visitAll(ctx.eqExpression());
+                return n -> {
+                    long res = 1L;
+                    for (Node operand : operands) {
+                        res = operand.eval(n) != 0L && res != 0L ? 1L : 0L;
+                    }
+                    return res;
+                };
+            }
         }
 
         @Override
-        public Long visitEqExpression(PluralExpressionParser.EqExpressionContext ctx) {
-            long res = visit(ctx.relationalExpression(0));
+        public Node visitEqExpression(PluralExpressionParser.EqExpressionContext ctx) {
+            Node res = visit(ctx.relationalExpression(0));
             for (int i = 0; i < ctx.relationalExpression().size() - 1; ++i) {
+                final Node l = res;
+                final Node r = visit(ctx.relationalExpression(i + 1));
                 if (ctx.eqOperator(i).EQ() != null) {
-                    res = (res == visit(ctx.relationalExpression(i + 1))) ? 1L : 0L;
+                    res = n -> l.eval(n) == r.eval(n) ? 1L : 0L;
                 } else if (ctx.eqOperator(i).NEQ() != null) {
-                    res = (res != visit(ctx.relationalExpression(i + 1))) ? 1L : 0L;
+                    res = n -> l.eval(n) != r.eval(n) ? 1L : 0L;
                 }
             }
             return res;
         }
 
         @Override
-        public Long visitRelationalExpression(PluralExpressionParser.RelationalExpressionContext ctx) {
-            long res = visit(ctx.additiveExpression(0));
+        public Node visitRelationalExpression(PluralExpressionParser.RelationalExpressionContext ctx) {
+            Node res = visit(ctx.additiveExpression(0));
             for (int i = 0; i < ctx.additiveExpression().size() - 1; ++i) {
+                final Node l = res;
+                final Node r = visit(ctx.additiveExpression(i + 1));
                 if (ctx.cmpOperator(i).GT() != null) {
-                    res = (res > visit(ctx.additiveExpression(i + 1))) ? 1L : 0L;
+                    res = n -> l.eval(n) > r.eval(n) ? 1L : 0L;
                 } else if (ctx.cmpOperator(i).GTE() != null) {
-                    res = (res >= visit(ctx.additiveExpression(i + 1))) ? 1L : 0L;
+                    res = n -> l.eval(n) >= r.eval(n) ? 1L : 0L;
                 } else if (ctx.cmpOperator(i).LT() != null) {
-                    res = (res < visit(ctx.additiveExpression(i + 1))) ? 1L : 0L;
+                    res = n -> l.eval(n) < r.eval(n) ? 1L : 0L;
                 } else if (ctx.cmpOperator(i).LTE() != null) {
-                    res = (res <= visit(ctx.additiveExpression(i + 1))) ? 1L : 0L;
+                    res = n -> l.eval(n) <= r.eval(n) ? 1L : 0L;
                 }
             }
             return res;
         }
 
         @Override
-        public Long visitAdditiveExpression(PluralExpressionParser.AdditiveExpressionContext ctx) {
-            long res = visit(ctx.term(0));
+        public Node visitAdditiveExpression(PluralExpressionParser.AdditiveExpressionContext ctx) {
+            Node res = visit(ctx.term(0));
             for (int i = 0; i < ctx.term().size() - 1; ++i) {
+                final Node l = res;
+                final Node r = visit(ctx.term(i + 1));
                 if (ctx.sumOperator(i).PLUS() != null) {
-                    res = res + visit(ctx.term(i + 1));
+                    res = n -> l.eval(n) + r.eval(n);
                 } else if (ctx.sumOperator(i).MINUS() != null) {
-                    res = res - visit(ctx.term(i + 1));
+                    res = n -> l.eval(n) - r.eval(n);
                 }
             }
             return res;
         }
 
         @Override
-        public Long visitTerm(PluralExpressionParser.TermContext ctx) {
-            long res = visit(ctx.factor(0));
+        public Node visitTerm(PluralExpressionParser.TermContext ctx) {
+            Node res = visit(ctx.factor(0));
             for (int i = 0; i < ctx.factor().size() - 1; ++i) {
+                final Node l = res;
+                final Node r = visit(ctx.factor(i + 1));
                 if (ctx.prodOperator(i).MULT() != null) {
-                    res = res * visit(ctx.factor(i + 1));
+                    res = n -> l.eval(n) * r.eval(n);
                 } else if (ctx.prodOperator(i).DIV() != null) {
-                    res = res / visit(ctx.factor(i + 1));
+                    res = n -> l.eval(n) / r.eval(n);
                 } else if (ctx.prodOperator(i).MOD() != null) {
-                    res = res % visit(ctx.factor(i + 1));
+                    res = n -> l.eval(n) % r.eval(n);
                 }
             }
             return res;
         }
 
         @Override
-        public Long visitGroup(PluralExpressionParser.GroupContext ctx) {
+        public Node visitGroup(PluralExpressionParser.GroupContext ctx) {
             return visit(ctx.expression());
         }
 
         @Override
-        public Long visitLiteral(PluralExpressionParser.LiteralContext ctx) {
-            return Long.valueOf(ctx.INTEGER().getText());
+        public Node visitLiteral(PluralExpressionParser.LiteralContext ctx) {
+            final long value = Long.valueOf(ctx.INTEGER().getText());
+            return n -> value;
         }
 
         @Override
-        public Long visitVariable(PluralExpressionParser.VariableContext ctx) {
-            return getN();
+        public Node visitVariable(PluralExpressionParser.VariableContext ctx) {
+            return n -> n;
         }
 
-        public long getN() { return n; }
+        private Node[] visitAll(List<? extends ParserRuleContext> contexts) {
+            Node[] result = new Node[contexts.size()];
+            for (int i = 0; i < result.length; ++i) {
+                result[i] = visit(contexts.get(i));
+            }
+            return result;
+        }
+    }
 
-        private long n;
+    static PluralExpression compile(String pluralExpression) {
+        return cache.get(pluralExpression, PluralExpression::parse);
     }
 
-    static int evalPluralCase(String pluralExpression, long amount) {
+    private static PluralExpression parse(String pluralExpression) {
         ErrorListener errorListener = new ErrorListener();
 
         CharStream stream = CharStreams.fromString(pluralExpression);
@@ -162,20 +212,46 @@ final class PluralExpression {
         parser.removeErrorListener(ConsoleErrorListener.INSTANCE);
         parser.addErrorListener(errorListener);
 
-        Visitor visitor = new Visitor(amount);
-        long result = visitor.visit(parser.statement());
+        PluralExpressionParser.StatementContext statement = parser.statement();
 
         if (!errorListener.getLastError().isEmpty()) {
-            throw new WException("An error occurred processing plural expression " + pluralExpression +
-                    " with n=" + amount + ": " + errorListener.getLastError());
-        } else if (result < 0) {
-            throw new WException("Expression '" + pluralExpression + "' evaluates to '" +
+            return new PluralExpression(pluralExpression, null, errorListener.getLastError());
+        } else {
+            return new PluralExpression(pluralExpression, new Compiler().visit(statement), null);
+        }
+    }
+
+    int evaluate(long amount) {
+        if (amount >= 0 && amount < MEMOIZED_AMOUNTS) {
+            int result = memoized[(int)amount];
+            if (result != -1) {
+                return result;
+            }
+        }
+
+        if (error != null) {
+            throw new WException("An error occurred processing plural expression " + expression +
+                    " with n=" + amount + ": " + error);
+        }
+
+        long result = root.eval(amount);
+
+        if (result < 0) {
+            throw new WException("Expression '" + expression + "' evaluates to '" +
                     result + "' for n=" + amount + ", and values smaller than 0 are not allowed.");
         } else if (result > Integer.MAX_VALUE) {
-            throw new WException("Expression '" + pluralExpression + "' evaluates to '" +
+            throw new WException("Expression '" + expression + "' evaluates to '" +
                     result + "' for n=" + amount + ", exceeding Integer.MAX_VALUE");
         }
 
+        if (amount >= 0 && amount < MEMOIZED_AMOUNTS) {
+            memoized[(int)amount] = (int)result;
+        }
+
         return (int)result;
     }
+
+    static int evalPluralCase(String pluralExpression, long amount) {
+        return compile(pluralExpression).evaluate(amount);
+    }
 }
@@ -11,6 +11,8 @@ import java.util.Enumeration;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import javax.servlet.AsyncContext;
@@ -265,14 +267,26 @@ public abstract class ServletApi {
 				public void onComplete(AsyncEvent arg0) throws IOException {
 				}
 			});
-			request.getAsyncContext().start(new Runnable() {
+			Runnable task = new Runnable() {
 				@Override
 				public void run() {
 					threadWrapper.t = Thread.currentThread();
 					handleRequest(servlet, request, response);
 					handleRequestFinished.set(true);
 				}
-			});
+			};
+
+			Executor executor = servlet.getRequestExecutor();
+			if (executor != null) {
+				try {
+					executor.execute(task);
+					return;
+				} catch (RejectedExecutionException e) {
+					getLogger().debug("Request executor rejected request, using container thread");
+				}
+			}
+
+			request.getAsyncContext().start(task);
 		} else
 			handleRequest(servlet, request, response);
 	}
@@ -0,0 +1,122 @@
+/*
+ * Copyright (C) 2009 Emweb bv, Herent, Belgium.
+ *
+ * See the LICENSE file for terms of use.
+ */
+package eu.webtoolkit.jwt;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * Registry of the live sessions of a servlet.
+ *
+ * Lookups and updates do not take a global lock, and iteration (used for
+ * broadcasts) is weakly consistent: it never throws
+ * ConcurrentModificationException and reflects sessions that are added or
+ * removed concurrently at most once.
+ */
+class SessionRegistry {
+	private static class Entry {
+		final WebSession session;
+		final long created;
+
+		Entry(WebSession session) {
+			this.session = session;
+			this.created = System.currentTimeMillis();
+		}
+	}
+
+	private final ConcurrentHashMap<String, Entry> sessions = new ConcurrentHashMap<String, Entry>();
+	private final LongAdder ajaxSessions = new LongAdder();
+
+	/*
+	 * Adds a session, returning the number of sessions.
+	 */
+	int add(WebSession session) {
+		sessions.put(session.getSessionId(), new Entry(session));
+		return sessions.size();
+	}
+
+	void newAjaxSession() {
+		ajaxSessions.increment();
+	}
+
+	/*
+	 * Removes a session, returning the number of sessions. Removing a session
+	 * that is no longer registered has no effect.
+	 */
+	int remove(WebSession session) {
+		if (sessions.remove(session.getSessionId()) != null && session.getEnv().hasAjax())
+			ajaxSessions.decrement();
+		return sessions.size();
+	}
+
+	void remove(String sessionId) {
+		Entry entry = sessions.get(sessionId);
+		if (entry != null)
+			remove(entry.session);
+	}
+
+	WebSession get(String sessionId) {
+		Entry entry = sessions.get(sessionId);
+		return entry != null ? entry.session : null;
+	}
+
+	/*
+	 * Returns a weakly consistent view of all sessions.
+	 */
+	Iterable<WebSession> getSessions() {
+		final Collection<Entry> entries = sessions.values();
+		return () -> new Iterator<WebSession>() {
+			private final Iterator<Entry> i = entries.iterator();
+
+			@Override
+			public boolean hasNext() {
+				return i.hasNext();
+			}
+
+			@Override
+			public WebSession next() {
+				return i.next().session;
+			}
+		};
+	}
+
+	int size() {
+		return sessions.size();
+	}
+
+	long getAjaxSessionCount() {
+		return ajaxSessions.sum();
+	}
+
+	/*
+	 * Returns the age of the oldest session (in milliseconds), or 0 when
+	 * there are no sessions.
+	 */
+	long getMaxSessionAge() {
+		long now = System.currentTimeMillis();
+		long result = 0;
+		for (Entry e : sessions.values())
+			result = Math.max(result, now - e.created);
+		return result;
+	}
+
+	/*
+	 * Returns the average age of the sessions (in milliseconds), or 0 when
+	 * there are no sessions.
+	 */
+	long getAverageSessionAge() {
+		long now = System.currentTimeMillis();
+		long total = 0;
+		int count = 0;
+		for (Entry e : sessions.values()) {
+			total += now - e.created;
+			++count;
+		}
+		return count == 0 ? 0 : total / count;
+	}
+}
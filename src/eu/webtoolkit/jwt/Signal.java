@@ -5,8 +5,6 @@
  */
 package eu.webtoolkit.jwt;
 
-import java.util.ArrayList;
-
 /**
  * A signal that propagates events to listeners.
  * <p>
@@ -62,10 +60,11 @@ public class Signal extends AbstractSignal {
 		if (impl == null)
 			return;
 
-		ArrayList<SignalImpl.Listener> listeners = impl.getListeners();
-
-		for (SignalImpl.Listener listener : listeners)
-			((Listener) (listener)).trigger();
+		for (SignalImpl.Entry e : impl.getListenerEntries()) {
+			SignalImpl.Listener listener = e.getListener();
+			if (listener != null)
+				((Listener) (listener)).trigger();
+		}
 	}
 
 	@Override
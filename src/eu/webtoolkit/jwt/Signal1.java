@@ -5,8 +5,6 @@
  */
 package eu.webtoolkit.jwt;
 
-import java.util.ArrayList;
-
 /**
  * A signal that propagates events to listeners, and is capable of passing 1 argument.
  * <p>
@@ -80,10 +78,11 @@ public class Signal1<A1> extends AbstractSignal {
 		if (impl == null)
 			return;
 
-		ArrayList<SignalImpl.Listener> listeners = impl.getListeners();
-
-		for (SignalImpl.Listener listener : listeners)
-			((Listener) (listener)).trigger(arg);
+		for (SignalImpl.Entry e : impl.getListenerEntries()) {
+			SignalImpl.Listener listener = e.getListener();
+			if (listener != null)
+				((Listener) (listener)).trigger(arg);
+		}
 	}
 
 	@Override
@@ -5,8 +5,6 @@
  */
 package eu.webtoolkit.jwt;
 
-import java.util.ArrayList;
-
 /**
  * A signal that propagates events to listeners, and is capable of passing 3 argument.
  * <p>
@@ -86,10 +84,11 @@ public class Signal3<A1, A2, A3> extends AbstractSignal {
 		if (impl == null)
 			return;
 
-		ArrayList<SignalImpl.Listener> listeners = impl.getListeners();
-
-		for (SignalImpl.Listener listener : listeners)
-			((Listener) (listener)).trigger(arg1, arg2, arg3);
+		for (SignalImpl.Entry e : impl.getListenerEntries()) {
+			SignalImpl.Listener listener = e.getListener();
+			if (listener != null)
+				((Listener) (listener)).trigger(arg1, arg2, arg3);
+		}
 	}
 
 
@@ -5,18 +5,30 @@
  */
 package eu.webtoolkit.jwt;
 
+import java.lang.ref.ReferenceQueue;
 import java.lang.ref.WeakReference;
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.Iterator;
-import java.util.Map;
 
 import eu.webtoolkit.jwt.AbstractSignal.Connection;
 
+/*
+ * Listeners are kept in an immutable array which is replaced (copied) when a
+ * listener is added or removed. Triggering a signal simply iterates the
+ * current array: listeners that are added or removed while the signal is
+ * being triggered do not affect that trigger, and no copy is needed.
+ *
+ * Listeners that have an owner are referenced weakly (the owner references
+ * them strongly through WObject.listenerSignalsPairs). Their entries are
+ * registered with a reference queue, and are expunged from the array when
+ * the queue is polled, on the next modification.
+ *
+ * Listeners without an owner precede listeners with an owner, as they did
+ * when these were kept in two separate lists.
+ */
 class SignalImpl {
 	static interface Listener {
 	}
-	
+
 	static class ListenerSignalPair {
 		public ListenerSignalPair(Listener listener, SignalImpl signal) {
 			this.listener = listener;
@@ -27,76 +39,133 @@ class SignalImpl {
 		SignalImpl signal;
 	}
 
-	private final ArrayList<Listener> observerCatalog = new ArrayList<Listener>();
-	private final ArrayList<WeakReference<Listener>> weakObserverCatalog = new ArrayList<WeakReference<Listener>>();
-	
-	private Map<Listener, Object> wrappedListeners_ = null;
-	private Map<WeakReference<Listener>, WeakReference<Object>> weakWrappedListeners_ = null;
+	static final class Entry extends WeakReference<Listener> {
+		private final Listener listener;
+		private final Object wrapped;
+
+		private Entry(Listener listener, Object wrapped) {
+			super(null);
+			this.listener = listener;
+			this.wrapped = wrapped;
+		}
+
+		private Entry(Listener listener, Object wrapped, ReferenceQueue<Listener> queue) {
+			super(listener, queue);
+			this.listener = null;
+			this.wrapped = wrapped != null ? new WeakReference<Object>(wrapped) : null;
+		}
+
+		Listener getListener() {
+			return listener != null ? listener : get();
+		}
+
+		private boolean isWeak() {
+			return listener == null;
+		}
+
+		private boolean matches(Object l) {
+			if (l == getListener())
+				return true;
+
+			Object w = wrapped;
+			if (w instanceof WeakReference)
+				w = ((WeakReference<?>) w).get();
+			return w != null && l == w;
+		}
+	}
+
+	private static final Entry[] emptyEntries = new Entry[0];
+
+	private Entry[] entries = emptyEntries;
+	private int strongCount = 0;
+	private ReferenceQueue<Listener> queue = null;
 
-	private static ArrayList<Listener> emptyList = new ArrayList<Listener>();
 	private boolean blocked = false;
 
 	public Connection addListener(WObject listenerOwner, Listener listener) {
-		if (listenerOwner != null) {
-			weakObserverCatalog.add(new WeakReference<Listener>(listener));
-			if (listenerOwner.listenerSignalsPairs == null)
-				listenerOwner.listenerSignalsPairs = new ArrayList<ListenerSignalPair>();
-			listenerOwner.listenerSignalsPairs.add(new ListenerSignalPair(listener, this));
-		} else
-			observerCatalog.add(listener);
-
-		return new Connection(this, listener);
+		return addListener(listenerOwner, listener, null);
 	}
 
 	public Connection addWrappedListener(WObject listenerOwner, Listener listener, Object wrappedListener) {
+		return addListener(listenerOwner, listener, wrappedListener);
+	}
+
+	private Connection addListener(WObject listenerOwner, Listener listener, Object wrappedListener) {
+		expungeCollected();
+
 		if (listenerOwner != null) {
-			if (weakWrappedListeners_ == null)
-				weakWrappedListeners_ = new HashMap<WeakReference<Listener>, WeakReference<Object>>();
+			if (queue == null)
+				queue = new ReferenceQueue<Listener>();
+			insert(entries.length, new Entry(listener, wrappedListener, queue));
 
-			weakWrappedListeners_.put(new WeakReference<Listener>(listener),
-									  new WeakReference<Object>(wrappedListener));
+			if (listenerOwner.listenerSignalsPairs == null)
+				listenerOwner.listenerSignalsPairs = new ArrayList<ListenerSignalPair>();
+			listenerOwner.listenerSignalsPairs.add(new ListenerSignalPair(listener, this));
 		} else {
-			if (wrappedListeners_ == null)
-				wrappedListeners_ = new HashMap<Listener, Object>();
-			wrappedListeners_.put(listener, wrappedListener);
+			insert(strongCount, new Entry(listener, wrappedListener));
+			++strongCount;
 		}
 
-		return addListener(listenerOwner, listener);
+		return new Connection(this, listener);
 	}
 
+	/*
+	 * Removes the first listener with an owner and the first listener without
+	 * an owner that match.
+	 */
 	public void removeListener(Listener listener) {
-		for (WeakReference<Listener> weakObserver : weakObserverCatalog) {
-			if (listener == weakObserver.get()) {
-				weakObserverCatalog.remove(weakObserver);
-				break;
+		removeMatching(listener);
+	}
+
+	public void removeWrappedListener(Listener listener) {
+		removeMatching(listener);
+	}
+
+	private void removeMatching(Object listener) {
+		expungeCollected();
+
+		Entry[] current = entries;
+		int weak = -1, strong = -1;
+		for (int i = current.length - 1; i >= 0; --i) {
+			if (current[i].matches(listener)) {
+				if (current[i].isWeak())
+					weak = i;
+				else
+					strong = i;
 			}
 		}
-		observerCatalog.remove(listener);
+
+		if (weak != -1)
+			remove(weak);
+		if (strong != -1)
+			remove(strong);
 	}
-	
-	@SuppressWarnings("unchecked")
-	protected ArrayList<Listener> getListeners() {
-		if (blocked)
-			return emptyList;
 
-		ArrayList<Listener> result = (ArrayList<Listener>) observerCatalog.clone();
+	/*
+	 * Returns the current listeners, without copying them. The array must not
+	 * be modified. The listener of an entry is null if it has been garbage
+	 * collected.
+	 */
+	Entry[] getListenerEntries() {
+		return blocked ? emptyEntries : entries;
+	}
 
-		Iterator<WeakReference<Listener>> i = weakObserverCatalog.iterator();
-		while (i.hasNext()) {
-			WeakReference<Listener> ref = i.next();
-			Listener listener = ref.get();
+	protected ArrayList<Listener> getListeners() {
+		Entry[] current = getListenerEntries();
+		ArrayList<Listener> result = new ArrayList<Listener>(current.length);
+		for (Entry e : current) {
+			Listener listener = e.getListener();
 			if (listener != null)
 				result.add(listener);
-			else {
-				i.remove();
-			}
 		}
 
 		return result;
 	}
 
 	protected int getListenerCount() {
-		return observerCatalog.size() + weakObserverCatalog.size();
+		expungeCollected();
+
+		return entries.length;
 	}
 
 	public boolean isBlocked() {
@@ -108,26 +177,58 @@ class SignalImpl {
 	}
 
 	public boolean hasListener(Listener listener) {
-		for (WeakReference<Listener> weakObserver : weakObserverCatalog) {
-			if (listener == weakObserver.get())
+		for (Entry e : entries)
+			if (listener == e.getListener())
 				return true;
-		}
 
-		for (Listener observer : observerCatalog) {
-			if (listener == observer)
-				return true;
+		return false;
+	}
+
+	private void insert(int index, Entry entry) {
+		Entry[] current = entries;
+		Entry[] result = new Entry[current.length + 1];
+		System.arraycopy(current, 0, result, 0, index);
+		result[index] = entry;
+		System.arraycopy(current, index, result, index + 1, current.length - index);
+		entries = result;
+	}
+
+	private void remove(int index) {
+		Entry[] current = entries;
+		if (current.length == 1) {
+			entries = emptyEntries;
+		} else {
+			Entry[] result = new Entry[current.length - 1];
+			System.arraycopy(current, 0, result, 0, index);
+			System.arraycopy(current, index + 1, result, index, current.length - index - 1);
+			entries = result;
 		}
 
-		return false;
+		if (index < strongCount)
+			--strongCount;
 	}
 
-	public void removeWrappedListener(Listener listener) {
-		removeListener(listener);
+	private void expungeCollected() {
+		if (queue == null || queue.poll() == null)
+			return;
+
+		while (queue.poll() != null)
+			;
+
+		Entry[] current = entries;
+		int live = 0;
+		for (Entry e : current)
+			if (e.getListener() != null)
+				++live;
+
+		if (live == current.length)
+			return;
 
-		if (wrappedListeners_ != null)
-			wrappedListeners_.remove(listener);
-		
-		if (weakWrappedListeners_ != null)
-			weakWrappedListeners_.remove(new WeakReference<Listener>(listener));
+		Entry[] result = live == 0 ? emptyEntries : new Entry[live];
+		int j = 0;
+		for (Entry e : current)
+			if (e.getListener() != null)
+				result[j++] = e;
+		entries = result;
 	}
 }
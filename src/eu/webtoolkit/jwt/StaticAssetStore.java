@@ -0,0 +1,315 @@
+/*
+ * Copyright (C) 2009 Emweb bv, Herent, Belgium.
+ *
+ * See the LICENSE file for terms of use.
+ */
+package eu.webtoolkit.jwt;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLConnection;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPOutputStream;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import eu.webtoolkit.jwt.servlet.WebResponse;
+import eu.webtoolkit.jwt.utils.StreamUtils;
+
+/*
+ * In-memory store for the bundled wt-resources.
+ *
+ * Each asset is read from the classpath once, after which its contents, a
+ * content hash based ETag and (for text formats) a gzip-compressed variant
+ * are kept in memory. Subsequent requests, including conditional requests,
+ * are answered from the store without touching the classpath again.
+ *
+ * getVersionedUrl() adds the content hash of an asset to its URL. Only a
+ * request with the current version of the asset may be cached as immutable.
+ */
+class StaticAssetStore {
+	private static final Logger logger = LoggerFactory.getLogger(StaticAssetStore.class);
+
+	private static final Map<String, String> mimeTypes = new HashMap<String, String>();
+	private static final long IMMUTABLE_MAX_AGE = 365L * 24 * 60 * 60;
+	static final String VERSION_PARAMETER = "wtv";
+
+	static {
+		String[][] types = {
+				{ "css", "text/css" },
+				{ "less", "text/css" },
+				{ "htm", "text/html" },
+				{ "html", "text/html" },
+				{ "txt", "text/plain" },
+				{ "md", "text/plain" },
+				{ "sh", "text/plain" },
+				{ "csv", "text/csv" },
+				{ "xml", "application/xml" },
+				{ "js", "text/javascript" },
+				{ "mjs", "text/javascript" },
+				{ "json", "application/json" },
+				{ "map", "application/json" },
+				{ "gif", "image/gif" },
+				{ "jpg", "image/jpeg" },
+				{ "jpeg", "image/jpeg" },
+				{ "png", "image/png" },
+				{ "bmp", "image/bmp" },
+				{ "ico", "image/x-icon" },
+				{ "svg", "image/svg+xml" },
+				{ "webp", "image/webp" },
+				{ "eot", "application/vnd.ms-fontobject" },
+				{ "otf", "font/otf" },
+				{ "ttf", "font/ttf" },
+				{ "woff", "font/woff" },
+				{ "woff2", "font/woff2" },
+				{ "swf", "application/x-shockwave-flash" },
+				{ "pdf", "application/pdf" },
+				{ "mp3", "audio/mpeg" },
+				{ "ogg", "audio/ogg" },
+				{ "oga", "audio/ogg" },
+				{ "wav", "audio/wav" },
+				{ "mp4", "video/mp4" },
+				{ "m4v", "video/mp4" },
+				{ "ogv", "video/ogg" },
+				{ "webm", "video/webm" }
+			};
+
+		for (String[] s : types)
+			mimeTypes.put(s[0], s[1]);
+	}
+
+	static class Asset {
+		final String mimeType;
+		final byte[] data;
+		final byte[] gzipData;
+		final String etag;
+		final String gzipEtag;
+		final String version;
+		// the modification time of the resource, or 0 if it is not known
+		final long lastModified;
+
+		Asset(String mimeType, byte[] data, byte[] gzipData, String etag, long lastModified) {
+			this.mimeType = mimeType;
+			this.data = data;
+			this.gzipData = gzipData;
+			this.etag = etag;
+			this.gzipEtag = etag.substring(0, etag.length() - 1) + "-gzip\"";
+			this.version = etag.substring(1, etag.length() - 1);
+			this.lastModified = lastModified;
+		}
+	}
+
+	private final ConcurrentHashMap<String, Asset> assets = new ConcurrentHashMap<String, Asset>();
+	private final String basePath;
+
+	/*
+	 * basePath is the classpath prefix under which assets are looked up,
+	 * e.g. "/eu/webtoolkit/jwt/".
+	 */
+	StaticAssetStore(String basePath) {
+		this.basePath = basePath;
+	}
+
+	/*
+	 * Returns the mime type for a file name, based on its suffix.
+	 */
+	static String getMimeType(String fileName) {
+		String suffix = fileName.substring(fileName.lastIndexOf('.') + 1).toLowerCase();
+		String mimeType = mimeTypes.get(suffix);
+		return mimeType != null ? mimeType : "application/octet-stream";
+	}
+
+	/*
+	 * Returns the asset, loading it from the classpath the first time it is
+	 * requested. Returns null if it does not exist.
+	 */
+	Asset getAsset(String fileName) throws IOException {
+		if (fileName.contains(".."))
+			return null;
+
+		Asset asset = assets.get(fileName);
+		if (asset == null) {
+			asset = load(fileName);
+			if (asset != null) {
+				Asset existing = assets.putIfAbsent(fileName, asset);
+				if (existing != null)
+					asset = existing;
+			}
+		}
+
+		return asset;
+	}
+
+	/*
+	 * Returns the URL of an asset with its version added, or the URL itself if
+	 * the asset does not exist.
+	 */
+	String getVersionedUrl(String url, String fileName) {
+		Asset asset;
+		try {
+			asset = getAsset(fileName);
+		} catch (IOException e) {
+			asset = null;
+		}
+
+		if (asset == null)
+			return url;
+
+		return url + (url.indexOf('?') == -1 ? '?' : '&') + VERSION_PARAMETER + '=' + asset.version;
+	}
+
+	/*
+	 * Serves an asset, honoring conditional requests and Accept-Encoding.
+	 * Returns false if the asset does not exist.
+	 */
+	boolean serve(String fileName, HttpServletRequest request, HttpServletResponse response,
+			int maxAge) throws IOException {
+		Asset asset = getAsset(fileName);
+		if (asset == null)
+			return false;
+
+		boolean gzip = asset.gzipData != null && WebResponse.acceptsGzip(request.getHeader("Accept-Encoding"));
+		String etag = gzip ? asset.gzipEtag : asset.etag;
+
+		response.setHeader("ETag", etag);
+		if (asset.lastModified > 0)
+			response.setDateHeader("Last-Modified", asset.lastModified);
+		if (asset.version.equals(request.getParameter(VERSION_PARAMETER)))
+			response.setHeader("Cache-Control", "public, max-age=" + IMMUTABLE_MAX_AGE + ", immutable");
+		else if (maxAge > 0)
+			response.setHeader("Cache-Control", "public, max-age=" + maxAge);
+		else
+			response.setHeader("Cache-Control", "public, no-cache");
+		if (asset.gzipData != null)
+			response.setHeader("Vary", "Accept-Encoding");
+
+		if (isNotModified(etag, asset.lastModified, request)) {
+			response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+			return true;
+		}
+
+		byte[] body = asset.data;
+		if (gzip) {
+			body = asset.gzipData;
+			response.setHeader("Content-Encoding", "gzip");
+		}
+
+		response.setContentType(asset.mimeType);
+		response.setContentLength(body.length);
+		if (!"HEAD".equals(request.getMethod())) {
+			response.getOutputStream().write(body);
+			response.getOutputStream().flush();
+		}
+
+		return true;
+	}
+
+	static boolean isNotModified(String etag, long lastModified, HttpServletRequest request) {
+		String ifNoneMatch = request.getHeader("If-None-Match");
+		if (ifNoneMatch != null)
+			return etagMatches(etag, ifNoneMatch);
+
+		if (lastModified <= 0)
+			return false;
+
+		try {
+			long ifModifiedSince = request.getDateHeader("If-Modified-Since");
+			return ifModifiedSince != -1 && lastModified / 1000 <= ifModifiedSince / 1000;
+		} catch (IllegalArgumentException e) {
+			return false;
+		}
+	}
+
+	static boolean etagMatches(String etag, String header) {
+		for (String tag : header.split(",")) {
+			tag = tag.trim();
+			if (tag.equals("*"))
+				return true;
+			if (tag.startsWith("W/"))
+				tag = tag.substring(2);
+			if (tag.equals(etag))
+				return true;
+		}
+
+		return false;
+	}
+
+	static String computeETag(byte[] data) {
+		try {
+			MessageDigest d = MessageDigest.getInstance("SHA-256");
+			byte[] digest = d.digest(data);
+			StringBuilder result = new StringBuilder(2 + 32);
+			result.append('"');
+			for (int i = 0; i < 16; ++i)
+				result.append(String.format("%02x", digest[i]));
+			result.append('"');
+			return result.toString();
+		} catch (NoSuchAlgorithmException e) {
+			logger.error("NoSuchAlgorithmException", e);
+			return "\"" + Integer.toHexString(Arrays.hashCode(data)) + "\"";
+		}
+	}
+
+	private static boolean isCompressible(String mimeType) {
+		return mimeType.startsWith("text/")
+			|| mimeType.equals("application/json")
+			|| mimeType.equals("application/xml")
+			|| mimeType.equals("image/svg+xml")
+			|| mimeType.equals("application/vnd.ms-fontobject")
+			|| mimeType.equals("font/ttf")
+			|| mimeType.equals("font/otf");
+	}
+
+	private Asset load(String fileName) throws IOException {
+		InputStream s;
+		long lastModified;
+		try {
+			URL url = FileUtils.getResource(basePath + fileName);
+			URLConnection connection = url.openConnection();
+			s = connection.getInputStream();
+			lastModified = connection.getLastModified();
+		} catch (FileNotFoundException e) {
+			return null;
+		}
+
+		if (s == null)
+			return null;
+
+		byte[] data;
+		try {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			StreamUtils.copy(s, bytes);
+			data = bytes.toByteArray();
+		} finally {
+			StreamUtils.closeQuietly(s);
+		}
+
+		String mimeType = getMimeType(fileName);
+
+		byte[] gzipData = null;
+		if (isCompressible(mimeType)) {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream(data.length / 3 + 64);
+			GZIPOutputStream gzip = new GZIPOutputStream(bytes);
+			gzip.write(data);
+			gzip.close();
+			if (bytes.size() < data.length)
+				gzipData = bytes.toByteArray();
+		}
+
+		logger.debug("cached static asset: {} ({} bytes)", fileName, data.length);
+
+		return new Asset(mimeType, data, gzipData, computeETag(data), lastModified);
+	}
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright (C) 2009 Emweb bv, Herent, Belgium.
+ *
+ * See the LICENSE file for terms of use.
+ */
+package eu.webtoolkit.jwt;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/*
+ * Access to virtual threads (Java 21 or later), while JWt itself is still
+ * compiled for older Java releases.
+ */
+class VirtualThreads {
+	private static final Logger logger = LoggerFactory.getLogger(VirtualThreads.class);
+
+	/*
+	 * Returns an executor that starts a new virtual thread for each task,
+	 * or null if virtual threads are not supported by the running JVM.
+	 */
+	static ExecutorService newVirtualThreadPerTaskExecutor() {
+		try {
+			Method m = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			return (ExecutorService) m.invoke(null);
+		} catch (NoSuchMethodException e) {
+			logger.warn("Virtual threads are not supported by this JVM (Java 21 or later is required)");
+		} catch (ReflectiveOperationException e) {
+			logger.warn("Could not create a virtual thread executor", e);
+		} catch (RuntimeException e) {
+			logger.warn("Could not create a virtual thread executor", e);
+		}
+
+		return null;
+	}
+}
@@ -102,6 +102,40 @@ public abstract class WAbstractItemDelegate extends WObject {
    * <p>The default implementation does nothing.
    */
   public void updateModelIndex(WWidget widget, final WModelIndex index) {}
+  /**
+   * Returns whether items are rendered as HTML.
+   *
+   * <p>When this returns <code>true</code>, a view that supports it (currently the {@link
+   * WTableView}) calls {@link WAbstractItemDelegate#renderHtml(StringBuilder html, WModelIndex
+   * index, EnumSet flags, String styleClass, String style) renderHtml()} instead of {@link
+   * WAbstractItemDelegate#update(WWidget widget, WModelIndex index, EnumSet flags) update()} to
+   * render an item, and does not create a widget for it. Items rendered as HTML cannot be edited.
+   *
+   * <p>The default implementation returns <code>false</code>.
+   */
+  public boolean isRenderingHtml() {
+    return false;
+  }
+  /**
+   * Renders an item as HTML.
+   *
+   * <p>Appends the HTML for a single element, that renders the item, to <code>html</code>. The
+   * view passes the <code>style</code> (e.g. the height) for the element, which should be set in
+   * its style attribute, and the style classes that it needs, which should be added to its class
+   * attribute. Any text from the model must be escaped.
+   *
+   * <p>The default implementation does nothing.
+   *
+   * <p>
+   *
+   * @see WAbstractItemDelegate#isRenderingHtml()
+   */
+  public void renderHtml(
+      final StringBuilder html,
+      final WModelIndex index,
+      EnumSet<ViewItemRenderFlag> flags,
+      final String styleClass,
+      final String style) {}
   /**
    * Returns the current edit state.
    *
@@ -0,0 +1,427 @@
+/*
+ * Copyright (C) 2020 Emweb bv, Herent, Belgium.
+ *
+ * See the LICENSE file for terms of use.
+ */
+package eu.webtoolkit.jwt;
+
+import eu.webtoolkit.jwt.chart.*;
+import eu.webtoolkit.jwt.servlet.*;
+import eu.webtoolkit.jwt.utils.*;
+import java.io.*;
+import java.lang.ref.*;
+import java.time.*;
+import java.util.*;
+import java.util.regex.*;
+import javax.servlet.*;
+import javax.servlet.http.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An abstract table model that lazily fetches the results of a query.
+ *
+ * <p>The model does not hold the complete result set of a query in memory. Instead, the number of
+ * results is counted once (see {@link WAbstractQueryModel#countResults() countResults()}), and
+ * results are fetched in batches (pages) of {@link WAbstractQueryModel#getBatchSize()
+ * getBatchSize()} rows (see {@link WAbstractQueryModel#fetchResults(int offset, int count)
+ * fetchResults()}) when a view asks for their data. Only the most recently used {@link
+ * WAbstractQueryModel#getCacheSize() getCacheSize()} batches are kept.
+ *
+ * <p>Since a {@link WTableView} only asks data for the rows that are rendered, a table over a
+ * query with millions of results starts immediately and only keeps a few batches in memory. When
+ * the view scrolls (i.e. subsequent batches are requested in the same direction), the batch that
+ * follows in that direction is fetched together with the requested batch, in a single query.
+ *
+ * <p>Each column corresponds to a field of the query (see {@link
+ * WAbstractQueryModel#addColumn(String field, CharSequence header) addColumn()}). Sorting the
+ * model does not sort data in memory: it sets the {@link WAbstractQueryModel#getSortField()
+ * getSortField()} and {@link WAbstractQueryModel#getSortOrder() getSortOrder()} which the
+ * implementation should use in the <code>ORDER BY</code> clause of the query, and discards the
+ * cached results.
+ *
+ * <p>A concrete model implements {@link WAbstractQueryModel#countResults() countResults()}, {@link
+ * WAbstractQueryModel#fetchResults(int offset, int count) fetchResults()} and {@link
+ * WAbstractQueryModel#getResultData(Object result, int column) getResultData()}, e.g. using JDBC:
+ *
+ * <pre>{@code
+ * class OrderModel extends WAbstractQueryModel<Object[]> {
+ *   OrderModel() {
+ *     addColumn("id", "Order");
+ *     addColumn("customer", "Customer");
+ *   }
+ *
+ *   protected int countResults() {
+ *     ... select count(*) from orders
+ *   }
+ *
+ *   protected List<Object[]> fetchResults(int offset, int count) {
+ *     String sql = "select id, customer from orders";
+ *     if (getSortField() != null)
+ *       sql += " order by " + getSortField() + (getSortOrder() == SortOrder.Ascending ? " asc" : " desc");
+ *     sql += " limit " + count + " offset " + offset;
+ *     ...
+ *   }
+ *
+ *   protected Object getResultData(Object[] result, int column) {
+ *     return result[column];
+ *   }
+ * }
+ * }</pre>
+ *
+ * <p>See {@link eu.webtoolkit.jwt.jpa.JpaQueryModel} for an implementation that uses a JPA
+ * query.
+ *
+ * <p>The model is read-only. Call {@link WAbstractQueryModel#reload() reload()} after the
+ * underlying data has changed.
+ */
+public abstract class WAbstractQueryModel<Result> extends WAbstractTableModel {
+  private static Logger logger = LoggerFactory.getLogger(WAbstractQueryModel.class);
+
+  /** Creates a new query model. */
+  public WAbstractQueryModel() {
+    super();
+    this.fields_ = new ArrayList<String>();
+    this.columnHeaderData_ = new ArrayList<Map<ItemDataRole, Object>>();
+    this.columnFlags_ = new ArrayList<EnumSet<ItemFlag>>();
+    this.batchSize_ = 40;
+    this.cacheSize_ = 5;
+    this.rowCount_ = -1;
+    this.sortColumn_ = -1;
+    this.sortOrder_ = SortOrder.Ascending;
+    this.batches_ = new LinkedHashMap<Integer, List<Result>>(16, 0.75f, true);
+    this.lastBatch_ = -1;
+  }
+  /**
+   * Adds a column.
+   *
+   * <p>The <code>field</code> identifies the column in the query, and is used as the sort field
+   * when the model is sorted on this column (see {@link WAbstractQueryModel#getSortField()
+   * getSortField()}).
+   *
+   * <p>The default flags are {@link ItemFlag#Selectable ItemFlag.Selectable}.
+   */
+  public int addColumn(final String field, final CharSequence header, EnumSet<ItemFlag> flags) {
+    int column = this.fields_.size();
+    this.beginInsertColumns(null, column, column);
+    this.fields_.add(field);
+    Map<ItemDataRole, Object> headerData = new TreeMap<ItemDataRole, Object>();
+    headerData.put(ItemDataRole.Display, WString.toWString(header));
+    this.columnHeaderData_.add(headerData);
+    this.columnFlags_.add(EnumSet.copyOf(flags));
+    this.endInsertColumns();
+    return column;
+  }
+  /**
+   * Adds a column.
+   *
+   * <p>Returns {@link #addColumn(String field, CharSequence header, EnumSet flags)
+   * addColumn(field, header, EnumSet.of(ItemFlag.Selectable))}
+   */
+  public final int addColumn(final String field, final CharSequence header) {
+    return addColumn(field, header, EnumSet.of(ItemFlag.Selectable));
+  }
+  /**
+   * Adds a column.
+   *
+   * <p>Returns {@link #addColumn(String field, CharSequence header, EnumSet flags)
+   * addColumn(field, field, EnumSet.of(ItemFlag.Selectable))}
+   */
+  public final int addColumn(final String field) {
+    return addColumn(field, field, EnumSet.of(ItemFlag.Selectable));
+  }
+  /**
+   * Returns the field of a column.
+   *
+   * <p>
+   *
+   * @see WAbstractQueryModel#addColumn(String field, CharSequence header, EnumSet flags)
+   */
+  public String getField(int column) {
+    return this.fields_.get(column);
+  }
+  /**
+   * Sets the batch size.
+   *
+   * <p>Results are fetched in batches of this many rows. The batch size should be at least the
+   * number of rows that a view renders at once (including its preload margin).
+   *
+   * <p>The default batch size is 40.
+   */
+  public void setBatchSize(int count) {
+    if (count != this.batchSize_) {
+      this.batchSize_ = count;
+      this.invalidateCache();
+    }
+  }
+  /**
+   * Returns the batch size.
+   *
+   * <p>
+   *
+   * @see WAbstractQueryModel#setBatchSize(int count)
+   */
+  public int getBatchSize() {
+    return this.batchSize_;
+  }
+  /**
+   * Sets the number of batches that are kept in memory.
+   *
+   * <p>When more batches have been fetched, the least recently used batch is discarded.
+   *
+   * <p>The default cache size is 5.
+   */
+  public void setCacheSize(int batches) {
+    this.cacheSize_ = Math.max(1, batches);
+    this.trimCache();
+  }
+  /**
+   * Returns the number of batches that are kept in memory.
+   *
+   * <p>
+   *
+   * @see WAbstractQueryModel#setCacheSize(int batches)
+   */
+  public int getCacheSize() {
+    return this.cacheSize_;
+  }
+  /**
+   * Returns the result for a row.
+   *
+   * <p>Fetches the batch that contains the row if it is not in the cache.
+   *
+   * <p>When the query returns fewer results than were counted (because results were removed from
+   * the underlying data), this returns <code>null</code> for the rows that are missing, and
+   * schedules a {@link WAbstractQueryModel#reload() reload()} that updates the row count. The model
+   * is not reset immediately, since this is typically called while a view is being rendered.
+   */
+  public Result getResultRow(int row) {
+    if (row < 0 || row >= this.getRowCount()) {
+      throw new WException("WAbstractQueryModel: invalid row " + String.valueOf(row));
+    }
+    int batch = row / this.batchSize_;
+    List<Result> results = this.getBatch(batch);
+    int i = row - batch * this.batchSize_;
+    if (i >= results.size()) {
+      this.scheduleReload();
+      return null;
+    }
+    return results.get(i);
+  }
+  /**
+   * Discards all cached data and the row count.
+   *
+   * <p>Call this method when the underlying data has changed. This resets the model.
+   */
+  public void reload() {
+    if (this.reloadTimer_ != null) {
+      this.reloadTimer_.stop();
+    }
+    this.invalidateCache();
+    this.rowCount_ = -1;
+    this.reset();
+  }
+
+  public int getColumnCount(final WModelIndex parent) {
+    return (parent != null) ? 0 : this.fields_.size();
+  }
+
+  public int getRowCount(final WModelIndex parent) {
+    if (parent != null) {
+      return 0;
+    }
+    if (this.rowCount_ == -1) {
+      this.rowCount_ = this.countResults();
+    }
+    return this.rowCount_;
+  }
+
+  public EnumSet<ItemFlag> getFlags(final WModelIndex index) {
+    return EnumSet.copyOf(this.columnFlags_.get(index.getColumn()));
+  }
+
+  public Object getData(final WModelIndex index, ItemDataRole role) {
+    if (role.equals(ItemDataRole.Display) || role.equals(ItemDataRole.Edit)) {
+      Result result = this.getResultRow(index.getRow());
+      return result == null ? null : this.getResultData(result, index.getColumn());
+    } else {
+      return null;
+    }
+  }
+
+  public Object getHeaderData(int section, Orientation orientation, ItemDataRole role) {
+    if (orientation == Orientation.Horizontal && !role.equals(ItemDataRole.Level)) {
+      if (role.equals(ItemDataRole.Edit)) {
+        role = ItemDataRole.Display;
+      }
+      return this.columnHeaderData_.get(section).get(role);
+    } else {
+      return super.getHeaderData(section, orientation, role);
+    }
+  }
+
+  public boolean setHeaderData(
+      int section, Orientation orientation, final Object value, ItemDataRole role) {
+    if (orientation != Orientation.Horizontal) {
+      return false;
+    }
+    if (role.equals(ItemDataRole.Edit)) {
+      role = ItemDataRole.Display;
+    }
+    this.columnHeaderData_.get(section).put(role, value);
+    this.headerDataChanged().trigger(orientation, section, section);
+    return true;
+  }
+  /**
+   * Sorts the model according to a particular column.
+   *
+   * <p>This sets the sort field and order, which are used by {@link
+   * WAbstractQueryModel#fetchResults(int offset, int count) fetchResults()}, and discards the
+   * cached results.
+   *
+   * <p>
+   *
+   * @see WAbstractQueryModel#getSortField()
+   */
+  public void sort(int column, SortOrder order) {
+    this.layoutAboutToBeChanged().trigger();
+    this.sortColumn_ = column;
+    this.sortOrder_ = order;
+    this.invalidateCache();
+    this.layoutChanged().trigger();
+  }
+  /**
+   * Returns the column on which the model is sorted.
+   *
+   * <p>Returns -1 if the model is not sorted.
+   */
+  public int getSortColumn() {
+    return this.sortColumn_;
+  }
+  /**
+   * Returns the field on which the model is sorted.
+   *
+   * <p>Returns <code>null</code> if the model is not sorted.
+   *
+   * <p>
+   *
+   * @see WAbstractQueryModel#sort(int column, SortOrder order)
+   */
+  public String getSortField() {
+    return this.sortColumn_ == -1 ? null : this.fields_.get(this.sortColumn_);
+  }
+  /**
+   * Returns the sort order.
+   *
+   * <p>
+   *
+   * @see WAbstractQueryModel#sort(int column, SortOrder order)
+   */
+  public SortOrder getSortOrder() {
+    return this.sortOrder_;
+  }
+  /**
+   * Counts the results of the query.
+   *
+   * <p>This is called once, when the row count is first needed, and again after {@link
+   * WAbstractQueryModel#reload() reload()}.
+   */
+  protected abstract int countResults();
+  /**
+   * Fetches results of the query.
+   *
+   * <p>Returns (at most) <code>count</code> results, starting at result <code>offset</code>, in
+   * the order defined by {@link WAbstractQueryModel#getSortField() getSortField()} and {@link
+   * WAbstractQueryModel#getSortOrder() getSortOrder()}.
+   */
+  protected abstract List<Result> fetchResults(int offset, int count);
+  /**
+   * Returns the data of a result for a column.
+   *
+   * <p>This is the {@link ItemDataRole#Display ItemDataRole.Display} data of the model.
+   */
+  protected abstract Object getResultData(final Result result, int column);
+
+  private List<String> fields_;
+  private List<Map<ItemDataRole, Object>> columnHeaderData_;
+  private List<EnumSet<ItemFlag>> columnFlags_;
+  private int batchSize_;
+  private int cacheSize_;
+  private int rowCount_;
+  private int sortColumn_;
+  private SortOrder sortOrder_;
+  private LinkedHashMap<Integer, List<Result>> batches_;
+  private int lastBatch_;
+  private WTimer reloadTimer_;
+
+  private List<Result> getBatch(int batch) {
+    List<Result> results = this.batches_.get(batch);
+    if (results == null) {
+      int direction = this.lastBatch_ == -1 ? 0 : Integer.signum(batch - this.lastBatch_);
+      int batchCount = (this.getRowCount() + this.batchSize_ - 1) / this.batchSize_;
+      int first = batch;
+      int count = 1;
+      if (direction > 0 && batch + 1 < batchCount && !this.batches_.containsKey(batch + 1)) {
+        count = 2;
+      } else {
+        if (direction < 0 && batch > 0 && !this.batches_.containsKey(batch - 1)) {
+          first = batch - 1;
+          count = 2;
+        }
+      }
+      List<Result> fetched = this.fetchResults(first * this.batchSize_, count * this.batchSize_);
+      for (int i = 0; i < count; ++i) {
+        int from = Math.min(fetched.size(), i * this.batchSize_);
+        int to = Math.min(fetched.size(), (i + 1) * this.batchSize_);
+        List<Result> b = new ArrayList<Result>(fetched.subList(from, to));
+        if (first + i == batch) {
+          results = b;
+        } else {
+          this.batches_.put(first + i, b);
+        }
+      }
+      this.batches_.put(batch, results);
+      this.trimCache();
+    }
+    this.lastBatch_ = batch;
+    return results;
+  }
+
+  private void scheduleReload() {
+    if (this.reloadTimer_ != null && this.reloadTimer_.isActive()) {
+      return;
+    }
+    if (WApplication.getInstance() == null) {
+      logger.info(
+          new StringWriter()
+              .append("query returned fewer results than counted, call reload()")
+              .toString());
+      return;
+    }
+    if (this.reloadTimer_ == null) {
+      this.reloadTimer_ = new WTimer();
+      this.reloadTimer_.setSingleShot(true);
+      this.reloadTimer_
+          .timeout()
+          .addListener(
+              this,
+              (WMouseEvent e1) -> {
+                WAbstractQueryModel.this.reload();
+              });
+    }
+    this.reloadTimer_.start();
+  }
+
+  private void trimCache() {
+    Iterator<Integer> i = this.batches_.keySet().iterator();
+    while (this.batches_.size() > this.cacheSize_ && i.hasNext()) {
+      i.next();
+      i.remove();
+    }
+  }
+
+  private void invalidateCache() {
+    this.batches_.clear();
+    this.lastBatch_ = -1;
+  }
+}
@@ -37,7 +37,7 @@ class WClientGLWidget extends WAbstractGLImplementation {
     this.canvas_ = 0;
     this.currentlyBoundBuffer_ = new WGLWidget.Buffer();
     this.currentlyBoundTexture_ = new WGLWidget.Texture();
-    this.binaryResources_ = new ArrayList<WResource>();
+    this.binaryBuffers_ = new BinaryBufferCache();
     this.preloadImages_ = new ArrayList<WClientGLWidget.PreloadImage>();
     this.preloadArrayBuffers_ = new ArrayList<WClientGLWidget.PreloadArrayBuffer>();
   }
@@ -366,16 +366,10 @@ class WClientGLWidget extends WAbstractGLImplementation {
       final java.nio.ByteBuffer v,
       WGLWidget.GLenum usage,
       boolean binary) {
-    if (binary) {
-      WMemoryResource res = new WMemoryResource("application/octet");
-      WMemoryResource resPtr = res;
-      res.setData(v.array());
-      this.binaryResources_.add(res);
-      this.preloadArrayBuffers_.add(
-          new WClientGLWidget.PreloadArrayBuffer(
-              this.currentlyBoundBuffer_.getJsRef(), resPtr.getUrl()));
+    if (binary && isBinaryTransferable(v)) {
+      String data = this.binaryBuffers_.add(v.array(), v.capacity());
       this.js_.append("ctx.bufferData(").append("ctx." + target.toString()).append(",");
-      this.js_.append(this.currentlyBoundBuffer_.getJsRef()).append(".data, ");
+      this.js_.append(data).append(", ");
       this.js_.append("ctx." + usage.toString()).append(");");
     } else {
       this.bufferDatafv(target, ((java.nio.ByteBuffer) v.rewind()).asFloatBuffer(), usage);
@@ -391,6 +385,20 @@ class WClientGLWidget extends WAbstractGLImplementation {
     } while (false);
   }
 
+  /**
+   * Returns whether a buffer can be transferred in binary form.
+   *
+   * <p>The bytes of the buffer are sent as they are, and are read as a Float32Array in the browser,
+   * which is little endian on all platforms that support WebGL. A buffer that is not backed by an
+   * array (e.g. a direct buffer) or that is big endian, and a small buffer, are sent inline.
+   */
+  static boolean isBinaryTransferable(final java.nio.ByteBuffer buffer) {
+    return buffer.capacity() >= MIN_BINARY_BUFFER_SIZE
+        && buffer.hasArray()
+        && buffer.arrayOffset() == 0
+        && buffer.order() == java.nio.ByteOrder.LITTLE_ENDIAN;
+  }
+
   public void bufferDatafv(
       WGLWidget.GLenum target, final java.nio.FloatBuffer buffer, WGLWidget.GLenum usage) {
     this.js_.append("ctx.bufferData(").append("ctx." + target.toString()).append(",");
@@ -405,16 +413,11 @@ class WClientGLWidget extends WAbstractGLImplementation {
 
   public void bufferSubDatafv(
       WGLWidget.GLenum target, int offset, final java.nio.ByteBuffer buffer, boolean binary) {
-    if (binary) {
-      WMemoryResource res = new WMemoryResource("application/octet");
-      res.setData(buffer.array());
-      this.preloadArrayBuffers_.add(
-          new WClientGLWidget.PreloadArrayBuffer(
-              this.currentlyBoundBuffer_.getJsRef(), res.getUrl()));
-      this.binaryResources_.add(res);
+    if (binary && isBinaryTransferable(buffer)) {
+      String data = this.binaryBuffers_.add(buffer.array(), buffer.capacity());
       this.js_.append("ctx.bufferSubData(").append("ctx." + target.toString()).append(",");
       this.js_.append(String.valueOf(offset)).append(",");
-      this.js_.append(this.currentlyBoundBuffer_.getJsRef()).append(".data);");
+      this.js_.append(data).append(");");
     } else {
       this.bufferSubDatafv(target, offset, ((java.nio.ByteBuffer) buffer.rewind()).asFloatBuffer());
     }
@@ -483,7 +486,7 @@ class WClientGLWidget extends WAbstractGLImplementation {
   }
 
   public void clearBinaryResources() {
-    this.binaryResources_.clear();
+    this.binaryBuffers_.clear();
   }
 
   public void clear(EnumSet<WGLWidget.GLenum> mask) {
@@ -2599,7 +2602,9 @@ class WClientGLWidget extends WAbstractGLImplementation {
       this.js_ = new StringWriter();
       tmp.append("}\n");
       final boolean preloadingSomething =
-          this.preloadImages_.size() > 0 || this.preloadArrayBuffers_.size() > 0;
+          this.preloadImages_.size() > 0
+              || this.preloadArrayBuffers_.size() > 0
+              || this.binaryBuffers_.isPreloadNeeded();
       if (preloadingSomething) {
         if (this.preloadImages_.size() > 0) {
           tmp.append("o.preloadingTextures++;new ")
@@ -2659,6 +2664,9 @@ class WClientGLWidget extends WAbstractGLImplementation {
           tmp.append("o.preloadingBuffers--;").append("o.handlePreload();\n").append("});");
           this.preloadArrayBuffers_.clear();
         }
+        if (this.binaryBuffers_.isPreloadNeeded()) {
+          this.binaryBuffers_.renderPreload(tmp, WApplication.getInstance().getJavaScriptClass());
+        }
       } else {
         tmp.append("o.handlePreload();");
       }
@@ -2681,7 +2689,8 @@ class WClientGLWidget extends WAbstractGLImplementation {
   private int canvas_;
   private WGLWidget.Buffer currentlyBoundBuffer_;
   private WGLWidget.Texture currentlyBoundTexture_;
-  private List<WResource> binaryResources_;
+  private BinaryBufferCache binaryBuffers_;
+  private static final int MIN_BINARY_BUFFER_SIZE = 256;
 
   static class PreloadImage {
     private static Logger logger = LoggerFactory.getLogger(PreloadImage.class);
@@ -3385,7 +3394,9 @@ class WClientGLWidget extends WAbstractGLImplementation {
 
   private void initializeGL(final String jsRef, final StringWriter ss) {
     this.js_ = new StringWriter();
+    this.binaryBuffers_.setInitializing(true);
     this.glInterface_.initializeGL();
+    this.binaryBuffers_.setInitializing(false);
     ss.append("o.initializeGL=function(){\nvar obj=")
         .append(this.glObjJsRef(jsRef))
         .append(";\nvar ctx=obj.ctx; if(!ctx) return;\n")
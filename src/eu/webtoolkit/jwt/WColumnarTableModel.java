@@ -0,0 +1,1015 @@
+/*
+ * Copyright (C) 2020 Emweb bv, Herent, Belgium.
+ *
+ * See the LICENSE file for terms of use.
+ */
+package eu.webtoolkit.jwt;
+
+import eu.webtoolkit.jwt.chart.*;
+import eu.webtoolkit.jwt.servlet.*;
+import eu.webtoolkit.jwt.utils.*;
+import java.io.*;
+import java.lang.ref.*;
+import java.time.*;
+import java.util.*;
+import java.util.regex.*;
+import javax.servlet.*;
+import javax.servlet.http.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A table model that stores its data column by column, in primitive arrays.
+ *
+ * <p>Unlike a {@link WStandardItemModel}, which uses a {@link WStandardItem} (with its own map of
+ * data) for every cell, this model stores the {@link ItemDataRole#Display ItemDataRole.Display}
+ * data of a column in a single array of the column type: a <code>double[]</code>, <code>int[]
+ * </code>, <code>long[]</code> or <code>boolean[]</code> for number and boolean columns, and a
+ * dictionary encoded <code>int[]</code> for string columns, in which every distinct string is
+ * stored only once. Columns of any other type are stored in an <code>Object[]</code>. The dictionary
+ * of a string column keeps strings that are no longer used (e.g. after {@link
+ * WAbstractItemModel#setData(WModelIndex index, Object value, ItemDataRole role) setData()}) until
+ * rows are removed, when it is compacted if less than half of its strings are still used. This makes the
+ * model suitable for large tables, in a {@link WTableView}, or as the source model of a {@link
+ * WSortFilterProxyModel} or a {@link eu.webtoolkit.jwt.chart.WStandardChartProxyModel}.
+ *
+ * <p>Data for other roles (e.g. a {@link ItemDataRole#StyleClass ItemDataRole.StyleClass}) is
+ * stored per cell in a side table, and only for cells that have such data. The {@link
+ * ItemDataRole#Edit ItemDataRole.Edit} role is the same as the {@link ItemDataRole#Display
+ * ItemDataRole.Display} role. The flags are defined per column (see {@link
+ * WColumnarTableModel#setColumnFlags(int column, EnumSet flags) setColumnFlags()}).
+ *
+ * <p>Rows can be inserted and removed in bulk, which emits a single pair of signals for all rows:
+ *
+ * <pre>{@code
+ * WColumnarTableModel model = new WColumnarTableModel();
+ * model.addColumn("Name", String.class);
+ * model.addColumn("Amount", Double.class);
+ *
+ * List<Object[]> rows = new ArrayList<Object[]>();
+ * rows.add(new Object[] {"Apples", 12.5});
+ * rows.add(new Object[] {"Pears", 7.0});
+ * model.appendRows(rows);
+ *
+ * }</pre>
+ */
+public class WColumnarTableModel extends WAbstractTableModel {
+  private static Logger logger = LoggerFactory.getLogger(WColumnarTableModel.class);
+
+  /** Creates a new model without columns. */
+  public WColumnarTableModel() {
+    super();
+    this.columns_ = new ArrayList<WColumnarTableModel.Column>();
+    this.columnHeaderData_ = new ArrayList<Map<ItemDataRole, Object>>();
+    this.columnFlags_ = new ArrayList<EnumSet<ItemFlag>>();
+    this.roleData_ = new ArrayList<SortedMap<Integer, SortedMap<ItemDataRole, Object>>>();
+    this.rowCount_ = 0;
+    this.capacity_ = 0;
+  }
+  /**
+   * Adds a column.
+   *
+   * <p>The <code>type</code> determines how the data is stored: <code>Double</code>, <code>Integer
+   * </code>, <code>Long</code> and <code>Boolean</code> columns (or their primitive types) are stored
+   * as primitive arrays, and <code>String</code> columns are dictionary encoded. A column of any
+   * other type stores the objects.
+   *
+   * <p>The column is added after the existing columns, and has no data in the existing rows.
+   */
+  public void addColumn(final CharSequence header, Class<?> type) {
+    int column = this.columns_.size();
+    this.beginInsertColumns(null, column, column);
+    WColumnarTableModel.Column c = createColumn(type);
+    c.grow(this.capacity_);
+    c.setMissing(0, this.rowCount_);
+    this.columns_.add(c);
+    Map<ItemDataRole, Object> headerData = new TreeMap<ItemDataRole, Object>();
+    headerData.put(ItemDataRole.Display, WString.toWString(header));
+    this.columnHeaderData_.add(headerData);
+    this.columnFlags_.add(EnumSet.of(ItemFlag.Selectable));
+    this.roleData_.add(null);
+    this.endInsertColumns();
+  }
+  /** Returns the type of a column. */
+  public Class<?> getColumnType(int column) {
+    return this.columns_.get(column).type;
+  }
+  /**
+   * Sets the flags for the items of a column.
+   *
+   * <p>The default flags are {@link ItemFlag#Selectable ItemFlag.Selectable}.
+   */
+  public void setColumnFlags(int column, EnumSet<ItemFlag> flags) {
+    this.columnFlags_.set(column, EnumSet.copyOf(flags));
+    if (this.rowCount_ > 0) {
+      this.dataChanged()
+          .trigger(this.getIndex(0, column), this.getIndex(this.rowCount_ - 1, column));
+    }
+  }
+  /**
+   * Sets the flags for the items of a column.
+   *
+   * <p>Calls {@link #setColumnFlags(int column, EnumSet flags) setColumnFlags(column,
+   * EnumSet.of(flag, flags))}
+   */
+  public final void setColumnFlags(int column, ItemFlag flag, ItemFlag... flags) {
+    setColumnFlags(column, EnumSet.of(flag, flags));
+  }
+  /**
+   * Appends a row.
+   *
+   * <p>The values are the {@link ItemDataRole#Display ItemDataRole.Display} data of the columns.
+   * Missing values are <code>null</code>.
+   *
+   * @see WColumnarTableModel#insertRows(int row, List rows)
+   */
+  public void appendRow(Object... values) {
+    this.insertRows(this.rowCount_, Collections.<Object[]>singletonList(values));
+  }
+  /**
+   * Appends rows.
+   *
+   * @see WColumnarTableModel#insertRows(int row, List rows)
+   */
+  public void appendRows(final List<Object[]> rows) {
+    this.insertRows(this.rowCount_, rows);
+  }
+  /**
+   * Inserts rows.
+   *
+   * <p>Each row is an array with the {@link ItemDataRole#Display ItemDataRole.Display} data of the
+   * columns, which may be shorter than the number of columns. Missing values are <code>null</code>.
+   * All rows are inserted at once, emitting a single {@link WAbstractItemModel#rowsInserted()
+   * rowsInserted()} signal.
+   *
+   * <p>Throws a {@link WException} if a value cannot be stored in its column. All values are
+   * checked before the model is changed, and in that case no rows are inserted.
+   */
+  public void insertRows(int row, final List<Object[]> rows) {
+    if (rows.isEmpty()) {
+      return;
+    }
+    if (row < 0 || row > this.rowCount_) {
+      throw new WException("WColumnarTableModel: invalid row " + String.valueOf(row));
+    }
+    int count = rows.size();
+    for (int i = 0; i < count; ++i) {
+      Object[] values = rows.get(i);
+      for (int column = 0; column < this.columns_.size(); ++column) {
+        Object value = column < values.length ? values[column] : null;
+        if (value != null && !this.columns_.get(column).accepts(value)) {
+          throw new WException(
+              "WColumnarTableModel: cannot store "
+                  + value.getClass().getName()
+                  + " in column "
+                  + String.valueOf(column));
+        }
+      }
+    }
+    this.beginInsertRows(null, row, row + count - 1);
+    this.makeRoom(row, count);
+    for (int i = 0; i < count; ++i) {
+      Object[] values = rows.get(i);
+      for (int column = 0; column < this.columns_.size(); ++column) {
+        this.columns_.get(column).set(row + i, column < values.length ? values[column] : null);
+      }
+    }
+    this.endInsertRows();
+  }
+
+  public boolean insertRows(int row, int count, final WModelIndex parent) {
+    if ((parent != null) || count <= 0) {
+      return false;
+    }
+    if (row < 0 || row > this.rowCount_) {
+      throw new WException("WColumnarTableModel: invalid row " + String.valueOf(row));
+    }
+    this.beginInsertRows(null, row, row + count - 1);
+    this.makeRoom(row, count);
+    for (int column = 0; column < this.columns_.size(); ++column) {
+      this.columns_.get(column).setMissing(row, row + count);
+    }
+    this.endInsertRows();
+    return true;
+  }
+
+  public boolean removeRows(int row, int count, final WModelIndex parent) {
+    if ((parent != null) || count <= 0 || row < 0 || row > this.rowCount_ - count) {
+      return false;
+    }
+    this.beginRemoveRows(null, row, row + count - 1);
+    for (int column = 0; column < this.columns_.size(); ++column) {
+      WColumnarTableModel.Column c = this.columns_.get(column);
+      c.move(row + count, row, this.rowCount_ - row - count);
+      c.release(this.rowCount_ - count, this.rowCount_);
+      this.roleData_.set(column, shiftRows(this.roleData_.get(column), row, -count));
+    }
+    this.rowCount_ -= count;
+    for (int column = 0; column < this.columns_.size(); ++column) {
+      this.columns_.get(column).compact(this.rowCount_);
+    }
+    this.endRemoveRows();
+    return true;
+  }
+  /** Removes all rows. */
+  public void clear() {
+    if (this.rowCount_ > 0) {
+      this.removeRows(0, this.rowCount_, null);
+    }
+  }
+
+  public int getColumnCount(final WModelIndex parent) {
+    return (parent != null) ? 0 : this.columns_.size();
+  }
+
+  public int getRowCount(final WModelIndex parent) {
+    return (parent != null) ? 0 : this.rowCount_;
+  }
+
+  public EnumSet<ItemFlag> getFlags(final WModelIndex index) {
+    return EnumSet.copyOf(this.columnFlags_.get(index.getColumn()));
+  }
+
+  public Object getData(final WModelIndex index, ItemDataRole role) {
+    if (role.equals(ItemDataRole.Display) || role.equals(ItemDataRole.Edit)) {
+      return this.columns_.get(index.getColumn()).get(index.getRow());
+    }
+    SortedMap<Integer, SortedMap<ItemDataRole, Object>> roleData =
+        this.roleData_.get(index.getColumn());
+    if (roleData != null) {
+      SortedMap<ItemDataRole, Object> d = roleData.get(index.getRow());
+      if (d != null) {
+        return d.get(role);
+      }
+    }
+    return null;
+  }
+  /**
+   * Sets data.
+   *
+   * <p>For the {@link ItemDataRole#Display ItemDataRole.Display} (or {@link ItemDataRole#Edit
+   * ItemDataRole.Edit}) role, the value is converted to the type of the column: a number column
+   * accepts any {@link Number}, and a string that can be parsed as a number. Returns <code>false
+   * </code> if the value cannot be converted.
+   */
+  public boolean setData(final WModelIndex index, final Object value, ItemDataRole role) {
+    int row = index.getRow();
+    int column = index.getColumn();
+    if (role.equals(ItemDataRole.Display) || role.equals(ItemDataRole.Edit)) {
+      if (!this.columns_.get(column).set(row, value)) {
+        return false;
+      }
+    } else {
+      SortedMap<Integer, SortedMap<ItemDataRole, Object>> roleData = this.roleData_.get(column);
+      if (roleData == null) {
+        roleData = new TreeMap<Integer, SortedMap<ItemDataRole, Object>>();
+        this.roleData_.set(column, roleData);
+      }
+      SortedMap<ItemDataRole, Object> d = roleData.get(row);
+      if (d == null) {
+        d = new TreeMap<ItemDataRole, Object>();
+        roleData.put(row, d);
+      }
+      if (value != null) {
+        d.put(role, value);
+      } else {
+        d.remove(role);
+        if (d.isEmpty()) {
+          roleData.remove(row);
+        }
+      }
+    }
+    this.dataChanged().trigger(index, index);
+    return true;
+  }
+
+  public Object getHeaderData(int section, Orientation orientation, ItemDataRole role) {
+    if (orientation == Orientation.Horizontal && !role.equals(ItemDataRole.Level)) {
+      if (role.equals(ItemDataRole.Edit)) {
+        role = ItemDataRole.Display;
+      }
+      return this.columnHeaderData_.get(section).get(role);
+    } else {
+      return super.getHeaderData(section, orientation, role);
+    }
+  }
+
+  public boolean setHeaderData(
+      int section, Orientation orientation, final Object value, ItemDataRole role) {
+    if (orientation != Orientation.Horizontal) {
+      return false;
+    }
+    if (role.equals(ItemDataRole.Edit)) {
+      role = ItemDataRole.Display;
+    }
+    this.columnHeaderData_.get(section).put(role, value);
+    this.headerDataChanged().trigger(orientation, section, section);
+    return true;
+  }
+  /**
+   * Sorts the model according to a particular column.
+   *
+   * <p>Rows without data in the column come first in ascending order. The sort is stable.
+   */
+  public void sort(int column, SortOrder order) {
+    this.layoutAboutToBeChanged().trigger();
+    final WColumnarTableModel.Column c = this.columns_.get(column);
+    final int factor = order == SortOrder.Ascending ? 1 : -1;
+    Integer[] sorted = new Integer[this.rowCount_];
+    for (int i = 0; i < sorted.length; ++i) {
+      sorted[i] = i;
+    }
+    Arrays.sort(
+        sorted,
+        (Integer row1, Integer row2) -> {
+          return factor * c.compare(row1, row2);
+        });
+    int[] permutation = new int[sorted.length];
+    int[] newRows = new int[sorted.length];
+    for (int i = 0; i < sorted.length; ++i) {
+      permutation[i] = sorted[i];
+      newRows[sorted[i]] = i;
+    }
+    for (int i = 0; i < this.columns_.size(); ++i) {
+      this.columns_.get(i).permute(permutation, this.rowCount_);
+      SortedMap<Integer, SortedMap<ItemDataRole, Object>> roleData = this.roleData_.get(i);
+      if (roleData != null) {
+        SortedMap<Integer, SortedMap<ItemDataRole, Object>> result =
+            new TreeMap<Integer, SortedMap<ItemDataRole, Object>>();
+        for (Map.Entry<Integer, SortedMap<ItemDataRole, Object>> e : roleData.entrySet()) {
+          result.put(newRows[e.getKey()], e.getValue());
+        }
+        this.roleData_.set(i, result);
+      }
+    }
+    this.layoutChanged().trigger();
+  }
+  /**
+   * Returns the data of a column as numbers.
+   *
+   * <p>Writes the {@link ItemDataRole#Display ItemDataRole.Display} data of the rows <code>startRow
+   * </code> (inclusive) to <code>endRow</code> (exclusive) to <code>result</code>, converted as with
+   * {@link StringUtils#asNumber(Object data) StringUtils#asNumber()}. Missing values are NaN.
+   *
+   * <p>This is used by {@link eu.webtoolkit.jwt.chart.WStandardChartProxyModel} to read the data of
+   * a chart series without boxing every value.
+   */
+  public void getColumn(int column, int startRow, int endRow, double[] result) {
+    WColumnarTableModel.Column c = this.columns_.get(column);
+    for (int row = startRow; row < endRow; ++row) {
+      result[row - startRow] = c.isMissing(row) ? Double.NaN : c.getNumber(row);
+    }
+  }
+
+  private List<WColumnarTableModel.Column> columns_;
+  private List<Map<ItemDataRole, Object>> columnHeaderData_;
+  private List<EnumSet<ItemFlag>> columnFlags_;
+  private List<SortedMap<Integer, SortedMap<ItemDataRole, Object>>> roleData_;
+  private int rowCount_;
+  private int capacity_;
+
+  private void makeRoom(int row, int count) {
+    if (this.rowCount_ + count > this.capacity_) {
+      this.capacity_ = Math.max(this.rowCount_ + count, this.capacity_ + (this.capacity_ >> 1));
+      for (int i = 0; i < this.columns_.size(); ++i) {
+        this.columns_.get(i).grow(this.capacity_);
+      }
+    }
+    for (int i = 0; i < this.columns_.size(); ++i) {
+      this.columns_.get(i).move(row, row + count, this.rowCount_ - row);
+      this.roleData_.set(i, shiftRows(this.roleData_.get(i), row, count));
+    }
+    this.rowCount_ += count;
+  }
+
+  private static SortedMap<Integer, SortedMap<ItemDataRole, Object>> shiftRows(
+      SortedMap<Integer, SortedMap<ItemDataRole, Object>> roleData, int row, int count) {
+    if (roleData == null || roleData.tailMap(row).isEmpty()) {
+      return roleData;
+    }
+    SortedMap<Integer, SortedMap<ItemDataRole, Object>> result =
+        new TreeMap<Integer, SortedMap<ItemDataRole, Object>>(roleData.headMap(row));
+    for (Map.Entry<Integer, SortedMap<ItemDataRole, Object>> e :
+        roleData.tailMap(row).entrySet()) {
+      int r = e.getKey();
+      if (count > 0 || r >= row - count) {
+        result.put(r + count, e.getValue());
+      }
+    }
+    return result;
+  }
+
+  private static WColumnarTableModel.Column createColumn(Class<?> type) {
+    if (type == Double.class || type == double.class) {
+      return new WColumnarTableModel.DoubleColumn();
+    } else {
+      if (type == Integer.class || type == int.class) {
+        return new WColumnarTableModel.IntColumn();
+      } else {
+        if (type == Long.class || type == long.class) {
+          return new WColumnarTableModel.LongColumn();
+        } else {
+          if (type == Boolean.class || type == boolean.class) {
+            return new WColumnarTableModel.BooleanColumn();
+          } else {
+            if (type == String.class) {
+              return new WColumnarTableModel.StringColumn();
+            } else {
+              return new WColumnarTableModel.ObjectColumn(type);
+            }
+          }
+        }
+      }
+    }
+  }
+
+  private abstract static class Column {
+    private static Logger logger = LoggerFactory.getLogger(Column.class);
+
+    public Column(Class<?> type) {
+      this.type = type;
+      this.missing = null;
+    }
+
+    public final Class<?> type;
+
+    public Object get(int row) {
+      return this.isMissing(row) ? null : this.getValue(row);
+    }
+
+    public boolean set(int row, final Object value) {
+      if (value == null) {
+        this.setMissing(row, row + 1);
+        return true;
+      } else {
+        if (!this.setValue(row, value)) {
+          return false;
+        }
+        if (this.missing != null) {
+          this.missing[row] = false;
+        }
+        return true;
+      }
+    }
+
+    public boolean isMissing(int row) {
+      return this.missing != null && this.missing[row];
+    }
+
+    public void setMissing(int from, int to) {
+      if (from == to) {
+        return;
+      }
+      if (this.missing == null) {
+        this.missing = new boolean[this.getCapacity()];
+      }
+      Arrays.fill(this.missing, from, to, true);
+      this.release(from, to);
+    }
+
+    public int compare(int row1, int row2) {
+      boolean missing1 = this.isMissing(row1);
+      boolean missing2 = this.isMissing(row2);
+      if (missing1 || missing2) {
+        return missing1 == missing2 ? 0 : missing1 ? -1 : 1;
+      }
+      return this.compareValues(row1, row2);
+    }
+
+    public void grow(int capacity) {
+      this.growStorage(capacity);
+      if (this.missing != null) {
+        this.missing = Arrays.copyOf(this.missing, capacity);
+      }
+    }
+
+    public void move(int from, int to, int count) {
+      this.moveStorage(from, to, count);
+      if (this.missing != null) {
+        System.arraycopy(this.missing, from, this.missing, to, count);
+      }
+    }
+
+    public void permute(int[] permutation, int rowCount) {
+      this.permuteStorage(permutation, rowCount);
+      if (this.missing != null) {
+        boolean[] result = Arrays.copyOf(this.missing, this.missing.length);
+        for (int i = 0; i < rowCount; ++i) {
+          result[i] = this.missing[permutation[i]];
+        }
+        this.missing = result;
+      }
+    }
+
+    public void release(int from, int to) {}
+
+    public void compact(int rowCount) {}
+
+    public abstract double getNumber(int row);
+
+    public abstract boolean accepts(final Object value);
+
+    protected abstract int getCapacity();
+
+    protected abstract Object getValue(int row);
+
+    protected abstract boolean setValue(int row, final Object value);
+
+    protected abstract int compareValues(int row1, int row2);
+
+    protected abstract void growStorage(int capacity);
+
+    protected abstract void moveStorage(int from, int to, int count);
+
+    protected abstract void permuteStorage(int[] permutation, int rowCount);
+
+    /**
+     * Returns a number as an integral value in [min, max], or null if it has a fractional part or
+     * is out of range.
+     */
+    static Long toIntegral(final Number value, long min, long max) {
+      long result;
+      if (value instanceof Long
+          || value instanceof Integer
+          || value instanceof Short
+          || value instanceof Byte) {
+        result = value.longValue();
+      } else if (value instanceof java.math.BigInteger) {
+        try {
+          result = ((java.math.BigInteger) value).longValueExact();
+        } catch (ArithmeticException e) {
+          return null;
+        }
+      } else if (value instanceof java.math.BigDecimal) {
+        try {
+          result = ((java.math.BigDecimal) value).longValueExact();
+        } catch (ArithmeticException e) {
+          return null;
+        }
+      } else {
+        double d = value.doubleValue();
+        if (!(d >= -0x1p63 && d < 0x1p63) || d != Math.rint(d)) {
+          return null;
+        }
+        result = (long) d;
+      }
+      return result >= min && result <= max ? result : null;
+    }
+
+    private boolean[] missing;
+  }
+
+  static class DoubleColumn extends WColumnarTableModel.Column {
+    private static Logger logger = LoggerFactory.getLogger(DoubleColumn.class);
+
+    public DoubleColumn() {
+      super(Double.class);
+      this.data = new double[0];
+    }
+
+    public double getNumber(int row) {
+      return this.data[row];
+    }
+
+    public boolean accepts(final Object value) {
+      if (value instanceof Number) {
+        return true;
+      }
+      try {
+        Double.parseDouble(value.toString().trim());
+        return true;
+      } catch (NumberFormatException e) {
+        return false;
+      }
+    }
+
+    protected int getCapacity() {
+      return this.data.length;
+    }
+
+    protected Object getValue(int row) {
+      return this.data[row];
+    }
+
+    protected boolean setValue(int row, final Object value) {
+      if (value instanceof Number) {
+        this.data[row] = ((Number) value).doubleValue();
+      } else {
+        try {
+          this.data[row] = Double.parseDouble(value.toString().trim());
+        } catch (NumberFormatException e) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    protected int compareValues(int row1, int row2) {
+      return Double.compare(this.data[row1], this.data[row2]);
+    }
+
+    protected void growStorage(int capacity) {
+      this.data = Arrays.copyOf(this.data, capacity);
+    }
+
+    protected void moveStorage(int from, int to, int count) {
+      System.arraycopy(this.data, from, this.data, to, count);
+    }
+
+    protected void permuteStorage(int[] permutation, int rowCount) {
+      double[] result = Arrays.copyOf(this.data, this.data.length);
+      for (int i = 0; i < rowCount; ++i) {
+        result[i] = this.data[permutation[i]];
+      }
+      this.data = result;
+    }
+
+    private double[] data;
+  }
+
+  static class IntColumn extends WColumnarTableModel.Column {
+    private static Logger logger = LoggerFactory.getLogger(IntColumn.class);
+
+    public IntColumn() {
+      super(Integer.class);
+      this.data = new int[0];
+    }
+
+    public double getNumber(int row) {
+      return this.data[row];
+    }
+
+    public boolean accepts(final Object value) {
+      if (value instanceof Number) {
+        return toIntegral((Number) value, Integer.MIN_VALUE, Integer.MAX_VALUE) != null;
+      }
+      try {
+        Integer.parseInt(value.toString().trim());
+        return true;
+      } catch (NumberFormatException e) {
+        return false;
+      }
+    }
+
+    protected int getCapacity() {
+      return this.data.length;
+    }
+
+    protected Object getValue(int row) {
+      return this.data[row];
+    }
+
+    protected boolean setValue(int row, final Object value) {
+      if (value instanceof Number) {
+        Long v = toIntegral((Number) value, Integer.MIN_VALUE, Integer.MAX_VALUE);
+        if (v == null) {
+          return false;
+        }
+        this.data[row] = v.intValue();
+      } else {
+        try {
+          this.data[row] = Integer.parseInt(value.toString().trim());
+        } catch (NumberFormatException e) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    protected int compareValues(int row1, int row2) {
+      return Integer.compare(this.data[row1], this.data[row2]);
+    }
+
+    protected void growStorage(int capacity) {
+      this.data = Arrays.copyOf(this.data, capacity);
+    }
+
+    protected void moveStorage(int from, int to, int count) {
+      System.arraycopy(this.data, from, this.data, to, count);
+    }
+
+    protected void permuteStorage(int[] permutation, int rowCount) {
+      int[] result = Arrays.copyOf(this.data, this.data.length);
+      for (int i = 0; i < rowCount; ++i) {
+        result[i] = this.data[permutation[i]];
+      }
+      this.data = result;
+    }
+
+    private int[] data;
+  }
+
+  static class LongColumn extends WColumnarTableModel.Column {
+    private static Logger logger = LoggerFactory.getLogger(LongColumn.class);
+
+    public LongColumn() {
+      super(Long.class);
+      this.data = new long[0];
+    }
+
+    public double getNumber(int row) {
+      return this.data[row];
+    }
+
+    public boolean accepts(final Object value) {
+      if (value instanceof Number) {
+        return toIntegral((Number) value, Long.MIN_VALUE, Long.MAX_VALUE) != null;
+      }
+      try {
+        Long.parseLong(value.toString().trim());
+        return true;
+      } catch (NumberFormatException e) {
+        return false;
+      }
+    }
+
+    protected int getCapacity() {
+      return this.data.length;
+    }
+
+    protected Object getValue(int row) {
+      return this.data[row];
+    }
+
+    protected boolean setValue(int row, final Object value) {
+      if (value instanceof Number) {
+        Long v = toIntegral((Number) value, Long.MIN_VALUE, Long.MAX_VALUE);
+        if (v == null) {
+          return false;
+        }
+        this.data[row] = v.longValue();
+      } else {
+        try {
+          this.data[row] = Long.parseLong(value.toString().trim());
+        } catch (NumberFormatException e) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    protected int compareValues(int row1, int row2) {
+      return Long.compare(this.data[row1], this.data[row2]);
+    }
+
+    protected void growStorage(int capacity) {
+      this.data = Arrays.copyOf(this.data, capacity);
+    }
+
+    protected void moveStorage(int from, int to, int count) {
+      System.arraycopy(this.data, from, this.data, to, count);
+    }
+
+    protected void permuteStorage(int[] permutation, int rowCount) {
+      long[] result = Arrays.copyOf(this.data, this.data.length);
+      for (int i = 0; i < rowCount; ++i) {
+        result[i] = this.data[permutation[i]];
+      }
+      this.data = result;
+    }
+
+    private long[] data;
+  }
+
+  static class BooleanColumn extends WColumnarTableModel.Column {
+    private static Logger logger = LoggerFactory.getLogger(BooleanColumn.class);
+
+    public BooleanColumn() {
+      super(Boolean.class);
+      this.data = new boolean[0];
+    }
+
+    public double getNumber(int row) {
+      return StringUtils.asNumber(this.data[row]);
+    }
+
+    public boolean accepts(final Object value) {
+      if (value instanceof Boolean) {
+        return true;
+      }
+      String s = value.toString().trim();
+      return s.equalsIgnoreCase("true") || s.equalsIgnoreCase("false");
+    }
+
+    protected int getCapacity() {
+      return this.data.length;
+    }
+
+    protected Object getValue(int row) {
+      return this.data[row];
+    }
+
+    protected boolean setValue(int row, final Object value) {
+      if (value instanceof Boolean) {
+        this.data[row] = (Boolean) value;
+      } else {
+        String s = value.toString().trim();
+        if (s.equalsIgnoreCase("true")) {
+          this.data[row] = true;
+        } else {
+          if (s.equalsIgnoreCase("false")) {
+            this.data[row] = false;
+          } else {
+            return false;
+          }
+        }
+      }
+      return true;
+    }
+
+    protected int compareValues(int row1, int row2) {
+      return Boolean.compare(this.data[row1], this.data[row2]);
+    }
+
+    protected void growStorage(int capacity) {
+      this.data = Arrays.copyOf(this.data, capacity);
+    }
+
+    protected void moveStorage(int from, int to, int count) {
+      System.arraycopy(this.data, from, this.data, to, count);
+    }
+
+    protected void permuteStorage(int[] permutation, int rowCount) {
+      boolean[] result = Arrays.copyOf(this.data, this.data.length);
+      for (int i = 0; i < rowCount; ++i) {
+        result[i] = this.data[permutation[i]];
+      }
+      this.data = result;
+    }
+
+    private boolean[] data;
+  }
+
+  static class StringColumn extends WColumnarTableModel.Column {
+    private static Logger logger = LoggerFactory.getLogger(StringColumn.class);
+
+    public StringColumn() {
+      super(String.class);
+      this.codes = new int[0];
+      this.dictionary = new ArrayList<String>();
+      this.dictionaryCodes = new HashMap<String, Integer>();
+    }
+
+    public double getNumber(int row) {
+      return StringUtils.asNumber(this.dictionary.get(this.codes[row]));
+    }
+
+    public boolean accepts(final Object value) {
+      return true;
+    }
+
+    public void compact(int rowCount) {
+      boolean[] used = new boolean[this.dictionary.size()];
+      int usedCount = 0;
+      for (int row = 0; row < rowCount; ++row) {
+        if (!this.isMissing(row) && !used[this.codes[row]]) {
+          used[this.codes[row]] = true;
+          ++usedCount;
+        }
+      }
+      if (usedCount > this.dictionary.size() / 2) {
+        return;
+      }
+      int[] newCodes = new int[used.length];
+      List<String> dictionary = new ArrayList<String>();
+      Map<String, Integer> dictionaryCodes = new HashMap<String, Integer>();
+      for (int code = 0; code < used.length; ++code) {
+        if (used[code]) {
+          newCodes[code] = dictionary.size();
+          dictionaryCodes.put(this.dictionary.get(code), dictionary.size());
+          dictionary.add(this.dictionary.get(code));
+        }
+      }
+      for (int row = 0; row < rowCount; ++row) {
+        this.codes[row] = this.isMissing(row) ? 0 : newCodes[this.codes[row]];
+      }
+      this.dictionary = dictionary;
+      this.dictionaryCodes = dictionaryCodes;
+    }
+
+    protected int getCapacity() {
+      return this.codes.length;
+    }
+
+    protected Object getValue(int row) {
+      return this.dictionary.get(this.codes[row]);
+    }
+
+    protected boolean setValue(int row, final Object value) {
+      String s = value.toString();
+      Integer code = this.dictionaryCodes.get(s);
+      if (code == null) {
+        code = this.dictionary.size();
+        this.dictionary.add(s);
+        this.dictionaryCodes.put(s, code);
+      }
+      this.codes[row] = code;
+      return true;
+    }
+
+    protected int compareValues(int row1, int row2) {
+      return this.dictionary.get(this.codes[row1]).compareTo(this.dictionary.get(this.codes[row2]));
+    }
+
+    protected void growStorage(int capacity) {
+      this.codes = Arrays.copyOf(this.codes, capacity);
+    }
+
+    protected void moveStorage(int from, int to, int count) {
+      System.arraycopy(this.codes, from, this.codes, to, count);
+    }
+
+    protected void permuteStorage(int[] permutation, int rowCount) {
+      int[] result = Arrays.copyOf(this.codes, this.codes.length);
+      for (int i = 0; i < rowCount; ++i) {
+        result[i] = this.codes[permutation[i]];
+      }
+      this.codes = result;
+    }
+
+    private int[] codes;
+    private List<String> dictionary;
+    private Map<String, Integer> dictionaryCodes;
+  }
+
+  static class ObjectColumn extends WColumnarTableModel.Column {
+    private static Logger logger = LoggerFactory.getLogger(ObjectColumn.class);
+
+    public ObjectColumn(Class<?> type) {
+      super(type);
+      this.valueType = boxed(type);
+      this.data = new Object[0];
+    }
+
+    public double getNumber(int row) {
+      return StringUtils.asNumber(this.data[row]);
+    }
+
+    public void release(int from, int to) {
+      Arrays.fill(this.data, from, to, null);
+    }
+
+    public boolean accepts(final Object value) {
+      return this.valueType.isInstance(value);
+    }
+
+    protected int getCapacity() {
+      return this.data.length;
+    }
+
+    protected Object getValue(int row) {
+      return this.data[row];
+    }
+
+    protected boolean setValue(int row, final Object value) {
+      if (!this.accepts(value)) {
+        return false;
+      }
+      this.data[row] = value;
+      return true;
+    }
+
+    protected int compareValues(int row1, int row2) {
+      return ObjectUtils.compare(this.data[row1], this.data[row2]);
+    }
+
+    protected void growStorage(int capacity) {
+      this.data = Arrays.copyOf(this.data, capacity);
+    }
+
+    protected void moveStorage(int from, int to, int count) {
+      System.arraycopy(this.data, from, this.data, to, count);
+    }
+
+    protected void permuteStorage(int[] permutation, int rowCount) {
+      Object[] result = Arrays.copyOf(this.data, this.data.length);
+      for (int i = 0; i < rowCount; ++i) {
+        result[i] = this.data[permutation[i]];
+      }
+      this.data = result;
+    }
+
+    private Object[] data;
+    private Class<?> valueType;
+
+    private static Class<?> boxed(Class<?> type) {
+      if (type == float.class) {
+        return Float.class;
+      } else {
+        if (type == short.class) {
+          return Short.class;
+        } else {
+          if (type == byte.class) {
+            return Byte.class;
+          } else {
+            if (type == char.class) {
+              return Character.class;
+            } else {
+              return type;
+            }
+          }
+        }
+      }
+    }
+  }
+}
@@ -6,16 +6,26 @@
 package eu.webtoolkit.jwt;
 
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import eu.webtoolkit.jwt.servlet.WebRequest;
 import eu.webtoolkit.jwt.servlet.WebResponse;
-import eu.webtoolkit.jwt.utils.StreamUtils;
+import eu.webtoolkit.jwt.utils.MathUtils;
 
 /**
  * A resource which streams data from a local file.
@@ -23,6 +33,10 @@ import eu.webtoolkit.jwt.utils.StreamUtils;
  * To update the resource, either use setFileName() to point it to a
  * new file, or trigger the {@link #dataChanged()} signal when only the
  * file contents has changed, but not the filename.
+ * <p>
+ * The resource supports conditional requests (using an ETag derived from the
+ * file's modification time and size) and byte-range requests, so that media
+ * players can seek and downloads can be resumed.
  */
 public class WFileResource extends WResource {
 	private static final Logger logger = LoggerFactory.getLogger(WFileResource.class);
@@ -88,24 +102,223 @@ public class WFileResource extends WResource {
 	private String mimeType_;
 	private String fileName_;
 
+	private static final int MAX_RANGES = 32;
+	private static final int BUFFER_SIZE = 64 * 1024;
+
 	@Override
 	public void handleRequest(WebRequest request, WebResponse response) {
-		response.setContentType(mimeType_);
+		File f = new File(fileName_);
+		if (!f.isFile()) {
+			logger.info("Could not find file: {}", fileName_);
+			response.setStatus(404);
+			return;
+		}
+
+		long length = f.length();
+		long lastModified = f.lastModified();
+		String etag = "\"" + Long.toHexString(lastModified) + "-" + Long.toHexString(length) + "\"";
+
+		response.setHeader("ETag", etag);
+		response.setDateHeader("Last-Modified", lastModified);
+		response.setHeader("Accept-Ranges", "bytes");
+
+		if (isNotModified(request, etag, lastModified)) {
+			response.setStatus(304);
+			return;
+		}
+
+		List<long[]> ranges = null;
+		String range = request.getHeader("Range");
+		if (range != null && ifRangeMatches(request.getHeader("If-Range"), etag, lastModified)) {
+			ranges = parseRanges(range, length);
+			if (ranges != null && ranges.size() > MAX_RANGES)
+				ranges = null;
+			if (ranges != null && ranges.isEmpty()) {
+				response.setStatus(416);
+				response.setHeader("Content-Range", "bytes */" + length);
+				return;
+			}
+		}
+
+		boolean head = "HEAD".equals(request.getMethod());
+
+		FileChannel channel = null;
+		try {
+			channel = FileChannel.open(f.toPath(), StandardOpenOption.READ);
+			OutputStream out = response.getOutputStream();
+			byte[] buffer = new byte[(int) Math.max(1, Math.min(BUFFER_SIZE, length))];
+
+			if (ranges == null) {
+				response.setContentType(mimeType_);
+				response.setHeader("Content-Length", Long.toString(length));
+				if (!head)
+					transfer(channel, 0, length, out, buffer);
+			} else if (ranges.size() == 1) {
+				long[] r = ranges.get(0);
+				response.setStatus(206);
+				response.setContentType(mimeType_);
+				response.setHeader("Content-Range", "bytes " + r[0] + "-" + r[1] + "/" + length);
+				response.setHeader("Content-Length", Long.toString(r[1] - r[0] + 1));
+				if (!head)
+					transfer(channel, r[0], r[1] - r[0] + 1, out, buffer);
+			} else {
+				String boundary = MathUtils.randomId(32);
+				List<byte[]> partHeaders = new ArrayList<byte[]>();
+				long contentLength = 0;
+				for (long[] r : ranges) {
+					byte[] header = ("\r\n--" + boundary + "\r\n"
+							+ "Content-Type: " + mimeType_ + "\r\n"
+							+ "Content-Range: bytes " + r[0] + "-" + r[1] + "/" + length + "\r\n\r\n")
+							.getBytes(StandardCharsets.US_ASCII);
+					partHeaders.add(header);
+					contentLength += header.length + r[1] - r[0] + 1;
+				}
+				byte[] trailer = ("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII);
+				contentLength += trailer.length;
+
+				response.setStatus(206);
+				response.setContentType("multipart/byteranges; boundary=" + boundary);
+				response.setHeader("Content-Length", Long.toString(contentLength));
+				for (int i = 0; !head && i < ranges.size(); ++i) {
+					long[] r = ranges.get(i);
+					out.write(partHeaders.get(i));
+					transfer(channel, r[0], r[1] - r[0] + 1, out, buffer);
+				}
+				if (!head)
+					out.write(trailer);
+			}
+
+			out.flush();
+		} catch (IOException e) {
+			logger.info("IOException, {}", fileName_, e);
+		} finally {
+			if (channel != null) {
+				try {
+					channel.close();
+				} catch (IOException e) {
+					// Ignore that
+				}
+			}
+		}
+	}
+
+	/*
+	 * Transfers a region of the file to the output stream, using positional
+	 * reads into the given buffer.
+	 */
+	static void transfer(FileChannel channel, long position, long count, OutputStream out, byte[] buffer)
+			throws IOException {
+		while (count > 0) {
+			ByteBuffer b = ByteBuffer.wrap(buffer, 0, (int) Math.min(buffer.length, count));
+			int n = channel.read(b, position);
+			if (n <= 0)
+				throw new IOException("Unexpected end of file");
+			out.write(buffer, 0, n);
+			position += n;
+			count -= n;
+		}
+	}
+
+	private static boolean isNotModified(WebRequest request, String etag, long lastModified) {
+		String ifNoneMatch = request.getHeader("If-None-Match");
+		if (ifNoneMatch != null)
+			return StaticAssetStore.etagMatches(etag, ifNoneMatch);
+
+		long ifModifiedSince = getDateHeader(request, "If-Modified-Since");
+		return ifModifiedSince > 0 && lastModified / 1000 <= ifModifiedSince / 1000;
+	}
+
+	private static boolean ifRangeMatches(String ifRange, String etag, long lastModified) {
+		if (ifRange == null)
+			return true;
+
+		ifRange = ifRange.trim();
+		if (ifRange.startsWith("\"") || ifRange.startsWith("W/"))
+			return ifRange.equals(etag);
 
 		try {
-			File f = new File(fileName_);
-			FileInputStream fis = new FileInputStream(f);
+			long date = ZonedDateTime.parse(ifRange, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+			return lastModified / 1000 == date / 1000;
+		} catch (DateTimeParseException e) {
+			return false;
+		}
+	}
+
+	private static long getDateHeader(WebRequest request, String name) {
+		try {
+			return request.getDateHeader(name);
+		} catch (IllegalArgumentException e) {
+			return -1;
+		}
+	}
+
+	/*
+	 * Parses a Range header against a file of the given length.
+	 *
+	 * Returns null if the header is syntactically invalid (and should be
+	 * ignored), an empty list if none of the ranges is satisfiable, or the
+	 * list of inclusive [first, last] byte positions otherwise. Overlapping
+	 * and adjacent ranges are coalesced, and the result is sorted.
+	 */
+	static List<long[]> parseRanges(String header, long length) {
+		header = header.trim();
+		if (!header.startsWith("bytes="))
+			return null;
+
+		List<long[]> result = new ArrayList<long[]>();
+		for (String spec : header.substring(6).split(",")) {
+			spec = spec.trim();
+			int dash = spec.indexOf('-');
+			if (dash < 0)
+				return null;
+
+			long first, last;
 			try {
-				StreamUtils.copy(fis, response.getOutputStream());
-				response.getOutputStream().flush();
-			} catch (IOException e) {
-				logger.info("IOException, {}", fileName_, e);
-			} finally {
-				StreamUtils.closeQuietly(fis);
+				if (dash == 0) {
+					long suffix = Long.parseLong(spec.substring(1));
+					if (suffix <= 0)
+						continue;
+					first = Math.max(0, length - suffix);
+					last = length - 1;
+				} else {
+					first = Long.parseLong(spec.substring(0, dash));
+					if (dash == spec.length() - 1)
+						last = length - 1;
+					else
+						last = Math.min(Long.parseLong(spec.substring(dash + 1)), length - 1);
+					if (first > last && dash != spec.length() - 1 && first < length)
+						return null;
+				}
+			} catch (NumberFormatException e) {
+				return null;
+			}
+
+			if (first < length && first <= last)
+				result.add(new long[] { first, last });
+		}
+
+		return coalesce(result);
+	}
+
+	private static List<long[]> coalesce(List<long[]> ranges) {
+		if (ranges.size() < 2)
+			return ranges;
+
+		Collections.sort(ranges, Comparator.comparingLong(r -> r[0]));
+
+		List<long[]> result = new ArrayList<long[]>();
+		long[] current = ranges.get(0);
+		for (int i = 1; i < ranges.size(); ++i) {
+			long[] r = ranges.get(i);
+			if (r[0] <= current[1] + 1)
+				current[1] = Math.max(current[1], r[1]);
+			else {
+				result.add(current);
+				current = r;
 			}
-		} catch (FileNotFoundException e) {
-			System.err.println("Could not find file: " + fileName_);
-			response.setStatus(404);
 		}
+		result.add(current);
+
+		return result;
 	}
 }
@@ -120,12 +120,16 @@ import org.slf4j.LoggerFactory;
  *
  * <p>In {@link WGLWidget#bufferDatafv(WGLWidget.GLenum target, java.nio.ByteBuffer buffer,
  * WGLWidget.GLenum usage, boolean binary) bufferDatafv()}, there is an additional boolean argument
- * where you can indicate that you want the data to be transferred to the client in binary form. A
- * {@link WMemoryResource} is created for each of these buffers. If you know all previous resources
- * are not required in the client anymore, you can free memory with the method {@link
- * WGLWidget#clearBinaryResources() clearBinaryResources()} (the memory is also managed, so this is
- * not neccesary). If you want to manage these resources entirely by yourself, the following method
- * can be used.
+ * where you can indicate that you want the data to be transferred to the client in binary form,
+ * which is the default. A {@link WMemoryResource} is created for each of these buffers. The buffers
+ * are identified by their contents: a buffer that the client already has is not downloaded again,
+ * and when only a part of a buffer changed compared to the buffer that was uploaded at the same
+ * point of the previous {@link WGLWidget#updateGL() updateGL()}, only that part is downloaded.
+ * Calling {@link WGLWidget#clearBinaryResources() clearBinaryResources()} starts a new generation
+ * of buffers: resources that were not used in the current nor in the previous generation are freed
+ * (the memory is also managed, so this is not neccesary). Small buffers, and buffers that are not
+ * little endian heap buffers, are always sent inline. If you want to manage these resources
+ * entirely by yourself, the following method can be used.
  *
  * <p>Using createAndLoadArrayBuffer(), you can load an array buffer in binary format from an URL.
  * This will cause the client to fetch the given URL, and make the contents of the file available in
@@ -1431,11 +1435,11 @@ public class WGLWidget extends WInteractWidget {
    * GL function that loads float or double data in a VBO.
    *
    * <p>Calls {@link #bufferDatafv(WGLWidget.GLenum target, java.nio.ByteBuffer buffer,
-   * WGLWidget.GLenum usage, boolean binary) bufferDatafv(target, buffer, usage, false)}
+   * WGLWidget.GLenum usage, boolean binary) bufferDatafv(target, buffer, usage, true)}
    */
   public final void bufferDatafv(
       WGLWidget.GLenum target, final java.nio.ByteBuffer buffer, WGLWidget.GLenum usage) {
-    bufferDatafv(target, buffer, usage, false);
+    bufferDatafv(target, buffer, usage, true);
   }
 
   public void bufferDatafv(
@@ -1445,9 +1449,12 @@ public class WGLWidget extends WInteractWidget {
   /**
    * remove all binary buffer resources
    *
-   * <p>Removes all WMemoryResources that were allocated when calling bufferDatafv with binary=true.
-   * This is not required, since the resources are also managed, but if you are sure they will not
-   * be used anymore in the client, this can help free some memory.
+   * <p>Starts a new generation of the WMemoryResources that are allocated when calling bufferDatafv
+   * with binary=true. The resources that were not used in this generation nor in the previous one
+   * are removed, on the server and in the client, so that buffers that did not change are not
+   * downloaded again. This is not required, since the resources are also managed, but calling it
+   * whenever the buffers are created again (e.g. at the start of {@link WGLWidget#updateGL()
+   * updateGL()}) helps to free some memory.
    */
   public void clearBinaryResources() {
     this.pImpl_.clearBinaryResources();
@@ -1480,11 +1487,11 @@ public class WGLWidget extends WInteractWidget {
    * GL function that updates an existing VBO with new float data.
    *
    * <p>Calls {@link #bufferSubDatafv(WGLWidget.GLenum target, int offset, java.nio.ByteBuffer
-   * buffer, boolean binary) bufferSubDatafv(target, offset, buffer, false)}
+   * buffer, boolean binary) bufferSubDatafv(target, offset, buffer, true)}
    */
   public final void bufferSubDatafv(
       WGLWidget.GLenum target, int offset, final java.nio.ByteBuffer buffer) {
-    bufferSubDatafv(target, offset, buffer, false);
+    bufferSubDatafv(target, offset, buffer, true);
   }
 
   public void bufferSubDatafv(
@@ -39,6 +39,7 @@ public class WItemDelegate extends WAbstractItemDelegate {
   public WItemDelegate() {
     super();
     this.textFormat_ = "";
+    this.renderingHtml_ = false;
   }
   /**
    * Creates or updates a widget that renders an item.
@@ -220,6 +221,107 @@ public class WItemDelegate extends WAbstractItemDelegate {
       }
     }
   }
+  /**
+   * Configures whether items are rendered as HTML, without widgets.
+   *
+   * <p>When enabled, a {@link WTableView} renders the items of the columns that use this delegate
+   * directly as HTML (see {@link WItemDelegate#renderHtml(StringBuilder html, WModelIndex index,
+   * EnumSet flags, String styleClass, String style) renderHtml()}) instead of creating widgets for
+   * them, which is much cheaper for large, read-only tables. The same data roles are rendered as
+   * by {@link WItemDelegate#update(WWidget widget, WModelIndex index, EnumSet flags) update()},
+   * but the items cannot be edited, check boxes are read-only, and links to an internal path are
+   * followed as plain links.
+   *
+   * <p>The default value is <code>false</code>. Set this before the delegate is used by a view.
+   */
+  public void setRenderingHtml(boolean enabled) {
+    this.renderingHtml_ = enabled;
+  }
+  /**
+   * Returns whether items are rendered as HTML.
+   *
+   * <p>
+   *
+   * @see WItemDelegate#setRenderingHtml(boolean enabled)
+   */
+  public boolean isRenderingHtml() {
+    return this.renderingHtml_;
+  }
+
+  public void renderHtml(
+      final StringBuilder html,
+      final WModelIndex index,
+      EnumSet<ViewItemRenderFlag> flags,
+      final String styleClass,
+      final String style) {
+    boolean xhtml = index.getFlags().contains(ItemFlag.XHTMLText);
+    String sc = StringUtils.asString(index.getData(ItemDataRole.StyleClass)).toString();
+    if (flags.contains(ViewItemRenderFlag.Selected)) {
+      sc += " " + WApplication.getInstance().getTheme().getActiveClass();
+    }
+    html.append("<div class=\"");
+    DomElement.htmlAttributeValue(html, sc.length() == 0 ? styleClass : sc + " " + styleClass);
+    html.append("\" style=\"");
+    DomElement.htmlAttributeValue(html, style);
+    html.append('"');
+    if (!index.getFlags().contains(ItemFlag.DeferredToolTip)) {
+      WString tooltip = StringUtils.asString(index.getData(ItemDataRole.ToolTip));
+      if (!(tooltip.length() == 0)) {
+        html.append(" title=\"");
+        DomElement.htmlAttributeValue(html, tooltip.toString());
+        html.append('"');
+      }
+    }
+    if (index.getFlags().contains(ItemFlag.DropEnabled)) {
+      html.append(" drop=\"true\"");
+    }
+    html.append('>');
+    Object checkedData = index.getData(ItemDataRole.Checked);
+    if ((checkedData != null)) {
+      boolean checked =
+          checkedData.getClass().equals(Boolean.class)
+              ? ((Boolean) checkedData)
+              : checkedData.equals(CheckState.Checked);
+      html.append("<input type=\"checkbox\" disabled=\"disabled\"");
+      if (checked) {
+        html.append(" checked=\"checked\"");
+      }
+      html.append("/>");
+    }
+    Object linkData = index.getData(ItemDataRole.Link);
+    if ((linkData != null)) {
+      WLink link = ((WLink) linkData);
+      html.append("<a href=\"");
+      DomElement.htmlAttributeValue(html, link.resolveUrl(WApplication.getInstance()));
+      html.append('"');
+      if (link.getTarget() == LinkTarget.NewWindow) {
+        html.append(" target=\"_blank\"");
+      }
+      html.append('>');
+    }
+    String iconUrl = StringUtils.asString(index.getData(ItemDataRole.Decoration)).toString();
+    if (iconUrl.length() != 0) {
+      html.append("<img class=\"icon\" src=\"");
+      DomElement.htmlAttributeValue(
+          html, new WLink(iconUrl).resolveUrl(WApplication.getInstance()));
+      html.append("\"/>");
+    }
+    WString label = StringUtils.asString(index.getData(), this.textFormat_);
+    if (xhtml) {
+      WString text = new WString(label.toXhtml());
+      if (WWebWidget.removeScript(text)) {
+        html.append(text.toString());
+      } else {
+        html.append(WWebWidget.escapeText(label.toString(), true));
+      }
+    } else {
+      html.append(WWebWidget.escapeText(label.toString(), true));
+    }
+    if ((linkData != null)) {
+      html.append("</a>");
+    }
+    html.append("</div>");
+  }
   /**
    * Sets the text format string.
    *
@@ -412,6 +514,7 @@ public class WItemDelegate extends WAbstractItemDelegate {
   }
 
   private String textFormat_;
+  private boolean renderingHtml_;
 
   static class WidgetRef {
     private static Logger logger = LoggerFactory.getLogger(WidgetRef.class);
@@ -10,7 +10,10 @@ import java.io.OutputStream;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -31,11 +34,22 @@ import eu.webtoolkit.jwt.WTransform.TRSSDecomposition;
 import eu.webtoolkit.jwt.servlet.WebRequest;
 import eu.webtoolkit.jwt.servlet.WebResponse;
 import eu.webtoolkit.jwt.utils.EnumUtils;
+import eu.webtoolkit.jwt.utils.StreamUtils;
 
 public class WPdfImage extends WResource implements WPaintDevice {
 	private static final Logger logger = LoggerFactory.getLogger(WPdfImage.class);
 	
 	private static Constructor<?> fontConstructor;	
+
+	/*
+	 * Fonts embedded in each PDF document, by font file or base-14 font name,
+	 * so that each font is embedded only once per document, even when it is
+	 * used by several WPdfImage instances (e.g. pages in WPdfRenderer).
+	 *
+	 * A font is shared by all sizes in which it is used, so its size is set
+	 * right before each use (see getFont()).
+	 */
+	private static final Map<PDF, Map<String, Font>> embeddedFonts = new WeakHashMap<PDF, Map<String, Font>>();
 	
 	static {
 		for (Constructor<?> c : Font.class.getConstructors()) {
@@ -448,16 +462,17 @@ public class WPdfImage extends WResource implements WPaintDevice {
 		AlignmentFlag verticalAlign = EnumUtils.enumFromSet(EnumUtils.mask(flags, AlignmentFlag.AlignVerticalMask));
 
 		String s = text.toString();
+		Font font = getFont();
 		
 		switch (horizontalAlign) {
 		case Left:
 			px = rect.getLeft();
 			break;
 		case Right:
-			px = rect.getRight() - this.font.stringWidth(s);
+			px = rect.getRight() - font.stringWidth(s);
 			break;
 		case Center:
-			px = rect.getCenter().getX() - this.font.stringWidth(s) / 2;
+			px = rect.getCenter().getX() - font.stringWidth(s) / 2;
 			break;
 		}
 		
@@ -479,12 +494,8 @@ public class WPdfImage extends WResource implements WPaintDevice {
 			WPointF p = new WPointF(px, py);
 			p = currentTransform.map(p);
 			
-			double originalSize = this.font.getSize();
-			this.font.setSize(originalSize * (d.sx + d.sy) / 2);
-			
+			font.setSize(fontSize * (d.sx + d.sy) / 2);
 			page.drawString(font, s, p.getX(), p.getY());
-			
-			this.font.setSize(originalSize);
 		} catch (IOException e) {
 			logger.info("IOException", e);
 		}
@@ -500,6 +511,7 @@ public class WPdfImage extends WResource implements WPaintDevice {
 	@Override
 	public WTextItem measureText(CharSequence text, double maxWidth, boolean wordWrap) {
 		processChangeFlags();
+		Font font = getFont();
 
 		if (wordWrap) {
 			if (maxWidth == -1) {
@@ -549,9 +561,10 @@ public class WPdfImage extends WResource implements WPaintDevice {
 	@Override
 	public WFontMetrics getFontMetrics() {
 		processChangeFlags();
+		Font font = getFont();
 		
-		double ascent = this.font.getAscent();
-		double descent = this.font.getDescent();
+		double ascent = font.getAscent();
+		double descent = font.getDescent();
 		//TODO leading??
 		double leading = 0; 
 
@@ -716,6 +729,7 @@ public class WPdfImage extends WResource implements WPaintDevice {
 			currentTransform.decomposeTranslateRotateScaleSkew(d);
 			
 			this.font = createFont(painter.getFont());
+			this.fontSize = painter.getFont().getSizeLength().toPixels();
 		}
 
 		changeFlags.clear();
@@ -725,10 +739,15 @@ public class WPdfImage extends WResource implements WPaintDevice {
 		if (fontConstructor != null) {
 			FontMatch fm = trueTypeFonts.matchFont(font);
 			if (fm.isMatched()) {
+				Font f = getEmbeddedFont(fm.getFileName());
+				if (f != null)
+					return f;
+
+				FileInputStream fis = null;
 				try {
-					FileInputStream fis = new FileInputStream(fm.getFileName());
-					Font f = (Font)fontConstructor.newInstance(pdf, fis, CodePage.UNICODE, Embed.YES);
-					f.setSize(font.getSizeLength().toPixels());
+					fis = new FileInputStream(fm.getFileName());
+					f = (Font)fontConstructor.newInstance(pdf, new BufferedInputStream(fis), CodePage.UNICODE, Embed.YES);
+					putEmbeddedFont(fm.getFileName(), f);
 					return f;
 				} catch (IllegalArgumentException e) {
 					logger.error("IllegalArgumentException while creating font {}", font.getCssText(), e);
@@ -740,14 +759,19 @@ public class WPdfImage extends WResource implements WPaintDevice {
 					logger.error("InvocationTargetException while creating font {}", font.getCssText(), e);
 				} catch (FileNotFoundException e) {
 					logger.info("FileNotFoundException while creating font {}", font.getCssText(), e);
+				} finally {
+					StreamUtils.closeQuietly(fis);
 				}
 			} 
 		}
 
 		String name = PdfUtils.toBase14Font(font);
 		try {
-			Font f = new Font(pdf, name);
-			f.setSize(font.getSizeLength().toPixels());
+			Font f = getEmbeddedFont(name);
+			if (f == null) {
+				f = new Font(pdf, name);
+				putEmbeddedFont(name, f);
+			}
 			return f;
 		} catch (Exception e) {
 			logger.info("Error creating font {}", font.getCssText(), e);
@@ -755,6 +779,30 @@ public class WPdfImage extends WResource implements WPaintDevice {
 		}
 	}
 	
+	private Font getFont() {
+		if (font != null)
+			font.setSize(fontSize);
+		return font;
+	}
+
+	private Font getEmbeddedFont(String key) {
+		synchronized (embeddedFonts) {
+			Map<String, Font> fonts = embeddedFonts.get(pdf);
+			return fonts != null ? fonts.get(key) : null;
+		}
+	}
+
+	private void putEmbeddedFont(String key, Font f) {
+		synchronized (embeddedFonts) {
+			Map<String, Font> fonts = embeddedFonts.get(pdf);
+			if (fonts == null) {
+				fonts = new HashMap<String, Font>();
+				embeddedFonts.put(pdf, fonts);
+			}
+			fonts.put(key, f);
+		}
+	}
+
 	public void setDeviceTransform(WTransform transform) {
 		this.deviceTransform = new WTransform();
 		this.deviceTransform.translate(this.x, this.y);
@@ -768,6 +816,7 @@ public class WPdfImage extends WResource implements WPaintDevice {
 	private WTransform deviceTransform;
 	
 	private Font font;
+	private double fontSize;
 	private Stroke stroke;
 
     private PDF pdf;
@@ -477,7 +477,7 @@ public class WSortFilterProxyModel extends WAbstractProxyModel {
     WSortFilterProxyModel.Item item = this.itemFromIndex(parent);
     this.beginInsertRows(parent, row, row);
     item.proxyRowMap_.add(sourceRow);
-    item.sourceRowMap_.add(0 + sourceRow, row);
+    item.sourceRowMap_.insert(sourceRow, 1, row);
     this.endInsertRows();
     return true;
   }
@@ -539,13 +539,13 @@ public class WSortFilterProxyModel extends WAbstractProxyModel {
   static class Item extends WAbstractProxyModel.BaseItem {
     private static Logger logger = LoggerFactory.getLogger(Item.class);
 
-    public List<Integer> sourceRowMap_;
-    public List<Integer> proxyRowMap_;
+    public IntList sourceRowMap_;
+    public IntList proxyRowMap_;
 
     public Item(final WModelIndex sourceIndex) {
       super(sourceIndex);
-      this.sourceRowMap_ = new ArrayList<Integer>();
-      this.proxyRowMap_ = new ArrayList<Integer>();
+      this.sourceRowMap_ = new IntList();
+      this.proxyRowMap_ = new IntList();
     }
   }
 
@@ -559,6 +559,10 @@ public class WSortFilterProxyModel extends WAbstractProxyModel {
     }
 
     public int compare(Integer sourceRow1, Integer sourceRow2) {
+      return this.compare(sourceRow1.intValue(), sourceRow2.intValue());
+    }
+
+    public int compare(int sourceRow1, int sourceRow2) {
       int factor = this.model.sortOrder_ == SortOrder.Ascending ? 1 : -1;
       if (this.model.sortKeyColumn_ == -1) {
         return factor * (sourceRow1 - sourceRow2);
@@ -633,24 +637,34 @@ public class WSortFilterProxyModel extends WAbstractProxyModel {
         item.proxyRowMap_.set(i, item.proxyRowMap_.get(i) + count);
       }
     }
-    {
-      int insertPos = 0 + start;
-      for (int ii = 0; ii < (count); ++ii) item.sourceRowMap_.add(insertPos + ii, -1);
-    }
-    ;
+    item.sourceRowMap_.insert(start, count, -1);
     if (!this.dynamic_) {
       return;
     }
+    IntList accepted = new IntList();
     for (int row = start; row <= end; ++row) {
-      int newMappedRow = this.mappedInsertionPoint(row, item);
-      if (newMappedRow != -1) {
-        this.beginInsertRows(pparent, newMappedRow, newMappedRow);
-        item.proxyRowMap_.add(0 + newMappedRow, row);
-        this.rebuildSourceRowMap(item);
-        this.endInsertRows();
-      } else {
-        item.sourceRowMap_.set(row, -1);
+      if (this.filterAcceptRow(row, item.sourceIndex_)) {
+        accepted.add(row);
+      }
+    }
+    int[] rows = this.sortedRows(accepted, item);
+    WSortFilterProxyModel.Compare compare = new WSortFilterProxyModel.Compare(this, item);
+    int[] insertionPoints = new int[rows.length];
+    for (int i = 0; i < rows.length; ++i) {
+      insertionPoints[i] =
+          this.upperBound(item.proxyRowMap_, rows[i], i > 0 ? insertionPoints[i - 1] : 0, compare);
+    }
+    for (int first = 0; first < rows.length; ) {
+      int last = first;
+      while (last + 1 < rows.length && insertionPoints[last + 1] == insertionPoints[first]) {
+        ++last;
       }
+      int mappedRow = insertionPoints[first] + first;
+      this.beginInsertRows(pparent, mappedRow, mappedRow + last - first);
+      item.proxyRowMap_.insert(mappedRow, rows, first, last - first + 1);
+      this.updateSourceRowMap(item, mappedRow);
+      this.endInsertRows();
+      first = last + 1;
     }
   }
 
@@ -660,15 +674,31 @@ public class WSortFilterProxyModel extends WAbstractProxyModel {
       return;
     }
     WSortFilterProxyModel.Item item = this.itemFromIndex(pparent);
+    IntList mapped = new IntList();
     for (int row = start; row <= end; ++row) {
       int mappedRow = item.sourceRowMap_.get(row);
       if (mappedRow != -1) {
-        this.beginRemoveRows(pparent, mappedRow, mappedRow);
-        item.proxyRowMap_.remove(0 + mappedRow);
-        this.rebuildSourceRowMap(item);
-        this.endRemoveRows();
+        mapped.add(mappedRow);
       }
     }
+    int[] mappedRows = mapped.toArray();
+    Arrays.sort(mappedRows);
+    for (int last = mappedRows.length - 1; last >= 0; ) {
+      int first = last;
+      while (first > 0 && mappedRows[first - 1] == mappedRows[first] - 1) {
+        --first;
+      }
+      int firstRow = mappedRows[first];
+      int lastRow = mappedRows[last];
+      this.beginRemoveRows(pparent, firstRow, lastRow);
+      for (int i = firstRow; i <= lastRow; ++i) {
+        item.sourceRowMap_.set(item.proxyRowMap_.get(i), -1);
+      }
+      item.proxyRowMap_.remove(firstRow, lastRow - firstRow + 1);
+      this.updateSourceRowMap(item, firstRow);
+      this.endRemoveRows();
+      last = first - 1;
+    }
     int count = end - start + 1;
     this.startShiftModelIndexes(parent, start, -count, this.mappedIndexes_);
   }
@@ -686,9 +716,7 @@ public class WSortFilterProxyModel extends WAbstractProxyModel {
         item.proxyRowMap_.set(i, item.proxyRowMap_.get(i) - count);
       }
     }
-    for (int ii = 0; ii < (0 + start + count) - (0 + start); ++ii)
-      item.sourceRowMap_.remove(0 + start);
-    ;
+    item.sourceRowMap_.remove(start, count);
   }
 
   private void sourceDataChanged(final WModelIndex topLeft, final WModelIndex bottomRight) {
@@ -713,23 +741,24 @@ public class WSortFilterProxyModel extends WAbstractProxyModel {
       boolean propagateDataChange = oldMappedRow != -1;
       if (refilter || resort) {
         if (oldMappedRow != -1) {
-          item.proxyRowMap_.remove(0 + oldMappedRow);
+          item.proxyRowMap_.remove(oldMappedRow, 1);
         }
         int newMappedRow = this.mappedInsertionPoint(row, item);
         if (oldMappedRow != -1) {
-          item.proxyRowMap_.add(0 + oldMappedRow, row);
+          item.proxyRowMap_.insert(oldMappedRow, 1, row);
         }
         if (newMappedRow != oldMappedRow) {
           if (oldMappedRow != -1) {
             this.beginRemoveRows(parent, oldMappedRow, oldMappedRow);
-            item.proxyRowMap_.remove(0 + oldMappedRow);
-            this.rebuildSourceRowMap(item);
+            item.proxyRowMap_.remove(oldMappedRow, 1);
+            item.sourceRowMap_.set(row, -1);
+            this.updateSourceRowMap(item, oldMappedRow);
             this.endRemoveRows();
           }
           if (newMappedRow != -1) {
             this.beginInsertRows(parent, newMappedRow, newMappedRow);
-            item.proxyRowMap_.add(0 + newMappedRow, row);
-            this.rebuildSourceRowMap(item);
+            item.proxyRowMap_.insert(newMappedRow, 1, row);
+            this.updateSourceRowMap(item, newMappedRow);
             this.endInsertRows();
           }
           propagateDataChange = false;
@@ -825,7 +854,7 @@ public class WSortFilterProxyModel extends WAbstractProxyModel {
 
   private void updateItem(WSortFilterProxyModel.Item item) {
     int sourceRowCount = this.getSourceModel().getRowCount(item.sourceIndex_);
-    CollectionUtils.resize(item.sourceRowMap_, sourceRowCount);
+    item.sourceRowMap_.resize(sourceRowCount, -1);
     item.proxyRowMap_.clear();
     for (int i = 0; i < sourceRowCount; ++i) {
       if (this.filterAcceptRow(i, item.sourceIndex_)) {
@@ -836,27 +865,71 @@ public class WSortFilterProxyModel extends WAbstractProxyModel {
       }
     }
     if (this.sortKeyColumn_ != -1) {
-      Collections.sort(item.proxyRowMap_, new WSortFilterProxyModel.Compare(this, item));
-      this.rebuildSourceRowMap(item);
+      int[] rows = this.sortedRows(item.proxyRowMap_, item);
+      item.proxyRowMap_.clear();
+      item.proxyRowMap_.insert(0, rows, 0, rows.length);
+      this.updateSourceRowMap(item, 0);
     }
   }
 
-  private void rebuildSourceRowMap(WSortFilterProxyModel.Item item) {
-    for (int i = 0; i < item.sourceRowMap_.size(); ++i) {
-      item.sourceRowMap_.set(i, -1);
-    }
-    for (int i = 0; i < item.proxyRowMap_.size(); ++i) {
+  private void updateSourceRowMap(WSortFilterProxyModel.Item item, int firstMappedRow) {
+    for (int i = firstMappedRow; i < item.proxyRowMap_.size(); ++i) {
       item.sourceRowMap_.set(item.proxyRowMap_.get(i), i);
     }
   }
 
+  private int[] sortedRows(IntList rows, WSortFilterProxyModel.Item item) {
+    if (this.sortKeyColumn_ == -1 && this.sortOrder_ == SortOrder.Ascending) {
+      return rows.toArray();
+    }
+    Integer[] sorted = new Integer[rows.size()];
+    for (int i = 0; i < sorted.length; ++i) {
+      sorted[i] = rows.get(i);
+    }
+    Arrays.sort(sorted, new WSortFilterProxyModel.Compare(this, item));
+    int[] result = new int[sorted.length];
+    for (int i = 0; i < sorted.length; ++i) {
+      result[i] = sorted[i];
+    }
+    return result;
+  }
+
   private int mappedInsertionPoint(int sourceRow, WSortFilterProxyModel.Item item) {
     boolean acceptRow = this.filterAcceptRow(sourceRow, item.sourceIndex_);
     if (!acceptRow) {
       return -1;
     } else {
-      return CollectionUtils.insertionPoint(
-          item.proxyRowMap_, sourceRow, new WSortFilterProxyModel.Compare(this, item));
+      WSortFilterProxyModel.Compare compare = new WSortFilterProxyModel.Compare(this, item);
+      int low = 0;
+      int high = item.proxyRowMap_.size() - 1;
+      while (low <= high) {
+        int mid = (low + high) >>> 1;
+        int c = compare.compare(item.proxyRowMap_.get(mid), sourceRow);
+        if (c < 0) {
+          low = mid + 1;
+        } else {
+          if (c > 0) {
+            high = mid - 1;
+          } else {
+            return mid;
+          }
+        }
+      }
+      return low;
+    }
+  }
+
+  private int upperBound(
+      IntList rows, int sourceRow, int low, WSortFilterProxyModel.Compare compare) {
+    int high = rows.size();
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (compare.compare(rows.get(mid), sourceRow) <= 0) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
     }
+    return low;
   }
 }
@@ -28,6 +28,11 @@ import org.slf4j.LoggerFactory;
  * it uses {@link WItemDelegate} which renders data of all predefined roles (see also {@link
  * ItemDataRole}), including text, icons, checkboxes, and tooltips.
  *
+ * <p>For read-only columns, the delegate may render items directly as HTML instead of as widgets
+ * (see {@link WItemDelegate#setRenderingHtml(boolean enabled) WItemDelegate#setRenderingHtml()}).
+ * The view then keeps no widget per item, which makes scrolling through large tables considerably
+ * cheaper on the server. This is used only when the browser has Ajax support.
+ *
  * <p>The view provides virtual scrolling in both horizontal and vertical directions, and can
  * therefore be used to display large data models (with large number of columns and rows).
  *
@@ -150,7 +155,7 @@ public class WTableView extends WAbstractItemView {
       }
       if (this.isAjaxMode()) {
         WTableView.ColumnWidget column = this.columnContainer(renderedCol);
-        return column.getWidget(renderedRow);
+        return column.isRenderingHtml() ? null : column.getWidget(renderedRow);
       } else {
         return this.plainTable_.getElementAt(renderedRow + 1, renderedCol);
       }
@@ -789,6 +794,9 @@ public class WTableView extends WAbstractItemView {
     columnWidget.setOffsets(new WLength(0), EnumSet.of(Side.Top, Side.Left));
     columnWidget.setOverflow(Overflow.Hidden);
     columnWidget.setHeight(this.table_.getHeight());
+    if (this.getItemDelegate(column).isRenderingHtml()) {
+      columnWidget.setRenderingHtml();
+    }
     if (column >= this.getRowHeaderCount()) {
       if (this.table_.getCount() == 0 || column > this.columnContainer(-1).getColumn()) {
         this.table_.addWidget(columnWidget);
@@ -811,6 +819,12 @@ public class WTableView extends WAbstractItemView {
     private ColumnWidget(int column, WContainerWidget parentContainer) {
       super();
       this.column_ = column;
+      this.cells_ = null;
+      this.cellsJs_ = null;
+      this.insertAt_ = -1;
+      this.inserted_ = null;
+      this.removeAt_ = -1;
+      this.removeCount_ = 0;
       if (parentContainer != null) parentContainer.addWidget(this);
     }
 
@@ -818,7 +832,126 @@ public class WTableView extends WAbstractItemView {
       this(column, (WContainerWidget) null);
     }
 
+    public void setRenderingHtml() {
+      this.cells_ = new ArrayList<String>();
+    }
+
+    public boolean isRenderingHtml() {
+      return this.cells_ != null;
+    }
+
+    public int getCellCount() {
+      return this.cells_ != null ? this.cells_.size() : this.getCount();
+    }
+
+    public void insertCell(int index, final String html) {
+      this.cells_.add(index, html);
+      if (this.inserted_ != null && index == this.insertAt_ + this.insertCount_) {
+        this.inserted_.append(html);
+        ++this.insertCount_;
+      } else {
+        this.flushCells();
+        this.insertAt_ = index;
+        this.insertCount_ = 1;
+        this.inserted_ = new StringBuilder(html);
+      }
+      this.repaint();
+    }
+
+    public void removeCells(int index, int count) {
+      this.cells_.subList(index, index + count).clear();
+      if (this.removeCount_ > 0 && index == this.removeAt_) {
+        this.removeCount_ += count;
+      } else {
+        if (this.removeCount_ > 0 && index + count == this.removeAt_) {
+          this.removeAt_ = index;
+          this.removeCount_ += count;
+        } else {
+          this.flushCells();
+          this.removeAt_ = index;
+          this.removeCount_ = count;
+        }
+      }
+      this.repaint();
+    }
+
+    public void setCell(int index, final String html) {
+      this.cells_.set(index, html);
+      this.flushCells();
+      this.cellsJs()
+          .append("c.children[")
+          .append(index)
+          .append("].outerHTML=")
+          .append(WWebWidget.jsStringLiteral(html))
+          .append(';');
+      this.repaint();
+    }
+
+    void updateDom(final DomElement element, boolean all) {
+      if (this.cells_ != null) {
+        if (all) {
+          if (!this.cells_.isEmpty()) {
+            StringBuilder html = new StringBuilder();
+            for (int i = 0; i < this.cells_.size(); ++i) {
+              html.append(this.cells_.get(i));
+            }
+            element.setProperty(Property.InnerHTML, html.toString());
+          }
+        } else {
+          this.flushCells();
+          if (this.cellsJs_ != null) {
+            element.callJavaScript(
+                "(function(c){" + this.cellsJs_.toString() + "})(" + this.getJsRef() + ");");
+          }
+        }
+        this.cellsJs_ = null;
+        this.inserted_ = null;
+        this.removeCount_ = 0;
+      }
+      super.updateDom(element, all);
+    }
+
     private int column_;
+    private List<String> cells_;
+    private StringBuilder cellsJs_;
+    private int insertAt_;
+    private int insertCount_;
+    private StringBuilder inserted_;
+    private int removeAt_;
+    private int removeCount_;
+
+    private StringBuilder cellsJs() {
+      if (this.cellsJs_ == null) {
+        this.cellsJs_ = new StringBuilder();
+      }
+      return this.cellsJs_;
+    }
+
+    private void flushCells() {
+      if (this.inserted_ != null) {
+        String html = WWebWidget.jsStringLiteral(this.inserted_.toString());
+        this.cellsJs()
+            .append("if(")
+            .append(this.insertAt_)
+            .append("<c.children.length)c.children[")
+            .append(this.insertAt_)
+            .append("].insertAdjacentHTML('beforebegin',")
+            .append(html)
+            .append(");else c.insertAdjacentHTML('beforeend',")
+            .append(html)
+            .append(");");
+        this.inserted_ = null;
+      }
+      if (this.removeCount_ > 0) {
+        this.cellsJs()
+            .append("for(let i=0;i<")
+            .append(this.removeCount_)
+            .append(";++i)c.children[")
+            .append(this.removeAt_)
+            .append("].remove();");
+        this.removeCount_ = 0;
+      }
+    }
     // private WTableView.ColumnWidget  createColumnWidget(int column) ;
   }
 
@@ -1006,6 +1139,10 @@ public class WTableView extends WAbstractItemView {
       int first = Math.max(0, start - this.getFirstRow());
       for (int i = 0; i < this.getRenderedColumnsCount(); ++i) {
         WTableView.ColumnWidget column = this.columnContainer(i);
+        if (column.isRenderingHtml()) {
+          column.removeCells(first, overlapMiddle);
+          continue;
+        }
         for (int j = 0; j < overlapMiddle; ++j) {
           {
             WWidget toRemove = column.getWidget(first).removeFromParent();
@@ -1109,6 +1246,29 @@ public class WTableView extends WAbstractItemView {
     return wAfter;
   }
 
+  private void renderItem(WTableView.ColumnWidget w, int renderedRow, final WModelIndex index) {
+    if (w.isRenderingHtml()) {
+      w.insertCell(renderedRow, this.renderHtml(index));
+    } else {
+      w.insertWidget(renderedRow, this.renderWidget((WWidget) null, index));
+    }
+  }
+
+  private String renderHtml(final WModelIndex index) {
+    WAbstractItemDelegate itemDelegate = this.getItemDelegate(index.getColumn());
+    EnumSet<ViewItemRenderFlag> renderFlags = EnumSet.noneOf(ViewItemRenderFlag.class);
+    if (this.isSelected(index)) {
+      renderFlags.add(ViewItemRenderFlag.Selected);
+    }
+    if (!this.isValid(index)) {
+      renderFlags.add(ViewItemRenderFlag.Invalid);
+    }
+    StringBuilder html = new StringBuilder();
+    itemDelegate.renderHtml(
+        html, index, renderFlags, "Wt-tv-c", "height:" + this.getRowHeight().getCssText() + ";");
+    return html.toString();
+  }
+
   private int getSpannerCount(final Side side) {
     assert this.isAjaxMode();
     switch (side) {
@@ -1237,17 +1397,11 @@ public class WTableView extends WAbstractItemView {
       int row = fr + i;
       for (int col = 0; col < this.getRowHeaderCount(); ++col) {
         WTableView.ColumnWidget w = this.columnContainer(col);
-        w.insertWidget(
-            i,
-            this.renderWidget(
-                (WWidget) null, this.getModel().getIndex(row, col, this.getRootIndex())));
+        this.renderItem(w, i, this.getModel().getIndex(row, col, this.getRootIndex()));
       }
       for (int col = fc; col <= lc; ++col) {
         WTableView.ColumnWidget w = this.columnContainer(col - fc + this.getRowHeaderCount());
-        w.insertWidget(
-            i,
-            this.renderWidget(
-                (WWidget) null, this.getModel().getIndex(row, col, this.getRootIndex())));
+        this.renderItem(w, i, this.getModel().getIndex(row, col, this.getRootIndex()));
       }
       this.addSection(Side.Top);
     }
@@ -1257,16 +1411,14 @@ public class WTableView extends WAbstractItemView {
           int col = fc + j;
           int renderCol = this.getRowHeaderCount() + j;
           WTableView.ColumnWidget w = this.columnContainer(renderCol);
-          w.addWidget(
-              this.renderWidget(
-                  (WWidget) null, this.getModel().getIndex(row, col, this.getRootIndex())));
+          this.renderItem(
+              w, w.getCellCount(), this.getModel().getIndex(row, col, this.getRootIndex()));
         }
         for (int j = 0; j < rightColsToAdd; ++j) {
           int col = lc - rightColsToAdd + 1 + j;
           WTableView.ColumnWidget w = this.columnContainer(col - fc + this.getRowHeaderCount());
-          w.addWidget(
-              this.renderWidget(
-                  (WWidget) null, this.getModel().getIndex(row, col, this.getRootIndex())));
+          this.renderItem(
+              w, w.getCellCount(), this.getModel().getIndex(row, col, this.getRootIndex()));
         }
       }
     }
@@ -1274,15 +1426,13 @@ public class WTableView extends WAbstractItemView {
       int row = oldLastRow == -1 ? fr + i : oldLastRow + 1 + i;
       for (int col = 0; col < this.getRowHeaderCount(); ++col) {
         WTableView.ColumnWidget w = this.columnContainer(col);
-        w.addWidget(
-            this.renderWidget(
-                (WWidget) null, this.getModel().getIndex(row, col, this.getRootIndex())));
+        this.renderItem(
+            w, w.getCellCount(), this.getModel().getIndex(row, col, this.getRootIndex()));
       }
       for (int col = fc; col <= lc; ++col) {
         WTableView.ColumnWidget w = this.columnContainer(col - fc + this.getRowHeaderCount());
-        w.addWidget(
-            this.renderWidget(
-                (WWidget) null, this.getModel().getIndex(row, col, this.getRootIndex())));
+        this.renderItem(
+            w, w.getCellCount(), this.getModel().getIndex(row, col, this.getRootIndex()));
       }
       this.addSection(Side.Bottom);
     }
@@ -1371,7 +1521,7 @@ public class WTableView extends WAbstractItemView {
         this.setSpannerCount(side, this.getSpannerCount(side) + 1);
         for (int i = 0; i < this.getRenderedColumnsCount(); ++i) {
           WTableView.ColumnWidget w = this.columnContainer(i);
-          this.deleteItem(row, col + i, w.getWidget(0));
+          this.deleteItem(row, col + i, w, 0);
         }
         break;
       case Bottom:
@@ -1379,7 +1529,7 @@ public class WTableView extends WAbstractItemView {
         this.setSpannerCount(side, this.getSpannerCount(side) + 1);
         for (int i = 0; i < this.getRenderedColumnsCount(); ++i) {
           WTableView.ColumnWidget w = this.columnContainer(i);
-          this.deleteItem(row, col + i, w.getWidget(w.getCount() - 1));
+          this.deleteItem(row, col + i, w, w.getCellCount() - 1);
         }
         break;
       case Left:
@@ -1394,8 +1544,8 @@ public class WTableView extends WAbstractItemView {
                 EnumSet.of(Side.Left));
           }
           ++this.firstColumn_;
-          for (int i = w.getCount() - 1; i >= 0; --i) {
-            this.deleteItem(row + i, col, w.getWidget(i));
+          for (int i = w.getCellCount() - 1; i >= 0; --i) {
+            this.deleteItem(row + i, col, w, i);
           }
           {
             WWidget toRemove = w.removeFromParent();
@@ -1409,8 +1559,8 @@ public class WTableView extends WAbstractItemView {
           WTableView.ColumnWidget w = this.columnContainer(-1);
           col = w.getColumn();
           --this.lastColumn_;
-          for (int i = w.getCount() - 1; i >= 0; --i) {
-            this.deleteItem(row + i, col, w.getWidget(i));
+          for (int i = w.getCellCount() - 1; i >= 0; --i) {
+            this.deleteItem(row + i, col, w, i);
           }
           {
             WWidget toRemove = w.removeFromParent();
@@ -2011,7 +2161,12 @@ public class WTableView extends WAbstractItemView {
     WContainerWidget parentWidget;
     int wIndex;
     if (this.isAjaxMode()) {
-      parentWidget = this.columnContainer(renderedColumn);
+      WTableView.ColumnWidget column = this.columnContainer(renderedColumn);
+      if (column.isRenderingHtml()) {
+        column.setCell(renderedRow, this.renderHtml(index));
+        return;
+      }
+      parentWidget = column;
       wIndex = renderedRow;
     } else {
       parentWidget = this.plainTable_.getElementAt(renderedRow + 1, renderedColumn);
@@ -2146,8 +2301,16 @@ public class WTableView extends WAbstractItemView {
         if (this.isAjaxMode()) {
           for (int i = 0; i < this.getRenderedColumnsCount(); ++i) {
             WTableView.ColumnWidget column = this.columnContainer(i);
-            WWidget w = column.getWidget(renderedRow);
-            w.toggleStyleClass(cl, selected);
+            if (column.isRenderingHtml()) {
+              column.setCell(
+                  renderedRow,
+                  this.renderHtml(
+                      this.getModel()
+                          .getIndex(index.getRow(), column.getColumn(), this.getRootIndex())));
+            } else {
+              WWidget w = column.getWidget(renderedRow);
+              w.toggleStyleClass(cl, selected);
+            }
           }
         } else {
           WTableRow row = this.plainTable_.getRowAt(renderedRow + 1);
@@ -2158,6 +2321,22 @@ public class WTableView extends WAbstractItemView {
       WWidget w = this.itemWidget(index);
       if (w != null) {
         w.toggleStyleClass(cl, selected);
+      } else {
+        if (this.isAjaxMode()
+            && this.isRowRendered(index.getRow())
+            && (index.getColumn() < this.headerColumnsTable_.getCount()
+                || this.isColumnRendered(index.getColumn()))) {
+          int renderedRow = index.getRow() - this.getFirstRow();
+          int renderedCol = index.getColumn();
+          if (index.getColumn() >= this.headerColumnsTable_.getCount()) {
+            renderedCol =
+                this.headerColumnsTable_.getCount() + index.getColumn() - this.getFirstColumn();
+          }
+          WTableView.ColumnWidget column = this.columnContainer(renderedCol);
+          if (column.isRenderingHtml()) {
+            column.setCell(renderedRow, this.renderHtml(index));
+          }
+        }
       }
     }
   }
@@ -2322,7 +2501,11 @@ public class WTableView extends WAbstractItemView {
     WContainerWidget parentWidget;
     int wIndex;
     if (this.isAjaxMode()) {
-      parentWidget = this.columnContainer(renderedColumn);
+      WTableView.ColumnWidget column = this.columnContainer(renderedColumn);
+      if (column.isRenderingHtml()) {
+        return;
+      }
+      parentWidget = column;
       wIndex = renderedRow;
     } else {
       parentWidget = this.plainTable_.getElementAt(renderedRow + 1, renderedColumn);
@@ -2363,10 +2546,14 @@ public class WTableView extends WAbstractItemView {
     this.dropEvent(e, index, side.equals("top") ? Side.Top : Side.Bottom);
   }
 
-  private void deleteItem(int row, int col, WWidget w) {
+  private void deleteItem(int row, int col, WTableView.ColumnWidget w, int renderedRow) {
+    if (w.isRenderingHtml()) {
+      w.removeCells(renderedRow, 1);
+      return;
+    }
     this.persistEditor(this.getModel().getIndex(row, col, this.getRootIndex()));
     {
-      WWidget toRemove = w.removeFromParent();
+      WWidget toRemove = w.getWidget(renderedRow).removeFromParent();
       if (toRemove != null) toRemove.remove();
     }
   }
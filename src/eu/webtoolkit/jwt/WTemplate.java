@@ -1025,96 +1025,52 @@ public class WTemplate extends WInteractWidget {
     } else {
       text = WString.toWString(templateText).toXhtml();
     }
-    int lastPos = 0;
-    List<WString> args = new ArrayList<WString>();
-    List<String> conditions = new ArrayList<String>();
+    ParsedTemplate parsed = ParsedTemplate.get(text);
     int suppressing = 0;
-    for (int pos = text.indexOf('$'); pos != -1; pos = text.indexOf('$', pos)) {
-      if (!(suppressing != 0)) {
-        result.append(text.substring(lastPos, lastPos + pos - lastPos));
-      }
-      lastPos = pos;
-      if (pos + 1 < text.length()) {
-        if (text.charAt(pos + 1) == '$') {
+    for (ParsedTemplate.Segment segment : parsed.segments) {
+      switch (segment.type) {
+        case ParsedTemplate.LITERAL:
           if (!(suppressing != 0)) {
-            result.append('$');
+            result.append(segment.text);
           }
-          lastPos += 2;
-        } else {
-          if (text.charAt(pos + 1) == '{') {
-            int startName = pos + 2;
-            int endName = StringUtils.findFirstOf(text, " \r\n\t}", startName);
-            args.clear();
-            int endVar = parseArgs(text, endName, args);
-            if (endVar == -1) {
-              StringWriter errorStream = new StringWriter();
-              errorStream
-                  .append("variable syntax error near \"")
-                  .append(text.substring(pos))
-                  .append("\"");
-              this.errorText_ = errorStream.toString();
-              logger.error(new StringWriter().append(this.errorText_).toString());
-              return false;
+          break;
+        case ParsedTemplate.CONDITION_BEGIN:
+          if (suppressing != 0 || !this.conditionValue(segment.text)) {
+            ++suppressing;
+          }
+          break;
+        case ParsedTemplate.CONDITION_END:
+          if (suppressing != 0) {
+            --suppressing;
+          }
+          break;
+        case ParsedTemplate.VARIABLE:
+          if (!(suppressing != 0)) {
+            List<WString> args = new ArrayList<WString>(segment.args.length + 1);
+            for (String arg : segment.args) {
+              args.add(new WString(arg));
             }
-            String name = text.substring(startName, startName + endName - startName);
-            int nl = name.length();
-            if (nl > 2 && name.charAt(0) == '<' && name.charAt(nl - 1) == '>') {
-              if (name.charAt(1) != '/') {
-                String cond = name.substring(1, 1 + nl - 2);
-                conditions.add(cond);
-                if (suppressing != 0 || !this.conditionValue(cond)) {
-                  ++suppressing;
-                }
+            boolean handled = false;
+            if (segment.function != null) {
+              args.add(0, new WString(segment.argument));
+              if (this.resolveFunction(segment.function, args, result)) {
+                handled = true;
               } else {
-                String cond = name.substring(2, 2 + nl - 3);
-                if (conditions.isEmpty() || !conditions.get(conditions.size() - 1).equals(cond)) {
-                  StringWriter errorStream = new StringWriter();
-                  errorStream.append("mismatching condition block end: ").append(cond);
-                  this.errorText_ = errorStream.toString();
-                  logger.error(new StringWriter().append(this.errorText_).toString());
-                  return false;
-                }
-                conditions.remove(conditions.size() - 1);
-                if (suppressing != 0) {
-                  --suppressing;
-                }
-              }
-            } else {
-              if (!(suppressing != 0)) {
-                int colonPos = name.indexOf(':');
-                boolean handled = false;
-                if (colonPos != -1) {
-                  String fname = name.substring(0, 0 + colonPos);
-                  String arg0 = name.substring(colonPos + 1);
-                  args.add(0, new WString(arg0));
-                  if (this.resolveFunction(fname, args, result)) {
-                    handled = true;
-                  } else {
-                    args.remove(0);
-                  }
-                }
-                if (!handled) {
-                  this.resolveString(name, args, result);
-                }
+                args.remove(0);
               }
             }
-            lastPos = endVar + 1;
-          } else {
-            if (!(suppressing != 0)) {
-              result.append('$');
+            if (!handled) {
+              this.resolveString(segment.text, args, result);
             }
-            lastPos += 1;
           }
-        }
-      } else {
-        if (!(suppressing != 0)) {
-          result.append('$');
-        }
-        lastPos += 1;
+          break;
+        case ParsedTemplate.ERROR:
+          this.errorText_ = segment.text;
+          logger.error(new StringWriter().append(this.errorText_).toString());
+          return false;
       }
-      pos = lastPos;
     }
-    result.append(text.substring(lastPos));
+    result.append(parsed.trailer);
     return true;
   }
   /**
@@ -1424,6 +1380,140 @@ public class WTemplate extends WInteractWidget {
     return pos == text.length() ? -1 : pos;
   }
 
+  /*
+   * The template text split in literal text, variables, functions and condition
+   * blocks. Parsing does not depend on the state of a template, and so the result
+   * is shared by all templates (and sessions) that render the same text.
+   */
+  private static final class ParsedTemplate {
+    static final int LITERAL = 0;
+    static final int VARIABLE = 1;
+    static final int CONDITION_BEGIN = 2;
+    static final int CONDITION_END = 3;
+    static final int ERROR = 4;
+
+    static final class Segment {
+      final int type;
+      final String text;
+      final String function;
+      final String argument;
+      final String[] args;
+
+      Segment(int type, String text, String function, String argument, String[] args) {
+        this.type = type;
+        this.text = text;
+        this.function = function;
+        this.argument = argument;
+        this.args = args;
+      }
+    }
+
+    private static final int CACHE_SIZE = 256;
+    // longer texts are parsed every time, so that the cache stays small
+    private static final int MAX_CACHED_LENGTH = 16 * 1024;
+    private static final LruCache<String, ParsedTemplate> cache =
+        new LruCache<String, ParsedTemplate>(CACHE_SIZE);
+    private static final String[] NO_ARGS = new String[0];
+
+    final Segment[] segments;
+    // the text after the last placeholder, which is rendered unconditionally
+    final String trailer;
+
+    private ParsedTemplate(List<Segment> segments, String trailer) {
+      this.segments = segments.toArray(new Segment[segments.size()]);
+      this.trailer = trailer;
+    }
+
+    static ParsedTemplate get(final String text) {
+      if (text.length() > MAX_CACHED_LENGTH) {
+        return parse(text);
+      }
+      return cache.get(text, ParsedTemplate::parse);
+    }
+
+    private static ParsedTemplate parse(final String text) {
+      List<Segment> segments = new ArrayList<Segment>();
+      StringBuilder literal = new StringBuilder();
+      int lastPos = 0;
+      List<WString> args = new ArrayList<WString>();
+      List<String> conditions = new ArrayList<String>();
+      for (int pos = text.indexOf('$'); pos != -1; pos = text.indexOf('$', pos)) {
+        literal.append(text, lastPos, pos);
+        lastPos = pos;
+        if (pos + 1 < text.length() && text.charAt(pos + 1) == '$') {
+          literal.append('$');
+          lastPos += 2;
+        } else if (pos + 1 < text.length() && text.charAt(pos + 1) == '{') {
+          int startName = pos + 2;
+          int endName = StringUtils.findFirstOf(text, " \r\n\t}", startName);
+          args.clear();
+          int endVar = parseArgs(text, endName, args);
+          addLiteral(segments, literal);
+          if (endVar == -1) {
+            segments.add(
+                new Segment(
+                    ERROR,
+                    "variable syntax error near \"" + text.substring(pos) + "\"",
+                    null,
+                    null,
+                    NO_ARGS));
+            return new ParsedTemplate(segments, "");
+          }
+          String name = text.substring(startName, endName);
+          int nl = name.length();
+          if (nl > 2 && name.charAt(0) == '<' && name.charAt(nl - 1) == '>') {
+            if (name.charAt(1) != '/') {
+              String cond = name.substring(1, nl - 1);
+              conditions.add(cond);
+              segments.add(new Segment(CONDITION_BEGIN, cond, null, null, NO_ARGS));
+            } else {
+              String cond = name.substring(2, nl - 1);
+              if (conditions.isEmpty() || !conditions.get(conditions.size() - 1).equals(cond)) {
+                segments.add(
+                    new Segment(
+                        ERROR, "mismatching condition block end: " + cond, null, null, NO_ARGS));
+                return new ParsedTemplate(segments, "");
+              }
+              conditions.remove(conditions.size() - 1);
+              segments.add(new Segment(CONDITION_END, cond, null, null, NO_ARGS));
+            }
+          } else {
+            String[] argValues = new String[args.size()];
+            for (int i = 0; i < argValues.length; ++i) {
+              argValues[i] = args.get(i).toString();
+            }
+            int colonPos = name.indexOf(':');
+            if (colonPos != -1) {
+              segments.add(
+                  new Segment(
+                      VARIABLE,
+                      name,
+                      name.substring(0, colonPos),
+                      name.substring(colonPos + 1),
+                      argValues));
+            } else {
+              segments.add(new Segment(VARIABLE, name, null, null, argValues));
+            }
+          }
+          lastPos = endVar + 1;
+        } else {
+          literal.append('$');
+          lastPos += 1;
+        }
+        pos = lastPos;
+      }
+      addLiteral(segments, literal);
+      return new ParsedTemplate(segments, text.substring(lastPos));
+    }
+
+    private static void addLiteral(List<Segment> segments, StringBuilder literal) {
+      if (literal.length() > 0) {
+        segments.add(new Segment(LITERAL, literal.toString(), null, null, NO_ARGS));
+        literal.setLength(0);
+      }
+    }
+  }
+
   private void unrenderWidget(WWidget w, final DomElement el) {
     String removeJs = w.renderRemoveJs(false);
     if (removeJs.charAt(0) == '_') {
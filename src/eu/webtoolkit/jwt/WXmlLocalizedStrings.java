@@ -5,12 +5,17 @@
  */
 package eu.webtoolkit.jwt;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import net.n3.nanoxml.IXMLParser;
 import net.n3.nanoxml.IXMLReader;
@@ -21,39 +26,84 @@ import net.n3.nanoxml.XMLParserFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import static eu.webtoolkit.jwt.PluralExpression.evalPluralCase;
+import eu.webtoolkit.jwt.utils.StreamUtils;
 
 /**
  * WXmlLocalizedStrings is a {@link WLocalizedStrings} implementation which uses an XML file as input resource.
+ * <p>
+ * Each bundle is parsed only once for each locale, and the parsed messages are shared by all
+ * instances (and thus by all sessions).
  */
 public class WXmlLocalizedStrings extends WLocalizedStrings {
 	private static Logger logger = LoggerFactory.getLogger(WXmlLocalizedStrings.class);
 
+	private static final long RELOAD_CHECK_INTERVAL = 2000;
+	private static final int MAX_LOCALES = 256;
+
+	/*
+	 * The parsed messages of a bundle for one locale. A Resource is not
+	 * modified after it has been loaded; a reload replaces it.
+	 */
 	static class Resource {
-		public Map<String, List<String>> map_ = new HashMap<>();
-		public String pluralExpression_ = "";
-		int pluralCount_ = 0;
+		final Map<String, List<String>> map_;
+		final String pluralExpression_;
+		final int pluralCount_;
+		final String path_;
+		final File source_;
+		final long lastModified_;
+		volatile long lastChecked_;
+		private volatile PluralExpression plural_;
+
+		Resource(Map<String, List<String>> map, String pluralExpression, int pluralCount, String path, File source) {
+			this.map_ = Collections.unmodifiableMap(map);
+			this.pluralExpression_ = pluralExpression;
+			this.pluralCount_ = pluralCount;
+			this.path_ = path;
+			this.source_ = source;
+			this.lastModified_ = source != null ? source.lastModified() : 0;
+			this.lastChecked_ = System.currentTimeMillis();
+		}
+
+		PluralExpression getPluralExpression() {
+			if (plural_ == null)
+				plural_ = PluralExpression.compile(pluralExpression_);
+			return plural_;
+		}
+
+		boolean isModified() {
+			if (source_ == null)
+				return false;
+
+			long now = System.currentTimeMillis();
+			if (now - lastChecked_ < RELOAD_CHECK_INTERVAL)
+				return false;
+			lastChecked_ = now;
+
+			return source_.lastModified() != lastModified_;
+		}
 	}
+
+	private static final Resource EMPTY = new Resource(new HashMap<String, List<String>>(), "", 0, null, null);
+
+	/*
+	 * Parsed resources, by path of the XML file.
+	 */
+	private static final Map<String, Resource> files = new ConcurrentHashMap<>();
+
+	/*
+	 * Resources of all bundles, by bundle name and locale. Locales that
+	 * resolve to the same file share the same Resource.
+	 */
+	private static final Map<String, Map<String, Resource>> cache = new ConcurrentHashMap<>();
 	
 	static class Bundle {
 		public Bundle(String bundleName) {
 			this.bundleName = bundleName;
+			this.resources = cache.computeIfAbsent(bundleName, k -> new ConcurrentHashMap<>());
 		}
 		
-		public LocalizedString resolveKey(final Locale locale, final String key) {
-			if (!resources.containsKey(locale.toString()))
-				load(locale.toString());
-			
-			Resource res = resources.get(locale.toString());
-			if (res.map_.get(key) == null) {
-				if (resources.get("") == null)
-					load("");
-				
-				if (resources.get("") != null)
-					res = resources.get("");
-			}
-
-			List<String> result = res.map_.get(key);
+		public LocalizedString resolveKey(final Locale locale, final String key, boolean reload) {
+			List<String> result = getMessage(locale.toString(), key, reload);
 
 			if (result != null && result.size() == 1) {
 				return new LocalizedString(result.get(0), TextFormat.XHTML);
@@ -61,23 +111,15 @@ public class WXmlLocalizedStrings extends WLocalizedStrings {
 				return new LocalizedString();
 		}
 		
-		public LocalizedString resolvePluralKey(final Locale locale, final String key, long amount) {
-			if (!resources.containsKey(locale.toString()))
-				load(locale.toString());
-			
-			Resource res = resources.get(locale.toString());
-			if (res.map_.get(key) == null) {
-				if (resources.get("") == null)
-					load("");
-				
-				if (resources.get("") != null)
-					res = resources.get("");
-			}
+		public LocalizedString resolvePluralKey(final Locale locale, final String key, long amount, boolean reload) {
+			Resource res = getResource(locale.toString(), reload);
+			if (res.map_.get(key) == null)
+				res = getResource("", reload);
 
 			List<String> result = res.map_.get(key);
 
 			if (result != null) {
-				int c = evalPluralCase(res.pluralExpression_, amount);
+				int c = res.getPluralExpression().evaluate(amount);
 				if (c < 0 || c > res.pluralCount_ || c > result.size()) {
 					throw new WException("Expression '" + res.pluralExpression_ + "' evaluates to '"
 							+ c + "' for n=" + amount + ", which is greater than the list of cases (size="
@@ -88,20 +130,44 @@ public class WXmlLocalizedStrings extends WLocalizedStrings {
 			} else
 				return new LocalizedString();
 		}
+
+		private List<String> getMessage(final String locale, final String key, boolean reload) {
+			List<String> result = getResource(locale, reload).map_.get(key);
+			if (result == null)
+				result = getResource("", reload).map_.get(key);
+			return result;
+		}
+
+		private Resource getResource(final String locale, boolean reload) {
+			Resource res = resources.get(locale);
+			if (res != null && reload && res.isModified()) {
+				files.remove(res.path_, res);
+				res = load(locale);
+				resources.replace(locale, res);
+			} else if (res == null) {
+				res = load(locale);
+				// only the number of locales is bounded, reloaded resources always replace theirs
+				if (resources.size() < MAX_LOCALES)
+					resources.putIfAbsent(locale, res);
+			}
+			return res;
+		}
 		
-		private void load(final String locale) {
-			if (!resources.containsKey(locale))
-				resources.put(locale, new Resource());
-			final Resource target = resources.get(locale);
-			target.map_.clear();
-			
+		private Resource load(final String locale) {
 			InputStream stream = null;
 			String bundlePath = null;
-			for (String path : StringUtils.expandLocales(bundleName, locale.toString())) {
+			File source = null;
+			for (String path : StringUtils.expandLocales(bundleName, locale)) {
+				bundlePath = path + ".xml";
+				Resource loaded = files.get(bundlePath);
+				if (loaded != null)
+					return loaded;
 				try {
-					bundlePath = path + ".xml";
-					stream = FileUtils.getResourceAsStream(bundlePath);
-				} catch (IOException e) {
+					URL url = FileUtils.getResource(bundlePath);
+					stream = url.openStream();
+					if ("file".equals(url.getProtocol()))
+						source = new File(url.toURI());
+				} catch (IOException | URISyntaxException e) {
 				}
 				if (stream != null)
 					break;
@@ -109,7 +175,7 @@ public class WXmlLocalizedStrings extends WLocalizedStrings {
 			
 			if (stream == null) {
 				logger.warn("Could not find resource \"" + bundleName + "\"");
-				return;
+				return EMPTY;
 			}
 			
 			try {
@@ -120,23 +186,28 @@ public class WXmlLocalizedStrings extends WLocalizedStrings {
 				IXMLReader reader = new StdXMLReader(stream);
 				parser.setReader(reader);
 				parser.parse();
-				target.map_.putAll(xmlParser.getKeyValues());
-				target.pluralCount_ = xmlParser.getPluralCount();
-				target.pluralExpression_ = xmlParser.getPluralExpression();
+				Resource result = new Resource(xmlParser.getKeyValues(), xmlParser.getPluralExpression(),
+						xmlParser.getPluralCount(), bundlePath, source);
+				files.put(bundlePath, result);
+				return result;
 			} catch (ClassNotFoundException |
 					 InstantiationException |
 					 IllegalAccessException |
 					 IOException |
 					 XMLException e) {
 				logger.error("Failed to load bundle: {}", bundlePath, e);
+				return new Resource(new HashMap<String, List<String>>(), "", 0, bundlePath, source);
+			} finally {
+				StreamUtils.closeQuietly(stream);
 			}
 		}
 		
 		public String bundleName;
-		public Map<String, Resource> resources = new HashMap<>();
+		private final Map<String, Resource> resources;
 	}
 
 	private Map<String, Bundle> bundles = new HashMap<>();
+	private boolean reloadOnChange = false;
 
 	/**
 	 * Constructor.
@@ -155,9 +226,32 @@ public class WXmlLocalizedStrings extends WLocalizedStrings {
 			this.bundles.put(bundleName, new Bundle(bundleName));
 	}
 
+	/**
+	 * Configures whether modified bundles are reloaded.
+	 * <p>
+	 * When enabled, bundles that were loaded from a file are checked for modifications (at most
+	 * once every two seconds), and reloaded when they have changed. This is useful during
+	 * development. Since the parsed bundles are shared, the reloaded messages are seen by all
+	 * sessions.
+	 * <p>
+	 * The default value is <code>false</code>.
+	 */
+	public void setReloadOnChange(boolean enabled) {
+		this.reloadOnChange = enabled;
+	}
+
+	/**
+	 * Returns whether modified bundles are reloaded.
+	 *
+	 * @see #setReloadOnChange(boolean)
+	 */
+	public boolean isReloadOnChange() {
+		return reloadOnChange;
+	}
+
 	public LocalizedString resolveKey(final Locale locale, final String key) {
 		for (String bundleName : bundles.keySet()) {
-			LocalizedString result = bundles.get(bundleName).resolveKey(locale, key);
+			LocalizedString result = bundles.get(bundleName).resolveKey(locale, key, reloadOnChange);
 			if (result.success)
 				return result;
 		}
@@ -166,7 +260,7 @@ public class WXmlLocalizedStrings extends WLocalizedStrings {
 	
 	public LocalizedString resolvePluralKey(final Locale locale, final String key, long amount) {
 		for (String bundleName : bundles.keySet()) {
-			LocalizedString result = bundles.get(bundleName).resolvePluralKey(locale, key, amount);
+			LocalizedString result = bundles.get(bundleName).resolvePluralKey(locale, key, amount, reloadOnChange);
 			if (result.success)
 				return result;
 		}
@@ -121,7 +121,7 @@ class WebRenderer implements SlotLearnerInterface {
   }
 
   public void saveChanges() throws IOException {
-    this.collectedJS1_.append(this.invisibleJS_.toString());
+    this.collectedJS1_.append(this.invisibleJS_);
     this.invisibleJS_.setLength(0);
     this.collectJS(this.collectedJS1_);
   }
@@ -240,7 +240,7 @@ class WebRenderer implements SlotLearnerInterface {
       app.styleSheetsAdded_ = 0;
       this.initialStyleRendered_ = true;
       this.linkedCssCount_ = app.styleSheets_.size();
-      response.out().append(out.toString());
+      this.streamText(response.out(), out);
     } else {
       if (this.linkedCssCount_ > -1) {
         WApplication app = this.session_.getApp();
@@ -252,7 +252,7 @@ class WebRenderer implements SlotLearnerInterface {
         for (int i = 0; i < count; ++i) {
           app.styleSheets_.get(i).cssText(out);
         }
-        response.out().append(out.toString());
+        this.streamText(response.out(), out);
       }
     }
   }
@@ -396,7 +396,7 @@ class WebRenderer implements SlotLearnerInterface {
     this.collectedJS1_.setLength(0);
     this.collectedJS2_.setLength(0);
     if (!invisibleToo) {
-      this.collectedJS1_.append(this.invisibleJS_.toString());
+      this.collectedJS1_.append(this.invisibleJS_);
     }
     this.invisibleJS_.setLength(0);
   }
@@ -424,6 +424,7 @@ class WebRenderer implements SlotLearnerInterface {
   private boolean updateLayout_;
   private List<Integer> wsRequestsToHandle_;
   private boolean cookieUpdateNeeded_;
+  private char[] streamBuffer_;
 
   private void setHeaders(final WebResponse response, final String mimeType) {
     for (javax.servlet.http.Cookie cookie : this.cookiesToSet_) {
@@ -444,6 +445,7 @@ class WebRenderer implements SlotLearnerInterface {
     if (!response.isWebSocketMessage()) {
       this.addNoCacheHeaders(response);
       this.setHeaders(response, "text/javascript; charset=UTF-8");
+      this.enableCompression(response);
     }
     if (this.session_.sessionIdChanged_) {
       this.collectedJS1_
@@ -455,20 +457,27 @@ class WebRenderer implements SlotLearnerInterface {
     StringBuilder out = new StringBuilder();
     if (!this.rendered_) {
       this.serveMainAjax(out);
+      this.streamText(response.out(), out);
     } else {
       this.collectJavaScript();
       this.addResponseAckPuzzle(out);
       this.renderSetServerPush(out);
-      logger.debug(
-          new StringWriter()
-              .append("js: ")
-              .append(this.collectedJS1_.toString())
-              .append(this.collectedJS2_.toString())
-              .toString());
-      out.append(this.collectedJS1_.toString()).append(this.collectedJS2_.toString());
+      if (logger.isDebugEnabled()) {
+        logger.debug(
+            new StringWriter()
+                .append("js: ")
+                .append(this.collectedJS1_)
+                .append(this.collectedJS2_)
+                .toString());
+      }
+      this.streamText(response.out(), out);
+      this.streamText(response.out(), this.collectedJS1_);
+      this.streamText(response.out(), this.collectedJS2_);
       if (response.isWebSocketMessage()) {
+        out.setLength(0);
         this.renderCookieUpdate(out);
         this.renderWsRequestsDone(out);
+        this.streamText(response.out(), out);
         logger.debug(
             new StringWriter()
                 .append("jsSynced(false) after rendering websocket message")
@@ -476,7 +485,24 @@ class WebRenderer implements SlotLearnerInterface {
         this.setJSSynced(false);
       }
     }
-    response.out().append(out.toString());
+  }
+
+  private void enableCompression(final WebResponse response) {
+    if (this.session_.getController().getConfiguration().isResponseCompressionEnabled()) {
+      response.enableCompression();
+    }
+  }
+
+  private void streamText(final Writer out, final StringBuilder text) throws IOException {
+    if (this.streamBuffer_ == null) {
+      this.streamBuffer_ = new char[8192];
+    }
+    int length = text.length();
+    for (int i = 0; i < length; i += this.streamBuffer_.length) {
+      int end = Math.min(length, i + this.streamBuffer_.length);
+      text.getChars(i, end, this.streamBuffer_, 0);
+      out.write(this.streamBuffer_, 0, end - i);
+    }
   }
 
   private void serveMainscript(final WebResponse response) throws IOException {
@@ -485,12 +511,13 @@ class WebRenderer implements SlotLearnerInterface {
     this.session_.sessionIdChanged_ = false;
     this.addNoCacheHeaders(response);
     this.setHeaders(response, "text/javascript; charset=UTF-8");
+    this.enableCompression(response);
     StringBuilder out = new StringBuilder();
     if (!widgetset) {
       String redirect = this.session_.getRedirect();
       if (redirect.length() != 0) {
         this.streamRedirectJS(out, redirect);
-        response.out().append(out.toString());
+        this.streamText(response.out(), out);
         return;
       }
     } else {
@@ -602,13 +629,15 @@ class WebRenderer implements SlotLearnerInterface {
         this.currentFormObjectsList_ = "";
         this.collectJavaScript();
         this.updateLoadIndicator(this.collectedJS1_, app, true);
-        logger.debug(
-            new StringWriter()
-                .append("js: ")
-                .append(this.collectedJS1_.toString())
-                .append(this.collectedJS2_.toString())
-                .toString());
-        out.append(this.collectedJS1_.toString());
+        if (logger.isDebugEnabled()) {
+          logger.debug(
+              new StringWriter()
+                  .append("js: ")
+                  .append(this.collectedJS1_)
+                  .append(this.collectedJS2_)
+                  .toString());
+        }
+        out.append(this.collectedJS1_);
         this.addResponseAckPuzzle(out);
         out.append(app.getJavaScriptClass())
             .append("._p_.setHash(")
@@ -619,7 +648,7 @@ class WebRenderer implements SlotLearnerInterface {
         }
         out.append(app.getJavaScriptClass())
             .append("._p_.update(null, 'load', null, false);")
-            .append(this.collectedJS2_.toString())
+            .append(this.collectedJS2_)
             .append("};");
         this.session_.getApp().serverPushChanged_ = true;
         this.renderSetServerPush(out);
@@ -636,7 +665,7 @@ class WebRenderer implements SlotLearnerInterface {
             .append("._p_.load(true);});\n");
       }
     }
-    response.out().append(out.toString());
+    this.streamText(response.out(), out);
   }
 
   private void serveBootstrap(final WebResponse response) throws IOException {
@@ -670,7 +699,7 @@ class WebRenderer implements SlotLearnerInterface {
     this.streamBootContent(response, boot, false);
     boot.stream(out);
     this.setRendered(false);
-    response.out().append(out.toString());
+    this.streamText(response.out(), out);
   }
 
   private void serveMainpage(final WebResponse response) throws IOException {
@@ -785,7 +814,7 @@ class WebRenderer implements SlotLearnerInterface {
     page.setVar("REFRESH", String.valueOf(refresh));
     page.stream(out);
     app.internalPathIsChanged_ = false;
-    response.out().append(out.toString());
+    this.streamText(response.out(), out);
   }
 
   private void serveMainAjax(final StringBuilder out) {
@@ -860,8 +889,10 @@ class WebRenderer implements SlotLearnerInterface {
     if (widgetset) {
       app.domRoot2_.rootAsJavaScript(app, s, true);
     }
-    logger.debug(new StringWriter().append("js: ").append(s.toString()).toString());
-    out.append(s.toString());
+    if (logger.isDebugEnabled()) {
+      logger.debug(new StringWriter().append("js: ").append(s).toString());
+    }
+    out.append(s);
     this.currentFormObjectsList_ = this.createFormObjectsList(app);
     out.append(app.getJavaScriptClass())
         .append("._p_.setFormObjects([")
@@ -875,7 +906,7 @@ class WebRenderer implements SlotLearnerInterface {
       this.preCollectInvisibleChanges();
       if (this.twoPhaseThreshold_ > 0
           && this.invisibleJS_.length() < (int) this.twoPhaseThreshold_) {
-        this.collectedJS1_.append(this.invisibleJS_.toString());
+        this.collectedJS1_.append(this.invisibleJS_);
         this.invisibleJS_.setLength(0);
       } else {
         if (widgetset) {
@@ -885,9 +916,10 @@ class WebRenderer implements SlotLearnerInterface {
         }
       }
     }
-    logger.debug(
-        new StringWriter().append("js: ").append(this.collectedJS1_.toString()).toString());
-    out.append(this.collectedJS1_.toString());
+    if (logger.isDebugEnabled()) {
+      logger.debug(new StringWriter().append("js: ").append(this.collectedJS1_).toString());
+    }
+    out.append(this.collectedJS1_);
     this.collectedJS1_.setLength(0);
     this.updateLoadIndicator(out, app, true);
     if (widgetset) {
@@ -922,12 +954,11 @@ class WebRenderer implements SlotLearnerInterface {
   private void collectJavaScript() throws IOException {
     WApplication app = this.session_.getApp();
     final Configuration conf = this.session_.getController().getConfiguration();
-    logger.debug(
-        new StringWriter()
-            .append("Rendering invisible: ")
-            .append(this.invisibleJS_.toString())
-            .toString());
-    this.collectedJS1_.append(this.invisibleJS_.toString());
+    if (logger.isDebugEnabled()) {
+      logger.debug(
+          new StringWriter().append("Rendering invisible: ").append(this.invisibleJS_).toString());
+    }
+    this.collectedJS1_.append(this.invisibleJS_);
     this.invisibleJS_.setLength(0);
     int librariesLoaded = this.loadScriptLibraries(this.collectedJS1_, app);
     this.loadScriptLibraries(this.collectedJS2_, app, librariesLoaded);
@@ -962,7 +993,7 @@ class WebRenderer implements SlotLearnerInterface {
       this.preCollectInvisibleChanges();
       if (this.twoPhaseThreshold_ > 0
           && this.invisibleJS_.length() < (int) this.twoPhaseThreshold_) {
-        this.collectedJS1_.append(this.invisibleJS_.toString());
+        this.collectedJS1_.append(this.invisibleJS_);
         this.invisibleJS_.setLength(0);
       } else {
         this.collectedJS1_
@@ -1111,7 +1142,7 @@ class WebRenderer implements SlotLearnerInterface {
       final StringBuilder out, WApplication app, final WLinkedCssStyleSheet sheet) {
     out.append("Wt4_10_1")
         .append(".addStyleSheet('")
-        .append(sheet.getLink().resolveUrl(app))
+        .append(this.getStyleSheetUrl(app, sheet))
         .append("', '")
         .append(sheet.getMedia())
         .append("');\n ");
@@ -1126,11 +1157,17 @@ class WebRenderer implements SlotLearnerInterface {
     app.styleSheetsAdded_ = 0;
   }
 
+  private String getStyleSheetUrl(WApplication app, final WLinkedCssStyleSheet sheet) {
+    return this.session_
+        .getController()
+        .getVersionedResourceUrl(app, sheet.getLink().resolveUrl(app));
+  }
+
   private void removeStyleSheets(final StringBuilder out, WApplication app) {
     for (int i = (int) app.styleSheetsToRemove_.size() - 1; i > -1; --i) {
       out.append("Wt4_10_1")
           .append(".removeStyleSheet('")
-          .append(app.styleSheetsToRemove_.get(i).getLink().resolveUrl(app))
+          .append(this.getStyleSheetUrl(app, app.styleSheetsToRemove_.get(i)))
           .append("');\n ");
       app.styleSheetsToRemove_.remove(0 + i);
     }
@@ -1199,7 +1236,7 @@ class WebRenderer implements SlotLearnerInterface {
   private void renderStyleSheet(
       final StringBuilder out, final WLinkedCssStyleSheet sheet, WApplication app) {
     out.append("<link href=\"");
-    DomElement.htmlAttributeValue(out, sheet.getLink().resolveUrl(app));
+    DomElement.htmlAttributeValue(out, this.getStyleSheetUrl(app, sheet));
     out.append("\" rel=\"stylesheet\" type=\"text/css\"");
     if (sheet.getMedia().length() != 0 && !sheet.getMedia().equals("all")) {
       out.append(" media=\"").append(sheet.getMedia()).append('"');
@@ -1390,7 +1427,7 @@ class WebRenderer implements SlotLearnerInterface {
       bootJs.setVar("INTERNAL_PATH", this.safeJsStringLiteral(internalPath));
       bootJs.stream(out);
     }
-    response.out().append(out.toString());
+    this.streamText(response.out(), out);
   }
 
   private void addResponseAckPuzzle(final StringBuilder out) {
@@ -1874,7 +1874,7 @@ class WebSession {
                 new StringWriter().append("pushUpdates(): web socket message pending").toString());
             return;
           }
-          if (this.canWriteWebSocket_) {
+          if (this.canWriteWebSocket_ && this.isWebSocketWritable()) {
             this.webSocket_.setResponseType(WebRequest.ResponseType.Update);
             this.app_.notify(new WEvent(new WEvent.Impl(this.webSocket_)));
             this.updatesPending_ = false;
@@ -1890,6 +1890,31 @@ class WebSession {
       logger.info("Ignoring exception {}", ioe.getMessage(), ioe);
     }
   }
+
+  private boolean isWebSocketWritable() {
+    if (this.webSocket_ instanceof WebSocketConnection) {
+      return ((WebSocketConnection) this.webSocket_).acquireWritable();
+    } else {
+      return true;
+    }
+  }
+
+  /**
+   * Called when all pending web socket messages have been sent, to push the updates that were
+   * postponed meanwhile.
+   *
+   * <p>The update is posted to the session: it runs now if the session can be locked, or else
+   * when the thread that holds the lock releases it.
+   */
+  void webSocketReady() {
+    this.queueEvent(new ApplicationEvent(this.sessionId_, () -> this.setTriggerUpdate(true)));
+    WebSession.Handler handler = null;
+    try {
+      handler = new WebSession.Handler(this, WebSession.Handler.LockOption.TryLock);
+    } finally {
+      handler.release();
+    }
+  }
   // private WResource  decodeResource(final String resourceId) ;
   private AbstractEventSignal decodeSignal(final String signalId, boolean checkExposed) {
     AbstractEventSignal result = this.app_.decodeExposedSignal(signalId);
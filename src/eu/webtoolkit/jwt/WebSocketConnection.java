@@ -4,12 +4,19 @@
 package eu.webtoolkit.jwt;
 
 import java.io.IOException;
+import java.io.StringWriter;
 import java.io.Writer;
+import java.util.ArrayDeque;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
+import javax.websocket.CloseReason;
+import javax.websocket.SendHandler;
+import javax.websocket.SendResult;
 import javax.websocket.Session;
 
 import org.slf4j.Logger;
@@ -19,15 +26,42 @@ import eu.webtoolkit.jwt.servlet.WebResponse;
 
 /**
  * A connection for a web socket, to generate responses
+ * <p>
+ * Rendered messages are buffered and sent using the asynchronous remote endpoint, so that
+ * the thread that renders an update (usually while holding the session lock) never blocks on
+ * the network. Messages are sent one at a time from a bounded outbound queue. While a message
+ * is in flight the session postpones rendering server push updates, so that all changes made
+ * in the meantime are coalesced into a single message once the socket becomes writable again.
+ * A client that does not keep up with the queue is disconnected.
  * @author raf
  */
 class WebSocketConnection extends WebResponse {
 	private static final Logger logger = LoggerFactory.getLogger(WebSocketConnection.class);
 	
-	private Writer outWriter;
+	private StringWriter outWriter;
 	private Session socketSession;
 	private Map<String, List<String>> headers;
 	private WebSession webSession;
+
+	private final ArrayDeque<String> outbound = new ArrayDeque<String>();
+	private int maxQueuedMessages = 16;
+	private boolean sending = false;
+	private boolean closed = false;
+	private boolean readyNotification = false;
+
+	private final SendHandler sendHandler = new SendHandler() {
+		@Override
+		public void onResult(SendResult result) {
+			if (!result.isOK()) {
+				logger.info("WebSocket send failed", result.getException());
+				close(CloseReason.CloseCodes.CLOSED_ABNORMALLY, "send failed");
+				return;
+			}
+
+			if (sendNext())
+				notifyReady();
+		}
+	};
 	
 	public WebSocketConnection(final Session socketSession, Map<String, List<String>> headers) throws IOException {
 		super();
@@ -72,21 +106,128 @@ class WebSocketConnection extends WebResponse {
 	}
 	
 	/**
-	 * Flush the buffer of the output stream, close it and forget about it
+	 * Queue the buffered message for sending, and forget about the buffer
 	 * @see javax.servlet.ServletResponseWrapper#flushBuffer()
 	 */
 	@Override
 	public void flushBuffer() {
 		if (this.outWriter != null) {
-			try {
-				this.outWriter.close();
-				this.outWriter = null;
-			} catch (IOException e) {
-				logger.info("IOException in flush", e);
+			String message = this.outWriter.toString();
+			this.outWriter = null;
+			if (!message.isEmpty())
+				send(message);
+		}
+	}
+
+	private void send(String message) {
+		synchronized (this) {
+			if (closed)
+				return;
+
+			if (outbound.size() < maxQueuedMessages) {
+				outbound.addLast(message);
+				if (!sending)
+					sendNext();
+				return;
 			}
 		}
+
+		logger.info("WebSocket outbound queue full ({} messages), disconnecting slow client", maxQueuedMessages);
+		close(CloseReason.CloseCodes.TRY_AGAIN_LATER, "outbound queue full");
 	}
-	
+
+	/*
+	 * Starts sending the next queued message. Returns whether the queue was
+	 * drained while the session was waiting for the socket to become writable.
+	 */
+	private synchronized boolean sendNext() {
+		String message = closed ? null : outbound.pollFirst();
+		if (message == null) {
+			sending = false;
+			boolean notify = readyNotification && !closed;
+			readyNotification = false;
+			return notify;
+		}
+
+		sending = true;
+		try {
+			socketSession.getAsyncRemote().sendText(message, sendHandler);
+		} catch (RuntimeException e) {
+			logger.info("WebSocket send failed", e);
+			closed = true;
+			outbound.clear();
+			sending = false;
+		}
+		return false;
+	}
+
+	/*
+	 * Notifies the web session that the socket is writable again. This is
+	 * called from the container thread that completed the send, which should
+	 * not lock the session or run application code. The notification is
+	 * therefore posted on the broadcast executor of the servlet.
+	 */
+	private void notifyReady() {
+		Executor executor = webSession.getController().getBroadcastExecutor();
+		if (executor == null)
+			return;
+
+		try {
+			executor.execute(() -> webSession.webSocketReady());
+		} catch (RejectedExecutionException e) {
+			logger.debug("Cannot notify web socket ready", e);
+		}
+	}
+
+	/**
+	 * Returns whether a new message can be sent right away.
+	 * <p>
+	 * If not, the web session is notified using {@link WebSession#webSocketReady()}
+	 * once all pending messages have been sent.
+	 */
+	synchronized boolean acquireWritable() {
+		if (closed)
+			return false;
+		if (sending || !outbound.isEmpty()) {
+			readyNotification = true;
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Returns whether the connection has been closed.
+	 */
+	synchronized boolean isClosed() {
+		return closed;
+	}
+
+	/**
+	 * Closes the connection, discarding all pending messages
+	 */
+	void close(CloseReason.CloseCode code, String reason) {
+		synchronized (this) {
+			if (closed)
+				return;
+			closed = true;
+			outbound.clear();
+		}
+
+		try {
+			socketSession.close(new CloseReason(code, reason));
+		} catch (IOException e) {
+			logger.debug("IOException closing web socket", e);
+		}
+	}
+
+	/**
+	 * Marks the connection as closed by the peer
+	 */
+	synchronized void closed() {
+		closed = true;
+		outbound.clear();
+	}
+
 	@Override
 	public boolean isWebSocketMessage() {
 		return true;
@@ -102,13 +243,8 @@ class WebSocketConnection extends WebResponse {
 	
 	@Override
 	public Writer out() {
-		if (this.outWriter == null) {
-			try {
-				this.outWriter = this.socketSession.getBasicRemote().getSendWriter();
-			} catch (IOException e) {
-				logger.info("IOException retrieving out writer", e);
-			}
-		}
+		if (this.outWriter == null)
+			this.outWriter = new StringWriter();
 		return this.outWriter;
 	}
 	
@@ -172,5 +308,6 @@ class WebSocketConnection extends WebResponse {
 	 */
 	public void setWebSession(WebSession webSession) {
 		this.webSession = webSession;
+		this.maxQueuedMessages = webSession.getController().getConfiguration().getWebSocketMaxQueuedMessages();
 	}
 }
@@ -1,30 +1,21 @@
 package eu.webtoolkit.jwt;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Web socket registry holding global information, such as all servlets
  * @author raf
  */
 class WebSocketRegistry {
-	private static WebSocketRegistry instance = null;
+	private static final WebSocketRegistry instance = new WebSocketRegistry();
 	
-	private Map<Integer, WtServlet> servlets = new HashMap<Integer, WtServlet>();
-	private int lastId = 0;
+	private final ConcurrentHashMap<Integer, WtServlet> servlets = new ConcurrentHashMap<Integer, WtServlet>();
+	private final AtomicInteger lastId = new AtomicInteger();
 	
 	private WebSocketRegistry() {};
 	
-	private synchronized static void createInstance() {
-		if (instance == null) {
-			instance = new WebSocketRegistry();
-		}
-	}
-	
 	public static WebSocketRegistry getInstance() {
-		if (instance == null) {
-			createInstance();
-		}
 		return instance;
 	}
 	
@@ -33,10 +24,11 @@ class WebSocketRegistry {
 	 * @param servlet the servlet reference to register
 	 * @return a new unique identification, or -1 if it already exists
 	 */
-	public int addServlet(WtServlet servlet) {
+	public synchronized int addServlet(WtServlet servlet) {
 		if (!this.servlets.containsValue(servlet)) {
-			this.servlets.put(++lastId, servlet);
-			return lastId;
+			int id = lastId.incrementAndGet();
+			this.servlets.put(id, servlet);
+			return id;
 		}
 		return -1;
 	}
@@ -105,6 +105,9 @@ public class WebSocketSupport {
      */
     @OnClose
     public void onClose(Session session, CloseReason closeReason) {
+        WebSocketConnection connection = WebSocketConnection.getWebSocketConnection(session);
+        if (connection != null)
+            connection.closed();
         logger.info(String.format("Web socket session %s closed because of %s", session.getId(), closeReason));
     }
 	
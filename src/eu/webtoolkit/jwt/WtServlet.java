@@ -8,16 +8,21 @@ package eu.webtoolkit.jwt;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.UnsupportedEncodingException;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
 
 import javax.servlet.ServletConfig;
 import javax.servlet.ServletException;
@@ -37,7 +42,6 @@ import eu.webtoolkit.jwt.servlet.WebRequest;
 import eu.webtoolkit.jwt.servlet.WebRequest.ProgressListener;
 import eu.webtoolkit.jwt.servlet.WebResponse;
 import eu.webtoolkit.jwt.utils.MathUtils;
-import eu.webtoolkit.jwt.utils.StreamUtils;
 
 /**
  * The abstract JWt servlet class.
@@ -84,18 +88,22 @@ public abstract class WtServlet extends HttpServlet {
 	private Configuration configuration;
 	private ProgressListener progressListener;
 	private Set<String> uploadProgressUrls_ = new HashSet<String>();
-	private int ajaxSessions = 0;
-	private Map<String,WebSession> sessions = new HashMap<String,WebSession>();
+	private final SessionRegistry sessions = new SessionRegistry();
 
 	private String redirectSecret_;
 
 	private static final String WT_WEBSESSION_ID = "wt-websession";
-	private static final Map<String, String> mimeTypes = new HashMap<String, String>();
+	private final StaticAssetStore staticAssets = new StaticAssetStore("/eu/webtoolkit/jwt/");
+	private final BotPageCache botPages = new BotPageCache();
 	
 	private List<WResource> staticResources = new ArrayList<WResource>();
 
 	private int idForWebSocket = -1;
 
+	private volatile ExecutorService defaultBroadcastExecutor;
+	private volatile boolean destroyed = false;
+	private volatile ExecutorService requestExecutor;
+
 	static final String Boot_html;
 	static final String Plain_html;
 	static final String Wt_js;
@@ -118,19 +126,6 @@ public abstract class WtServlet extends HttpServlet {
 		Wt_js = readFile("/eu/webtoolkit/jwt/skeletons/Wt.min.js");
 		Boot_js = readFile("/eu/webtoolkit/jwt/skeletons/Boot.min.js");
 
-		String[][] mimeTypes = {
-				{ "css", "text/css" },
-				{ "gif", "image/gif" },
-				{ "htm", "text/html" },
-				{ "html", "text/html" },
-				{ "jpg", "image/jpeg" },
-				{ "png", "image/png" },
-				{ "js", "text/javascript" } 
-			};
-
-		for (String[] s : mimeTypes)
-			WtServlet.mimeTypes.put(s[0], s[1]);
-		
 		WObject.seedId(MathUtils.randomInt());
 	}
 
@@ -182,6 +177,14 @@ public abstract class WtServlet extends HttpServlet {
 			this.configuration = new Configuration(new File(configFile));
 		
 		servletApi = ServletInit.getInstance(config.getServletContext()).getServletApi();
+
+		if (getConfiguration().isVirtualThreadsEnabled()) {
+			requestExecutor = VirtualThreads.newVirtualThreadPerTaskExecutor();
+			if (requestExecutor != null)
+				logger.info("Handling requests on virtual threads");
+		}
+
+		defaultBroadcastExecutor = newBroadcastExecutor();
 		
 		if (getConfiguration().webSockets()) {
 			if (this.idForWebSocket < 0)
@@ -235,19 +238,8 @@ public abstract class WtServlet extends HttpServlet {
 
 			fileName += pathInfo;
 			try {
-				InputStream s = getResourceStream(fileName);
-				if (s != null) {
-					String suffix = fileName.substring(fileName.lastIndexOf('.') + 1);
-					String mimeType = mimeTypes.get(suffix);
-					if (mimeType != null)
-						response.setContentType(mimeType);
-					else
-						response.setContentType("application/octet-stream");
-					StreamUtils.copy(s, response.getOutputStream());
-					response.getOutputStream().flush();
-				} else {
+				if (!staticAssets.serve(fileName, request, response, configuration.getResourcesMaxAge()))
 					response.setStatus(404);
-				}
 			} catch (FileNotFoundException e) {
 				response.setStatus(404);
 				logger.info("File not found: {}", fileName, e);
@@ -316,33 +308,97 @@ public abstract class WtServlet extends HttpServlet {
 	 */
 	public abstract WApplication createApplication(WEnvironment env);
 
-	synchronized int addSession(WebSession session) {
-		sessions.put(session.getSessionId(), session);
-		return sessions.size();
+	int addSession(WebSession session) {
+		return sessions.add(session);
 	}
 
-	synchronized void newAjaxSession() {
-		++ajaxSessions;
+	void newAjaxSession() {
+		sessions.newAjaxSession();
 	}
 
-	synchronized int removeSession(WebSession session) {
-		if (session.getEnv().hasAjax())
-			--ajaxSessions;
-		sessions.remove(session.getSessionId());
+	int removeSession(WebSession session) {
+		return sessions.remove(session);
+	}
+
+	void removeSession(String sessionId) {
+		sessions.remove(sessionId);
+	}
+
+	/**
+	 * Returns the number of live sessions.
+	 */
+	public int getSessionCount() {
 		return sessions.size();
 	}
-	
 
-	synchronized void removeSession(String sessionId) {
-		WebSession session = sessions.get(sessionId);
-		if (session != null)
-			removeSession(session);
+	/**
+	 * Returns the number of live sessions that use Ajax.
+	 */
+	public long getAjaxSessionCount() {
+		return sessions.getAjaxSessionCount();
+	}
+
+	/**
+	 * Returns the number of live sessions that use plain HTML.
+	 */
+	public long getPlainHtmlSessionCount() {
+		return Math.max(0, sessions.size() - sessions.getAjaxSessionCount());
+	}
+
+	/**
+	 * Removes all pages from the cache of pages rendered for bots.
+	 * 
+	 * @see Configuration#setBotPageCacheSize(int)
+	 */
+	public void invalidateBotPageCache() {
+		botPages.invalidate();
+	}
+
+	/**
+	 * Removes the pages for an internal path from the cache of pages rendered for bots.
+	 * <p>
+	 * This removes the pages for the internal path and for all paths below it (e.g. for
+	 * <code>"/blog"</code> also the pages for <code>"/blog/2024/news"</code>), regardless of
+	 * query, host and locale. Use this when the content shown for these paths has changed.
+	 * 
+	 * @see Configuration#setBotPageCacheSize(int)
+	 */
+	public void invalidateBotPageCache(String internalPath) {
+		botPages.invalidate(internalPath);
+	}
+
+	/**
+	 * Returns the age of the oldest live session (in milliseconds).
+	 * <p>
+	 * This visits all sessions, and is intended for monitoring purposes.
+	 */
+	public long getMaxSessionAge() {
+		return sessions.getMaxSessionAge();
+	}
+
+	/**
+	 * Returns the average age of the live sessions (in milliseconds).
+	 * <p>
+	 * This visits all sessions, and is intended for monitoring purposes.
+	 */
+	public long getAverageSessionAge() {
+		return sessions.getAverageSessionAge();
 	}
 
 	/*
 	 * Actual request handling, may be within an async call depending on the servlet API.
 	 */
 	void doHandleRequest(WebRequest request, WebResponse response) {		
+		BotPageCache.Capture botPage = null;
+		BotPageCache.Key botPageKey = botPages.getKey(request, getConfiguration());
+		if (botPageKey != null) {
+			if (botPages.serve(botPageKey, response, getConfiguration()))
+				return;
+
+			botPage = new BotPageCache.Capture((HttpServletResponse) response.getResponse(), botPageKey);
+			response = new WebResponse(botPage, request);
+		}
+
 		HttpSession jsession = request.getSession();
 		BoundSession bsession = (BoundSession) jsession.getAttribute(WtServlet.WT_WEBSESSION_ID);
 		WebSession wsession = null;
@@ -380,6 +436,9 @@ public abstract class WtServlet extends HttpServlet {
 				handler.release();
 			}
 
+			if (botPage != null && handler.getSession().isDead() && handler.getResponse() == null)
+				botPages.store(botPage, getConfiguration());
+
 			if (handler != null && handler.getSession().isDead()) {
 				try {
 					jsession.setAttribute(WtServlet.WT_WEBSESSION_ID, null);
@@ -493,7 +552,10 @@ public abstract class WtServlet extends HttpServlet {
 	 * @param fallBackFunction the task to be run in case the application has been quit or its session expired.
 	 */
 	public void post(WApplication app, Runnable function, Runnable fallBackFunction) {
-		WebSession wsession = app.getSession();
+		post(app.getSession(), function, fallBackFunction);
+	}
+
+	private static void post(WebSession wsession, Runnable function, Runnable fallBackFunction) {
 		wsession.queueEvent(new ApplicationEvent(wsession.getSessionId(), function, fallBackFunction));
 		WebSession.Handler handler = null;
 		try {
@@ -503,22 +565,249 @@ public abstract class WtServlet extends HttpServlet {
 		}
 	}
 
+	/**
+	 * The outcome of a broadcast.
+	 *
+	 * @see WtServlet#postAll(Runnable, Predicate)
+	 */
+	public static class BroadcastResult {
+		private final int postedCount;
+		private final int skippedCount;
+		private final int failedCount;
+
+		BroadcastResult(int postedCount, int skippedCount, int failedCount) {
+			this.postedCount = postedCount;
+			this.skippedCount = skippedCount;
+			this.failedCount = failedCount;
+		}
+
+		/**
+		 * Returns the number of sessions to which the task was posted.
+		 */
+		public int getPostedCount() {
+			return postedCount;
+		}
+
+		/**
+		 * Returns the number of sessions that were excluded by the filter.
+		 */
+		public int getSkippedCount() {
+			return skippedCount;
+		}
+
+		/**
+		 * Returns the number of sessions for which the task did not run successfully.
+		 * <p>
+		 * This counts the sessions to which the task could not be posted, and the
+		 * sessions to which it was posted but for which it threw an exception, or
+		 * which ended before the task could be run.
+		 */
+		public int getFailedCount() {
+			return failedCount;
+		}
+	}
+
 	/**
 	 * Posts a task to be run within the scope of all currently active sessions.
+	 * <p>
+	 * The task is posted to each session from the calling thread, as with
+	 * {@link #post(WApplication, Runnable, Runnable)}.
 	 *
-	 * @see post
+	 * @see #postAll(Runnable, Predicate)
 	 * @param function the task to be run
 	 */
 	public void postAll(Runnable function) {
-		for (WebSession session : sessions.values()) {
-			session.queueEvent(new ApplicationEvent(session.getSessionId(), function));
-			WebSession.Handler handler = null;
-			try {
-				handler = new WebSession.Handler(session, WebSession.Handler.LockOption.TryLock);
-			} finally {
-				handler.release();
+		for (WebSession session : sessions.getSessions())
+			post(session, function, null);
+	}
+
+	/**
+	 * Posts a task to be run within the scope of a selection of the currently active sessions.
+	 * <p>
+	 * The sessions are divided in batches (see {@link Configuration#setBroadcastBatchSize(int)}) which
+	 * are posted to in parallel using the broadcast executor (see {@link Configuration#setBroadcastExecutor(Executor)}).
+	 * As with {@link #post(WApplication, Runnable, Runnable)}, the task runs immediately on the executor's thread
+	 * if a session is currently unlocked, or is queued to be run by the thread holding the session lock.
+	 * <p>
+	 * The <i>filter</i> is evaluated for each application before the task is posted to its session,
+	 * so that sessions that are not selected are not locked at all. It is evaluated on an executor
+	 * thread, <i>without</i> the session lock, and should therefore only read application state that is
+	 * safe to read concurrently (e.g. state that is set when the application is created). Sessions that
+	 * have not yet created their application are skipped when a filter is given.
+	 * <p>
+	 * The returned future completes only after the task has run in every selected session. A task
+	 * that is posted to a locked session runs when the thread holding that lock releases it. You
+	 * must therefore not wait for the future while holding a session lock (e.g. from within an
+	 * event handler): the task could never run in that session. {@link CompletableFuture#join()} and
+	 * {@link CompletableFuture#get()} throw an {@link IllegalStateException} when they are called
+	 * by a thread that holds a session lock, before the future has completed. Instead, react to the
+	 * outcome with one of the asynchronous methods of the future, such as
+	 * {@link CompletableFuture#thenAccept(java.util.function.Consumer)}.
+	 * <p>
+	 * The future completes exceptionally when the servlet has been destroyed, or when the
+	 * broadcast executor rejects a batch.
+	 *
+	 * @param function the task to be run
+	 * @param filter selects the applications for which the task is run, or <code>null</code> to run it for all
+	 * @return a future which completes once the task has run (or failed) in all selected sessions
+	 */
+	public CompletableFuture<BroadcastResult> postAll(final Runnable function, final Predicate<WApplication> filter) {
+		Executor executor = getBroadcastExecutor();
+		if (executor == null)
+			return CompletableFuture.failedFuture(new IllegalStateException(
+					destroyed ? "postAll(): servlet was destroyed" : "postAll(): servlet was not initialized"));
+
+		List<WebSession> targets = new ArrayList<WebSession>(sessions.size());
+		for (WebSession session : sessions.getSessions())
+			targets.add(session);
+
+		final AtomicInteger posted = new AtomicInteger();
+		final AtomicInteger skipped = new AtomicInteger();
+		final AtomicInteger failed = new AtomicInteger();
+		int batchSize = Math.max(1, configuration.getBroadcastBatchSize());
+
+		List<CompletableFuture<Void>> batches = new ArrayList<CompletableFuture<Void>>();
+		try {
+			for (int i = 0; i < targets.size(); i += batchSize)
+				batches.add(postBatch(targets.subList(i, Math.min(i + batchSize, targets.size())),
+						function, filter, posted, skipped, failed, executor));
+		} catch (RejectedExecutionException e) {
+			logger.info("postAll(): broadcast executor rejected a batch", e);
+			return CompletableFuture.failedFuture(e);
+		}
+
+		final BroadcastFuture result = new BroadcastFuture();
+		CompletableFuture.allOf(batches.toArray(new CompletableFuture<?>[batches.size()]))
+			.whenComplete((v, e) -> result.complete(new BroadcastResult(posted.get(), skipped.get(), failed.get())));
+		return result;
+	}
+
+	private CompletableFuture<Void> postBatch(final List<WebSession> batch, final Runnable function,
+			final Predicate<WApplication> filter, final AtomicInteger posted, final AtomicInteger skipped,
+			final AtomicInteger failed, Executor executor) {
+		return CompletableFuture.supplyAsync(() -> {
+			List<CompletableFuture<Void>> done = new ArrayList<CompletableFuture<Void>>();
+			for (WebSession session : batch) {
+				if (filter != null) {
+					WApplication app = session.getApp();
+					boolean selected = false;
+					try {
+						selected = app != null && !session.isDead() && filter.test(app);
+					} catch (RuntimeException e) {
+						logger.info("postAll(): filter failed for session {}", session.getSessionId(), e);
+					}
+					if (!selected) {
+						skipped.incrementAndGet();
+						continue;
+					}
+				}
+
+				final CompletableFuture<Void> d = new CompletableFuture<Void>();
+				Runnable task = () -> {
+					boolean ok = false;
+					try {
+						function.run();
+						ok = true;
+					} finally {
+						if (!ok)
+							failed.incrementAndGet();
+						d.complete(null);
+					}
+				};
+				Runnable fallback = () -> {
+					failed.incrementAndGet();
+					d.complete(null);
+				};
+
+				try {
+					post(session, task, fallback);
+					posted.incrementAndGet();
+					done.add(d);
+				} catch (RuntimeException e) {
+					failed.incrementAndGet();
+					logger.info("postAll(): failed to post to session {}", session.getSessionId(), e);
+				}
+			}
+			return CompletableFuture.allOf(done.toArray(new CompletableFuture<?>[done.size()]));
+		}, executor).thenCompose(d -> d);
+	}
+
+	/*
+	 * The future returned by postAll(). Waiting for it while holding a session
+	 * lock would deadlock when the task was queued to that session.
+	 */
+	private static class BroadcastFuture extends CompletableFuture<BroadcastResult> {
+		@Override
+		public BroadcastResult get() throws InterruptedException, ExecutionException {
+			checkNotLocked();
+			return super.get();
+		}
+
+		@Override
+		public BroadcastResult join() {
+			checkNotLocked();
+			return super.join();
+		}
+
+		@Override
+		public <U> CompletableFuture<U> newIncompleteFuture() {
+			return new CompletableFuture<U>();
+		}
+
+		private void checkNotLocked() {
+			WebSession.Handler handler = WebSession.Handler.getInstance();
+			if (!isDone() && handler != null && handler.isHaveLock())
+				throw new IllegalStateException("postAll(): cannot wait for a broadcast while holding a session lock");
+		}
+	}
+
+	/*
+	 * Returns the executor on which broadcasts are posted, or null when the
+	 * servlet is not initialized or was destroyed.
+	 */
+	Executor getBroadcastExecutor() {
+		if (destroyed)
+			return null;
+
+		Executor executor = configuration.getBroadcastExecutor();
+		return executor != null ? executor : defaultBroadcastExecutor;
+	}
+
+	private ExecutorService newBroadcastExecutor() {
+		ExecutorService result = null;
+		if (configuration.isVirtualThreadsEnabled())
+			result = VirtualThreads.newVirtualThreadPerTaskExecutor();
+		if (result == null) {
+			final AtomicInteger threadId = new AtomicInteger();
+			result = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), r -> {
+				Thread t = new Thread(r, "jwt-broadcast-" + threadId.incrementAndGet());
+				t.setDaemon(true);
+				return t;
+			});
+		}
+		return result;
+	}
+
+	/**
+	 * Releases resources held by the servlet.
+	 * <p>
+	 * If you want to override this function, make sure to call the super function.
+	 */
+	@Override
+	public void destroy() {
+		synchronized (this) {
+			destroyed = true;
+			if (defaultBroadcastExecutor != null) {
+				defaultBroadcastExecutor.shutdown();
+				defaultBroadcastExecutor = null;
+			}
+			if (requestExecutor != null) {
+				requestExecutor.shutdown();
+				requestExecutor = null;
 			}
 		}
+
+		super.destroy();
 	}
 
     boolean limitPlainHtmlSessions() {
@@ -533,10 +822,6 @@ public abstract class WtServlet extends HttpServlet {
 			return result;
 	}
 	
-	private InputStream getResourceStream(final String fileName) throws IOException {
-		return FileUtils.getResourceAsStream("/eu/webtoolkit/jwt/" + fileName);
-	}
-
 	private static String readFile(final String fileName) {
 		return FileUtils.resourceToString(fileName);
 	}
@@ -588,6 +873,34 @@ public abstract class WtServlet extends HttpServlet {
 		return sessions.get(name);
 	}
 	
+	/*
+	 * Returns the executor on which (asynchronous) requests are handled, or
+	 * null if they are handled on container threads.
+	 *
+	 * This is called for every request: the executor is created in init()
+	 * and the field is volatile, so that requests do not contend on (or pin
+	 * a virtual thread to) the servlet monitor.
+	 */
+	Executor getRequestExecutor() {
+		return requestExecutor;
+	}
+
+	/*
+	 * Adds the version of a bundled resource to a URL that refers to it, so
+	 * that it is served with a long-lived, immutable Cache-Control header.
+	 */
+	String getVersionedResourceUrl(WApplication app, String url) {
+		String resourcesUrl = WApplication.getRelativeResourcesUrl();
+		if (resourcesUrl.length() == 0)
+			return url;
+
+		resourcesUrl = app.resolveRelativeUrl(resourcesUrl);
+		if (!url.startsWith(resourcesUrl) || url.indexOf('?') != -1)
+			return url;
+
+		return staticAssets.getVersionedUrl(url, "wt-resources/" + url.substring(resourcesUrl.length()));
+	}
+
 	int getIdForWebSocket() {
 		return idForWebSocket;
 	}
@@ -6,52 +6,112 @@
 package eu.webtoolkit.jwt;
 
 
-import java.io.PrintStream;
 import java.io.Reader;
 
 import net.n3.nanoxml.IXMLParser;
 import net.n3.nanoxml.IXMLReader;
+import net.n3.nanoxml.NonValidator;
+import net.n3.nanoxml.StdXMLParser;
 import net.n3.nanoxml.StdXMLReader;
 import net.n3.nanoxml.XMLException;
-import net.n3.nanoxml.XMLParserFactory;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/*
+ * Removes scripting from XHTML fragments.
+ *
+ * Text without markup, entities or characters that the XML parser would
+ * normalize or reject is accepted as is. Other fragments are parsed and
+ * filtered; the outcome for short fragments is kept in an LRU cache keyed
+ * by the fragment itself, since the same fragments tend to be rendered over
+ * and over again (e.g. in the cells of a table).
+ */
 class XSSFilter extends XHtmlFilter {
 	private static Logger logger = LoggerFactory.getLogger(XSSFilter.class);
 
+	private static final int CACHE_SIZE = 512;
+	private static final int MAX_CACHED_LENGTH = 2048;
+	private static final String INVALID = new String("");
+	private static final LruCache<String, String> cache = new LruCache<String, String>(CACHE_SIZE);
+
 	protected int discarding = 0;
 
 	static boolean removeScript(CharSequence text) {
+		WString wText = WString.toWString(text);
+		String value = wText.getValue();
+
+		if (isPlainText(value)) {
+			wText.set(value);
+			return true;
+		}
+
+		boolean cached = value.length() <= MAX_CACHED_LENGTH && isCacheEnabled();
+
+		String filtered = cached ? cache.get(value) : null;
+		if (filtered == null) {
+			filtered = filter(value, text);
+			if (cached)
+				cache.put(value, filtered);
+		}
+
+		if (filtered == INVALID)
+			return false;
+
+		wText.set(filtered);
+
+		return true;
+	}
+
+	/*
+	 * Returns whether the text is passed unmodified by the filter: it contains
+	 * no markup or entities, and no characters that the parser would normalize
+	 * (carriage returns, leading tabs) or reject (control characters,
+	 * surrogates and non-characters).
+	 */
+	static boolean isPlainText(String value) {
+		for (int i = 0; i < value.length(); ++i) {
+			char c = value.charAt(i);
+			if (c < 0x20) {
+				if (c != '\n')
+					return false;
+			} else if (c == '<' || c == '&')
+				return false;
+			else if (c >= 0xD800 && (c < 0xE000 || c > 0xFFFD))
+				return false;
+		}
+
+		return true;
+	}
+
+	private static boolean isCacheEnabled() {
+		WApplication app = WApplication.getInstance();
+		return app == null || app.getEnvironment().getServer().getConfiguration().isXssFilterCacheEnabled();
+	}
+
+	/*
+	 * Returns the filtered value, or INVALID if it is not valid XHTML.
+	 */
+	private static String filter(String value, CharSequence text) {
 		try {
-			WString wText = WString.toWString(text);
-			
 			XSSFilter filter = new XSSFilter();
-			IXMLParser parser = XMLParserFactory.createDefaultXMLParser();
+			IXMLParser parser = new StdXMLParser();
+			parser.setValidator(new NonValidator());
 			parser.setBuilder(filter);
 			parser.setResolver(filter);
-			IXMLReader reader = StdXMLReader.stringReader("<span>" + wText.getValue() + "</span>");
+			IXMLReader reader = StdXMLReader.stringReader("<span>" + value + "</span>");
 			parser.setReader(reader);
 			parser.parse();
 
 			String filtered = filter.result();
 
 			// 6 and 7 correct for respectively <span> and </span>
-			wText.set(filtered.substring(6, filtered.length() - 7));
-
-			return true;
-		} catch (ClassNotFoundException e) {
-			logger.error("ClassNotFoundException", e);
-		} catch (InstantiationException e) {
-			logger.error("InstantiationException", e);
-		} catch (IllegalAccessException e) {
-			logger.error("IllegalAccessException", e);
+			return filtered.substring(6, filtered.length() - 7);
 		} catch (XMLException e) {
 			logger.error("Error reading XHTML string: " + e.getMessage() + ": line " + e.getLineNr() + " in '" + text + "'", e);
 		}
 
-		return false;
+		return INVALID;
 	}
 
     public XSSFilter() {
@@ -0,0 +1,91 @@
+/*
+ * Copyright (C) 2009 Emweb bv, Herent, Belgium.
+ *
+ * See the LICENSE file for terms of use.
+ */
+package eu.webtoolkit.jwt.chart;
+
+import java.util.Arrays;
+
+/*
+ * Running minimum and maximum of a chart model column.
+ *
+ * The rows are summarized in blocks of BLOCK_SIZE rows, together with the
+ * extremes of all blocks up to and including each block. When rows change
+ * (see WAbstractChartModel.rowsChanged()) only the blocks from the first
+ * changed row onwards are summarized again, so that appending a row to a
+ * large column costs a single block rather than a scan of the column.
+ */
+final class ColumnExtremes {
+	static final int BLOCK_SIZE = 256;
+
+	private final WAbstractChartModel model;
+	private final int column;
+
+	// extremes of the blocks 0..b: minimum, maximum, and minimum of the
+	// positive values (for log scales)
+	private double[] minimum = new double[0];
+	private double[] maximum = new double[0];
+	private double[] minimumPositive = new double[0];
+	private int validRows = 0;
+	private double[] buffer;
+
+	ColumnExtremes(WAbstractChartModel model, int column) {
+		this.model = model;
+		this.column = column;
+	}
+
+	void invalidate(int firstRow) {
+		validRows = Math.min(validRows, Math.max(0, firstRow));
+	}
+
+	/*
+	 * Returns the minimum, maximum and minimum positive value of the column,
+	 * ignoring NaN values. Absent values are Double.MAX_VALUE (minimum) or
+	 * -Double.MAX_VALUE (maximum).
+	 */
+	double[] get() {
+		int rowCount = model.getRowCount();
+		int blocks = (rowCount + BLOCK_SIZE - 1) / BLOCK_SIZE;
+
+		if (minimum.length < blocks) {
+			int capacity = Math.max(blocks, minimum.length * 2);
+			minimum = Arrays.copyOf(minimum, capacity);
+			maximum = Arrays.copyOf(maximum, capacity);
+			minimumPositive = Arrays.copyOf(minimumPositive, capacity);
+		}
+
+		if (buffer == null)
+			buffer = new double[BLOCK_SIZE];
+
+		for (int b = Math.min(validRows, rowCount) / BLOCK_SIZE; b < blocks; ++b) {
+			int start = b * BLOCK_SIZE;
+			int end = Math.min(rowCount, start + BLOCK_SIZE);
+			model.getColumn(column, start, end, buffer);
+
+			double min = b > 0 ? minimum[b - 1] : Double.MAX_VALUE;
+			double max = b > 0 ? maximum[b - 1] : -Double.MAX_VALUE;
+			double minPositive = b > 0 ? minimumPositive[b - 1] : Double.MAX_VALUE;
+			for (int i = 0; i < end - start; ++i) {
+				double v = buffer[i];
+				if (!Double.isNaN(v)) {
+					min = Math.min(v, min);
+					max = Math.max(v, max);
+					if (v > 0.0)
+						minPositive = Math.min(v, minPositive);
+				}
+			}
+
+			minimum[b] = min;
+			maximum[b] = max;
+			minimumPositive[b] = minPositive;
+		}
+
+		validRows = rowCount;
+
+		if (blocks == 0)
+			return new double[] { Double.MAX_VALUE, -Double.MAX_VALUE, Double.MAX_VALUE };
+		else
+			return new double[] { minimum[blocks - 1], maximum[blocks - 1], minimumPositive[blocks - 1] };
+	}
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright (C) 2020 Emweb bv, Herent, Belgium.
+ *
+ * See the LICENSE file for terms of use.
+ */
+package eu.webtoolkit.jwt.chart;
+
+import eu.webtoolkit.jwt.*;
+import eu.webtoolkit.jwt.servlet.*;
+import eu.webtoolkit.jwt.utils.*;
+import java.io.*;
+import java.lang.ref.*;
+import java.time.*;
+import java.util.*;
+import java.util.regex.*;
+import javax.servlet.*;
+import javax.servlet.http.*;
+
+/**
+ * Enumeration that specifies how a data series is downsampled before it is rendered.
+ *
+ * <p>Downsampling reduces the number of data points that are drawn for a series of a {@link
+ * ChartType#Scatter} chart to a number that depends on the width of the plot area, rather than on
+ * the number of rows in the model. This bounds the size of the rendered chart for series with a
+ * lot of data, while retaining their visual appearance.
+ *
+ * <p>
+ *
+ * @see WDataSeries#setDownsampling(DownsamplingType downsampling)
+ */
+public enum DownsamplingType {
+  /** All data points are rendered. */
+  None,
+  /**
+   * Keep the first, minimum, maximum and last point of each pixel column.
+   *
+   * <p>This preserves the extremes of the data, and is well suited for line series with a lot of
+   * noise. The X values of the series must be sorted in ascending order.
+   */
+  MinMax,
+  /**
+   * Keep the visually most significant points, using the Largest-Triangle-Three-Buckets
+   * algorithm.
+   *
+   * <p>This retains the shape of a line series with about two points per pixel column. The X
+   * values of the series must be sorted in ascending order.
+   */
+  LargestTriangle;
+
+  /** Returns the numerical representation of this enum. */
+  public int getValue() {
+    return ordinal();
+  }
+}
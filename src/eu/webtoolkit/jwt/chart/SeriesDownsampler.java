@@ -0,0 +1,232 @@
+/*
+ * Copyright (C) 2009 Emweb bv, Herent, Belgium.
+ *
+ * See the LICENSE file for terms of use.
+ */
+package eu.webtoolkit.jwt.chart;
+
+import java.util.Arrays;
+
+/*
+ * Selects the rows of a data series that are rendered when the series is
+ * downsampled (see WDataSeries.setDownsampling()).
+ *
+ * X values are compared in device coordinates (multiplied by the zoom factor
+ * of an interactive chart), so that the result is bounded by the number of
+ * pixel columns that the visible range covers. Rows with a missing X or Y
+ * value are always retained, since they interrupt a line.
+ */
+final class SeriesDownsampler {
+	private final double[] xData;
+	private final double[] yData;
+	private final int firstRow;
+	private final WAxis xAxis;
+	private final int segment;
+	private final double zoom;
+
+	private int[] rows = new int[64];
+	private int size = 0;
+
+	private SeriesDownsampler(double[] xData, double[] yData, int firstRow, WAxis xAxis, int segment, double zoom) {
+		this.xData = xData;
+		this.yData = yData;
+		this.firstRow = firstRow;
+		this.xAxis = xAxis;
+		this.segment = segment;
+		this.zoom = zoom;
+	}
+
+	/*
+	 * Returns the rows in [startRow, endRow) that should be rendered, in
+	 * ascending order, or null if all of them should be rendered.
+	 *
+	 * xData and yData hold the values of the rows, starting at startRow. xData
+	 * is null when the row number is the X value.
+	 */
+	static int[] downsample(DownsamplingType type, double[] xData, double[] yData, WAxis xAxis, int segment,
+			double zoom, int startRow, int endRow) {
+		if (type == DownsamplingType.None || endRow - startRow < 3)
+			return null;
+
+		SeriesDownsampler d = new SeriesDownsampler(xData, yData, startRow, xAxis, segment, zoom);
+
+		double span = Math.abs(d.device(endRow - 1) - d.device(startRow));
+		if (Double.isNaN(span))
+			span = 0;
+
+		switch (type) {
+		case MinMax:
+			if (endRow - startRow <= 4 * (span + 1))
+				return null;
+			d.minMax(startRow, endRow);
+			break;
+		case LargestTriangle:
+			if (endRow - startRow <= 2 * (span + 1))
+				return null;
+			d.largestTriangle(startRow, endRow, (int) Math.max(3, 2 * Math.ceil(span)));
+			break;
+		default:
+			return null;
+		}
+
+		return Arrays.copyOf(d.rows, d.size);
+	}
+
+	private double x(int row) {
+		return xData == null ? row : xData[row - firstRow];
+	}
+
+	private double y(int row) {
+		return yData[row - firstRow];
+	}
+
+	private double device(int row) {
+		return xAxis.mapToDevice(x(row), segment) * zoom;
+	}
+
+	private void add(int row) {
+		if (size == rows.length)
+			rows = Arrays.copyOf(rows, size * 2);
+		rows[size++] = row;
+	}
+
+	/*
+	 * Keeps the first, minimum, maximum and last row of every pixel column.
+	 */
+	private void minMax(int startRow, int endRow) {
+		double column = Double.NaN;
+		int first = -1, min = -1, max = -1, last = -1;
+		double minY = 0, maxY = 0;
+
+		for (int row = startRow; row < endRow; ++row) {
+			double y = y(row);
+			double d = device(row);
+
+			if (Double.isNaN(y) || Double.isNaN(d)) {
+				addColumn(first, min, max, last);
+				first = -1;
+				column = Double.NaN;
+				add(row);
+				continue;
+			}
+
+			double c = Math.floor(d);
+			if (c != column) {
+				addColumn(first, min, max, last);
+				column = c;
+				first = min = max = last = row;
+				minY = maxY = y;
+			} else {
+				last = row;
+				if (y < minY) {
+					minY = y;
+					min = row;
+				} else if (y > maxY) {
+					maxY = y;
+					max = row;
+				}
+			}
+		}
+
+		addColumn(first, min, max, last);
+	}
+
+	private void addColumn(int first, int min, int max, int last) {
+		if (first == -1)
+			return;
+
+		add(first);
+		int lo = Math.min(min, max), hi = Math.max(min, max);
+		if (lo != first)
+			add(lo);
+		if (hi != lo && hi != first)
+			add(hi);
+		if (last != hi && last != first)
+			add(last);
+	}
+
+	/*
+	 * Largest-Triangle-Three-Buckets: divides the rows in threshold - 2
+	 * buckets, and keeps from each bucket the point that forms the largest
+	 * triangle with the point kept from the previous bucket and the average of
+	 * the next bucket.
+	 */
+	private void largestTriangle(int startRow, int endRow, int threshold) {
+		int n = endRow - startRow;
+		double[] px = new double[n];
+		double[] py = new double[n];
+		int[] pr = new int[n];
+		int count = 0;
+
+		int[] missing = new int[16];
+		int missingCount = 0;
+
+		for (int row = startRow; row < endRow; ++row) {
+			double y = y(row);
+			double d = device(row);
+			if (Double.isNaN(y) || Double.isNaN(d)) {
+				if (missingCount == missing.length)
+					missing = Arrays.copyOf(missing, missingCount * 2);
+				missing[missingCount++] = row;
+			} else {
+				px[count] = d;
+				py[count] = y;
+				pr[count] = row;
+				++count;
+			}
+		}
+
+		int m = 0;
+		if (count <= threshold) {
+			for (int i = 0; i < count; ++i)
+				m = addMerged(pr[i], missing, missingCount, m);
+		} else {
+			double every = (double) (count - 2) / (threshold - 2);
+			int a = 0;
+			m = addMerged(pr[a], missing, missingCount, m);
+
+			for (int i = 0; i < threshold - 2; ++i) {
+				int nextStart = (int) Math.floor((i + 1) * every) + 1;
+				int nextEnd = Math.min((int) Math.floor((i + 2) * every) + 1, count);
+				double avgX = 0, avgY = 0;
+				for (int j = nextStart; j < nextEnd; ++j) {
+					avgX += px[j];
+					avgY += py[j];
+				}
+				int nextCount = Math.max(1, nextEnd - nextStart);
+				avgX /= nextCount;
+				avgY /= nextCount;
+
+				int start = (int) Math.floor(i * every) + 1;
+				int end = (int) Math.floor((i + 1) * every) + 1;
+				double maxArea = -1;
+				int chosen = start;
+				for (int j = start; j < end; ++j) {
+					double area = Math.abs((px[a] - avgX) * (py[j] - py[a]) - (px[a] - px[j]) * (avgY - py[a]));
+					if (area > maxArea) {
+						maxArea = area;
+						chosen = j;
+					}
+				}
+
+				m = addMerged(pr[chosen], missing, missingCount, m);
+				a = chosen;
+			}
+
+			m = addMerged(pr[count - 1], missing, missingCount, m);
+		}
+
+		while (m < missingCount)
+			add(missing[m++]);
+	}
+
+	/*
+	 * Adds a row, preceded by the rows with missing values before it.
+	 */
+	private int addMerged(int row, int[] missing, int missingCount, int m) {
+		while (m < missingCount && missing[m] < row)
+			add(missing[m++]);
+		add(row);
+		return m;
+	}
+}
@@ -0,0 +1,240 @@
+/*
+ * Copyright (C) 2009 Emweb bv, Herent, Belgium.
+ *
+ * See the LICENSE file for terms of use.
+ */
+package eu.webtoolkit.jwt.chart;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import eu.webtoolkit.jwt.SegmentType;
+import eu.webtoolkit.jwt.WJavaScriptHandle;
+import eu.webtoolkit.jwt.WPainterPath;
+import eu.webtoolkit.jwt.WPointF;
+import eu.webtoolkit.jwt.utils.MathUtils;
+
+/*
+ * Incremental updates of the curves of an interactive chart that displays a
+ * WStreamingChartModel.
+ *
+ * A snapshot is taken whenever the chart is painted. It records, for every
+ * line series, which rows of the model contributed a point to its curve (a
+ * row with a missing X or Y value does not). When rows have been appended
+ * since, update() drops the points of the dropped rows from the start of each
+ * curve and adds the points of the new rows, and returns the JavaScript that
+ * applies the same change to the curves in the browser, so that the amount of
+ * data that is sent is proportional to the number of new rows rather than to
+ * the size of the window.
+ *
+ * This is only possible as long as nothing else depends on the data: the
+ * axes have a fixed range, and the series are plain lines in a scatter plot.
+ */
+final class StreamingCurves {
+	private final WCartesianChart chart;
+	private final WStreamingChartModel model;
+	private final int revision;
+	private long appendedRowCount;
+	private int rowCount;
+	private final List<Curve> curves = new ArrayList<Curve>();
+
+	private static final class Curve {
+		final WDataSeries series;
+		final int xColumn;
+
+		// ring buffer with a flag for every row: whether it has a point
+		final boolean[] points;
+		int first = 0;
+		int size = 0;
+
+		Curve(WDataSeries series, int xColumn, int capacity) {
+			this.series = series;
+			this.xColumn = xColumn;
+			this.points = new boolean[capacity];
+		}
+
+		void add(boolean point) {
+			points[(first + size) % points.length] = point;
+			++size;
+		}
+
+		/*
+		 * Removes the oldest rows, and returns the number of points they had.
+		 */
+		int drop(int rows) {
+			int result = 0;
+			for (int i = 0; i < rows; ++i) {
+				if (points[first])
+					++result;
+				first = (first + 1) % points.length;
+			}
+			size -= rows;
+			return result;
+		}
+
+		boolean last() {
+			return size > 0 && points[(first + size - 1) % points.length];
+		}
+	}
+
+	private StreamingCurves(WCartesianChart chart, WStreamingChartModel model) {
+		this.chart = chart;
+		this.model = model;
+		this.revision = model.getRevision();
+		this.appendedRowCount = model.getAppendedRowCount();
+		this.rowCount = model.getRowCount();
+	}
+
+	/*
+	 * Takes a snapshot of the curves that were just painted, or returns null if
+	 * the chart cannot be updated incrementally.
+	 */
+	static StreamingCurves create(WCartesianChart chart) {
+		if (!chart.isInteractive() || chart.getType() != ChartType.Scatter || chart.isOnDemandLoadingEnabled()
+				|| !(chart.getModel() instanceof WStreamingChartModel))
+			return null;
+
+		WStreamingChartModel model = (WStreamingChartModel) chart.getModel();
+		StreamingCurves result = new StreamingCurves(chart, model);
+
+		int rowCount = model.getRowCount();
+		double[] xs = new double[rowCount];
+		double[] ys = new double[rowCount];
+
+		for (WDataSeries series : chart.getSeries()) {
+			if (chart.axisSliderWidgetForSeries(series))
+				return null;
+			if (series.isHidden())
+				continue;
+
+			int xColumn = series.XSeriesColumn() == -1 ? chart.XSeriesColumn() : series.XSeriesColumn();
+			if (!isSupported(chart, model, series, xColumn))
+				return null;
+
+			Curve curve = new Curve(series, xColumn, model.getCapacity());
+			model.getColumn(xColumn, 0, rowCount, xs);
+			model.getColumn(series.getModelColumn(), 0, rowCount, ys);
+			int points = 0;
+			for (int row = 0; row < rowCount; ++row) {
+				boolean point = !Double.isNaN(xs[row]) && !Double.isNaN(ys[row]);
+				curve.add(point);
+				if (point)
+					++points;
+			}
+
+			// the curve of a series with less than two points is not painted
+			if (points < 2)
+				return null;
+
+			result.curves.add(curve);
+		}
+
+		return result;
+	}
+
+	private static boolean isSupported(WCartesianChart chart, WStreamingChartModel model, WDataSeries series,
+			int xColumn) {
+		if (series.getModel() != model || series.getType() != SeriesType.Line || xColumn == -1
+				|| series.getFillRange() != FillRangeType.None || series.getMarker() != MarkerType.None
+				|| series.isLabelsEnabled(Axis.X) || series.isLabelsEnabled(Axis.Y)
+				|| series.getDownsampling() != DownsamplingType.None || chart.curvePaths_.get(series) == null)
+			return false;
+
+		if (series.getXAxis() < 0 || series.getXAxis() >= chart.getXAxisCount() || series.getYAxis() < 0
+				|| series.getYAxis() >= chart.getYAxisCount())
+			return false;
+
+		return hasFixedRange(chart.getXAxis(series.getXAxis())) && hasFixedRange(chart.getYAxis(series.getYAxis()));
+	}
+
+	private static boolean hasFixedRange(WAxis axis) {
+		return axis.getAutoLimits().isEmpty() && axis.getSegmentCount() == 1;
+	}
+
+	/*
+	 * Updates the curves for the rows that were appended since the snapshot,
+	 * and returns the JavaScript that updates them in the browser (empty if
+	 * nothing changed), or null if the chart needs to be painted again.
+	 */
+	String update() {
+		if (chart.getModel() != model || model.getRevision() != revision)
+			return null;
+
+		int n = model.getRowCount();
+		long appended = model.getAppendedRowCount() - appendedRowCount;
+		if (appended > n)
+			return null;
+
+		int dropped = (int) (rowCount + appended - n);
+		if (dropped < 0)
+			return null;
+
+		for (Curve curve : curves) {
+			if (curve.series.isHidden() || !chart.getSeries().contains(curve.series)
+					|| !isSupported(chart, model, curve.series, curve.xColumn))
+				return null;
+		}
+
+		appendedRowCount += appended;
+		rowCount = n;
+
+		if (appended == 0 && dropped == 0)
+			return "";
+
+		int added = (int) appended;
+		double[] xs = new double[added];
+		double[] ys = new double[added];
+
+		StringBuilder js = new StringBuilder();
+		js.append("(function(u){");
+		for (Curve curve : curves) {
+			WDataSeries series = curve.series;
+			WJavaScriptHandle<WPainterPath> handle = chart.curvePaths_.get(series);
+
+			int droppedPoints = curve.drop(dropped);
+			List<WPainterPath.Segment> segments = handle.getValue().getSegments();
+			WPainterPath path = new WPainterPath();
+			path.setOpenSubPathsEnabled(true);
+			for (int i = droppedPoints; i < segments.size(); ++i) {
+				WPainterPath.Segment s = segments.get(i);
+				if (i == droppedPoints || s.getType() == SegmentType.MoveTo)
+					path.moveTo(s.getX(), s.getY());
+				else
+					path.lineTo(s.getX(), s.getY());
+			}
+
+			js.append("u(").append(handle.getJsRef()).append(',').append(droppedPoints).append(",[");
+
+			model.getColumn(curve.xColumn, n - added, n, xs);
+			model.getColumn(series.getModelColumn(), n - added, n, ys);
+			WAxis xAxis = chart.getXAxis(series.getXAxis());
+			WAxis yAxis = chart.getYAxis(series.getYAxis());
+			boolean first = true;
+			for (int i = 0; i < added; ++i) {
+				boolean point = !Double.isNaN(xs[i]) && !Double.isNaN(ys[i]);
+				if (point) {
+					SegmentType type = curve.last() ? SegmentType.LineTo : SegmentType.MoveTo;
+					WPointF p = chart.hv(chart.map(xs[i], ys[i], xAxis, yAxis, 0, 0));
+					if (type == SegmentType.MoveTo)
+						path.moveTo(p.getX(), p.getY());
+					else
+						path.lineTo(p.getX(), p.getY());
+
+					if (!first)
+						js.append(',');
+					first = false;
+					js.append('[').append(MathUtils.roundJs(p.getX(), 3)).append(',')
+							.append(MathUtils.roundJs(p.getY(), 3)).append(',').append(type.getValue()).append(']');
+				}
+				curve.add(point);
+			}
+			js.append("]);");
+
+			handle.setValue(path);
+		}
+		js.append("})(function(p,d,a){p.splice(0,d);if(p.length>0)p[0][2]=0;"
+				+ "for(let i=0;i<a.length;++i)p.push(a[i]);});");
+
+		return js.toString();
+	}
+}
@@ -30,6 +30,13 @@ public abstract class WAbstractChartModel extends WObject {
   public WAbstractChartModel() {
     super();
     this.changed_ = new Signal();
+    this.extremes_ = null;
+    this.firstChangedRow_ = 0;
+    this.changed_.addListener(
+        this,
+        () -> {
+          WAbstractChartModel.this.invalidateExtremes();
+        });
   }
   /**
    * Returns data at a given row and column.
@@ -37,6 +44,22 @@ public abstract class WAbstractChartModel extends WObject {
    * <p>This value determines the position of a data point on the chart.
    */
   public abstract double getData(int row, int column);
+  /**
+   * Returns the data of a column for a range of rows.
+   *
+   * <p>Stores the data for the rows from <code>startRow</code> up to (but not including) <code>
+   * endRow</code> in <code>result</code>, starting at index 0. The chart uses this to read the data
+   * of a data series in bulk.
+   *
+   * <p>The default implementation calls {@link WAbstractChartModel#getData(int row, int column)
+   * getData()} for each row. You may want to reimplement this method if the data can be copied
+   * more efficiently, as does {@link WColumnarChartModel}.
+   */
+  public void getColumn(int column, int startRow, int endRow, double[] result) {
+    for (int row = startRow; row < endRow; ++row) {
+      result[row - startRow] = this.getData(row, column);
+    }
+  }
   /**
    * Returns display data at a given row and column.
    *
@@ -198,10 +221,55 @@ public abstract class WAbstractChartModel extends WObject {
    * A signal that notifies of any change to the model.
    *
    * <p>Implementations should trigger this signal in order to update the chart.
+   *
+   * <p>The chart keeps a summary of the minimum and maximum value of the columns that it uses to
+   * determine the range of an axis automatically, which is recomputed entirely when this signal is
+   * triggered. Use {@link WAbstractChartModel#rowsChanged(int firstRow) rowsChanged()} instead when
+   * only part of the rows changed.
    */
   public Signal changed() {
     return this.changed_;
   }
+  /**
+   * Notifies a change to the rows starting at a given row.
+   *
+   * <p>This indicates that the data of the rows from <code>firstRow</code> onwards has changed,
+   * including rows that were inserted or removed, while the rows before <code>firstRow</code> are
+   * unchanged. This triggers the {@link WAbstractChartModel#changed() changed()} signal.
+   *
+   * <p>When rows are appended to a large model, this allows the chart to update the range of its
+   * axes without scanning all of the data.
+   */
+  protected void rowsChanged(int firstRow) {
+    this.firstChangedRow_ = firstRow;
+    try {
+      this.changed_.trigger();
+    } finally {
+      this.firstChangedRow_ = 0;
+    }
+  }
+
+  double[] getColumnExtremes(int column) {
+    if (this.extremes_ == null) {
+      this.extremes_ = new HashMap<Integer, ColumnExtremes>();
+    }
+    ColumnExtremes e = this.extremes_.get(column);
+    if (e == null) {
+      e = new ColumnExtremes(this, column);
+      this.extremes_.put(column, e);
+    }
+    return e.get();
+  }
 
   private Signal changed_;
+  private Map<Integer, ColumnExtremes> extremes_;
+  private int firstChangedRow_;
+
+  private void invalidateExtremes() {
+    if (this.extremes_ != null) {
+      for (ColumnExtremes e : this.extremes_.values()) {
+        e.invalidate(this.firstChangedRow_);
+      }
+    }
+  }
 }
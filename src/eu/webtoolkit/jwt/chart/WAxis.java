@@ -2951,7 +2951,7 @@ public class WAxis {
     return false;
   }
 
-  private double getDrawnMinimum() {
+  double getDrawnMinimum() {
     if (!this.isInverted()) {
       return this.mapFromDevice(0.0);
     } else {
@@ -2959,7 +2959,7 @@ public class WAxis {
     }
   }
 
-  private double getDrawnMaximum() {
+  double getDrawnMaximum() {
     if (!this.isInverted()) {
       return this.mapFromDevice(this.fullRenderLength_);
     } else {
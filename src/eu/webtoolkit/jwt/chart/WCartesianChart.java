@@ -129,6 +129,8 @@ public class WCartesianChart extends WAbstractChart {
     this.textPen_ = new WPen();
     this.chartArea_ = null;
     this.hasDeferredToolTips_ = false;
+    this.streamingCurves_ = null;
+    this.streamingUpdatePending_ = false;
     this.jsDefined_ = false;
     this.zoomEnabled_ = false;
     this.panEnabled_ = false;
@@ -189,6 +191,8 @@ public class WCartesianChart extends WAbstractChart {
     this.textPen_ = new WPen();
     this.chartArea_ = null;
     this.hasDeferredToolTips_ = false;
+    this.streamingCurves_ = null;
+    this.streamingUpdatePending_ = false;
     this.jsDefined_ = false;
     this.zoomEnabled_ = false;
     this.panEnabled_ = false;
@@ -2357,25 +2361,17 @@ public class WCartesianChart extends WAbstractChart {
     int numBarGroups;
     int currentBarGroup;
     int rowCount = this.getModel() != null ? this.getModel().getRowCount() : 0;
-    List<Double> posStackedValuesInit = new ArrayList<Double>();
-    List<Double> minStackedValuesInit = new ArrayList<Double>();
     final boolean scatterPlot = this.type_ == ChartType.Scatter;
+    double[] posStackedValuesInit = new double[scatterPlot ? 0 : rowCount];
+    double[] minStackedValuesInit = new double[scatterPlot ? 0 : rowCount];
+    double[] xData = null;
+    double[] yData = null;
     if (scatterPlot) {
       numBarGroups = 1;
       currentBarGroup = 0;
     } else {
       numBarGroups = this.getCalcNumBarGroups();
       currentBarGroup = 0;
-      {
-        int insertPos = 0;
-        for (int ii = 0; ii < (rowCount); ++ii) posStackedValuesInit.add(insertPos + ii, 0.0);
-      }
-      ;
-      {
-        int insertPos = 0;
-        for (int ii = 0; ii < (rowCount); ++ii) minStackedValuesInit.add(insertPos + ii, 0.0);
-      }
-      ;
     }
     boolean containsBars = false;
     for (int g = 0; g < this.series_.size(); ++g) {
@@ -2399,9 +2395,8 @@ public class WCartesianChart extends WAbstractChart {
         startSeries = endSeries = g;
       } else {
         if (this.series_.get(g).getModel() == this.getModel()) {
-          for (int i = 0; i < rowCount; ++i) {
-            posStackedValuesInit.set(i, minStackedValuesInit.set(i, 0.0));
-          }
+          Arrays.fill(posStackedValuesInit, 0.0);
+          Arrays.fill(minStackedValuesInit, 0.0);
           if (reverseStacked) {
             endSeries = g;
             int xAxis = this.series_.get(g).getXAxis();
@@ -2414,15 +2409,16 @@ public class WCartesianChart extends WAbstractChart {
                 if (this.series_.get(g).getType() == SeriesType.Bar) {
                   containsBars = true;
                 }
+                yData =
+                    getColumnData(
+                        this.getModel(), this.series_.get(g).getModelColumn(), 0, rowCount, yData);
                 for (int row = 0; row < rowCount; ++row) {
-                  double y =
-                      StringUtils.asNumber(
-                          this.getModel().getData(row, this.series_.get(g).getModelColumn()));
+                  double y = yData[row];
                   if (!Double.isNaN(y)) {
                     if (y > 0) {
-                      posStackedValuesInit.set(row, posStackedValuesInit.get(row) + y);
+                      posStackedValuesInit[row] += y;
                     } else {
-                      minStackedValuesInit.set(row, minStackedValuesInit.get(row) + y);
+                      minStackedValuesInit[row] += y;
                     }
                   }
                 }
@@ -2471,8 +2467,8 @@ public class WCartesianChart extends WAbstractChart {
                 && this.series_.get(i).getYAxis() < this.getYAxisCount()
                 && iterator.startSeries(
                     this.series_.get(i), groupWidth, numBarGroups, currentBarGroup);
-        List<Double> posStackedValues = new ArrayList<Double>();
-        List<Double> minStackedValues = new ArrayList<Double>();
+        double[] posStackedValues = new double[0];
+        double[] minStackedValues = new double[0];
         if (doSeries || !scatterPlot && i != endSeries) {
           for (int currentXSegment = 0;
               currentXSegment < this.getXAxis(this.series_.get(i).getXAxis()).getSegmentCount();
@@ -2480,10 +2476,8 @@ public class WCartesianChart extends WAbstractChart {
             for (int currentYSegment = 0;
                 currentYSegment < this.getYAxis(this.series_.get(i).getYAxis()).getSegmentCount();
                 ++currentYSegment) {
-              posStackedValues.clear();
-              posStackedValues.addAll(posStackedValuesInit);
-              minStackedValues.clear();
-              minStackedValues.addAll(minStackedValuesInit);
+              posStackedValues = posStackedValuesInit.clone();
+              minStackedValues = minStackedValuesInit.clone();
               if (painter != null) {
                 WRectF csa =
                     this.chartSegmentArea(
@@ -2545,19 +2539,59 @@ public class WCartesianChart extends WAbstractChart {
                           endRow);
                 }
               }
-              for (int row = startRow; row < endRow; ++row) {
+              int xColumn = -1;
+              if (scatterPlot) {
+                xColumn =
+                    this.series_.get(i).XSeriesColumn() == -1
+                        ? this.XSeriesColumn()
+                        : this.series_.get(i).XSeriesColumn();
+              }
+              final int dataRow = startRow;
+              double[] xs = null;
+              double[] ys = null;
+              if (endRow > startRow && !(extremesOnly && this.isOnDemandLoadingEnabled())) {
+                yData =
+                    getColumnData(
+                        this.series_.get(i).getModel(),
+                        this.series_.get(i).getModelColumn(),
+                        startRow,
+                        endRow,
+                        yData);
+                ys = yData;
+                if (xColumn != -1) {
+                  xData =
+                      getColumnData(
+                          this.series_.get(i).getModel(), xColumn, startRow, endRow, xData);
+                  xs = xData;
+                }
+              }
+              int[] rows = null;
+              if (painter != null
+                  && scatterPlot
+                  && ys != null
+                  && (ObjectUtils.cast(iterator, SeriesRenderIterator.class) != null
+                      || ObjectUtils.cast(iterator, MarkerRenderIterator.class) != null)) {
+                rows =
+                    this.getDownsampledRows(
+                        this.series_.get(i), currentXSegment, xs, ys, startRow, endRow);
+                if (rows != null) {
+                  startRow = 0;
+                  endRow = rows.length;
+                }
+              }
+              for (int r = startRow; r < endRow; ++r) {
+                int row = rows != null ? rows[r] : r;
                 int[] xIndex = {-1, -1};
                 int[] yIndex = {-1, -1};
                 double x;
                 if (scatterPlot) {
-                  int c = this.series_.get(i).XSeriesColumn();
-                  if (c == -1) {
-                    c = this.XSeriesColumn();
-                  }
-                  if (c != -1) {
+                  if (xColumn != -1) {
                     xIndex[0] = row;
-                    xIndex[1] = c;
-                    x = this.series_.get(i).getModel().getData(xIndex[0], xIndex[1]);
+                    xIndex[1] = xColumn;
+                    x =
+                        xs != null
+                            ? xs[row - dataRow]
+                            : this.series_.get(i).getModel().getData(xIndex[0], xIndex[1]);
                   } else {
                     x = row;
                   }
@@ -2566,7 +2600,10 @@ public class WCartesianChart extends WAbstractChart {
                 }
                 yIndex[0] = row;
                 yIndex[1] = this.series_.get(i).getModelColumn();
-                double y = this.series_.get(i).getModel().getData(yIndex[0], yIndex[1]);
+                double y =
+                    ys != null
+                        ? ys[row - dataRow]
+                        : this.series_.get(i).getModel().getData(yIndex[0], yIndex[1]);
                 if (scatterPlot) {
                   iterator.newValue(
                       this.series_.get(i), x, y, 0, xIndex[0], xIndex[1], yIndex[0], yIndex[1]);
@@ -2576,9 +2613,9 @@ public class WCartesianChart extends WAbstractChart {
                   boolean hasValue = !Double.isNaN(y);
                   if (hasValue) {
                     if (y > 0) {
-                      prevStack = nextStack = posStackedValues.get(row);
+                      prevStack = nextStack = posStackedValues[row];
                     } else {
-                      prevStack = nextStack = minStackedValues.get(row);
+                      prevStack = nextStack = minStackedValues[row];
                     }
                     if (reverseStacked) {
                       nextStack -= y;
@@ -2586,9 +2623,9 @@ public class WCartesianChart extends WAbstractChart {
                       nextStack += y;
                     }
                     if (y > 0) {
-                      posStackedValues.set(row, nextStack);
+                      posStackedValues[row] = nextStack;
                     } else {
-                      minStackedValues.set(row, nextStack);
+                      minStackedValues[row] = nextStack;
                     }
                   }
                   if (doSeries) {
@@ -2616,7 +2653,7 @@ public class WCartesianChart extends WAbstractChart {
                   }
                 }
                 if (extremesOnly && this.isOnDemandLoadingEnabled()) {
-                  row = Math.max(endRow - 2, row);
+                  r = Math.max(endRow - 2, r);
                 }
               }
               iterator.endSegment();
@@ -2625,10 +2662,8 @@ public class WCartesianChart extends WAbstractChart {
               }
             }
           }
-          posStackedValuesInit.clear();
-          posStackedValuesInit.addAll(posStackedValues);
-          minStackedValuesInit.clear();
-          minStackedValuesInit.addAll(minStackedValues);
+          posStackedValuesInit = posStackedValues;
+          minStackedValuesInit = minStackedValues;
         }
         if (doSeries) {
           iterator.endSeries();
@@ -2646,6 +2681,104 @@ public class WCartesianChart extends WAbstractChart {
     }
   }
 
+  WAbstractChartImplementation.RenderRange computeExtremes(
+      Axis axis, int xAxis, int yAxis, AxisScale scale) {
+    final boolean scatterPlot = this.type_ == ChartType.Scatter;
+    if (this.isOnDemandLoadingEnabled()) {
+      return null;
+    }
+    if (!scatterPlot) {
+      for (int i = 0; i < this.series_.size(); ++i) {
+        if (this.series_.get(i).isStacked() || this.series_.get(i).getModel() != this.getModel()) {
+          return null;
+        }
+      }
+    }
+    double minimum = Double.MAX_VALUE;
+    double maximum = -Double.MAX_VALUE;
+    for (int i = 0; i < this.series_.size(); ++i) {
+      final WDataSeries s = this.series_.get(i);
+      if (s.isHidden() && !this.axisSliderWidgetForSeries(s)) {
+        continue;
+      }
+      if (s.getXAxis() < 0
+          || s.getXAxis() >= this.getXAxisCount()
+          || s.getYAxis() < 0
+          || s.getYAxis() >= this.getYAxisCount()) {
+        continue;
+      }
+      if (axis == Axis.X ? s.getXAxis() != xAxis : s.getYAxis() != yAxis) {
+        continue;
+      }
+      int rowCount = s.getModel() != null ? s.getModel().getRowCount() : 0;
+      if (rowCount == 0) {
+        continue;
+      }
+      int column = s.getModelColumn();
+      if (axis == Axis.X) {
+        column = -1;
+        if (scatterPlot) {
+          column = s.XSeriesColumn() == -1 ? this.XSeriesColumn() : s.XSeriesColumn();
+        }
+      }
+      if (column == -1) {
+        int first = scale == AxisScale.Log ? 1 : 0;
+        if (first < rowCount) {
+          minimum = Math.min(first, minimum);
+          maximum = Math.max(rowCount - 1, maximum);
+        }
+      } else {
+        double[] extremes = s.getModel().getColumnExtremes(column);
+        if (scale == AxisScale.Log) {
+          minimum = Math.min(extremes[2], minimum);
+          if (extremes[1] > 0.0) {
+            maximum = Math.max(extremes[1], maximum);
+          }
+        } else {
+          minimum = Math.min(extremes[0], minimum);
+          maximum = Math.max(extremes[1], maximum);
+        }
+      }
+    }
+    WAbstractChartImplementation.RenderRange range = new WAbstractChartImplementation.RenderRange();
+    range.minimum = minimum;
+    range.maximum = maximum;
+    return range;
+  }
+
+  private int[] getDownsampledRows(
+      final WDataSeries series,
+      int xSegment,
+      double[] xData,
+      double[] yData,
+      int startRow,
+      int endRow) {
+    if (series.getDownsampling() == DownsamplingType.None) {
+      return null;
+    }
+    WAxis xAxis = this.getXAxis(series.getXAxis());
+    double zoom = 1.0;
+    if (this.isInteractive()) {
+      zoom =
+          (xAxis.getDrawnMaximum() - xAxis.getDrawnMinimum())
+              / (xAxis.getZoomMaximum() - xAxis.getZoomMinimum());
+      if (!(zoom >= 1.0) || Double.isInfinite(zoom)) {
+        zoom = 1.0;
+      }
+    }
+    return SeriesDownsampler.downsample(
+        series.getDownsampling(), xData, yData, xAxis, xSegment, zoom, startRow, endRow);
+  }
+
+  private static double[] getColumnData(
+      final WAbstractChartModel model, int column, int startRow, int endRow, double[] buffer) {
+    if (buffer == null || buffer.length < endRow - startRow) {
+      buffer = new double[endRow - startRow];
+    }
+    model.getColumn(column, startRow, endRow, buffer);
+    return buffer;
+  }
+
   public final void iterateSeries(SeriesIterator iterator, WPainter painter) {
     iterateSeries(iterator, painter, false, false);
   }
@@ -2782,6 +2915,8 @@ public class WCartesianChart extends WAbstractChart {
   private int height_;
   WRectF chartArea_;
   boolean hasDeferredToolTips_;
+  private StreamingCurves streamingCurves_;
+  private boolean streamingUpdatePending_;
   private boolean jsDefined_;
   private boolean zoomEnabled_;
   private boolean panEnabled_;
@@ -2961,7 +3096,12 @@ public class WCartesianChart extends WAbstractChart {
   }
 
   protected void modelReset() {
-    this.update();
+    if (this.streamingCurves_ != null) {
+      this.streamingUpdatePending_ = true;
+      this.scheduleRender();
+    } else {
+      this.update();
+    }
   }
   /**
    * Paints the widget.
@@ -2974,6 +3114,8 @@ public class WCartesianChart extends WAbstractChart {
     WPainter painter = new WPainter(paintDevice);
     painter.setRenderHint(RenderHint.Antialiasing);
     this.paint(painter);
+    this.streamingCurves_ = StreamingCurves.create(this);
+    this.streamingUpdatePending_ = false;
     if (this.hasDeferredToolTips_ && !this.jsDefined_) {
       this.defineJavaScript();
     }
@@ -4952,6 +5094,21 @@ public class WCartesianChart extends WAbstractChart {
     if (flags.contains(RenderFlag.Full) || !this.jsDefined_) {
       this.defineJavaScript();
     }
+    if (this.streamingUpdatePending_) {
+      this.streamingUpdatePending_ = false;
+      String js =
+          !flags.contains(RenderFlag.Full) && this.streamingCurves_ != null
+              ? this.streamingCurves_.update()
+              : null;
+      if (js == null) {
+        this.streamingCurves_ = null;
+        this.update();
+      } else {
+        if (js.length() != 0) {
+          this.doJavaScript(js + "var o=" + this.getObjJsRef() + ";if(o){o.repaint();}");
+        }
+      }
+    }
   }
 
   protected void setFormData(final WObject.FormData formData) {
@@ -5953,7 +6110,7 @@ public class WCartesianChart extends WAbstractChart {
     }
   }
 
-  private boolean axisSliderWidgetForSeries(WDataSeries series) {
+  boolean axisSliderWidgetForSeries(WDataSeries series) {
     for (int i = 0; i < this.axisSliderWidgets_.size(); ++i) {
       if (this.axisSliderWidgets_.get(i).getSeries() == series) {
         return true;
@@ -60,6 +60,11 @@ class WChart2DImplementation implements WAbstractChartImplementation {
 
   public WAbstractChartImplementation.RenderRange computeRenderRange(
       Axis axis, int xAxis, int yAxis, AxisScale scale) {
+    WAbstractChartImplementation.RenderRange extremes =
+        this.chart_.computeExtremes(axis, xAxis, yAxis, scale);
+    if (extremes != null) {
+      return extremes;
+    }
     ExtremesIterator iterator = new ExtremesIterator(axis, xAxis, yAxis, scale);
     this.chart_.iterateSeries(iterator, (WPainter) null, false, axis == Axis.X);
     WAbstractChartImplementation.RenderRange range = new WAbstractChartImplementation.RenderRange();
@@ -0,0 +1,194 @@
+/*
+ * Copyright (C) 2020 Emweb bv, Herent, Belgium.
+ *
+ * See the LICENSE file for terms of use.
+ */
+package eu.webtoolkit.jwt.chart;
+
+import eu.webtoolkit.jwt.*;
+import eu.webtoolkit.jwt.servlet.*;
+import eu.webtoolkit.jwt.utils.*;
+import java.io.*;
+import java.lang.ref.*;
+import java.time.*;
+import java.util.*;
+import java.util.regex.*;
+import javax.servlet.*;
+import javax.servlet.http.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A {@link WAbstractChartModel} that stores its data in primitive arrays, one per column.
+ *
+ * <p>Each column is backed by a <code>double[]</code> array, or by a <code>long[]</code> array
+ * (e.g. for timestamps). All columns have the same number of rows. Unlike a {@link
+ * WStandardChartProxyModel}, the data is not stored as objects, and the chart reads the data of a
+ * data series in bulk (see {@link WAbstractChartModel#getColumn(int column, int startRow, int
+ * endRow, double[] result) getColumn()}). This makes this model suitable for data series with a
+ * large number of data points.
+ *
+ * <p>The model does not copy the arrays that are passed to it. If you modify an array directly,
+ * you need to notify the chart by triggering the {@link WAbstractChartModel#changed() changed()}
+ * signal.
+ *
+ * <p>
+ *
+ * <pre>{@code
+ * WColumnarChartModel model = new WColumnarChartModel();
+ * model.addColumn(timestamps); // long[]
+ * model.addColumn(values);     // double[]
+ * model.setHeaderData(1, "Temperature");
+ *
+ * chart.setModel(model);
+ *
+ * }</pre>
+ */
+public class WColumnarChartModel extends WAbstractChartModel {
+  private static Logger logger = LoggerFactory.getLogger(WColumnarChartModel.class);
+
+  /** Creates a new model without columns. */
+  public WColumnarChartModel() {
+    super();
+    this.doubleColumns_ = new ArrayList<double[]>();
+    this.longColumns_ = new ArrayList<long[]>();
+    this.headers_ = new ArrayList<WString>();
+    this.rowCount_ = 0;
+  }
+  /**
+   * Adds a column with floating point data.
+   *
+   * <p>The array length must match the number of rows of the columns that were added before.
+   */
+  public void addColumn(double[] data) {
+    this.checkRowCount(data.length, 0);
+    this.doubleColumns_.add(data);
+    this.longColumns_.add(null);
+    this.headers_.add(new WString());
+    this.rowCount_ = data.length;
+    this.changed().trigger();
+  }
+  /**
+   * Adds a column with integer data.
+   *
+   * <p>The array length must match the number of rows of the columns that were added before.
+   */
+  public void addColumn(long[] data) {
+    this.checkRowCount(data.length, 0);
+    this.doubleColumns_.add(null);
+    this.longColumns_.add(data);
+    this.headers_.add(new WString());
+    this.rowCount_ = data.length;
+    this.changed().trigger();
+  }
+  /**
+   * Replaces the data of a column with floating point data.
+   *
+   * <p>If this is the only column, the number of rows may change. Otherwise, the array length must
+   * match the number of rows.
+   */
+  public void setColumn(int column, double[] data) {
+    this.checkRowCount(data.length, 1);
+    this.doubleColumns_.set(column, data);
+    this.longColumns_.set(column, null);
+    this.rowCount_ = data.length;
+    this.changed().trigger();
+  }
+  /**
+   * Replaces the data of a column with integer data.
+   *
+   * <p>If this is the only column, the number of rows may change. Otherwise, the array length must
+   * match the number of rows.
+   */
+  public void setColumn(int column, long[] data) {
+    this.checkRowCount(data.length, 1);
+    this.doubleColumns_.set(column, null);
+    this.longColumns_.set(column, data);
+    this.rowCount_ = data.length;
+    this.changed().trigger();
+  }
+  /**
+   * Sets the data at a given row and column.
+   *
+   * <p>For an integer column, the value is truncated.
+   */
+  public void setData(int row, int column, double value) {
+    double[] d = this.doubleColumns_.get(column);
+    if (d != null) {
+      d[row] = value;
+    } else {
+      this.longColumns_.get(column)[row] = (long) value;
+    }
+    this.rowsChanged(row);
+  }
+  /**
+   * Sets the header data of a column.
+   *
+   * <p>This is used as the name in the legend for a data series.
+   */
+  public void setHeaderData(int column, final CharSequence header) {
+    this.headers_.set(column, WString.toWString(header));
+    this.changed().trigger();
+  }
+
+  public double getData(int row, int column) {
+    double[] d = this.doubleColumns_.get(column);
+    if (d != null) {
+      return d[row];
+    } else {
+      return this.longColumns_.get(column)[row];
+    }
+  }
+
+  public void getColumn(int column, int startRow, int endRow, double[] result) {
+    double[] d = this.doubleColumns_.get(column);
+    if (d != null) {
+      System.arraycopy(d, startRow, result, 0, endRow - startRow);
+    } else {
+      long[] l = this.longColumns_.get(column);
+      for (int row = startRow; row < endRow; ++row) {
+        result[row - startRow] = l[row];
+      }
+    }
+  }
+  /**
+   * Returns display data at a given row and column.
+   *
+   * <p>The value of an integer column is displayed without a fractional part.
+   */
+  public WString getDisplayData(int row, int column) {
+    long[] l = this.longColumns_.get(column);
+    if (l != null) {
+      return new WString(String.valueOf(l[row]));
+    } else {
+      return super.getDisplayData(row, column);
+    }
+  }
+
+  public WString getHeaderData(int column) {
+    return this.headers_.get(column);
+  }
+
+  public int getColumnCount() {
+    return this.headers_.size();
+  }
+
+  public int getRowCount() {
+    return this.rowCount_;
+  }
+
+  private List<double[]> doubleColumns_;
+  private List<long[]> longColumns_;
+  private List<WString> headers_;
+  private int rowCount_;
+
+  private void checkRowCount(int rowCount, int replaced) {
+    if (this.headers_.size() > replaced && rowCount != this.rowCount_) {
+      throw new WException(
+          "WColumnarChartModel: column has "
+              + String.valueOf(rowCount)
+              + " rows, expected "
+              + String.valueOf(this.rowCount_));
+    }
+  }
+}
@@ -89,6 +89,7 @@ public class WDataSeries extends WObject {
     this.yLabel_ = false;
     this.barWidth_ = 0.8;
     this.hidden_ = false;
+    this.downsampling_ = DownsamplingType.None;
     this.customMarker_ = new WPainterPath();
     this.offset_ = 0.0;
     this.scale_ = 1.0;
@@ -150,6 +151,7 @@ public class WDataSeries extends WObject {
     this.yLabel_ = false;
     this.barWidth_ = 0.8;
     this.hidden_ = false;
+    this.downsampling_ = DownsamplingType.None;
     this.customMarker_ = new WPainterPath();
     this.offset_ = 0.0;
     this.scale_ = 1.0;
@@ -817,6 +819,38 @@ public class WDataSeries extends WObject {
   public boolean isHidden() {
     return this.hidden_;
   }
+  /**
+   * Sets how the series is downsampled before it is rendered.
+   *
+   * <p>For a series with many more data points than there are pixels in the plot area, drawing
+   * every point adds a lot to the size of the chart without adding any visual detail. Downsampling
+   * reduces the data points in the visible range to a few per pixel column. Markers are drawn only
+   * for the retained data points.
+   *
+   * <p>Downsampling is applied only to series of a {@link ChartType#Scatter} chart, whose X values
+   * must be sorted in ascending order. For an interactive chart, combine this with {@link
+   * WCartesianChart#setOnDemandLoadingEnabled(boolean enabled) on-demand loading}, so that the
+   * data is downsampled again for the zoomed range when the user zooms or pans.
+   *
+   * <p>The default value is {@link DownsamplingType#None}.
+   */
+  public void setDownsampling(DownsamplingType downsampling) {
+    if (!ChartUtils.equals(this.downsampling_, downsampling)) {
+      this.downsampling_ = downsampling;
+      update();
+    }
+    ;
+  }
+  /**
+   * Returns how the series is downsampled before it is rendered.
+   *
+   * <p>
+   *
+   * @see WDataSeries#setDownsampling(DownsamplingType downsampling)
+   */
+  public DownsamplingType getDownsampling() {
+    return this.downsampling_;
+  }
   /**
    * Maps from device coordinates to model coordinates.
    *
@@ -1033,6 +1067,7 @@ public class WDataSeries extends WObject {
   private boolean yLabel_;
   private double barWidth_;
   private boolean hidden_;
+  private DownsamplingType downsampling_;
   private WPainterPath customMarker_;
   double offset_;
   double scale_;
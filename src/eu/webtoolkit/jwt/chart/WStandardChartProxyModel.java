@@ -53,21 +53,22 @@ public class WStandardChartProxyModel extends WAbstractChartModel {
         .addListener(
             this,
             (WModelIndex e1, Integer e2, Integer e3) -> {
-              WStandardChartProxyModel.this.sourceModelModified();
+              WStandardChartProxyModel.this.sourceRowsModified(e1, e2);
             });
     sourceModel
         .rowsRemoved()
         .addListener(
             this,
             (WModelIndex e1, Integer e2, Integer e3) -> {
-              WStandardChartProxyModel.this.sourceModelModified();
+              WStandardChartProxyModel.this.sourceRowsModified(e1, e2);
             });
     sourceModel
         .dataChanged()
         .addListener(
             this,
             (WModelIndex e1, WModelIndex e2) -> {
-              WStandardChartProxyModel.this.sourceModelModified();
+              WStandardChartProxyModel.this.sourceRowsModified(
+                  e1 != null ? e1.getParent() : null, e1 != null ? e1.getRow() : 0);
             });
     sourceModel
         .headerDataChanged()
@@ -105,6 +106,20 @@ public class WStandardChartProxyModel extends WAbstractChartModel {
   public double getData(int row, int column) {
     return StringUtils.asNumber(this.sourceModel_.getData(row, column, ItemDataRole.Display));
   }
+  /**
+   * Returns the data of a column for a range of rows.
+   *
+   * <p>When the source model is a {@link WColumnarTableModel}, the data is copied directly from its
+   * column storage. Otherwise, this calls {@link WStandardChartProxyModel#getData(int row, int
+   * column) getData()} for each row.
+   */
+  public void getColumn(int column, int startRow, int endRow, double[] result) {
+    if (this.sourceModel_ instanceof WColumnarTableModel) {
+      ((WColumnarTableModel) this.sourceModel_).getColumn(column, startRow, endRow, result);
+    } else {
+      super.getColumn(column, startRow, endRow, result);
+    }
+  }
   /**
    * Returns display data at a given row and column.
    *
@@ -308,6 +323,14 @@ public class WStandardChartProxyModel extends WAbstractChartModel {
     this.changed().trigger();
   }
 
+  private void sourceRowsModified(final WModelIndex parent, int firstRow) {
+    if (parent == null) {
+      this.rowsChanged(firstRow);
+    } else {
+      this.changed().trigger();
+    }
+  }
+
   private WColor color(int row, int column, ItemDataRole colorDataRole) {
     Object result = this.sourceModel_.getData(row, column, colorDataRole);
     if (!(result != null)) {
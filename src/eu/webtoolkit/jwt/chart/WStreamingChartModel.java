@@ -0,0 +1,170 @@
+/*
+ * Copyright (C) 2020 Emweb bv, Herent, Belgium.
+ *
+ * See the LICENSE file for terms of use.
+ */
+package eu.webtoolkit.jwt.chart;
+
+import eu.webtoolkit.jwt.*;
+import eu.webtoolkit.jwt.servlet.*;
+import eu.webtoolkit.jwt.utils.*;
+import java.io.*;
+import java.lang.ref.*;
+import java.time.*;
+import java.util.*;
+import java.util.regex.*;
+import javax.servlet.*;
+import javax.servlet.http.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A {@link WAbstractChartModel} for streaming data, that keeps a bounded window of rows.
+ *
+ * <p>Rows can only be appended to the model. When the number of rows reaches the capacity of the
+ * model, appending a row drops the oldest row. The data is stored in a ring buffer, so that
+ * appending a row does not move the other rows.
+ *
+ * <p>An interactive {@link WCartesianChart} of type {@link ChartType#Scatter} that displays this
+ * model updates the curves of its line series incrementally: when rows are appended, only the
+ * new points, and the number of points that were dropped, are sent to the browser, instead of
+ * painting the chart again. This applies as long as the axes of the series have a fixed range (see
+ * {@link WAxis#setRange(double minimum, double maximum) WAxis#setRange()}), and the series are
+ * plain lines, without markers, labels, fill or an {@link WAxisSliderWidget}. Otherwise, the chart
+ * is painted again for every change.
+ *
+ * <p>When rows are appended from another thread, you need to grab the application update lock, and
+ * use server push to send the changes to the browser:
+ *
+ * <pre>{@code
+ * WApplication.UpdateLock lock = app.getUpdateLock();
+ * try {
+ *   model.addRow(timestamp, value);
+ *   app.triggerUpdate();
+ * } finally {
+ *   lock.release();
+ * }
+ *
+ * }</pre>
+ */
+public class WStreamingChartModel extends WAbstractChartModel {
+  private static Logger logger = LoggerFactory.getLogger(WStreamingChartModel.class);
+
+  /**
+   * Creates a new model.
+   *
+   * <p>The model has <code>columnCount</code> columns and keeps at most <code>capacity</code> rows.
+   */
+  public WStreamingChartModel(int columnCount, int capacity) {
+    super();
+    if (columnCount < 1 || capacity < 1) {
+      throw new WException("WStreamingChartModel: invalid column count or capacity");
+    }
+    this.data_ = new double[columnCount][capacity];
+    this.headers_ = new ArrayList<WString>();
+    for (int i = 0; i < columnCount; ++i) {
+      this.headers_.add(new WString());
+    }
+    this.first_ = 0;
+    this.rowCount_ = 0;
+    this.appendedRowCount_ = 0;
+    this.revision_ = 0;
+  }
+  /**
+   * Appends a row.
+   *
+   * <p>The number of values must match the number of columns. If the model is full, the oldest row
+   * is dropped.
+   */
+  public void addRow(double... values) {
+    if (values.length != this.data_.length) {
+      throw new WException(
+          "WStreamingChartModel: row has "
+              + String.valueOf(values.length)
+              + " values, expected "
+              + String.valueOf(this.data_.length));
+    }
+    int capacity = this.getCapacity();
+    int slot = (this.first_ + this.rowCount_) % capacity;
+    for (int column = 0; column < values.length; ++column) {
+      this.data_[column][slot] = values[column];
+    }
+    ++this.appendedRowCount_;
+    if (this.rowCount_ == capacity) {
+      this.first_ = (this.first_ + 1) % capacity;
+      this.rowsChanged(0);
+    } else {
+      ++this.rowCount_;
+      this.rowsChanged(this.rowCount_ - 1);
+    }
+  }
+  /** Removes all rows. */
+  public void clear() {
+    this.first_ = 0;
+    this.rowCount_ = 0;
+    this.changed().trigger();
+  }
+  /**
+   * Returns the capacity.
+   *
+   * <p>This is the maximum number of rows that the model keeps.
+   */
+  public int getCapacity() {
+    return this.data_[0].length;
+  }
+  /**
+   * Returns the number of rows that were appended.
+   *
+   * <p>This is the total number of rows that were appended since the model was created, including
+   * the rows that were dropped since.
+   */
+  public long getAppendedRowCount() {
+    return this.appendedRowCount_;
+  }
+  /**
+   * Sets the header data of a column.
+   *
+   * <p>This is used as the name in the legend for a data series.
+   */
+  public void setHeaderData(int column, final CharSequence header) {
+    this.headers_.set(column, WString.toWString(header));
+    ++this.revision_;
+    this.changed().trigger();
+  }
+
+  public double getData(int row, int column) {
+    return this.data_[column][(this.first_ + row) % this.getCapacity()];
+  }
+
+  public void getColumn(int column, int startRow, int endRow, double[] result) {
+    double[] d = this.data_[column];
+    int start = (this.first_ + startRow) % d.length;
+    int count = endRow - startRow;
+    int n = Math.min(count, d.length - start);
+    System.arraycopy(d, start, result, 0, n);
+    System.arraycopy(d, 0, result, n, count - n);
+  }
+
+  public WString getHeaderData(int column) {
+    return this.headers_.get(column);
+  }
+
+  public int getColumnCount() {
+    return this.data_.length;
+  }
+
+  public int getRowCount() {
+    return this.rowCount_;
+  }
+
+  int getRevision() {
+    return this.revision_;
+  }
+
+  private double[][] data_;
+  private List<WString> headers_;
+  private int first_;
+  private int rowCount_;
+  private long appendedRowCount_;
+  private int revision_;
+}
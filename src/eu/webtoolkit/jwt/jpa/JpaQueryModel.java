@@ -0,0 +1,148 @@
+package eu.webtoolkit.jwt.jpa;
+
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import eu.webtoolkit.jwt.SortOrder;
+import eu.webtoolkit.jwt.WAbstractQueryModel;
+import eu.webtoolkit.jwt.WException;
+
+/**
+ * A table model that lazily fetches the results of a JPA query.
+ * <p>
+ * The model is defined by a JPQL query, and a query that counts its results:
+ *
+ * <pre>
+ * {@code
+ * JpaQueryModel<Order> model = new JpaQueryModel<Order>(entityManager,
+ *     "select o from Order o where o.status = :status",
+ *     "select count(o) from Order o where o.status = :status");
+ * model.setParameter("status", Status.Open);
+ * model.addColumn("o.id", "Order");
+ * model.addColumn("o.customer.name", "Customer");
+ *
+ * WTableView view = new WTableView();
+ * view.setModel(model);
+ * }
+ * </pre>
+ * <p>
+ * Each column field is a JPQL path expression. When the query selects an
+ * entity, the data of a column is read from the entity by calling the getters
+ * of the path, after the identification variable (e.g.
+ * <code>getCustomer().getName()</code> for <code>o.customer.name</code>). When
+ * the query selects several values, column <i>i</i> contains the <i>i</i>-th
+ * value. You may reimplement {@link #getResultData(Object, int)} to customize
+ * this.
+ * <p>
+ * The count query is executed once, and results are fetched in batches using
+ * {@link Query#setFirstResult(int)} and {@link Query#setMaxResults(int)}, as
+ * described in {@link WAbstractQueryModel}. When the model is sorted, the
+ * field of the sort column is added to the query as an <code>order by</code>
+ * clause. Since fields are pasted into the query, they should never come from
+ * user input.
+ */
+public class JpaQueryModel<Result> extends WAbstractQueryModel<Result> {
+	private static Logger logger = LoggerFactory.getLogger(JpaQueryModel.class);
+
+	private EntityManager entityManager_;
+	private String queryString_;
+	private String countQueryString_;
+	private Map<String, Object> parameters_ = new HashMap<String, Object>();
+
+	/**
+	 * Constructor
+	 *
+	 * @param entityManager the entity manager used to execute the queries
+	 * @param queryString the JPQL query, without <code>order by</code> clause
+	 * @param countQueryString a JPQL query that counts the results of
+	 *            <code>queryString</code>
+	 */
+	public JpaQueryModel(EntityManager entityManager, String queryString, String countQueryString) {
+		entityManager_ = entityManager;
+		queryString_ = queryString;
+		countQueryString_ = countQueryString;
+	}
+
+	/**
+	 * Binds a named parameter of the queries.
+	 * <p>
+	 * The parameter is bound to both the query and the count query. Call
+	 * {@link #reload()} to apply a new value to a model that is already in
+	 * use.
+	 */
+	public void setParameter(String name, Object value) {
+		parameters_.put(name, value);
+	}
+
+	/**
+	 * Returns the entity manager.
+	 */
+	public EntityManager getEntityManager() {
+		return entityManager_;
+	}
+
+	@Override
+	protected int countResults() {
+		Query query = entityManager_.createQuery(countQueryString_);
+		bindParameters(query);
+		return ((Number) query.getSingleResult()).intValue();
+	}
+
+	@Override
+	protected List<Result> fetchResults(int offset, int count) {
+		String q = queryString_;
+		if (getSortField() != null)
+			q += " order by " + getSortField() + (getSortOrder() == SortOrder.Ascending ? " asc" : " desc");
+
+		Query query = entityManager_.createQuery(q);
+		bindParameters(query);
+		query.setFirstResult(offset);
+		query.setMaxResults(count);
+
+		logger.debug("fetching {} results at {}", count, offset);
+		@SuppressWarnings("unchecked")
+		List<Result> results = query.getResultList();
+		return results;
+	}
+
+	@Override
+	protected Object getResultData(Result result, int column) {
+		if (result instanceof Object[])
+			return ((Object[]) result)[column];
+
+		String[] path = getField(column).split("\\.");
+		Object value = result;
+		for (int i = 1; i < path.length && value != null; ++i)
+			value = getProperty(value, path[i]);
+		return value;
+	}
+
+	private void bindParameters(Query query) {
+		for (Map.Entry<String, Object> p : parameters_.entrySet())
+			query.setParameter(p.getKey(), p.getValue());
+	}
+
+	private static Object getProperty(Object o, String property) {
+		String name = Character.toUpperCase(property.charAt(0)) + property.substring(1);
+		try {
+			Method m;
+			try {
+				m = o.getClass().getMethod("get" + name);
+			} catch (NoSuchMethodException e) {
+				m = o.getClass().getMethod("is" + name);
+			}
+			return m.invoke(o);
+		} catch (ReflectiveOperationException e) {
+			throw new WException("JpaQueryModel: cannot read property '" + property + "' of "
+					+ o.getClass().getName() + ": " + e);
+		}
+	}
+}
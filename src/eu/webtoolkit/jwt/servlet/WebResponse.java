@@ -10,6 +10,7 @@ import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.Writer;
 import java.util.Map;
+import java.util.zip.GZIPOutputStream;
 
 import javax.servlet.ServletOutputStream;
 import javax.servlet.WriteListener;
@@ -44,6 +45,7 @@ public class WebResponse extends HttpServletResponseWrapper {
 	private int id;
 	private ServletOutputStream outputStream;
 	private ResponseType responseType;
+	private GZIPOutputStream gzipStream;
 
 	/**
 	 * Constructor which wraps a HttpServletResponse.
@@ -140,6 +142,70 @@ public class WebResponse extends HttpServletResponseWrapper {
 		return this.outWriter;
 	}
 
+	/**
+	 * Compresses the response using gzip, if the client accepts it.
+	 * <p>
+	 * Text written to {@link #out()} afterwards is compressed while it is being written,
+	 * and the compressed stream is finished by {@link #flush()}. This must be called
+	 * before anything is written to the response.
+	 * <p>
+	 * This is an internal JWt method.
+	 * 
+	 * @return whether the response is compressed.
+	 */
+	public boolean enableCompression() {
+		if (gzipStream != null)
+			return true;
+
+		if (request == null || !acceptsGzip(request.getHeader("Accept-Encoding")))
+			return false;
+
+		try {
+			gzipStream = new GZIPOutputStream(getOutputStream(), 8192);
+			outWriter = new OutputStreamWriter(gzipStream, "UTF-8");
+		} catch (IOException e) {
+			logger.info("IOException in enableCompression", e);
+			return false;
+		}
+
+		setHeader("Content-Encoding", "gzip");
+		addHeader("Vary", "Accept-Encoding");
+		return true;
+	}
+
+	/**
+	 * Returns whether an Accept-Encoding header value accepts gzip.
+	 * <p>
+	 * This is an internal JWt method.
+	 */
+	public static boolean acceptsGzip(String acceptEncoding) {
+		if (acceptEncoding == null)
+			return false;
+
+		for (String coding : acceptEncoding.split(",")) {
+			String[] parts = coding.split(";");
+			String name = parts[0].trim();
+			if (!name.equalsIgnoreCase("gzip") && !name.equals("*"))
+				continue;
+
+			for (int i = 1; i < parts.length; ++i) {
+				String param = parts[i].trim();
+				if (param.startsWith("q=")) {
+					try {
+						if (Double.parseDouble(param.substring(2)) == 0)
+							return false;
+					} catch (NumberFormatException e) {
+						return false;
+					}
+				}
+			}
+
+			return true;
+		}
+
+		return false;
+	}
+
 	/**
 	 * Sets an ID to the WebResponse (used by JWt).
 	 * 
@@ -168,6 +234,8 @@ public class WebResponse extends HttpServletResponseWrapper {
 	public void flush() {
 		try {
 			outWriter.flush();
+			if (gzipStream != null)
+				gzipStream.finish();
 			getOutputStream().flush();
 		} catch (IOException e) {
 			logger.info("IOException in flush", e);
@@ -210,12 +210,25 @@ class ContentReader
       try {
          int bufferLength = this.buffer.length();
 
+         boolean lastWasEntity = false;
+
          for (;;) {
             String str = "";
             char ch;
 
             if (this.bufferIndex >= bufferLength) {
-               str = XMLUtil.read(this.reader, '&');
+               if (lastWasEntity) {
+                  // the entity value is not interpreted again, as in read()
+                  ch = this.reader.read();
+                  if (ch == '&') {
+                     str = "&";
+                  } else {
+                     this.reader.unread(ch);
+                     str = XMLUtil.read(this.reader, '&');
+                  }
+               } else {
+                  str = XMLUtil.read(this.reader, '&');
+               }
                ch = str.charAt(0);
             } else {
                ch = this.buffer.charAt(this.bufferIndex);
@@ -223,16 +236,20 @@ class ContentReader
                continue; // don't interprete chars in the buffer
             }
 
-            if (ch == '<') {
+            if (ch == '<' && !lastWasEntity) {
                this.reader.unread(ch);
                break;
             }
 
             if ((ch == '&') && (str.length() > 1)) {
-               if (str.charAt(1) != '#') {
+               if (str.charAt(1) != '#' && !lastWasEntity) {
                   XMLUtil.processEntity(str, this.reader, this.resolver);
+                  lastWasEntity = true;
                }
+               continue;
             }
+
+            lastWasEntity = false;
          }
       } catch (XMLParseException e) {
          throw new IOException(e.getMessage());
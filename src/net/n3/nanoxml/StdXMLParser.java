@@ -226,8 +226,11 @@ public class StdXMLParser
          String str = XMLUtil.read(this.reader, '&');
          char ch = str.charAt(0);
          if (ch == '&') {
-            XMLUtil.processEntity(str, this.reader, this.entityResolver);
-            continue;
+            // an entity reference cannot appear outside of an element, and
+            // its replacement text may contain the reference itself
+            XMLUtil.errorInvalidInput(reader.getSystemID(),
+                                      reader.getLineNr(),
+                                      str);
          }
 
          switch (ch) {
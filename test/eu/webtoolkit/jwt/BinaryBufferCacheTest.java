@@ -0,0 +1,115 @@
+package eu.webtoolkit.jwt;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.StringWriter;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class BinaryBufferCacheTest {
+	private WApplication app;
+
+	@Before
+	public void setUp() {
+		app = new WApplication(new WTestEnvironment(new Configuration()));
+	}
+
+	@After
+	public void tearDown() {
+		app.remove();
+	}
+
+	@Test
+	public void testDeduplication() {
+		BinaryBufferCache cache = new BinaryBufferCache();
+		byte[] data = bytes(1000, 0);
+
+		String ref = cache.add(data, data.length);
+		assertEquals(ref, cache.add(bytes(1000, 0), 1000));
+		assertFalse(ref.equals(cache.add(bytes(1000, 1), 1000)));
+		assertEquals(ref, cache.add(bytes(1200, 0), 1000));
+
+		String js = render(cache);
+		assertEquals(2, count(js, "\\['[0-9a-f]{32}','[^']*'\\]"));
+		assertFalse(cache.isPreloadNeeded());
+	}
+
+	@Test
+	public void testPatch() {
+		BinaryBufferCache cache = new BinaryBufferCache();
+		cache.add(bytes(1000, 0), 1000);
+		cache.add(bytes(1000, 7), 1000);
+		render(cache);
+
+		cache.clear();
+		byte[] data = bytes(1000, 0);
+		data[500] = 42;
+		data[503] = 43;
+		cache.add(data, data.length);
+		cache.add(bytes(1000, 8), 1000);
+
+		String js = render(cache);
+		assertEquals(1, count(js, "\\['[0-9a-f]{32}','[^']*','[0-9a-f]{32}','[^']*',500\\]"));
+		assertEquals(1, count(js, "\\['[0-9a-f]{32}','[^']*'\\]"));
+	}
+
+	@Test
+	public void testEviction() {
+		BinaryBufferCache cache = new BinaryBufferCache();
+		String a = cache.add(bytes(1000, 0), 1000);
+		render(cache);
+
+		cache.clear();
+		cache.add(bytes(1000, 1), 1000);
+		assertFalse(render(cache).contains("const d="));
+
+		cache.clear();
+		String js = render(cache);
+		assertTrue(js.contains("const d=['" + a.substring(a.indexOf('\'') + 1, a.lastIndexOf('\'')) + "']"));
+	}
+
+	@Test
+	public void testInitialBuffers() {
+		BinaryBufferCache cache = new BinaryBufferCache();
+		cache.setInitializing(true);
+		cache.add(bytes(1000, 0), 1000);
+		cache.setInitializing(false);
+		render(cache);
+
+		for (int i = 0; i < 3; ++i)
+			cache.clear();
+		assertFalse(cache.isPreloadNeeded());
+
+		cache.setInitializing(true);
+		cache.setInitializing(false);
+		cache.clear();
+		assertTrue(render(cache).contains("const d="));
+	}
+
+	private static byte[] bytes(int size, int seed) {
+		byte[] result = new byte[size];
+		for (int i = 0; i < size; ++i)
+			result[i] = (byte) (i * 31 + seed);
+		return result;
+	}
+
+	private static String render(BinaryBufferCache cache) {
+		StringWriter js = new StringWriter();
+		cache.renderPreload(js, "Wt");
+		return js.toString();
+	}
+
+	private static int count(String s, String regex) {
+		Matcher m = Pattern.compile(regex).matcher(s);
+		int result = 0;
+		while (m.find())
+			++result;
+		return result;
+	}
+}
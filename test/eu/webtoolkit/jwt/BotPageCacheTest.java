@@ -0,0 +1,142 @@
+package eu.webtoolkit.jwt;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import eu.webtoolkit.jwt.servlet.WebResponse;
+
+public class BotPageCacheTest {
+	private BotPageCache cache;
+	private Configuration configuration;
+	private ByteArrayOutputStream body;
+	private List<String> headers;
+
+	@Before
+	public void setUp() {
+		cache = new BotPageCache();
+		configuration = new Configuration();
+		configuration.setBotPageCacheSize(2);
+	}
+
+	private HttpServletResponse newResponse() {
+		body = new ByteArrayOutputStream();
+		headers = new ArrayList<String>();
+		final ServletOutputStream out = new ServletOutputStream() {
+			@Override
+			public void write(int b) throws IOException {
+				body.write(b);
+			}
+
+			@Override
+			public boolean isReady() {
+				return true;
+			}
+
+			@Override
+			public void setWriteListener(WriteListener listener) {
+			}
+		};
+
+		return (HttpServletResponse) Proxy.newProxyInstance(getClass().getClassLoader(),
+				new Class<?>[] { HttpServletResponse.class }, new InvocationHandler() {
+					public Object invoke(Object proxy, java.lang.reflect.Method method, Object[] args) {
+						if (method.getName().equals("getOutputStream"))
+							return out;
+						else if (method.getName().equals("addHeader") || method.getName().equals("setContentType"))
+							headers.add(method.getName() + " " + args[args.length - 1]);
+						return null;
+					}
+				});
+	}
+
+	private void render(String path, String content) throws IOException {
+		BotPageCache.Capture capture = new BotPageCache.Capture(newResponse(), new BotPageCache.Key(path, ""));
+		WebResponse response = new WebResponse(capture, null);
+		response.setContentType("text/html; charset=UTF-8");
+		response.addHeader("X-Frame-Options", "SAMEORIGIN");
+		response.out().append(content);
+		response.flush();
+		cache.store(capture, configuration);
+	}
+
+	private String serve(String path) {
+		if (!cache.serve(new BotPageCache.Key(path, ""), new WebResponse(newResponse(), null), configuration))
+			return null;
+		return body.toString();
+	}
+
+	@Test
+	public void testServe() throws IOException {
+		render("/a", "<p>a</p>");
+		assertEquals("<p>a</p>", body.toString());
+
+		assertEquals("<p>a</p>", serve("/a"));
+		assertEquals("[setContentType text/html; charset=UTF-8, addHeader SAMEORIGIN]", headers.toString());
+		assertEquals(null, serve("/b"));
+	}
+
+	@Test
+	public void testNotCacheable() throws IOException {
+		BotPageCache.Capture capture = new BotPageCache.Capture(newResponse(), new BotPageCache.Key("/a", ""));
+		WebResponse response = new WebResponse(capture, null);
+		response.setContentType("text/html");
+		response.addCookie(new Cookie("c", "v"));
+		response.flush();
+		cache.store(capture, configuration);
+
+		capture = new BotPageCache.Capture(newResponse(), new BotPageCache.Key("/b", ""));
+		response = new WebResponse(capture, null);
+		response.setStatus(404);
+		response.setContentType("text/html");
+		response.flush();
+		cache.store(capture, configuration);
+
+		assertEquals(0, cache.size());
+	}
+
+	@Test
+	public void testEviction() throws IOException {
+		render("/a", "a");
+		render("/b", "b");
+		serve("/a");
+		render("/c", "c");
+
+		assertEquals(2, cache.size());
+		assertEquals("a", serve("/a"));
+		assertEquals(null, serve("/b"));
+	}
+
+	@Test
+	public void testInvalidate() throws IOException {
+		configuration.setBotPageCacheSize(10);
+		render("/blog", "1");
+		render("/blog/news", "2");
+		render("/blogroll", "3");
+		render("/", "4");
+
+		cache.invalidate("blog");
+		assertFalse(cache.serve(new BotPageCache.Key("/blog/news", ""), new WebResponse(newResponse(), null),
+				configuration));
+		assertEquals(2, cache.size());
+		assertTrue(serve("/blogroll") != null);
+
+		cache.invalidate();
+		assertEquals(0, cache.size());
+	}
+}
@@ -0,0 +1,47 @@
+package eu.webtoolkit.jwt;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.junit.Test;
+
+public class ConfigurationTest {
+	@Test
+	public void testReadQueueAndBatchSizes() throws IOException {
+		Configuration configuration = read(
+				"<websocket-max-queued-messages>4</websocket-max-queued-messages>"
+				+ "<broadcast-batch-size>32</broadcast-batch-size>");
+
+		assertEquals(4, configuration.getWebSocketMaxQueuedMessages());
+		assertEquals(32, configuration.getBroadcastBatchSize());
+
+		configuration = read("");
+		assertEquals(16, configuration.getWebSocketMaxQueuedMessages());
+		assertEquals(256, configuration.getBroadcastBatchSize());
+	}
+
+	@Test
+	public void testInvalidInteger() throws IOException {
+		try {
+			read("<websocket-max-queued-messages>many</websocket-max-queued-messages>");
+			assertTrue(false);
+		} catch (RuntimeException e) {
+			assertTrue(e.getMessage().contains("websocket-max-queued-messages"));
+		}
+	}
+
+	private static Configuration read(String elements) throws IOException {
+		File f = File.createTempFile("jwt-config", ".xml");
+		try {
+			Files.write(f.toPath(), ("<wt-app>" + elements + "</wt-app>").getBytes(StandardCharsets.UTF_8));
+			return new Configuration(f);
+		} finally {
+			f.delete();
+		}
+	}
+}
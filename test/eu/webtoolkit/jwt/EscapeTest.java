@@ -20,4 +20,22 @@ public class EscapeTest {
 		
 		assertEquals("\"", WWebWidget.unescapeText(toUnescape));
 	}
+
+	@Test
+	public void testNestedEscape() {
+		EscapeOStream out = new EscapeOStream();
+		out.pushEscape(EscapeOStream.RuleSet.JsStringLiteralSQuote);
+		EscapeOStream attribute = out.push();
+		attribute.pushEscape(EscapeOStream.RuleSet.HtmlAttribute);
+
+		attribute.append("a\"b'\n&");
+		out.append("<'>");
+		attribute.append('"');
+
+		assertEquals("a&#34;b\\'\\n&amp;<\\'>&#34;", out.toString());
+
+		attribute.popEscape();
+		attribute.append("\t&");
+		assertEquals("a&#34;b\\'\\n&amp;<\\'>&#34;\\t&", out.toString());
+	}
 }
@@ -0,0 +1,43 @@
+package eu.webtoolkit.jwt;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.file.Files;
+
+import org.junit.Test;
+
+public class FontSupportTest {
+	@Test
+	public void testFontCollectionChanged() throws Exception {
+		File dir = Files.createTempDirectory("fonts").toFile();
+		File foo = new File(dir, "foo.ttf");
+		File bar = new File(dir, "bar.ttf");
+		try {
+			assertTrue(foo.createNewFile());
+
+			FontSupport fonts = new FontSupport(null);
+			fonts.addFontCollection(dir.getAbsolutePath(), false);
+
+			WFont font = new WFont();
+			font.setFamily(FontFamily.Default, "Foo");
+			assertEquals(foo.getAbsolutePath(), fonts.matchFont(font).getFileName());
+
+			font.setFamily(FontFamily.Default, "Bar");
+			assertFalse(fonts.matchFont(font).isMatched());
+
+			assertTrue(bar.createNewFile());
+			dir.setLastModified(dir.lastModified() + 10000);
+			Thread.sleep(FontSupport.FONT_FILES_CHECK_INTERVAL + 100);
+
+			// the collection is scanned again, and the cached match is discarded
+			assertEquals(bar.getAbsolutePath(), fonts.matchFont(font).getFileName());
+		} finally {
+			foo.delete();
+			bar.delete();
+			dir.delete();
+		}
+	}
+}
@@ -0,0 +1,39 @@
+package eu.webtoolkit.jwt;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+public class LruCacheTest {
+	@Test
+	public void testEviction() {
+		LruCache<String, Integer> cache = new LruCache<String, Integer>(3);
+		cache.put("a", 1);
+		cache.put("b", 2);
+		cache.put("c", 3);
+
+		// "a" is used, so "b" is the least recently used entry
+		assertEquals(Integer.valueOf(1), cache.get("a"));
+		cache.put("d", 4);
+
+		assertEquals(3, cache.size());
+		assertNull(cache.get("b"));
+		assertEquals(Integer.valueOf(1), cache.get("a"));
+		assertEquals(Integer.valueOf(3), cache.get("c"));
+		assertEquals(Integer.valueOf(4), cache.get("d"));
+	}
+
+	@Test
+	public void testCompute() {
+		LruCache<String, Integer> cache = new LruCache<String, Integer>(2);
+		final int[] computed = { 0 };
+
+		assertEquals(Integer.valueOf(3), cache.get("abc", k -> { ++computed[0]; return k.length(); }));
+		assertEquals(Integer.valueOf(3), cache.get("abc", k -> { ++computed[0]; return k.length(); }));
+		assertEquals(1, computed[0]);
+
+		assertNull(cache.get("x", k -> null));
+		assertEquals(1, cache.size());
+	}
+}
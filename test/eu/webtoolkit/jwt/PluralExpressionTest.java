@@ -3,6 +3,8 @@ package eu.webtoolkit.jwt;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
 
 public class PluralExpressionTest {
 	int eval(final String expression, long n) {
@@ -169,4 +171,29 @@ public class PluralExpressionTest {
     		assertEquals(1, eval(e, 204));
     	}
     }
+
+    @Test
+    public void compiledExpressionTest() {
+    	final String e = "n==1 ? 0 : n==2 ? 1 : 2";
+    	final PluralExpression compiled = PluralExpression.compile(e);
+
+    	assertSame(compiled, PluralExpression.compile(e));
+    	for (int round = 0; round < 2; ++round) {
+    		assertEquals(2, compiled.evaluate(0));
+    		assertEquals(0, compiled.evaluate(1));
+    		assertEquals(1, compiled.evaluate(2));
+    		assertEquals(2, compiled.evaluate(1000));
+    	}
+    }
+
+    @Test
+    public void invalidExpressionTest() {
+    	for (int round = 0; round < 2; ++round) {
+    		try {
+    			eval("n ==", 1);
+    			fail("expected a WException");
+    		} catch (WException e) {
+    		}
+    	}
+    }
 }
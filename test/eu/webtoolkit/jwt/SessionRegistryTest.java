@@ -0,0 +1,153 @@
+package eu.webtoolkit.jwt;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class SessionRegistryTest {
+	private TestController servlet;
+	private SessionRegistry registry;
+
+	@Before
+	public void setUp() {
+		servlet = new TestController(new Configuration());
+		registry = new SessionRegistry();
+	}
+
+	@Test
+	public void testAddRemove() {
+		WebSession s1 = newSession("s1", false);
+		WebSession s2 = newSession("s2", false);
+
+		assertEquals(0, registry.size());
+		assertNull(registry.get("s1"));
+
+		assertEquals(1, registry.add(s1));
+		assertEquals(2, registry.add(s2));
+		assertSame(s1, registry.get("s1"));
+		assertSame(s2, registry.get("s2"));
+
+		assertEquals(1, registry.remove(s1));
+		assertNull(registry.get("s1"));
+
+		/* Removing a session twice has no effect */
+		assertEquals(1, registry.remove(s1));
+
+		registry.remove("s2");
+		registry.remove("unknown");
+		assertEquals(0, registry.size());
+		assertNull(registry.get("s2"));
+	}
+
+	@Test
+	public void testAjaxSessionCount() {
+		WebSession plain = newSession("plain", false);
+		WebSession ajax = newSession("ajax", true);
+
+		registry.add(plain);
+		registry.add(ajax);
+		registry.newAjaxSession();
+		assertEquals(1, registry.getAjaxSessionCount());
+
+		registry.remove(plain);
+		assertEquals(1, registry.getAjaxSessionCount());
+
+		registry.remove("ajax");
+		assertEquals(0, registry.getAjaxSessionCount());
+
+		/* A session that is no longer registered is not counted twice */
+		registry.remove(ajax);
+		assertEquals(0, registry.getAjaxSessionCount());
+	}
+
+	@Test
+	public void testSessionAge() throws Exception {
+		assertEquals(0, registry.getMaxSessionAge());
+		assertEquals(0, registry.getAverageSessionAge());
+
+		registry.add(newSession("s1", false));
+		Thread.sleep(50);
+		registry.add(newSession("s2", false));
+
+		long max = registry.getMaxSessionAge();
+		long average = registry.getAverageSessionAge();
+		assertTrue(max >= 50);
+		assertTrue(average <= max);
+		assertTrue(average >= 25);
+	}
+
+	@Test
+	public void testIterationWhileModified() {
+		for (int i = 0; i < 10; ++i)
+			registry.add(newSession("s" + i, false));
+
+		Set<String> seen = new HashSet<String>();
+		int added = 0;
+		for (WebSession s : registry.getSessions()) {
+			seen.add(s.getSessionId());
+			registry.remove(s);
+			if (added < 5)
+				registry.add(newSession("n" + added++, false));
+		}
+
+		for (int i = 0; i < 10; ++i)
+			assertTrue(seen.contains("s" + i));
+		for (WebSession s : registry.getSessions())
+			assertFalse(s.getSessionId().startsWith("s"));
+	}
+
+	@Test
+	public void testConcurrentUpdates() throws Exception {
+		final int threads = 4;
+		final int sessionsPerThread = 200;
+		final CountDownLatch start = new CountDownLatch(1);
+		final AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+		final List<WebSession> sessions = new ArrayList<WebSession>();
+		for (int i = 0; i < threads * sessionsPerThread; ++i)
+			sessions.add(newSession("s" + i, true));
+
+		List<Thread> workers = new ArrayList<Thread>();
+		for (int t = 0; t < threads; ++t) {
+			final int first = t * sessionsPerThread;
+			workers.add(new Thread(() -> {
+				try {
+					start.await();
+					for (int i = first; i < first + sessionsPerThread; ++i) {
+						registry.add(sessions.get(i));
+						registry.newAjaxSession();
+						for (WebSession s : registry.getSessions())
+							assertNotNull(s);
+						if (i % 2 == 0)
+							registry.remove(sessions.get(i));
+					}
+				} catch (Throwable e) {
+					error.set(e);
+				}
+			}));
+		}
+
+		for (Thread w : workers)
+			w.start();
+		start.countDown();
+		for (Thread w : workers)
+			w.join();
+
+		assertNull(error.get());
+		assertEquals(threads * sessionsPerThread / 2, registry.size());
+		assertEquals(threads * sessionsPerThread / 2, registry.getAjaxSessionCount());
+	}
+
+	private WebSession newSession(String sessionId, boolean ajax) {
+		WebSession session = new WebSession(servlet, sessionId, EntryPointType.Application, "", null);
+		session.getEnv().doesAjax_ = ajax;
+		return session;
+	}
+}
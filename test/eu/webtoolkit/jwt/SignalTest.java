@@ -0,0 +1,94 @@
+package eu.webtoolkit.jwt;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class SignalTest {
+	private StringBuilder log = new StringBuilder();
+
+	private class Logger implements Signal1.Listener<Integer> {
+		private String name;
+
+		Logger(String name) {
+			this.name = name;
+		}
+
+		public void trigger(Integer arg) {
+			log.append(name).append(arg).append(' ');
+		}
+	}
+
+	@Test
+	public void testTriggerOrder() {
+		WObject owner = new WObject();
+		Signal1<Integer> signal = new Signal1<Integer>();
+		signal.addListener(owner, new Logger("a"));
+		signal.addListener(null, new Logger("b"));
+		signal.addListener(owner, new Logger("c"));
+		signal.addListener(null, new Logger("d"));
+
+		signal.trigger(1);
+		assertEquals("b1 d1 a1 c1 ", log.toString());
+
+		signal.setBlocked(true);
+		signal.trigger(2);
+		assertEquals("b1 d1 a1 c1 ", log.toString());
+	}
+
+	@Test
+	public void testModifyWhileTriggering() {
+		final Signal1<Integer> signal = new Signal1<Integer>();
+		final Logger b = new Logger("b");
+		signal.addListener(null, new Signal1.Listener<Integer>() {
+			public void trigger(Integer arg) {
+				signal.removeListener(b);
+				signal.addListener(null, new Logger("c"));
+			}
+		});
+		AbstractSignal.Connection connection = signal.addListener(null, b);
+
+		signal.trigger(1);
+		assertEquals("b1 ", log.toString());
+		assertFalse(connection.isConnected());
+		assertEquals(2, signal.getListenerCount());
+	}
+
+	@Test
+	public void testRemoveWrappedListener() {
+		Signal1<Integer> signal = new Signal1<Integer>();
+		Signal.Listener listener = new Signal.Listener() {
+			public void trigger() {
+				log.append("x ");
+			}
+		};
+		AbstractSignal.Connection connection = signal.addListener(null, listener);
+		assertTrue(connection.isConnected());
+
+		signal.trigger(1);
+		signal.removeListener(listener);
+		signal.trigger(2);
+		assertEquals("x ", log.toString());
+		assertFalse(connection.isConnected());
+		assertFalse(signal.isConnected());
+	}
+
+	@Test
+	public void testDisconnectOwner() {
+		WObject owner = new WObject();
+		Signal1<Integer> signal = new Signal1<Integer>();
+		signal.addListener(owner, new Logger("a"));
+		signal.addListener(owner, new Signal.Listener() {
+			public void trigger() {
+				log.append("x ");
+			}
+		});
+		signal.addListener(null, new Logger("b"));
+
+		owner.remove();
+		signal.trigger(1);
+		assertEquals("b1 ", log.toString());
+	}
+}
@@ -0,0 +1,174 @@
+package eu.webtoolkit.jwt;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.Test;
+
+import eu.webtoolkit.jwt.servlet.WebResponse;
+
+public class StaticAssetStoreTest {
+	@Test
+	public void testAcceptsGzip() {
+		assertTrue(WebResponse.acceptsGzip("gzip, deflate, br"));
+		assertTrue(WebResponse.acceptsGzip("br;q=1.0, gzip;q=0.8"));
+		assertTrue(WebResponse.acceptsGzip("*"));
+		assertFalse(WebResponse.acceptsGzip("gzip;q=0"));
+		assertFalse(WebResponse.acceptsGzip("deflate"));
+		assertFalse(WebResponse.acceptsGzip(null));
+	}
+
+	@Test
+	public void testEtagMatches() {
+		assertTrue(StaticAssetStore.etagMatches("\"abc\"", "\"abc\""));
+		assertTrue(StaticAssetStore.etagMatches("\"abc\"", "\"xyz\", W/\"abc\""));
+		assertTrue(StaticAssetStore.etagMatches("\"abc\"", "*"));
+		assertFalse(StaticAssetStore.etagMatches("\"abc\"", "\"abd\""));
+	}
+
+	@Test
+	public void testAssetIsLoadedOnce() throws Exception {
+		StaticAssetStore store = new StaticAssetStore("/eu/webtoolkit/jwt/");
+
+		StaticAssetStore.Asset asset = store.getAsset("wt.xml");
+		assertNotNull(asset);
+		assertEquals("application/xml", asset.mimeType);
+		assertNotNull(asset.gzipData);
+		assertTrue(asset.gzipData.length < asset.data.length);
+		assertEquals(StaticAssetStore.computeETag(asset.data), asset.etag);
+		assertSame(asset, store.getAsset("wt.xml"));
+
+		assertNull(store.getAsset("../jwt/wt.xml"));
+	}
+
+	@Test
+	public void testLastModified() throws Exception {
+		StaticAssetStore store = new StaticAssetStore("/eu/webtoolkit/jwt/");
+
+		StaticAssetStore.Asset asset = store.getAsset("wt.xml");
+		long lastModified = FileUtils.getResource("/eu/webtoolkit/jwt/wt.xml").openConnection().getLastModified();
+		assertEquals(lastModified, asset.lastModified);
+	}
+
+	@Test
+	public void testVersionedUrl() throws Exception {
+		StaticAssetStore store = new StaticAssetStore("/eu/webtoolkit/jwt/");
+
+		StaticAssetStore.Asset asset = store.getAsset("wt.xml");
+		assertEquals("wt.xml?wtv=" + asset.version, store.getVersionedUrl("wt.xml", "wt.xml"));
+		assertEquals("wt.xml?a=b&wtv=" + asset.version, store.getVersionedUrl("wt.xml?a=b", "wt.xml"));
+		assertEquals("missing.css", store.getVersionedUrl("missing.css", "missing.css"));
+	}
+
+	@Test
+	public void testServeGzip() throws Exception {
+		StaticAssetStore store = new StaticAssetStore("/eu/webtoolkit/jwt/");
+		StaticAssetStore.Asset asset = store.getAsset("wt.xml");
+		assertTrue(asset.gzipEtag.endsWith("-gzip\""));
+		assertNotEquals(asset.etag, asset.gzipEtag);
+
+		Map<String, String> requestHeaders = new HashMap<String, String>();
+		requestHeaders.put("Accept-Encoding", "gzip");
+		Map<String, Object> headers = serve(store, requestHeaders, null);
+		assertEquals(asset.gzipEtag, headers.get("ETag"));
+		assertEquals("gzip", headers.get("Content-Encoding"));
+		assertEquals("Accept-Encoding", headers.get("Vary"));
+		assertEquals(asset.lastModified, headers.get("Last-Modified"));
+
+		headers = serve(store, new HashMap<String, String>(), null);
+		assertEquals(asset.etag, headers.get("ETag"));
+		assertNull(headers.get("Content-Encoding"));
+		assertEquals("Accept-Encoding", headers.get("Vary"));
+
+		// the ETag of one representation does not validate the other
+		requestHeaders.put("If-None-Match", asset.etag);
+		headers = serve(store, requestHeaders, null);
+		assertNull(headers.get("status"));
+		requestHeaders.put("If-None-Match", asset.gzipEtag);
+		headers = serve(store, requestHeaders, null);
+		assertEquals(HttpServletResponse.SC_NOT_MODIFIED, headers.get("status"));
+	}
+
+	@Test
+	public void testServeImmutable() throws Exception {
+		StaticAssetStore store = new StaticAssetStore("/eu/webtoolkit/jwt/");
+		StaticAssetStore.Asset asset = store.getAsset("wt.xml");
+		Map<String, String> requestHeaders = new HashMap<String, String>();
+
+		assertEquals("public, max-age=60", serve(store, requestHeaders, null).get("Cache-Control"));
+		assertEquals("public, max-age=60", serve(store, requestHeaders, "0123").get("Cache-Control"));
+		assertTrue(((String) serve(store, requestHeaders, asset.version).get("Cache-Control")).endsWith("immutable"));
+	}
+
+	/*
+	 * Serves wt.xml, returning the response headers and status.
+	 */
+	private Map<String, Object> serve(StaticAssetStore store, final Map<String, String> requestHeaders,
+			final String version) throws Exception {
+		final Map<String, Object> headers = new HashMap<String, Object>();
+		final ServletOutputStream out = new ServletOutputStream() {
+			private ByteArrayOutputStream body = new ByteArrayOutputStream();
+
+			@Override
+			public void write(int b) {
+				body.write(b);
+			}
+
+			@Override
+			public boolean isReady() {
+				return true;
+			}
+
+			@Override
+			public void setWriteListener(WriteListener listener) {
+			}
+		};
+
+		HttpServletRequest request = (HttpServletRequest) Proxy.newProxyInstance(getClass().getClassLoader(),
+				new Class<?>[] { HttpServletRequest.class }, new InvocationHandler() {
+					public Object invoke(Object proxy, java.lang.reflect.Method method, Object[] args) {
+						if (method.getName().equals("getHeader"))
+							return requestHeaders.get(args[0]);
+						else if (method.getName().equals("getDateHeader"))
+							return -1L;
+						else if (method.getName().equals("getParameter"))
+							return StaticAssetStore.VERSION_PARAMETER.equals(args[0]) ? version : null;
+						else if (method.getName().equals("getMethod"))
+							return "GET";
+						return null;
+					}
+				});
+
+		HttpServletResponse response = (HttpServletResponse) Proxy.newProxyInstance(getClass().getClassLoader(),
+				new Class<?>[] { HttpServletResponse.class }, new InvocationHandler() {
+					public Object invoke(Object proxy, java.lang.reflect.Method method, Object[] args) {
+						if (method.getName().equals("getOutputStream"))
+							return out;
+						else if (method.getName().startsWith("set") && method.getName().endsWith("Header"))
+							headers.put((String) args[0], args[1]);
+						else if (method.getName().equals("setStatus"))
+							headers.put("status", args[0]);
+						return null;
+					}
+				});
+
+		assertTrue(store.serve("wt.xml", request, response, 60));
+		return headers;
+	}
+}
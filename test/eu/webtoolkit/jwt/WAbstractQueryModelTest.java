@@ -0,0 +1,121 @@
+package eu.webtoolkit.jwt;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class WAbstractQueryModelTest {
+	private static class NumberModel extends WAbstractQueryModel<Integer> {
+		private List<String> queries = new ArrayList<String>();
+		private int count;
+
+		NumberModel(int count) {
+			this.count = count;
+			addColumn("n", "Number");
+		}
+
+		@Override
+		protected int countResults() {
+			queries.add("count");
+			return count;
+		}
+
+		@Override
+		protected List<Integer> fetchResults(int offset, int limit) {
+			queries.add((getSortOrder() == SortOrder.Descending ? "desc " : "") + offset + "+" + limit);
+			List<Integer> result = new ArrayList<Integer>();
+			for (int i = offset; i < Math.min(count, offset + limit); ++i)
+				result.add(getSortOrder() == SortOrder.Descending ? count - 1 - i : i);
+			return result;
+		}
+
+		@Override
+		protected Object getResultData(Integer result, int column) {
+			return result;
+		}
+	}
+
+	private NumberModel model;
+
+	@Before
+	public void setUp() {
+		model = new NumberModel(1000);
+		model.setBatchSize(10);
+		model.setCacheSize(3);
+	}
+
+	@Test
+	public void testFetchOnDemand() {
+		assertEquals(1000, model.getRowCount());
+		assertEquals(1000, model.getRowCount());
+		assertEquals(45, model.getData(45, 0));
+		assertEquals(42, model.getData(42, 0));
+		assertEquals(999, model.getData(999, 0));
+		assertEquals("[count, 40+10, 990+10]", model.queries.toString());
+	}
+
+	@Test
+	public void testPrefetch() {
+		for (int row = 0; row < 40; ++row)
+			assertEquals(row, model.getData(row, 0));
+		assertEquals("[count, 0+10, 10+20, 30+20]", model.queries.toString());
+
+		model.queries.clear();
+		for (int row = 199; row >= 170; --row)
+			assertEquals(row, model.getData(row, 0));
+		assertEquals("[190+20, 170+20]", model.queries.toString());
+	}
+
+	@Test
+	public void testCacheSize() {
+		model.getData(0, 0);
+		model.getData(500, 0);
+		model.getData(0, 0);
+		model.getData(300, 0);
+		model.getData(0, 0);
+		model.getData(500, 0);
+		assertEquals("[count, 0+10, 500+20, 300+20, 500+20]", model.queries.toString());
+	}
+
+	@Test
+	public void testSort() {
+		model.getData(0, 0);
+		model.sort(0, SortOrder.Descending);
+		assertEquals("n", model.getSortField());
+		assertEquals(999, model.getData(0, 0));
+		assertEquals("[count, 0+10, desc 0+10]", model.queries.toString());
+	}
+
+	@Test
+	public void testResultsShrunk() {
+		WTestEnvironment env = new WTestEnvironment(new Configuration());
+		WApplication app = new WApplication(env);
+
+		final int[] resets = { 0 };
+		model.modelReset().addListener(null, () -> ++resets[0]);
+
+		assertEquals(1000, model.getRowCount());
+		model.count = 995;
+		assertEquals(994, model.getData(994, 0));
+		assertNull(model.getData(995, 0));
+		assertNull(model.getData(999, 0));
+		assertEquals(1000, model.getRowCount());
+		assertEquals(0, resets[0]);
+
+		/* The reload is scheduled with a timer */
+		WContainerWidget timers = app.getTimerRoot();
+		assertEquals(1, timers.getCount());
+		((WInteractWidget) timers.getWidget(0)).clicked().trigger(new WMouseEvent());
+
+		assertEquals(1, resets[0]);
+		assertEquals(995, model.getRowCount());
+		assertEquals(0, timers.getCount());
+
+		env.close();
+	}
+}
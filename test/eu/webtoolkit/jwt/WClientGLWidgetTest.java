@@ -0,0 +1,103 @@
+package eu.webtoolkit.jwt;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class WClientGLWidgetTest {
+	private WApplication app;
+
+	@Before
+	public void setUp() {
+		app = new WApplication(new WTestEnvironment(new Configuration()));
+	}
+
+	@After
+	public void tearDown() {
+		app.remove();
+	}
+
+	@Test
+	public void testBinaryTransferable() {
+		assertTrue(WClientGLWidget.isBinaryTransferable(floats(ByteBuffer.allocate(1024), ByteOrder.LITTLE_ENDIAN)));
+		assertFalse(WClientGLWidget.isBinaryTransferable(floats(ByteBuffer.allocate(1024), ByteOrder.BIG_ENDIAN)));
+		assertFalse(WClientGLWidget.isBinaryTransferable(floats(ByteBuffer.allocateDirect(1024), ByteOrder.LITTLE_ENDIAN)));
+		assertFalse(WClientGLWidget.isBinaryTransferable(floats(ByteBuffer.allocate(64), ByteOrder.LITTLE_ENDIAN)));
+	}
+
+	@Test
+	public void testBufferData() {
+		final ByteBuffer little = floats(ByteBuffer.allocate(1024), ByteOrder.LITTLE_ENDIAN);
+		final ByteBuffer big = floats(ByteBuffer.allocate(1024), ByteOrder.BIG_ENDIAN);
+		final ByteBuffer direct = floats(ByteBuffer.allocateDirect(1024), ByteOrder.LITTLE_ENDIAN);
+
+		final WClientGLWidget[] gl = new WClientGLWidget[1];
+		gl[0] = new WClientGLWidget(new WGLWidget() {
+			@Override
+			protected void initializeGL() {
+				gl[0].bufferDatafv(GLenum.ARRAY_BUFFER, little, GLenum.STATIC_DRAW, true);
+				gl[0].bufferDatafv(GLenum.ARRAY_BUFFER, big, GLenum.STATIC_DRAW, true);
+				gl[0].bufferSubDatafv(GLenum.ARRAY_BUFFER, 0, direct, true);
+				gl[0].bufferDatafv(GLenum.ARRAY_BUFFER, little.asFloatBuffer(), GLenum.STATIC_DRAW);
+			}
+		});
+
+		app.afterLoadJavaScript_ = "";
+		gl[0].render("o", EnumSet.of(RenderFlag.Full));
+		String js = app.afterLoadJavaScript_;
+
+		// only the little endian heap buffer with binary=true is sent as binary data
+		assertEquals(1, count(js, "obj.wtBuffers\\['[0-9a-f]{32}'\\]"));
+		assertEquals(3, count(js, "new Float32Array\\(\\[0.0,1.0,2.0,3.0,"));
+	}
+
+	@Test
+	public void testBinaryIsDefault() {
+		final List<Boolean> binary = new ArrayList<Boolean>();
+		WGLWidget gl = new WGLWidget() {
+			@Override
+			public void bufferDatafv(GLenum target, ByteBuffer buffer, GLenum usage, boolean b) {
+				binary.add(b);
+			}
+
+			@Override
+			public void bufferSubDatafv(GLenum target, int offset, ByteBuffer buffer, boolean b) {
+				binary.add(b);
+			}
+		};
+
+		ByteBuffer buffer = floats(ByteBuffer.allocate(1024), ByteOrder.LITTLE_ENDIAN);
+		gl.bufferDatafv(WGLWidget.GLenum.ARRAY_BUFFER, buffer, WGLWidget.GLenum.STATIC_DRAW);
+		gl.bufferSubDatafv(WGLWidget.GLenum.ARRAY_BUFFER, 0, buffer);
+		assertEquals(Arrays.asList(true, true), binary);
+	}
+
+	private static ByteBuffer floats(ByteBuffer buffer, ByteOrder order) {
+		buffer.order(order);
+		for (int i = 0; i < buffer.capacity() / 4; ++i)
+			buffer.putFloat(i);
+		buffer.rewind();
+		return buffer;
+	}
+
+	private static int count(String s, String regex) {
+		Matcher m = Pattern.compile(regex).matcher(s);
+		int result = 0;
+		while (m.find())
+			++result;
+		return result;
+	}
+}
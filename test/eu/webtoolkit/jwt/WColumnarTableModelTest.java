@@ -0,0 +1,193 @@
+package eu.webtoolkit.jwt;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import eu.webtoolkit.jwt.chart.WStandardChartProxyModel;
+
+public class WColumnarTableModelTest {
+	private WColumnarTableModel model;
+	private List<String> signals;
+
+	@Before
+	public void setUp() {
+		model = new WColumnarTableModel();
+		model.addColumn("Name", String.class);
+		model.addColumn("Amount", Double.class);
+		model.addColumn("Count", Integer.class);
+
+		signals = new ArrayList<String>();
+		model.rowsInserted().addListener(null, (WModelIndex parent, Integer first, Integer last) -> {
+			signals.add("inserted " + first + "-" + last);
+		});
+		model.rowsRemoved().addListener(null, (WModelIndex parent, Integer first, Integer last) -> {
+			signals.add("removed " + first + "-" + last);
+		});
+	}
+
+	@Test
+	public void testInsertRemove() {
+		List<Object[]> rows = new ArrayList<Object[]>();
+		rows.add(new Object[] { "a", 1.5, 1 });
+		rows.add(new Object[] { "b", null, 2 });
+		rows.add(new Object[] { "a", 3.0 });
+		model.appendRows(rows);
+		model.setData(2, 0, "red", ItemDataRole.StyleClass);
+
+		rows.clear();
+		rows.add(new Object[] { "c", 0.5, 0 });
+		rows.add(new Object[] { "d", 0.25, 0 });
+		model.insertRows(1, rows);
+		model.removeRows(0, 2);
+
+		assertEquals("[inserted 0-2, inserted 1-2, removed 0-1]", signals.toString());
+		assertEquals(3, model.getRowCount());
+		assertEquals("d b a", column(0));
+		assertEquals("0.25 null 3.0", column(1));
+		assertEquals("0 2 null", column(2));
+		assertEquals(null, model.getData(1, 0, ItemDataRole.StyleClass));
+		assertEquals("red", model.getData(2, 0, ItemDataRole.StyleClass));
+	}
+
+	@Test
+	public void testSetData() {
+		model.appendRow("a", 1.0, 1);
+
+		assertTrue(model.setData(0, 1, "2.5"));
+		assertEquals(2.5, model.getData(0, 1));
+		assertTrue(model.setData(0, 2, 7L));
+		assertEquals(7, model.getData(0, 2));
+		assertFalse(model.setData(0, 2, "seven"));
+		assertEquals(7, model.getData(0, 2));
+		assertTrue(model.setData(0, 1, null));
+		assertEquals(null, model.getData(0, 1));
+	}
+
+	@Test
+	public void testIntegralColumns() {
+		model.addColumn("Total", Long.class);
+		model.appendRow("a", 1.0, 1, 1L);
+
+		assertTrue(model.setData(0, 2, 3.0));
+		assertEquals(3, model.getData(0, 2));
+		assertTrue(model.setData(0, 2, new java.math.BigDecimal("4.00")));
+		assertEquals(4, model.getData(0, 2));
+
+		/* Values with a fractional part or out of range are not truncated */
+		assertFalse(model.setData(0, 2, 2.7));
+		assertFalse(model.setData(0, 2, (long) Integer.MAX_VALUE + 1));
+		assertFalse(model.setData(0, 2, Double.NaN));
+		assertEquals(4, model.getData(0, 2));
+
+		assertTrue(model.setData(0, 3, Long.MAX_VALUE));
+		assertEquals(Long.MAX_VALUE, model.getData(0, 3));
+		assertFalse(model.setData(0, 3, 0x1p63));
+		assertFalse(model.setData(0, 3, new java.math.BigInteger("9223372036854775808")));
+		assertFalse(model.setData(0, 3, 1.5f));
+		assertEquals(Long.MAX_VALUE, model.getData(0, 3));
+	}
+
+	@Test
+	public void testRemoveInvalid() {
+		model.appendRow("a", 1.0, 1);
+		model.appendRow("b", 2.0, 2);
+		signals.clear();
+
+		assertFalse(model.removeRows(-1, 1, null));
+		assertFalse(model.removeRows(1, 2, null));
+		assertFalse(model.removeRows(2, 1, null));
+		assertEquals("[]", signals.toString());
+		assertEquals(2, model.getRowCount());
+
+		assertTrue(model.removeRows(1, 1, null));
+		assertEquals("[removed 1-1]", signals.toString());
+	}
+
+	@Test
+	public void testInsertInvalid() {
+		model.appendRow("a", 1.0, 1);
+		signals.clear();
+
+		List<Object[]> rows = new ArrayList<Object[]>();
+		rows.add(new Object[] { "b", 2.0, 2 });
+		rows.add(new Object[] { "c", "three", 3 });
+		try {
+			model.insertRows(0, rows);
+			assertTrue(false);
+		} catch (WException e) {
+		}
+
+		assertEquals("[]", signals.toString());
+		assertEquals(1, model.getRowCount());
+		assertEquals("a", column(0));
+	}
+
+	@Test
+	public void testPrimitiveObjectColumn() {
+		model.addColumn("Ratio", float.class);
+		model.appendRow("a", 1.0, 1, 0.5f);
+
+		assertEquals(0.5f, model.getData(0, 3));
+		assertFalse(model.setData(0, 3, "0.5"));
+	}
+
+	@Test
+	public void testCompactDictionary() {
+		for (int i = 0; i < 10; ++i)
+			model.appendRow("s" + i, (double) i, i);
+		model.setData(9, 0, null);
+		model.removeRows(0, 7);
+		model.setData(0, 0, "s1");
+
+		assertEquals("s1 s8 null", column(0));
+		model.sort(0, SortOrder.Ascending);
+		assertEquals("null s1 s8", column(0));
+	}
+
+	@Test
+	public void testSort() {
+		model.appendRow("b", 2.0, 1);
+		model.appendRow("a", null, 2);
+		model.appendRow("c", 1.0, 3);
+		model.setData(2, 0, "blue", ItemDataRole.StyleClass);
+
+		model.sort(1, SortOrder.Ascending);
+		assertEquals("a c b", column(0));
+		assertEquals("2 3 1", column(2));
+		assertEquals("blue", model.getData(1, 0, ItemDataRole.StyleClass));
+
+		model.sort(0, SortOrder.Descending);
+		assertEquals("c b a", column(0));
+	}
+
+	@Test
+	public void testChartColumn() {
+		model.appendRow("1.5", 2.0, 1);
+		model.appendRow("x", null, 2);
+
+		WStandardChartProxyModel chartModel = new WStandardChartProxyModel(model);
+		for (int column = 0; column < 3; ++column) {
+			double[] result = new double[2];
+			chartModel.getColumn(column, 0, 2, result);
+			for (int row = 0; row < 2; ++row)
+				assertEquals(chartModel.getData(row, column), result[row], 0);
+		}
+	}
+
+	private String column(int column) {
+		StringBuilder result = new StringBuilder();
+		for (int row = 0; row < model.getRowCount(); ++row) {
+			if (row != 0)
+				result.append(' ');
+			result.append(model.getData(row, column));
+		}
+		return result.toString();
+	}
+}
@@ -0,0 +1,383 @@
+package eu.webtoolkit.jwt;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import eu.webtoolkit.jwt.servlet.UploadedFile;
+import eu.webtoolkit.jwt.servlet.WebRequest;
+import eu.webtoolkit.jwt.servlet.WebResponse;
+
+public class WFileResourceTest {
+	private static final long LAST_MODIFIED = 1600000000000L;
+
+	private File file;
+	private byte[] data;
+	private WFileResource resource;
+
+	private Map<String, String> requestHeaders;
+	private String method;
+
+	private int status;
+	private String contentType;
+	private Map<String, Object> headers;
+	private ByteArrayOutputStream body;
+
+	@BeforeClass
+	public static void setUpServletApi() throws Exception {
+		/* A mock web request needs the servlet API, which is set when a servlet is initialized */
+		if (WtServlet.getServletApi() == null) {
+			Field servletApi = WtServlet.class.getDeclaredField("servletApi");
+			servletApi.setAccessible(true);
+			servletApi.set(null, new ServletApi3());
+		}
+	}
+
+	@Before
+	public void setUp() throws IOException {
+		data = new byte[1000];
+		for (int i = 0; i < data.length; ++i)
+			data[i] = (byte) ('a' + i % 26);
+
+		file = File.createTempFile("jwt-file-resource", ".txt");
+		Files.write(file.toPath(), data);
+		file.setLastModified(LAST_MODIFIED);
+
+		resource = new WFileResource("text/plain", file.getAbsolutePath());
+		requestHeaders = new HashMap<String, String>();
+		method = "GET";
+	}
+
+	@After
+	public void tearDown() {
+		file.delete();
+	}
+
+	@Test
+	public void testFullResponse() {
+		handle();
+
+		assertEquals(200, status);
+		assertEquals("text/plain", contentType);
+		assertEquals("1000", headers.get("Content-Length"));
+		assertEquals("bytes", headers.get("Accept-Ranges"));
+		assertEquals(LAST_MODIFIED, headers.get("Last-Modified"));
+		assertEquals(getETag(), headers.get("ETag"));
+		assertArrayEquals(data, body.toByteArray());
+
+		file.delete();
+		handle();
+		assertEquals(404, status);
+	}
+
+	@Test
+	public void testSingleRange() {
+		requestHeaders.put("Range", "bytes=10-19");
+		handle();
+
+		assertEquals(206, status);
+		assertEquals("text/plain", contentType);
+		assertEquals("bytes 10-19/1000", headers.get("Content-Range"));
+		assertEquals("10", headers.get("Content-Length"));
+		assertArrayEquals(Arrays.copyOfRange(data, 10, 20), body.toByteArray());
+
+		/* Overlapping and adjacent ranges are coalesced */
+		requestHeaders.put("Range", "bytes=20-29,0-9,5-19");
+		handle();
+
+		assertEquals(206, status);
+		assertEquals("bytes 0-29/1000", headers.get("Content-Range"));
+		assertArrayEquals(Arrays.copyOfRange(data, 0, 30), body.toByteArray());
+	}
+
+	@Test
+	public void testMultipartRanges() {
+		requestHeaders.put("Range", "bytes=100-109,0-9");
+		handle();
+
+		assertEquals(206, status);
+		assertTrue(contentType.startsWith("multipart/byteranges; boundary="));
+		String boundary = contentType.substring(contentType.indexOf('=') + 1);
+		String expected = "\r\n--" + boundary + "\r\n"
+				+ "Content-Type: text/plain\r\n"
+				+ "Content-Range: bytes 0-9/1000\r\n\r\n"
+				+ "abcdefghij"
+				+ "\r\n--" + boundary + "\r\n"
+				+ "Content-Type: text/plain\r\n"
+				+ "Content-Range: bytes 100-109/1000\r\n\r\n"
+				+ "wxyzabcdef"
+				+ "\r\n--" + boundary + "--\r\n";
+		assertEquals(expected, new String(body.toByteArray(), StandardCharsets.US_ASCII));
+		assertEquals(Integer.toString(body.size()), headers.get("Content-Length"));
+	}
+
+	@Test
+	public void testTooManyRanges() {
+		StringBuilder range = new StringBuilder("bytes=");
+		for (int i = 0; i < 40; ++i)
+			range.append(i == 0 ? "" : ",").append(i * 20).append('-').append(i * 20 + 9);
+		requestHeaders.put("Range", range.toString());
+		handle();
+
+		assertEquals(200, status);
+		assertArrayEquals(data, body.toByteArray());
+
+		/* Ranges that coalesce into a few ranges are not too many */
+		range = new StringBuilder("bytes=");
+		for (int i = 0; i < 40; ++i)
+			range.append(i == 0 ? "" : ",").append(i * 10).append('-').append(i * 10 + 9);
+		requestHeaders.put("Range", range.toString());
+		handle();
+
+		assertEquals(206, status);
+		assertEquals("bytes 0-399/1000", headers.get("Content-Range"));
+	}
+
+	@Test
+	public void testUnsatisfiableRange() {
+		requestHeaders.put("Range", "bytes=1000-");
+		handle();
+
+		assertEquals(416, status);
+		assertEquals("bytes */1000", headers.get("Content-Range"));
+		assertEquals(0, body.size());
+
+		/* An invalid header is ignored */
+		requestHeaders.put("Range", "bytes=50-10");
+		handle();
+		assertEquals(200, status);
+		assertArrayEquals(data, body.toByteArray());
+	}
+
+	@Test
+	public void testNotModified() {
+		requestHeaders.put("If-None-Match", "\"other\", " + getETag());
+		handle();
+		assertEquals(304, status);
+		assertEquals(0, body.size());
+
+		requestHeaders.put("If-None-Match", "\"other\"");
+		handle();
+		assertEquals(200, status);
+		assertArrayEquals(data, body.toByteArray());
+
+		requestHeaders.clear();
+		requestHeaders.put("If-Modified-Since", httpDate(LAST_MODIFIED));
+		handle();
+		assertEquals(304, status);
+		assertEquals(0, body.size());
+
+		requestHeaders.put("If-Modified-Since", httpDate(LAST_MODIFIED - 1000));
+		handle();
+		assertEquals(200, status);
+		assertArrayEquals(data, body.toByteArray());
+	}
+
+	@Test
+	public void testIfRange() {
+		requestHeaders.put("Range", "bytes=10-19");
+		requestHeaders.put("If-Range", getETag());
+		handle();
+		assertEquals(206, status);
+		assertEquals(10, body.size());
+
+		requestHeaders.put("If-Range", httpDate(LAST_MODIFIED));
+		handle();
+		assertEquals(206, status);
+
+		/* The file changed since the client got its part: send all of it */
+		requestHeaders.put("If-Range", "\"other\"");
+		handle();
+		assertEquals(200, status);
+		assertNull(headers.get("Content-Range"));
+		assertArrayEquals(data, body.toByteArray());
+
+		requestHeaders.put("If-Range", httpDate(LAST_MODIFIED - 1000));
+		handle();
+		assertEquals(200, status);
+		assertArrayEquals(data, body.toByteArray());
+	}
+
+	@Test
+	public void testHead() {
+		method = "HEAD";
+		handle();
+		assertEquals(200, status);
+		assertEquals("1000", headers.get("Content-Length"));
+		assertEquals(0, body.size());
+
+		requestHeaders.put("Range", "bytes=10-19");
+		handle();
+		assertEquals(206, status);
+		assertEquals("bytes 10-19/1000", headers.get("Content-Range"));
+		assertEquals("10", headers.get("Content-Length"));
+		assertEquals(0, body.size());
+
+		requestHeaders.put("Range", "bytes=0-9,100-109");
+		handle();
+		assertEquals(206, status);
+		assertTrue(contentType.startsWith("multipart/byteranges"));
+		assertFalse("0".equals(headers.get("Content-Length")));
+		assertEquals(0, body.size());
+	}
+
+	@Test
+	public void testSingleRanges() {
+		assertArrayEquals(new long[] { 0, 499 }, WFileResource.parseRanges("bytes=0-499", 1000).get(0));
+		assertArrayEquals(new long[] { 500, 999 }, WFileResource.parseRanges("bytes=500-", 1000).get(0));
+		assertArrayEquals(new long[] { 900, 999 }, WFileResource.parseRanges("bytes=-100", 1000).get(0));
+		assertArrayEquals(new long[] { 0, 999 }, WFileResource.parseRanges("bytes=-2000", 1000).get(0));
+		assertArrayEquals(new long[] { 990, 999 }, WFileResource.parseRanges("bytes=990-5000", 1000).get(0));
+	}
+
+	@Test
+	public void testMultipleRanges() {
+		List<long[]> ranges = WFileResource.parseRanges("bytes=0-9, 20-29,2000-3000", 1000);
+		assertEquals(2, ranges.size());
+		assertArrayEquals(new long[] { 0, 9 }, ranges.get(0));
+		assertArrayEquals(new long[] { 20, 29 }, ranges.get(1));
+	}
+
+	@Test
+	public void testInvalidRanges() {
+		assertNull(WFileResource.parseRanges("items=0-10", 1000));
+		assertNull(WFileResource.parseRanges("bytes=abc", 1000));
+		assertNull(WFileResource.parseRanges("bytes=50-10", 1000));
+		assertTrue(WFileResource.parseRanges("bytes=1000-", 1000).isEmpty());
+	}
+
+	@Test
+	public void testTransfer() throws IOException {
+		byte[] data = new byte[600 * 1024];
+		for (int i = 0; i < data.length; ++i)
+			data[i] = (byte) (i * 31 + (i >> 8));
+
+		File f = File.createTempFile("jwt-file-resource", ".bin");
+		try {
+			Files.write(f.toPath(), data);
+			FileChannel channel = FileChannel.open(f.toPath(), StandardOpenOption.READ);
+			try {
+				assertTransfer(channel, data, 0, data.length, 100000);
+				assertTransfer(channel, data, 12345, 400000, 65536 + 7);
+				assertTransfer(channel, data, 1000, 10, 100000);
+				assertTransfer(channel, data, data.length - 300, 300, 100000);
+
+				try {
+					assertTransfer(channel, data, data.length - 300, 301, 100000);
+					assertTrue(false);
+				} catch (IOException e) {
+					// The file is shorter than the region
+				}
+			} finally {
+				channel.close();
+			}
+		} finally {
+			f.delete();
+		}
+	}
+
+	private static void assertTransfer(FileChannel channel, byte[] data, int position, int count, int bufferSize)
+			throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		WFileResource.transfer(channel, position, count, out, new byte[bufferSize]);
+		assertArrayEquals(Arrays.copyOfRange(data, position, position + count), out.toByteArray());
+	}
+
+	private String getETag() {
+		return "\"" + Long.toHexString(LAST_MODIFIED) + "-" + Long.toHexString(data.length) + "\"";
+	}
+
+	private static String httpDate(long time) {
+		return DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime.ofInstant(Instant.ofEpochMilli(time), ZoneOffset.UTC));
+	}
+
+	private void handle() {
+		status = 200;
+		contentType = null;
+		headers = new HashMap<String, Object>();
+		body = new ByteArrayOutputStream();
+
+		WebRequest request = new WebRequest(new HashMap<String, String[]>(), new HashMap<String, List<UploadedFile>>()) {
+			@Override
+			public String getMethod() {
+				return method;
+			}
+
+			@Override
+			public String getHeader(String name) {
+				return requestHeaders.get(name);
+			}
+
+			@Override
+			public long getDateHeader(String name) {
+				String value = requestHeaders.get(name);
+				if (value == null)
+					return -1;
+				return ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+			}
+		};
+
+		final ServletOutputStream out = new ServletOutputStream() {
+			@Override
+			public void write(int b) {
+				body.write(b);
+			}
+
+			@Override
+			public boolean isReady() {
+				return true;
+			}
+
+			@Override
+			public void setWriteListener(WriteListener listener) {
+			}
+		};
+
+		HttpServletResponse response = (HttpServletResponse) Proxy.newProxyInstance(getClass().getClassLoader(),
+				new Class<?>[] { HttpServletResponse.class }, new InvocationHandler() {
+					public Object invoke(Object proxy, java.lang.reflect.Method method, Object[] args) {
+						if (method.getName().equals("getOutputStream"))
+							return out;
+						else if (method.getName().equals("setStatus"))
+							status = (Integer) args[0];
+						else if (method.getName().equals("setContentType"))
+							contentType = (String) args[0];
+						else if (method.getName().equals("setHeader") || method.getName().equals("setDateHeader"))
+							headers.put((String) args[0], args[1]);
+						return null;
+					}
+				});
+
+		resource.handleRequest(request, new WebResponse(response, request));
+	}
+}
@@ -0,0 +1,43 @@
+package eu.webtoolkit.jwt;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.EnumSet;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class WItemDelegateTest {
+	private WApplication app;
+
+	@Before
+	public void setUp() {
+		app = new WApplication(new WTestEnvironment(new Configuration()));
+	}
+
+	@After
+	public void tearDown() {
+		app.remove();
+	}
+
+	@Test
+	public void testRenderHtml() {
+		WStandardItemModel model = new WStandardItemModel(1, 2);
+		model.setData(0, 0, "a < b & \"c\"");
+		model.setData(0, 0, "x\" onclick=\"y", ItemDataRole.ToolTip);
+		model.setData(0, 1, true, ItemDataRole.Checked);
+
+		WItemDelegate delegate = new WItemDelegate();
+		StringBuilder html = new StringBuilder();
+		delegate.renderHtml(html, model.getIndex(0, 0), EnumSet.noneOf(ViewItemRenderFlag.class), "Wt-tv-c",
+				"height:20px;");
+		assertEquals("<div class=\"Wt-tv-c\" style=\"height:20px;\" title=\"x&#34; onclick=&#34;y\">"
+				+ "a &lt; b &amp; \"c\"</div>", html.toString());
+
+		html.setLength(0);
+		delegate.renderHtml(html, model.getIndex(0, 1), EnumSet.noneOf(ViewItemRenderFlag.class), "Wt-tv-c", "");
+		assertEquals("<div class=\"Wt-tv-c\" style=\"\"><input type=\"checkbox\" disabled=\"disabled\""
+				+ " checked=\"checked\"/></div>", html.toString());
+	}
+}
@@ -0,0 +1,42 @@
+package eu.webtoolkit.jwt;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+
+import org.junit.Test;
+
+import com.pdfjet.PDF;
+import com.pdfjet.Page;
+
+public class WPdfImageTest {
+	@Test
+	public void testSharedFontSize() throws Exception {
+		PDF pdf = new PDF(new ByteArrayOutputStream());
+		Page page = new Page(pdf, new float[] { 600, 800 });
+
+		WPdfImage small = new WPdfImage(pdf, page, 0, 0, 300, 400);
+		WPdfImage large = new WPdfImage(pdf, page, 300, 400, 300, 400);
+		WPainter smallPainter = new WPainter(small);
+		WPainter largePainter = new WPainter(large);
+
+		WFont font = new WFont(FontFamily.SansSerif);
+		font.setSize(new WLength(10));
+		smallPainter.setFont(font);
+		font = new WFont(FontFamily.SansSerif);
+		font.setSize(new WLength(20));
+		largePainter.setFont(font);
+
+		double smallWidth = small.measureText("Hello world").getWidth();
+		double largeWidth = large.measureText("Hello world").getWidth();
+		assertEquals(2 * smallWidth, largeWidth, 1E-6);
+
+		// both images use the same embedded font, at their own size
+		assertEquals(smallWidth, small.measureText("Hello world").getWidth(), 1E-6);
+		double largeAscent = large.getFontMetrics().getAscent();
+		assertEquals(largeAscent, 2 * small.getFontMetrics().getAscent(), 1E-6);
+
+		smallPainter.end();
+		largePainter.end();
+	}
+}
@@ -0,0 +1,114 @@
+package eu.webtoolkit.jwt;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class WSortFilterProxyModelTest {
+	private WApplication app;
+	private static class ListModel extends WAbstractTableModel {
+		private List<String> values = new ArrayList<String>();
+
+		void append(String... newValues) {
+			beginInsertRows(null, values.size(), values.size() + newValues.length - 1);
+			for (String value : newValues)
+				values.add(value);
+			endInsertRows();
+		}
+
+		@Override
+		public boolean removeRows(int row, int count, WModelIndex parent) {
+			beginRemoveRows(parent, row, row + count - 1);
+			values.subList(row, row + count).clear();
+			endRemoveRows();
+			return true;
+		}
+
+		@Override
+		public int getRowCount(WModelIndex parent) {
+			return parent == null ? values.size() : 0;
+		}
+
+		@Override
+		public int getColumnCount(WModelIndex parent) {
+			return parent == null ? 1 : 0;
+		}
+
+		@Override
+		public Object getData(WModelIndex index, ItemDataRole role) {
+			return role.equals(ItemDataRole.Display) ? values.get(index.getRow()) : null;
+		}
+	}
+
+	private ListModel model;
+	private WSortFilterProxyModel proxy;
+	private List<String> signals;
+
+	@Before
+	public void setUp() {
+		app = new WApplication(new WTestEnvironment(new Configuration()));
+
+		model = new ListModel();
+		model.append("a3", "x1", "a1");
+
+		proxy = new WSortFilterProxyModel();
+		proxy.setSourceModel(model);
+		proxy.setDynamicSortFilter(true);
+		proxy.setFilterRegExp(Pattern.compile("a.*"));
+		proxy.sort(0, SortOrder.Ascending);
+
+		signals = new ArrayList<String>();
+		proxy.rowsInserted().addListener(null, (WModelIndex parent, Integer first, Integer last) -> {
+			signals.add("inserted " + first + "-" + last);
+		});
+		proxy.rowsRemoved().addListener(null, (WModelIndex parent, Integer first, Integer last) -> {
+			signals.add("removed " + first + "-" + last);
+		});
+	}
+
+	@After
+	public void tearDown() {
+		app.remove();
+	}
+
+	@Test
+	public void testBulkInsert() {
+		assertEquals("a1 a3", rows());
+
+		model.append("a4", "a5", "x2", "a0", "a2", "a6");
+		assertEquals("a0 a1 a2 a3 a4 a5 a6", rows());
+		assertEquals("[inserted 0-0, inserted 2-2, inserted 4-6]", signals.toString());
+
+		for (int i = 0; i < proxy.getRowCount(); ++i)
+			assertEquals(i, proxy.mapFromSource(proxy.mapToSource(proxy.getIndex(i, 0))).getRow());
+	}
+
+	@Test
+	public void testBulkRemove() {
+		model.append("a4", "a5", "x2", "a0", "a2", "a6");
+		signals.clear();
+
+		// source rows: a3 x1 a1 a4 a5 x2 a0 a2 a6
+		model.removeRows(3, 5);
+		assertEquals("a1 a3 a6", rows());
+		assertEquals("[removed 4-5, removed 2-2, removed 0-0]", signals.toString());
+		assertEquals(null, proxy.mapFromSource(model.getIndex(1, 0)));
+		assertEquals(2, proxy.mapFromSource(model.getIndex(3, 0)).getRow());
+	}
+
+	private String rows() {
+		StringBuilder result = new StringBuilder();
+		for (int i = 0; i < proxy.getRowCount(); ++i) {
+			if (i != 0)
+				result.append(' ');
+			result.append(StringUtils.asString(proxy.getIndex(i, 0).getData()));
+		}
+		return result.toString();
+	}
+}
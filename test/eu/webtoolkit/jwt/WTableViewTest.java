@@ -0,0 +1,130 @@
+package eu.webtoolkit.jwt;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Constructor;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class WTableViewTest {
+	private WApplication app;
+	private WTableView.ColumnWidget column;
+
+	@Before
+	public void setUp() throws Exception {
+		app = new WApplication(new WTestEnvironment(new Configuration()));
+
+		Constructor<WTableView.ColumnWidget> constructor = WTableView.ColumnWidget.class
+				.getDeclaredConstructor(int.class);
+		constructor.setAccessible(true);
+		column = constructor.newInstance(0);
+		column.setRenderingHtml();
+	}
+
+	@After
+	public void tearDown() {
+		app.remove();
+	}
+
+	@Test
+	public void testRenderCells() {
+		assertTrue(column.isRenderingHtml());
+
+		/* Nothing is set when there are no cells */
+		DomElement element = render(true);
+		assertEquals("", element.getProperty(Property.InnerHTML));
+
+		column.insertCell(0, cell("b"));
+		column.insertCell(0, cell("a"));
+		column.insertCell(2, cell("c"));
+		assertEquals(3, column.getCellCount());
+
+		/* A full render sets the cells, without any pending JavaScript */
+		element = render(true);
+		assertEquals(cell("a") + cell("b") + cell("c"), element.getProperty(Property.InnerHTML));
+		assertEquals("", element.getJavaScript());
+		assertEquals("", render(false).getJavaScript());
+	}
+
+	@Test
+	public void testInsertCells() {
+		column.insertCell(0, cell("a"));
+		render(true);
+
+		/* Consecutive inserts are sent as one insert */
+		column.insertCell(1, cell("b"));
+		column.insertCell(2, cell("c"));
+		column.insertCell(0, cell("x"));
+		assertEquals(4, column.getCellCount());
+
+		assertEquals(update(insert(1, cell("b") + cell("c")) + insert(0, cell("x"))), render(false).getJavaScript());
+		assertEquals(cell("x") + cell("a") + cell("b") + cell("c"), render(true).getProperty(Property.InnerHTML));
+	}
+
+	@Test
+	public void testRemoveCells() {
+		for (int i = 0; i < 6; ++i)
+			column.insertCell(i, cell("" + i));
+		render(true);
+
+		/* Removes at the same index, or just before the previous one, are sent as one remove */
+		column.removeCells(4, 1);
+		column.removeCells(4, 1);
+		column.removeCells(3, 1);
+		column.removeCells(0, 1);
+		assertEquals(2, column.getCellCount());
+
+		assertEquals(update(remove(3, 3) + remove(0, 1)), render(false).getJavaScript());
+		assertEquals(cell("1") + cell("2"), render(true).getProperty(Property.InnerHTML));
+	}
+
+	@Test
+	public void testSetCell() {
+		for (int i = 0; i < 3; ++i)
+			column.insertCell(i, cell("" + i));
+		render(true);
+
+		/* Pending inserts and removes are sent before the cell is replaced */
+		column.insertCell(3, cell("3"));
+		column.removeCells(0, 1);
+		column.setCell(0, cell("<x>"));
+		column.setCell(2, cell("y"));
+		assertEquals(3, column.getCellCount());
+
+		assertEquals(update(insert(3, cell("3")) + remove(0, 1) + replace(0, cell("<x>")) + replace(2, cell("y"))),
+				render(false).getJavaScript());
+		assertEquals("", render(false).getJavaScript());
+		assertEquals(cell("<x>") + cell("2") + cell("y"), render(true).getProperty(Property.InnerHTML));
+	}
+
+	private DomElement render(boolean all) {
+		DomElement element = DomElement.createNew(DomElementType.DIV);
+		column.updateDom(element, all);
+		return element;
+	}
+
+	private String update(String js) {
+		return "(function(c){" + js + "})(" + column.getJsRef() + ");\n";
+	}
+
+	private static String cell(String text) {
+		return "<div class=\"Wt-tv-c\">" + WWebWidget.escapeText(text, true) + "</div>";
+	}
+
+	private static String insert(int index, String html) {
+		String literal = WWebWidget.jsStringLiteral(html);
+		return "if(" + index + "<c.children.length)c.children[" + index + "].insertAdjacentHTML('beforebegin',"
+				+ literal + ");else c.insertAdjacentHTML('beforeend'," + literal + ");";
+	}
+
+	private static String remove(int index, int count) {
+		return "for(let i=0;i<" + count + ";++i)c.children[" + index + "].remove();";
+	}
+
+	private static String replace(int index, String html) {
+		return "c.children[" + index + "].outerHTML=" + WWebWidget.jsStringLiteral(html) + ";";
+	}
+}
@@ -0,0 +1,60 @@
+package eu.webtoolkit.jwt;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import org.junit.Test;
+
+public class WTemplateTest {
+	private static String render(WTemplate t, String text) throws IOException {
+		StringWriter result = new StringWriter();
+		assertTrue(t.renderTemplateText(result, new WString(text)));
+		return result.toString();
+	}
+
+	@Test
+	public void testRender() throws IOException {
+		WApplication app = new WApplication(new WTestEnvironment(new Configuration()));
+
+		WTemplate t = new WTemplate();
+		t.setEncodeTemplateText(false);
+		t.bindString("name", "World");
+		t.bindString("value", "<b>bold</b>");
+
+		final String text = "<p>Hello ${name}: ${value} costs $$5${<shown>}, always${</shown>}</p>";
+		assertEquals("<p>Hello World: <b>bold</b> costs $5</p>", render(t, text));
+
+		t.setCondition("shown", true);
+		assertEquals("<p>Hello World: <b>bold</b> costs $5, always</p>", render(t, text));
+
+		t.bindString("name", "again");
+		assertEquals("<p>Hello again: <b>bold</b> costs $5, always</p>", render(t, text));
+
+		assertEquals("??missing??", render(t, "${missing x='1'}"));
+
+		app.remove();
+	}
+
+	@Test
+	public void testErrors() throws IOException {
+		WApplication app = new WApplication(new WTestEnvironment(new Configuration()));
+
+		WTemplate t = new WTemplate();
+		t.setEncodeTemplateText(false);
+
+		StringWriter result = new StringWriter();
+		assertFalse(t.renderTemplateText(result, new WString("a${<x>}b${</y>}c")));
+		assertEquals("mismatching condition block end: y", t.getErrorText());
+
+		result = new StringWriter();
+		assertFalse(t.renderTemplateText(result, new WString("a ${var 9}")));
+		assertEquals("a ", result.toString());
+		assertEquals("variable syntax error near \"${var 9}\"", t.getErrorText());
+
+		app.remove();
+	}
+}
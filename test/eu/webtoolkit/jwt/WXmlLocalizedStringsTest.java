@@ -3,6 +3,10 @@ package eu.webtoolkit.jwt;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.Locale;
 
 import org.junit.Test;
@@ -36,4 +40,37 @@ public class WXmlLocalizedStringsTest {
 		assertEquals(TextFormat.XHTML, result.format);
 		assertEquals("{1} seconds", result.value);
 	}
+
+	@Test
+	public void reloadTest() throws Exception {
+		File file = File.createTempFile("messages", ".xml");
+		file.deleteOnExit();
+		String bundle = file.getAbsolutePath();
+		bundle = bundle.substring(0, bundle.length() - ".xml".length());
+
+		writeMessage(file, "first");
+
+		final WXmlLocalizedStrings strings = new WXmlLocalizedStrings();
+		strings.use(bundle);
+		strings.setReloadOnChange(true);
+
+		/* Fill up the cache of locales */
+		for (int i = 0; i < 300; ++i)
+			assertEquals("first", strings.resolveKey(new Locale("l" + i), "greeting").value);
+
+		Thread.sleep(2100);
+		writeMessage(file, "second");
+		file.setLastModified(file.lastModified() + 10000);
+
+		final Locale locale = new Locale("l0");
+		assertEquals("second", strings.resolveKey(locale, "greeting").value);
+		assertEquals("second", strings.resolveKey(locale, "greeting").value);
+	}
+
+	private static void writeMessage(File file, String value) throws IOException {
+		try (FileOutputStream out = new FileOutputStream(file)) {
+			out.write(("<?xml version=\"1.0\" encoding=\"UTF-8\" ?>\n<messages>\n<message id=\"greeting\">"
+					+ value + "</message>\n</messages>\n").getBytes(StandardCharsets.UTF_8));
+		}
+	}
 }
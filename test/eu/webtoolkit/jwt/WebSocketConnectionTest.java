@@ -0,0 +1,190 @@
+package eu.webtoolkit.jwt;
+
+import static org.junit.Assert.*;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.websocket.CloseReason;
+import javax.websocket.RemoteEndpoint;
+import javax.websocket.SendHandler;
+import javax.websocket.SendResult;
+import javax.websocket.Session;
+
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class WebSocketConnectionTest {
+	private List<String> sent;
+	private List<SendHandler> handlers;
+	private List<CloseReason> closeReasons;
+	private boolean failSend;
+	private List<Runnable> notifications;
+	private WebSocketConnection connection;
+
+	@BeforeClass
+	public static void setUpServletApi() throws Exception {
+		/* A web response needs the servlet API, which is set when a servlet is initialized */
+		if (WtServlet.getServletApi() == null) {
+			Field servletApi = WtServlet.class.getDeclaredField("servletApi");
+			servletApi.setAccessible(true);
+			servletApi.set(null, new ServletApi3());
+		}
+	}
+
+	@Before
+	public void setUp() throws Exception {
+		sent = new ArrayList<String>();
+		handlers = new ArrayList<SendHandler>();
+		closeReasons = new ArrayList<CloseReason>();
+		failSend = false;
+		notifications = new ArrayList<Runnable>();
+
+		final Map<String, Object> userProperties = new HashMap<String, Object>();
+		final RemoteEndpoint.Async remote = (RemoteEndpoint.Async) Proxy.newProxyInstance(getClass().getClassLoader(),
+				new Class<?>[] { RemoteEndpoint.Async.class }, new InvocationHandler() {
+					public Object invoke(Object proxy, java.lang.reflect.Method method, Object[] args) {
+						if (method.getName().equals("sendText") && args.length == 2) {
+							if (failSend)
+								throw new IllegalStateException("closed");
+							sent.add((String) args[0]);
+							handlers.add((SendHandler) args[1]);
+						}
+						return null;
+					}
+				});
+
+		Session session = (Session) Proxy.newProxyInstance(getClass().getClassLoader(),
+				new Class<?>[] { Session.class }, new InvocationHandler() {
+					public Object invoke(Object proxy, java.lang.reflect.Method method, Object[] args) {
+						if (method.getName().equals("getUserProperties"))
+							return userProperties;
+						else if (method.getName().equals("getAsyncRemote"))
+							return remote;
+						else if (method.getName().equals("close") && args != null)
+							closeReasons.add((CloseReason) args[0]);
+						return null;
+					}
+				});
+
+		Configuration configuration = new Configuration();
+		configuration.setWebSocketMaxQueuedMessages(2);
+		configuration.setBroadcastExecutor(r -> notifications.add(r));
+		TestController servlet = new TestController(configuration);
+
+		connection = new WebSocketConnection(session, new HashMap<String, List<String>>());
+		connection.setWebSession(new WebSession(servlet, "ws", EntryPointType.Application, "", null));
+		assertSame(connection, WebSocketConnection.getWebSocketConnection(session));
+	}
+
+	@Test
+	public void testSendOneAtATime() throws Exception {
+		assertTrue(connection.acquireWritable());
+
+		write("a");
+		write("b");
+		write("");
+		write("c");
+
+		/* Only the first message is in flight, empty messages are not sent */
+		assertEquals(1, sent.size());
+		assertEquals("a", sent.get(0));
+		assertFalse(connection.acquireWritable());
+
+		complete(0);
+		complete(1);
+		assertEquals(3, sent.size());
+		assertEquals("b", sent.get(1));
+		assertEquals("c", sent.get(2));
+		assertFalse(connection.acquireWritable());
+
+		complete(2);
+		assertTrue(connection.acquireWritable());
+		assertFalse(connection.isClosed());
+		assertTrue(closeReasons.isEmpty());
+	}
+
+	@Test
+	public void testReadyNotification() throws Exception {
+		write("a");
+		assertFalse(connection.acquireWritable());
+
+		write("b");
+		complete(0);
+		assertTrue(notifications.isEmpty());
+
+		/* The session is notified from the executor, not from the send completion */
+		complete(1);
+		assertEquals(1, notifications.size());
+
+		/* Without a pending acquireWritable(), nobody is waiting */
+		write("c");
+		complete(2);
+		assertEquals(1, notifications.size());
+	}
+
+	@Test
+	public void testQueueFull() throws Exception {
+		write("a");
+		write("b");
+		write("c");
+		assertFalse(connection.isClosed());
+
+		/* "a" is in flight, "b" and "c" fill the queue */
+		write("d");
+		assertTrue(connection.isClosed());
+		assertEquals(1, closeReasons.size());
+		assertEquals(CloseReason.CloseCodes.TRY_AGAIN_LATER, closeReasons.get(0).getCloseCode());
+
+		/* Pending messages are discarded */
+		complete(0);
+		write("e");
+		assertEquals(1, sent.size());
+		assertFalse(connection.acquireWritable());
+	}
+
+	@Test
+	public void testSendFailed() throws Exception {
+		write("a");
+		handlers.get(0).onResult(new SendResult(new java.io.IOException("reset")));
+
+		assertTrue(connection.isClosed());
+		assertEquals(CloseReason.CloseCodes.CLOSED_ABNORMALLY, closeReasons.get(0).getCloseCode());
+	}
+
+	@Test
+	public void testSendThrows() throws Exception {
+		failSend = true;
+		write("a");
+
+		assertTrue(connection.isClosed());
+		assertFalse(connection.acquireWritable());
+	}
+
+	@Test
+	public void testClosedByPeer() throws Exception {
+		write("a");
+		write("b");
+		connection.closed();
+
+		complete(0);
+		assertEquals(1, sent.size());
+		assertTrue(connection.isClosed());
+		assertTrue(closeReasons.isEmpty());
+	}
+
+	private void write(String message) throws Exception {
+		connection.out().write(message);
+		connection.flushBuffer();
+	}
+
+	private void complete(int i) {
+		handlers.get(i).onResult(new SendResult());
+	}
+}
@@ -0,0 +1,84 @@
+package eu.webtoolkit.jwt;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+public class WebSocketRegistryTest {
+	@Test
+	public void testAddServlet() {
+		WebSocketRegistry registry = WebSocketRegistry.getInstance();
+		assertSame(registry, WebSocketRegistry.getInstance());
+
+		TestController s1 = new TestController(new Configuration());
+		TestController s2 = new TestController(new Configuration());
+
+		int id1 = registry.addServlet(s1);
+		int id2 = registry.addServlet(s2);
+		assertTrue(id1 > 0);
+		assertTrue(id2 > 0);
+		assertNotEquals(id1, id2);
+
+		/* A servlet is only registered once */
+		assertEquals(-1, registry.addServlet(s1));
+
+		assertSame(s1, registry.getServlet(id1));
+		assertSame(s2, registry.getServlet(id2));
+		assertNull(registry.getServlet(-1));
+	}
+
+	@Test
+	public void testConcurrentAddServlet() throws Exception {
+		final WebSocketRegistry registry = WebSocketRegistry.getInstance();
+		final int threads = 8;
+		final CountDownLatch start = new CountDownLatch(1);
+		final AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+		final TestController shared = new TestController(new Configuration());
+		final TestController[] servlets = new TestController[threads];
+		final int[] ids = new int[threads];
+		final int[] sharedIds = new int[threads];
+
+		List<Thread> workers = new ArrayList<Thread>();
+		for (int t = 0; t < threads; ++t) {
+			final int i = t;
+			servlets[i] = new TestController(new Configuration());
+			workers.add(new Thread(() -> {
+				try {
+					start.await();
+					ids[i] = registry.addServlet(servlets[i]);
+					sharedIds[i] = registry.addServlet(shared);
+				} catch (Throwable e) {
+					error.set(e);
+				}
+			}));
+		}
+
+		for (Thread w : workers)
+			w.start();
+		start.countDown();
+		for (Thread w : workers)
+			w.join();
+
+		assertNull(error.get());
+
+		int sharedId = -1;
+		for (int i = 0; i < threads; ++i) {
+			assertSame(servlets[i], registry.getServlet(ids[i]));
+			for (int j = i + 1; j < threads; ++j)
+				assertNotEquals(ids[i], ids[j]);
+
+			/* Only one of the threads registers the shared servlet */
+			if (sharedIds[i] != -1) {
+				assertEquals(-1, sharedId);
+				sharedId = sharedIds[i];
+			}
+		}
+
+		assertSame(shared, registry.getServlet(sharedId));
+	}
+}
@@ -0,0 +1,134 @@
+package eu.webtoolkit.jwt;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class WtServletTest {
+	private WTestEnvironment env;
+	private WApplication app;
+	private TestController servlet;
+
+	@Before
+	public void createApplication() {
+		Configuration configuration = new Configuration();
+		configuration.setBroadcastExecutor(r -> new Thread(r).start());
+		env = new WTestEnvironment(configuration);
+		app = new WApplication(env);
+		servlet = new TestController(configuration);
+		servlet.addSession(app.getSession());
+	}
+
+	@After
+	public void closeApplication() {
+		if (WebSession.Handler.getInstance() != null)
+			env.close();
+	}
+
+	@Test
+	public void testPostAllFiltered() throws Exception {
+		final AtomicInteger runs = new AtomicInteger();
+		CompletableFuture<WtServlet.BroadcastResult> f = servlet.postAll(() -> runs.incrementAndGet(), a -> false);
+
+		WtServlet.BroadcastResult result = f.get(5, TimeUnit.SECONDS);
+		assertEquals(0, result.getPostedCount());
+		assertEquals(1, result.getSkippedCount());
+		assertEquals(0, result.getFailedCount());
+
+		env.close();
+		assertEquals(0, runs.get());
+	}
+
+	@Test
+	public void testPostAllCompletesWhenRun() throws Exception {
+		final AtomicInteger runs = new AtomicInteger();
+		CompletableFuture<WtServlet.BroadcastResult> f = servlet.postAll(() -> {
+			assertSame(app, WApplication.getInstance());
+			runs.incrementAndGet();
+		}, a -> a == app);
+
+		/* The session is locked by this thread: the task is queued */
+		Thread.sleep(100);
+		assertFalse(f.isDone());
+		assertEquals(0, runs.get());
+
+		env.close();
+
+		WtServlet.BroadcastResult result = f.get(5, TimeUnit.SECONDS);
+		assertEquals(1, runs.get());
+		assertEquals(1, result.getPostedCount());
+		assertEquals(0, result.getSkippedCount());
+		assertEquals(0, result.getFailedCount());
+	}
+
+	@Test
+	public void testPostAllCountsFailedTasks() throws Exception {
+		CompletableFuture<WtServlet.BroadcastResult> f = servlet.postAll(() -> {
+			throw new RuntimeException("failed");
+		}, null);
+
+		Thread.sleep(100);
+		env.close();
+
+		WtServlet.BroadcastResult result = f.get(5, TimeUnit.SECONDS);
+		assertEquals(1, result.getPostedCount());
+		assertEquals(1, result.getFailedCount());
+	}
+
+	@Test
+	public void testWaitWhileLocked() throws Exception {
+		CompletableFuture<WtServlet.BroadcastResult> f = servlet.postAll(() -> { }, null);
+
+		/* The task is queued to the session that this thread has locked */
+		try {
+			f.join();
+			fail("join() should not wait while holding a session lock");
+		} catch (IllegalStateException e) {
+			// expected
+		}
+		try {
+			f.get();
+			fail("get() should not wait while holding a session lock");
+		} catch (IllegalStateException e) {
+			// expected
+		}
+
+		Thread.sleep(100);
+		env.close();
+		assertEquals(1, f.get(5, TimeUnit.SECONDS).getPostedCount());
+	}
+
+	@Test
+	public void testPostAllRejected() {
+		servlet.getConfiguration().setBroadcastExecutor(r -> {
+			throw new RejectedExecutionException("full");
+		});
+
+		CompletableFuture<WtServlet.BroadcastResult> f = servlet.postAll(() -> { }, null);
+		assertTrue(f.isCompletedExceptionally());
+	}
+
+	@Test
+	public void testPostAllAfterDestroy() {
+		servlet.destroy();
+
+		CompletableFuture<WtServlet.BroadcastResult> f = servlet.postAll(() -> { }, null);
+		assertTrue(f.isCompletedExceptionally());
+	}
+
+	@Test
+	public void testPostAllSynchronous() {
+		final AtomicInteger runs = new AtomicInteger();
+		servlet.postAll(() -> runs.incrementAndGet());
+
+		/* Posted from a thread that can lock the session: run before returning */
+		assertEquals(1, runs.get());
+	}
+}
@@ -0,0 +1,42 @@
+package eu.webtoolkit.jwt;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class XSSFilterTest {
+	@Test
+	public void testPlainText() {
+		WString text = new WString("Plain text > 5\nwith a newline");
+		assertTrue(XSSFilter.removeScript(text));
+		assertEquals("Plain text > 5\nwith a newline", text.getValue());
+
+		text = new WString("a\r\nb");
+		assertTrue(XSSFilter.removeScript(text));
+		assertEquals("a\nb", text.getValue());
+
+		assertFalse(XSSFilter.removeScript(new WString("\u0001")));
+	}
+
+	@Test
+	public void testFilter() {
+		for (int i = 0; i < 2; ++i) {
+			WString text = new WString("<b onclick=\"x()\">Bold</b><script>alert(1)</script> &amp; more");
+			assertTrue(XSSFilter.removeScript(text));
+			assertEquals("<b>Bold</b> &amp; more", text.getValue());
+		}
+
+		assertFalse(XSSFilter.removeScript(new WString("<b>unclosed")));
+	}
+
+	@Test
+	public void testEntities() {
+		WString text = new WString("<script>&amp;</script>text");
+		assertTrue(XSSFilter.removeScript(text));
+		assertEquals("text", text.getValue());
+
+		assertFalse(XSSFilter.removeScript(new WString("</span>&lt;<span>")));
+	}
+}
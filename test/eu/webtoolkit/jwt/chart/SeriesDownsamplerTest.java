@@ -0,0 +1,150 @@
+package eu.webtoolkit.jwt.chart;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+public class SeriesDownsamplerTest {
+	/* An axis that maps X values to device coordinates as they are */
+	private final WAxis axis = new WAxis() {
+		@Override
+		double mapToDevice(double u, int segment) {
+			return u;
+		}
+	};
+
+	@Test
+	public void testNotDownsampled() {
+		double[] x = sequence(100, 0.1);
+		double[] y = new double[100];
+
+		assertNull(downsample(DownsamplingType.None, x, y));
+		assertNull(downsample(DownsamplingType.MinMax, new double[] { 0, 0.1 }, new double[] { 1, 2 }));
+		assertNull(downsample(DownsamplingType.LargestTriangle, new double[] { 0, 0.1 }, new double[] { 1, 2 }));
+
+		/* Fewer rows than what is kept per pixel column */
+		x = sequence(40, 1);
+		y = new double[40];
+		assertNull(downsample(DownsamplingType.MinMax, x, y));
+		assertNull(downsample(DownsamplingType.LargestTriangle, x, y));
+	}
+
+	@Test
+	public void testMinMaxColumns() {
+		double[] x = sequence(24, 1.0 / 8);
+		double[] y = new double[] {
+				5, 3, 9, 1, 4, 4, 2, 6,
+				1, 1, 1, 1, 1, 1, 1, 1,
+				16, 17, 18, 19, 20, 21, 22, 23 };
+
+		/* Row 8 (x = 1.0) and row 16 (x = 2.0) start a new pixel column */
+		assertArrayEquals(new int[] { 0, 2, 3, 7, 8, 15, 16, 23 }, downsample(DownsamplingType.MinMax, x, y));
+
+		/* The same rows, with the row number as X value and a zoom factor */
+		int[] rows = SeriesDownsampler.downsample(DownsamplingType.MinMax, null, y, axis, 0, 1.0 / 8, 96, 120);
+		assertArrayEquals(new int[] { 96, 98, 99, 103, 104, 111, 112, 119 }, rows);
+
+		/* Zoomed in, there are too few rows per pixel column */
+		assertNull(SeriesDownsampler.downsample(DownsamplingType.MinMax, x, y, axis, 0, 2, 0, 24));
+	}
+
+	@Test
+	public void testMinMaxMissingValues() {
+		double[] x = sequence(24, 1.0 / 8);
+		double[] y = new double[] {
+				5, 3, 9, 1, 4, Double.NaN, 2, 6,
+				1, 1, 1, 1, 1, 1, 1, 1,
+				16, 17, 18, 19, 20, 21, 22, 23 };
+		x[12] = Double.NaN;
+
+		/* Missing values are kept, and split the pixel column they are in */
+		assertArrayEquals(new int[] { 0, 2, 3, 4, 5, 6, 7, 8, 11, 12, 13, 15, 16, 23 },
+				downsample(DownsamplingType.MinMax, x, y));
+
+		Arrays.fill(y, Double.NaN);
+		assertArrayEquals(range(0, 24), downsample(DownsamplingType.MinMax, x, y));
+	}
+
+	@Test
+	public void testLargestTriangleBuckets() {
+		double[] x = sequence(200, 0.1);
+		double[] y = new double[200];
+		y[77] = 100;
+
+		int[] rows = downsample(DownsamplingType.LargestTriangle, x, y);
+
+		/* Two points per pixel column: the first and last row, and one per bucket */
+		assertEquals(40, rows.length);
+		assertEquals(0, rows[0]);
+		assertEquals(199, rows[39]);
+		assertAscending(rows);
+		assertContains(rows, 77);
+
+		double every = 198.0 / 38;
+		for (int i = 0; i < 38; ++i) {
+			int start = (int) Math.floor(i * every) + 1;
+			int end = (int) Math.floor((i + 1) * every) + 1;
+			assertTrue(rows[i + 1] >= start && rows[i + 1] < end);
+		}
+	}
+
+	@Test
+	public void testLargestTriangleMissingValues() {
+		double[] x = sequence(200, 0.1);
+		double[] y = new double[200];
+		for (int i = 0; i < y.length; ++i)
+			y[i] = Math.sin(i / 5.0);
+		y[0] = Double.NaN;
+		y[50] = Double.NaN;
+		y[51] = Double.NaN;
+		x[120] = Double.NaN;
+
+		int[] rows = downsample(DownsamplingType.LargestTriangle, x, y);
+
+		assertEquals(40 + 4, rows.length);
+		assertEquals(0, rows[0]);
+		assertEquals(1, rows[1]);
+		assertEquals(199, rows[rows.length - 1]);
+		assertAscending(rows);
+		assertContains(rows, 50);
+		assertContains(rows, 51);
+		assertContains(rows, 120);
+
+		/* Fewer points than the threshold remain: all rows are kept */
+		for (int i = 0; i < 170; ++i)
+			y[i] = Double.NaN;
+		assertArrayEquals(range(0, 200), downsample(DownsamplingType.LargestTriangle, x, y));
+	}
+
+	private int[] downsample(DownsamplingType type, double[] x, double[] y) {
+		return SeriesDownsampler.downsample(type, x, y, axis, 0, 1, 0, y.length);
+	}
+
+	private static double[] sequence(int n, double step) {
+		double[] result = new double[n];
+		for (int i = 0; i < n; ++i)
+			result[i] = i * step;
+		return result;
+	}
+
+	private static int[] range(int start, int end) {
+		int[] result = new int[end - start];
+		for (int i = start; i < end; ++i)
+			result[i - start] = i;
+		return result;
+	}
+
+	private static void assertAscending(int[] rows) {
+		for (int i = 1; i < rows.length; ++i)
+			assertTrue(rows[i - 1] < rows[i]);
+	}
+
+	private static void assertContains(int[] rows, int row) {
+		assertTrue(Arrays.binarySearch(rows, row) >= 0);
+	}
+}
@@ -0,0 +1,149 @@
+package eu.webtoolkit.jwt.chart;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import eu.webtoolkit.jwt.Configuration;
+import eu.webtoolkit.jwt.WApplication;
+import eu.webtoolkit.jwt.WCanvasPaintDevice;
+import eu.webtoolkit.jwt.WLength;
+import eu.webtoolkit.jwt.WPainterPath;
+import eu.webtoolkit.jwt.WTestEnvironment;
+
+public class StreamingCurvesTest {
+	private WTestEnvironment env;
+	private WStreamingChartModel model;
+	private WCartesianChart chart;
+	private WDataSeries series;
+
+	@Before
+	public void setUp() {
+		env = new WTestEnvironment(new Configuration());
+		new WApplication(env);
+
+		model = new WStreamingChartModel(2, 5);
+		chart = new WCartesianChart(ChartType.Scatter);
+		chart.setModel(model);
+		chart.setXSeriesColumn(0);
+		chart.setZoomEnabled(true);
+		chart.getAxis(Axis.X).setRange(0, 100);
+		chart.getAxis(Axis.Y).setRange(0, 100);
+		chart.resize(new WLength(400), new WLength(300));
+		series = new WDataSeries(1, SeriesType.Line);
+		chart.addSeries(series);
+	}
+
+	@After
+	public void tearDown() {
+		env.close();
+	}
+
+	@Test
+	public void testAppend() {
+		model.addRow(1, 10);
+		model.addRow(2, 20);
+		model.addRow(3, 30);
+		StreamingCurves curves = paint();
+
+		model.addRow(4, 40);
+		model.addRow(5, 50);
+		String js = curves.update();
+
+		assertEquals(0, getDropped(js));
+		assertEquals(2, getPointCount(js));
+		assertTrue(js.contains(",1],["));
+		assertPathPainted();
+
+		assertEquals("", curves.update());
+	}
+
+	@Test
+	public void testWrapAround() {
+		for (int i = 1; i <= 5; ++i)
+			model.addRow(i, i * 10);
+		StreamingCurves curves = paint();
+
+		model.addRow(6, 60);
+		model.addRow(7, 70);
+		String js = curves.update();
+
+		assertEquals(2, getDropped(js));
+		assertEquals(2, getPointCount(js));
+		assertPathPainted();
+
+		// a row without a point breaks the curve, the next point is a move
+		model.addRow(8, Double.NaN);
+		model.addRow(9, 90);
+		js = curves.update();
+
+		assertEquals(2, getDropped(js));
+		assertEquals(1, getPointCount(js));
+		assertTrue(js.contains(",0]]"));
+		assertPathPainted();
+	}
+
+	@Test
+	public void testFullRepaint() {
+		for (int i = 1; i <= 3; ++i)
+			model.addRow(i, i * 10);
+		StreamingCurves curves = paint();
+
+		// more rows than fit in the window
+		for (int i = 4; i <= 10; ++i)
+			model.addRow(i, i * 10);
+		assertNull(curves.update());
+
+		curves = paint();
+		model.setHeaderData(1, "y");
+		assertNull(curves.update());
+
+		curves = paint();
+		series.setMarker(MarkerType.Circle);
+		assertNull(curves.update());
+		assertNull(paint());
+
+		series.setMarker(MarkerType.None);
+		chart.getAxis(Axis.Y).setAutoLimits(AxisValue.Maximum);
+		assertNull(paint());
+	}
+
+	private StreamingCurves paint() {
+		chart.paintEvent(new WCanvasPaintDevice(new WLength(400), new WLength(300)));
+		return StreamingCurves.create(chart);
+	}
+
+	/*
+	 * Checks that the curve that was updated is the curve of a full repaint.
+	 */
+	private void assertPathPainted() {
+		List<WPainterPath.Segment> updated = chart.curvePaths_.get(series).getValue().getSegments();
+		assertNotNull(paint());
+		List<WPainterPath.Segment> painted = chart.curvePaths_.get(series).getValue().getSegments();
+
+		assertEquals(painted.size(), updated.size());
+		for (int i = 0; i < painted.size(); ++i) {
+			assertEquals(painted.get(i).getType(), updated.get(i).getType());
+			assertEquals(painted.get(i).getX(), updated.get(i).getX(), 1E-6);
+			assertEquals(painted.get(i).getY(), updated.get(i).getY(), 1E-6);
+		}
+	}
+
+	private static int getDropped(String js) {
+		String call = js.substring(js.indexOf("u(") + 2);
+		String[] args = call.split(",", 3);
+		return Integer.parseInt(args[1]);
+	}
+
+	private static int getPointCount(String js) {
+		String points = js.substring(js.indexOf(",[") + 1, js.indexOf("]);"));
+		return points.equals("[") ? 0 : points.split("\\],\\[").length;
+	}
+}
@@ -0,0 +1,58 @@
+package eu.webtoolkit.jwt.chart;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import eu.webtoolkit.jwt.WException;
+
+public class WColumnarChartModelTest {
+	@Test
+	public void testColumns() {
+		WColumnarChartModel model = new WColumnarChartModel();
+		model.addColumn(new long[] { 1000, 2000, 3000, 4000 });
+		model.addColumn(new double[] { 0.5, 1.5, Double.NaN, 3.5 });
+		model.setHeaderData(1, "Value");
+
+		assertEquals(2, model.getColumnCount());
+		assertEquals(4, model.getRowCount());
+		assertEquals(2000.0, model.getData(1, 0), 0.0);
+		assertEquals("3000", model.getDisplayData(2, 0).toString());
+		assertEquals("Value", model.getHeaderData(1).toString());
+
+		double[] result = new double[2];
+		model.getColumn(0, 2, 4, result);
+		assertArrayEquals(new double[] { 3000, 4000 }, result, 0.0);
+		model.getColumn(1, 1, 3, result);
+		assertArrayEquals(new double[] { 1.5, Double.NaN }, result, 0.0);
+
+		model.setData(3, 1, 7.0);
+		assertEquals(7.0, model.getData(3, 1), 0.0);
+	}
+
+	@Test
+	public void testColumnExtremes() {
+		double[] values = new double[1000];
+		for (int i = 0; i < values.length; ++i)
+			values[i] = i % 2 == 0 ? i : -i;
+		values[10] = Double.NaN;
+
+		WColumnarChartModel model = new WColumnarChartModel();
+		model.addColumn(values);
+		assertArrayEquals(new double[] { -999, 998, 2 }, model.getColumnExtremes(0), 0.0);
+
+		model.setData(999, 0, 5000);
+		assertArrayEquals(new double[] { -997, 5000, 2 }, model.getColumnExtremes(0), 0.0);
+
+		model.setData(2, 0, 0.5);
+		assertArrayEquals(new double[] { -997, 5000, 0.5 }, model.getColumnExtremes(0), 0.0);
+	}
+
+	@Test(expected = WException.class)
+	public void testRowCountMismatch() {
+		WColumnarChartModel model = new WColumnarChartModel();
+		model.addColumn(new double[] { 1, 2, 3 });
+		model.addColumn(new double[] { 1, 2 });
+	}
+}
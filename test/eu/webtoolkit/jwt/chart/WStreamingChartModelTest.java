@@ -0,0 +1,41 @@
+package eu.webtoolkit.jwt.chart;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import eu.webtoolkit.jwt.WException;
+
+public class WStreamingChartModelTest {
+	@Test
+	public void testRingBuffer() {
+		WStreamingChartModel model = new WStreamingChartModel(2, 3);
+		model.addRow(1, 10);
+		model.addRow(2, 20);
+		assertEquals(2, model.getRowCount());
+		assertEquals(20.0, model.getData(1, 1), 0.0);
+
+		model.addRow(3, 30);
+		model.addRow(4, 40);
+		model.addRow(5, 50);
+		assertEquals(3, model.getRowCount());
+		assertEquals(5, model.getAppendedRowCount());
+		assertEquals(3.0, model.getData(0, 0), 0.0);
+		assertEquals(50.0, model.getData(2, 1), 0.0);
+
+		double[] result = new double[3];
+		model.getColumn(1, 0, 3, result);
+		assertArrayEquals(new double[] { 30, 40, 50 }, result, 0.0);
+		assertArrayEquals(new double[] { 30, 50, 30 }, model.getColumnExtremes(1), 0.0);
+
+		model.clear();
+		assertEquals(0, model.getRowCount());
+		assertEquals(5, model.getAppendedRowCount());
+	}
+
+	@Test(expected = WException.class)
+	public void testRowLength() {
+		new WStreamingChartModel(2, 10).addRow(1);
+	}
+}